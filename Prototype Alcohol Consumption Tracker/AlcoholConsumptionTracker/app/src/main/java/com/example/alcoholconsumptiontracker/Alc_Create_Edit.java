@@ -29,11 +29,11 @@ import android.widget.Toast;
 
 import com.example.alcoholconsumptiontracker.system.DrinkTemplate;
 import com.example.alcoholconsumptiontracker.system.DrinkType;
+import com.example.alcoholconsumptiontracker.system.StoredFileOutputStream;
 import com.example.alcoholconsumptiontracker.system.Universals;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -379,8 +379,8 @@ public class Alc_Create_Edit extends Fragment {
         // If there is  path associated with the image, set the source of the template
         if (!Alc_Create_Edit.templateEditing.GetImageFilePath().equals(Universals.General.EmptyString())){
             Alc_Create_Edit.templateImage.setImageAlpha(255);
-            Alc_Create_Edit.templateImage.setImageURI(Uri.fromFile(
-                    new File(Alc_Create_Edit.templateEditing.GetImageFilePath())
+            Alc_Create_Edit.templateImage.setImageBitmap(MainActivity.LoadImage(
+                    Alc_Create_Edit.templateEditing.GetImageFilePath()
             ));
         }
         else{
@@ -539,14 +539,13 @@ public class Alc_Create_Edit extends Fragment {
                         }
                         fileName = fileName + i + ".png";
 
-                        // Save the bitmap to internal storage as an image
+                        // Save the bitmap to internal storage as an image. It only appears
+                        //  once it's complete, so encrypting stored files can't catch it part written.
                         File imageDir = MainActivity.GetDatabaseManager().GetImageDirectory();
                         File newImagefile = new File(imageDir, fileName);
-                        try{
-                            FileOutputStream out = new FileOutputStream(newImagefile);
+                        try (StoredFileOutputStream out = new StoredFileOutputStream(newImagefile)){
                             imageInput.compress(Bitmap.CompressFormat.PNG, 90, out);
-                            out.flush();
-                            out.close();
+                            out.Commit();
                         } catch (IOException e) {
                             Alc_Create_Edit.GetTemplateImage().setImageAlpha(0);
                             throw new RuntimeException(e);
@@ -558,7 +557,7 @@ public class Alc_Create_Edit extends Fragment {
                         File test = new File(newImagefile.getAbsolutePath());
 
                         // Retrieve the file and load to template image
-                        Bitmap newTemplateImageFile = BitmapFactory.decodeFile(newImagefile.getAbsolutePath());
+                        Bitmap newTemplateImageFile = MainActivity.LoadImage(newImagefile.getAbsolutePath());
                         Alc_Create_Edit.GetTemplateImage().setImageAlpha(255);
                         Alc_Create_Edit.GetTemplateImage().setImageBitmap(newTemplateImageFile);
 
@@ -4,7 +4,6 @@ import android.app.Activity;
 import android.app.TimePickerDialog;
 import android.graphics.Color;
 import android.media.Image;
-import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -31,7 +30,6 @@ import com.example.alcoholconsumptiontracker.system.Universals;
 import com.google.android.material.timepicker.MaterialTimePicker;
 import com.google.android.material.timepicker.TimeFormat;
 
-import java.io.File;
 import java.sql.Time;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -142,8 +140,8 @@ public class Alc_Logging extends Fragment {
             ImageView templateImage = root.findViewById(R.id.drinkLoggingImage);
             if (!Alc_Logging.selectedTemplate.GetImageFilePath().isEmpty()){
                 templateImage.setImageAlpha(255);
-                templateImage.setImageURI(Uri.fromFile(
-                        new File(Alc_Logging.selectedTemplate.GetImageFilePath())
+                templateImage.setImageBitmap(MainActivity.LoadImage(
+                        Alc_Logging.selectedTemplate.GetImageFilePath()
                 ));
             }
             else{
@@ -5,7 +5,6 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
-import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -23,9 +22,11 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 
 import com.example.alcoholconsumptiontracker.system.DrinkTemplate;
+import com.example.alcoholconsumptiontracker.system.DrinkTemplateChange;
+import com.example.alcoholconsumptiontracker.system.DrinkTemplateManager;
+import com.example.alcoholconsumptiontracker.system.DrinkTemplateSnapshot;
 import com.example.alcoholconsumptiontracker.system.Universals;
 
-import java.io.File;
 
 public class Alc_Programming extends Fragment {
 
@@ -48,6 +49,9 @@ public class Alc_Programming extends Fragment {
     private static ImageView helpSquare;
     private static TextView helpTextbox;
 
+    // Represents the listener that refreshes the template list when templates change
+    private static DrinkTemplateManager.TemplateChangeListener templateChangeListener;
+
     // Represents whether the app is programming a template by creating a new one or editing an existing one
     public enum ProgrammingMode {
         NONE,
@@ -100,18 +104,31 @@ public class Alc_Programming extends Fragment {
 
         // Initialize alc programming list view and help box
         Alc_Programming.alcProgrammingListView = root.findViewById(R.id.alc_programming_selected_template);
-        // If template exist, populate the listview. Otherwise, display the help text
-        if (!MainActivity.GetDrinkTemplateManager().GetTemplateList().isEmpty()){
-            Alc_Programming.alcProgrammingListView.setVisibility(View.VISIBLE);
-            Alc_Programming.helpSquare.setVisibility(View.INVISIBLE);
-            Alc_Programming.helpTextbox.setVisibility(View.INVISIBLE);
-            Alc_Programming.alcProgrammingListView.setAdapter(new Alc_Programming.alcProgrammingListAdapter(MainActivity.GetContentView().getContext()));
-        }
-        else{
-            Alc_Programming.alcProgrammingListView.setVisibility(View.INVISIBLE);
-            Alc_Programming.helpSquare.setVisibility(View.VISIBLE);
-            Alc_Programming.helpTextbox.setVisibility(View.VISIBLE);
+        this.RefreshTemplateList();
+
+        // Refresh the list when templates change rather than reloading the fragment.
+        //  Changes may be made off the UI thread, so the refresh is posted to the list view.
+        if (Alc_Programming.templateChangeListener != null){
+            MainActivity.GetDrinkTemplateManager().RemoveTemplateChangeListener(Alc_Programming.templateChangeListener);
         }
+        Alc_Programming.templateChangeListener = new DrinkTemplateManager.TemplateChangeListener() {
+            @Override
+            public void OnTemplateChanged(DrinkTemplateChange change) {
+                final ListView listView = Alc_Programming.alcProgrammingListView;
+                if (listView == null) return;
+                listView.post(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                if (Alc_Programming.alcProgrammingListView == listView){
+                                    Alc_Programming.this.RefreshTemplateList();
+                                }
+                            }
+                        }
+                );
+            }
+        };
+        MainActivity.GetDrinkTemplateManager().AddTemplateChangeListener(Alc_Programming.templateChangeListener);
 
         // Initialize alc create button
         Alc_Programming.alcProgrammingSendToAlcCreate = root.findViewById(R.id.alcProgrammingCreateDrink);
@@ -143,6 +160,17 @@ public class Alc_Programming extends Fragment {
         return root;
     }
 
+    @Override
+    public void onDestroyView() {
+        // Stop refreshing the list once its view is gone
+        if (Alc_Programming.templateChangeListener != null){
+            MainActivity.GetDrinkTemplateManager().RemoveTemplateChangeListener(Alc_Programming.templateChangeListener);
+            Alc_Programming.templateChangeListener = null;
+        }
+        Alc_Programming.alcProgrammingListView = null;
+        super.onDestroyView();
+    }
+
 
 
     ///
@@ -188,6 +216,33 @@ public class Alc_Programming extends Fragment {
     ///  Methods
     ///
     /// <summary>
+    ///  Shows the current templates in the list view, or the help text if there are none.
+    ///     An existing list adapter is given the latest snapshot rather than being replaced,
+    ///     so the list keeps its scroll position.
+    /// </summary>
+    private void RefreshTemplateList(){
+        // If templates exist, populate the listview. Otherwise, display the help text
+        DrinkTemplateSnapshot templates = MainActivity.GetDrinkTemplateManager().GetSnapshot();
+        if (!templates.IsEmpty()){
+            Alc_Programming.alcProgrammingListView.setVisibility(View.VISIBLE);
+            Alc_Programming.helpSquare.setVisibility(View.INVISIBLE);
+            Alc_Programming.helpTextbox.setVisibility(View.INVISIBLE);
+            if (Alc_Programming.alcProgrammingListView.getAdapter() instanceof alcProgrammingListAdapter){
+                ((alcProgrammingListAdapter)Alc_Programming.alcProgrammingListView.getAdapter()).SetTemplateList(templates);
+            }
+            else {
+                Alc_Programming.alcProgrammingListView.setAdapter(
+                        new Alc_Programming.alcProgrammingListAdapter(MainActivity.GetContentView().getContext(), templates)
+                );
+            }
+        }
+        else{
+            Alc_Programming.alcProgrammingListView.setVisibility(View.INVISIBLE);
+            Alc_Programming.helpSquare.setVisibility(View.VISIBLE);
+            Alc_Programming.helpTextbox.setVisibility(View.VISIBLE);
+        }
+    }
+    /// <summary>
     ///  Assumes a row object of type shown in alc_select_list_item.xml
     ///     Adjusts row content to show the row is selected.
     ///     *Note, if the type isn't a row from alc_select_list_item.xml, the method will
@@ -219,20 +274,27 @@ public class Alc_Programming extends Fragment {
 
         private Context listContext;
         private LayoutInflater inflater;
-        private DrinkTemplate[] templateList;
+        private DrinkTemplateSnapshot templateList;
 
         public alcProgrammingListAdapter(Context context) {
-            this.templateList = MainActivity.GetDrinkTemplateManager().GetTemplateList().values().toArray(new DrinkTemplate[0]);
+            this.templateList = MainActivity.GetDrinkTemplateManager().GetSnapshot();
             this.listContext = context;
         }
 
-        public alcProgrammingListAdapter(Context context, DrinkTemplate[] templateList) {
+        public alcProgrammingListAdapter(Context context, DrinkTemplateSnapshot templateList) {
             this.templateList = templateList;
             this.listContext = context;
         }
 
+        // Shows a newer snapshot of the templates
+        public void SetTemplateList(DrinkTemplateSnapshot templateList) {
+            if (templateList.GetVersion() == this.templateList.GetVersion()) return;
+            this.templateList = templateList;
+            this.notifyDataSetChanged();
+        }
+
         public int getCount() {
-            return this.templateList.length;
+            return this.templateList.Size();
         }
 
         public Object getItem(int arg0) {
@@ -254,6 +316,9 @@ public class Alc_Programming extends Fragment {
             View row;
             row = inflater.inflate(R.layout.alc_programming_list_item, parent, false);
 
+            // A template that can't be read from its file is left blank
+            if (this.templateList.Get(position) == null) return row;
+
             TextView drinkName;
             TextView drinkType;
             TextView drinkServings;
@@ -266,26 +331,26 @@ public class Alc_Programming extends Fragment {
             // Name
             drinkName = (TextView) row.findViewById(R.id.alcProgrammingTemplateName);
             drinkName.setText(
-                    this.templateList[position].GetName()
+                    this.templateList.Get(position).GetName()
             );
 
             // Type
             drinkType = (TextView) row.findViewById(R.id.alcProgrammingTemplateType);
             drinkType.setText(
-                    this.templateList[position].GetType().Get()
+                    this.templateList.Get(position).GetType().Get()
             );
 
             // Servings
             drinkServings = (TextView) row.findViewById(R.id.alcProgrammingTemplateServings);
             drinkServings.setText(
-                    Short.toString(this.templateList[position].GetServings())
+                    Short.toString(this.templateList.Get(position).GetServings())
             );
 
             // Calories
             drinkCalories = (TextView) row.findViewById(R.id.alcProgrammingTemplateCalories);
             drinkCalories.setText(
                     Double.toString(
-                            Math.round(this.templateList[position].GetCalories() * 100.0) / 100.0
+                            Math.round(this.templateList.Get(position).GetCalories() * 100.0) / 100.0
                     )
             );
 
@@ -293,16 +358,16 @@ public class Alc_Programming extends Fragment {
             drinkPrice = (TextView) row.findViewById(R.id.alcProgrammingTemplatePrice);
             drinkPrice.setText(
                     Double.toString(
-                            Math.round(this.templateList[position].GetPrice() * 100.0) / 100.0
+                            Math.round(this.templateList.Get(position).GetPrice() * 100.0) / 100.0
                     )
             );
 
             // Image
             drinkImage = (ImageView) row.findViewById(R.id.alcProgrammingTemplateImage);
-            if (!this.templateList[position].GetImageFilePath().isEmpty()){
+            if (!this.templateList.Get(position).GetImageFilePath().isEmpty()){
                 drinkImage.setImageAlpha(255);
-                drinkImage.setImageURI(Uri.fromFile(
-                        new File(this.templateList[position].GetImageFilePath())
+                drinkImage.setImageBitmap(MainActivity.LoadImage(
+                        this.templateList.Get(position).GetImageFilePath()
                 ));
             }
             else{
@@ -312,7 +377,7 @@ public class Alc_Programming extends Fragment {
 
             // Edit button
             editDrinkTemplate = (ImageButton)  row.findViewById(R.id.drinkProgrammingTemplateEditButton);
-            editDrinkTemplate.setTag(this.templateList[position].GetName());
+            editDrinkTemplate.setTag(this.templateList.Get(position).GetName());
             editDrinkTemplate.setOnClickListener(
                     new View.OnClickListener() {
                         @Override
@@ -332,7 +397,7 @@ public class Alc_Programming extends Fragment {
 
             // Delete button
             deleteDrinkTemplate = (ImageButton) row.findViewById(R.id.drinkProgrammingTemplateDeleteButton);
-            deleteDrinkTemplate.setTag(this.templateList[position].GetName());
+            deleteDrinkTemplate.setTag(this.templateList.Get(position).GetName());
             deleteDrinkTemplate.setOnClickListener(
                     new View.OnClickListener() {
                         @Override
@@ -356,12 +421,12 @@ public class Alc_Programming extends Fragment {
                                             new DialogInterface.OnClickListener() {
                                                 @Override
                                                 public void onClick(DialogInterface dialog, int which) {
-                                                    // Remove the template
+                                                    // Remove the template. The template change listener
+                                                    //  refreshes the list.
                                                     MainActivity.GetDrinkTemplateManager().RemoveTemplate(
                                                             Alc_Programming.GetSelectedTemplate().GetName()
                                                     );
-                                                    // Force fragment reload
-                                                    MainActivity.ReloadActiveFragment();
+                                                    Alc_Programming.selectedTemplate = null;
                                                 }
                                             }
                                     )
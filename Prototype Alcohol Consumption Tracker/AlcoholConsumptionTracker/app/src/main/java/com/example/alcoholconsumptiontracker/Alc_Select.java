@@ -3,7 +3,6 @@ package com.example.alcoholconsumptiontracker;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.graphics.Color;
-import android.net.Uri;
 import android.os.Bundle;
 
 import androidx.annotation.NonNull;
@@ -22,8 +21,8 @@ import android.widget.RadioButton;
 import android.widget.TextView;
 
 import com.example.alcoholconsumptiontracker.system.DrinkTemplate;
+import com.example.alcoholconsumptiontracker.system.DrinkTemplateSnapshot;
 
-import java.io.File;
 
 /**
  * A simple {@link Fragment} subclass.
@@ -231,20 +230,20 @@ public class Alc_Select extends Fragment {
 
         Context listContext;
         LayoutInflater inflater;
-        DrinkTemplate[] templateList;
+        DrinkTemplateSnapshot templateList;
 
         public alcSelectListAdapter(Context context) {
-            this.templateList = MainActivity.GetDrinkTemplateManager().GetTemplateList().values().toArray(new DrinkTemplate[0]);
+            this.templateList = MainActivity.GetDrinkTemplateManager().GetSnapshot();
             this.listContext = context;
         }
 
-        public alcSelectListAdapter(Context context, DrinkTemplate[] templateList) {
+        public alcSelectListAdapter(Context context, DrinkTemplateSnapshot templateList) {
             this.templateList = templateList;
             this.listContext = context;
         }
 
         public int getCount() {
-            return this.templateList.length;
+            return this.templateList.Size();
         }
 
         public Object getItem(int arg0) {
@@ -267,6 +266,9 @@ public class Alc_Select extends Fragment {
             View row;
             row = inflater.inflate(R.layout.alc_select_list_item, parent, false);
 
+            // A template that can't be read from its file is left blank
+            if (this.templateList.Get(position) == null) return row;
+
             TextView drinkName;
             TextView drinkType;
             TextView drinkServings;
@@ -277,26 +279,26 @@ public class Alc_Select extends Fragment {
             // Name
             drinkName = (TextView) row.findViewById(R.id.alcSelectTemplateName);
             drinkName.setText(
-                    this.templateList[position].GetName()
+                    this.templateList.Get(position).GetName()
             );
 
             // Type
             drinkType = (TextView) row.findViewById(R.id.alcSelectTemplateType);
             drinkType.setText(
-                    this.templateList[position].GetType().Get()
+                    this.templateList.Get(position).GetType().Get()
             );
 
             // Servings
             drinkServings = (TextView) row.findViewById(R.id.alcSelectTemplateServings);
             drinkServings.setText(
-                    Short.toString(this.templateList[position].GetServings())
+                    Short.toString(this.templateList.Get(position).GetServings())
             );
 
             // Calories
             drinkCalories = (TextView) row.findViewById(R.id.alcSelectTemplateCalories);
             drinkCalories.setText(
                     Double.toString(
-                            Math.round(this.templateList[position].GetCalories() * 100.0) / 100.0
+                            Math.round(this.templateList.Get(position).GetCalories() * 100.0) / 100.0
                     )
             );
 
@@ -304,14 +306,14 @@ public class Alc_Select extends Fragment {
             drinkPrice = (TextView) row.findViewById(R.id.alcSelectTemplatePrice);
             drinkPrice.setText(
                     Double.toString(
-                            Math.round(this.templateList[position].GetPrice() * 100.0) / 100.0
+                            Math.round(this.templateList.Get(position).GetPrice() * 100.0) / 100.0
                             )
             );
             drinkImage = (ImageView) row.findViewById(R.id.alcSelectTemplateImage);
-            if (!this.templateList[position].GetImageFilePath().isEmpty()){
+            if (!this.templateList.Get(position).GetImageFilePath().isEmpty()){
                 drinkImage.setImageAlpha(255);
-                drinkImage.setImageURI(Uri.fromFile(
-                        new File(this.templateList[position].GetImageFilePath())
+                drinkImage.setImageBitmap(MainActivity.LoadImage(
+                        this.templateList.Get(position).GetImageFilePath()
                 ));
             }
             else{
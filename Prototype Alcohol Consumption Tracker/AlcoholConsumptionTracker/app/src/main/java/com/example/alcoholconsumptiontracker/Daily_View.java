@@ -27,6 +27,11 @@ import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import com.example.alcoholconsumptiontracker.system.ConsumptionTime;
+import com.example.alcoholconsumptiontracker.system.Drink;
 
 
 public class Daily_View extends Fragment {
@@ -65,6 +70,12 @@ public class Daily_View extends Fragment {
     private LineChart lineChart;
     private TextView totalTextView;
     private ImageButton buttonCalories, buttonUnits, buttonBAC, buttonMoney;
+    private List<Drink> nightDrinks;
+    private long nightStart;
+
+    // Hours the chart begins at and ends before (3pm to 4am)
+    private static final int NIGHT_START_HOUR = 15;
+    private static final int NIGHT_END_HOUR = 4;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -77,6 +88,7 @@ public class Daily_View extends Fragment {
         EditText editTextDate = view.findViewById(R.id.editTextDate2);
         String currentDate = new SimpleDateFormat("MM/dd/yyyy", Locale.getDefault()).format(new Date());
         editTextDate.setText(currentDate);
+        loadNightDrinks();
 
         // Find views
         lineChart = view.findViewById(R.id.lineChart);
@@ -161,39 +173,11 @@ public class Daily_View extends Fragment {
     }
 
     private ArrayList<Entry> getCaloriesData() {
-        ArrayList<Entry> values = new ArrayList<>();
-        values.add(new Entry(1, 0));
-        values.add(new Entry(2, 0));
-        values.add(new Entry(3, 0));
-        values.add(new Entry(4, 0));
-        values.add(new Entry(5, 0));
-        values.add(new Entry(6, 0));
-        values.add(new Entry(7, 200));
-        values.add(new Entry(8, 155));
-        values.add(new Entry(9, 0));
-        values.add(new Entry(10, 150));
-        values.add(new Entry(11, 0));
-        values.add(new Entry(12, 150));
-        values.add(new Entry(13, 0));
-        return values;
+        return toEntries(sumByHour("calories"));
     }
 
     private ArrayList<Entry> getUnitsData() {
-        ArrayList<Entry> values = new ArrayList<>();
-        values.add(new Entry(1, 0));
-        values.add(new Entry(2, 0));
-        values.add(new Entry(3, 0));
-        values.add(new Entry(4, 0));
-        values.add(new Entry(5, 0));
-        values.add(new Entry(6, 0));
-        values.add(new Entry(7, 2));
-        values.add(new Entry(8, 1));
-        values.add(new Entry(9, 0));
-        values.add(new Entry(10, 2));
-        values.add(new Entry(11, 0));
-        values.add(new Entry(12, 1));
-        values.add(new Entry(13, 0));
-        return values;
+        return toEntries(sumByHour("units"));
     }
 
     private ArrayList<Entry> getBACData() {
@@ -215,20 +199,42 @@ public class Daily_View extends Fragment {
     }
 
     private ArrayList<Entry> getMoneyData() {
+        return toEntries(sumByHour("money"));
+    }
+
+    // Queries the drinks logged tonight, from 3pm until the 3am hour ends. Before 4am,
+    // tonight began yesterday.
+    private void loadNightDrinks() {
+        long now = ConsumptionTime.Now();
+        long day = ConsumptionTime.GetLocalEpochDay(now);
+        if (ConsumptionTime.GetHour(now) < NIGHT_END_HOUR) day--;
+        nightStart = ConsumptionTime.FromLocal(day, NIGHT_START_HOUR, 0, TimeZone.getDefault());
+        nightDrinks = MainActivity.GetDrinksBetween(
+                nightStart,
+                ConsumptionTime.FromLocal(day + 1, NIGHT_END_HOUR, 0, TimeZone.getDefault())
+        );
+    }
+
+    // Sums a value of tonight's drinks into the hour each was drunk
+    private float[] sumByHour(String dataset) {
+        float[] totals = new float[24 - NIGHT_START_HOUR + NIGHT_END_HOUR];
+        for (Drink drink : nightDrinks) {
+            long minutes = ConsumptionTime.GetEpochMinutes(drink.GetConsumedAt()) - ConsumptionTime.GetEpochMinutes(nightStart);
+            int hour = (int) (minutes / ConsumptionTime.MinutesPerHour);
+            if (minutes < 0 || hour >= totals.length) continue;
+            if (dataset.equals("calories")) totals[hour] += drink.GetCalories();
+            else if (dataset.equals("units")) totals[hour] += drink.GetServings();
+            else if (dataset.equals("money")) totals[hour] += drink.GetPrice();
+        }
+        return totals;
+    }
+
+    // Converts hourly totals to chart entries, one per hour starting at 1
+    private ArrayList<Entry> toEntries(float[] totals) {
         ArrayList<Entry> values = new ArrayList<>();
-        values.add(new Entry(1, 0));
-        values.add(new Entry(2, 0));
-        values.add(new Entry(3, 0));
-        values.add(new Entry(4, 0));
-        values.add(new Entry(5, 0));
-        values.add(new Entry(6, 0));
-        values.add(new Entry(7, 5.12F));
-        values.add(new Entry(8, 10));
-        values.add(new Entry(9, 0));
-        values.add(new Entry(10, 0));
-        values.add(new Entry(11, 23.99F));
-        values.add(new Entry(12, 0));
-        values.add(new Entry(13, 0));
+        for (int hour = 0; hour < totals.length; hour++) {
+            values.add(new Entry(hour + 1, totals[hour]));
+        }
         return values;
     }
 
@@ -2,7 +2,6 @@ package com.example.alcoholconsumptiontracker;
 
 import android.content.Context;
 import android.content.DialogInterface;
-import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -19,7 +18,6 @@ import androidx.fragment.app.Fragment;
 import com.example.alcoholconsumptiontracker.system.Drink;
 import com.example.alcoholconsumptiontracker.system.DrinkTemplate;
 
-import java.io.File;
 
 public class Drink_Tab extends Fragment {
 
@@ -201,8 +199,8 @@ public class Drink_Tab extends Fragment {
             drinkImage = (ImageView) row.findViewById(R.id.drinkTabListItemImage);
             if (!this.drinkList[position].GetImageFilePath().isEmpty()){
                 drinkImage.setImageAlpha(255);
-                drinkImage.setImageURI(Uri.fromFile(
-                        new File(this.drinkList[position].GetImageFilePath())
+                drinkImage.setImageBitmap(MainActivity.LoadImage(
+                        this.drinkList[position].GetImageFilePath()
                 ));
             }
             else{
@@ -230,7 +228,7 @@ public class Drink_Tab extends Fragment {
                                                 @Override
                                                 public void onClick(DialogInterface dialog, int which) {
                                                     // Remove the template
-                                                    MainActivity.GetDrinkList().remove(Drink_Tab.GetSelectedDrinkPosition());
+                                                    MainActivity.RemoveDrinkFromDrinkList(Drink_Tab.GetSelectedDrinkPosition());
                                                     // Force fragment reload
                                                     MainActivity.ReloadActiveFragment();
                                                 }
@@ -1,14 +1,26 @@
 package com.example.alcoholconsumptiontracker;
 
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
 
 
 import com.example.alcoholconsumptiontracker.system.DatabaseManager;
 import com.example.alcoholconsumptiontracker.system.Drink;
+import com.example.alcoholconsumptiontracker.system.DrinkColumnList;
+import com.example.alcoholconsumptiontracker.system.DrinkHistory;
+import com.example.alcoholconsumptiontracker.system.DrinkLog;
 import com.example.alcoholconsumptiontracker.system.DrinkTemplate;
+import com.example.alcoholconsumptiontracker.system.DrinkTemplateJournal;
 import com.example.alcoholconsumptiontracker.system.DrinkTemplateManager;
+import com.example.alcoholconsumptiontracker.system.DrinkTotals;
+import com.example.alcoholconsumptiontracker.system.PersistenceScheduler;
+import com.example.alcoholconsumptiontracker.system.StorageMigrator;
 import com.example.alcoholconsumptiontracker.system.Universals;
 import com.example.alcoholconsumptiontracker.ui.home.HomeFragment;
 import com.example.alcoholconsumptiontracker.ui.notifications.NotificationsFragment;
@@ -32,6 +44,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TimeZone;
 
 /// WARNING: Don't create more than one instance of MainActivity
 public class MainActivity extends AppCompatActivity {
@@ -74,8 +87,26 @@ public class MainActivity extends AppCompatActivity {
     ///  Global DrinkTemplateManager
     private static DrinkTemplateManager drinkTemplateManager;
 
-    /// Global Temporary DrinkList (later to be given to date system)
-    private static List<Drink> drinkList;
+    /// Represents whether saved templates have been loaded into the template manager, and
+    ///     whether a template save was requested before they were. Until they're loaded,
+    ///     saving would write a partial list over the template list file, so saves wait.
+    ///     Only used on the main thread.
+    private static boolean drinkTemplatesLoaded = false;
+    private static boolean drinkTemplateSavePending = false;
+
+    /// Global DrinkList, the drinks logged in the app this month. Stored by column, so
+    ///  summing it doesn't touch a drink object per drink.
+    private static DrinkColumnList drinkList;
+
+    ///  Global DrinkHistory. Stores drinks from past months. Null until loaded.
+    private static DrinkHistory drinkHistory;
+
+    ///  Global DrinkLog. Stores each drink logged or removed. Null until loaded.
+    private static DrinkLog drinkLog;
+
+    ///  Global PersistenceScheduler of the drink log. Flushes the log off the UI thread,
+    ///     apart from template saves so neither replaces the other's waiting write.
+    private static PersistenceScheduler drinkLogScheduler;
 
     /// Represents the current main activity. Used for invoking non-static methods as static methods
     private static MainActivity currentMainActivity;
@@ -84,6 +115,9 @@ public class MainActivity extends AppCompatActivity {
     ///  Global DatabaseManager
     private static DatabaseManager databaseManager;
 
+    ///  Global PersistenceScheduler. Runs saves off the UI thread.
+    private static PersistenceScheduler persistenceScheduler;
+
     ///
     ///  Constructors* (methods ran on creation)
     ///
@@ -118,11 +152,19 @@ public class MainActivity extends AppCompatActivity {
         this.CreateHelperInitializeDatabaseManager();
 
 
+        // Initialize global PersistenceScheduler
+        if (MainActivity.persistenceScheduler == null){
+            MainActivity.persistenceScheduler = new PersistenceScheduler();
+        }
+        if (MainActivity.drinkLogScheduler == null){
+            MainActivity.drinkLogScheduler = new PersistenceScheduler();
+        }
+
         // Initialize global DrinkTemplateManager
         this.CreateHelperInitializeDrinkTemplateManager();
 
-        // Initialize global DrinkList (temporary)
-        MainActivity.drinkList = new ArrayList<Drink>();
+        // Initialize global DrinkList. Logged drinks are added when the drink log loads.
+        MainActivity.drinkList = new DrinkColumnList();
 
 
         // Initialize the bottom navigation menu. Set the home screen as daily_View
@@ -150,17 +192,9 @@ public class MainActivity extends AppCompatActivity {
         });
 
 
-        // Load previously created templates into the template manager if they exist
-        File templateFile = new File(
-                MainActivity.GetDatabaseManager().GetAppRootDirectory(),
-                Universals.FileNames.TemplateListFile + ".xml"
-        );
-        if (templateFile.exists()){
-            MainActivity.drinkTemplateManager.ReadTemplateList(
-                    MainActivity.GetDatabaseManager().GetAppRootDirectory(),
-                    Universals.FileNames.TemplateListFile,
-                    false);
-        }
+        // Bring stored files up to the current version, then load previously created
+        //  templates into the template manager if they exist, and logged drinks
+        this.CreateHelperMigrateAndLoadDrinkTemplates();
 
         MainActivity.ChangeActiveFragment(R.id.home_Fragment, FragmentAnimationType.FADE);
 
@@ -170,6 +204,24 @@ public class MainActivity extends AppCompatActivity {
     }
 
 
+    /// <summary>
+    ///     Runs when the app is no longer visible.
+    ///     Starts any save still waiting in the persistence schedulers, since the app may
+    ///     be killed without further notice after this point. The saves run on the
+    ///     schedulers' I/O threads, so slow storage doesn't hold up the UI thread.
+    /// </summary>
+    @Override protected void onStop(){
+
+        if (MainActivity.persistenceScheduler != null){
+            MainActivity.persistenceScheduler.RequestFlush();
+        }
+        if (MainActivity.drinkLogScheduler != null){
+            MainActivity.drinkLogScheduler.RequestFlush();
+        }
+
+        super.onStop();
+    }
+
     /// <summary>
     ///     Runs when the app is killed.
     ///     Saves templates created in the app.
@@ -217,10 +269,15 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /// <summary>
-    ///    Initializes the global database manager
+    ///    Initializes the global database manager. Enables encrypted storage if it's
+    ///     turned on, or if a storage key was created on an earlier start, so files
+    ///     already encrypted can be read.
     /// </summary>
     private void CreateHelperInitializeDatabaseManager(){
         MainActivity.databaseManager = new DatabaseManager(this.getBaseContext());
+        if (Universals.General.EncryptStorage || MainActivity.databaseManager.HasStorageKey()){
+            MainActivity.databaseManager.EnableEncryption();
+        }
     }
 
     /// <summary>
@@ -228,6 +285,196 @@ public class MainActivity extends AppCompatActivity {
     /// </summary>
     private void CreateHelperInitializeDrinkTemplateManager(){
         MainActivity.drinkTemplateManager = new DrinkTemplateManager();
+        MainActivity.drinkTemplatesLoaded = false;
+        MainActivity.drinkTemplateSavePending = false;
+    }
+
+    /// <summary>
+    ///     Migrates the app's stored files to the current schema version, then loads
+    ///     templates and logged drinks. If the files are current, they load right away. Otherwise the
+    ///     migration runs in the background so the first frame isn't held up, its progress
+    ///     is logged, and templates load on the main thread once it completes. Screens
+    ///     showing templates are updated through the template change feed when they load.
+    ///     Templates still load if the migration fails, since every earlier format can
+    ///     still be read. The failed step runs again next start.
+    ///     If storage is encrypted and files are still stored as plaintext, they're encrypted
+    ///     in the background after migrating, before the template journal is opened.
+    ///     Nothing else rewrites stored files until then: template and log writes wait for
+    ///     the load, and images are written whole through StoredFileOutputStream.
+    ///     Templates only load in the background when there's migrating or encrypting to do.
+    /// </summary>
+    private void CreateHelperMigrateAndLoadDrinkTemplates(){
+        StorageMigrator storageMigrator = MainActivity.GetDatabaseManager().GetStorageMigrator();
+        if (storageMigrator == null
+                || (!storageMigrator.IsMigrationNeeded() && !MainActivity.GetDatabaseManager().HasPlaintextStoredFiles())){
+            this.CreateHelperLoadDrinkTemplates();
+            this.CreateHelperLoadDrinkLog();
+            return;
+        }
+
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        storageMigrator.MigrateInBackground(new StorageMigrator.ProgressListener() {
+            @Override
+            public void OnProgress(int fromVersion, int toVersion, float fraction) {
+                Log.d(
+                        Universals.StatisticMessages.StatisticMessageTag,
+                        Universals.StatisticMessages.MigrationProgressMessage(fromVersion, toVersion, fraction)
+                );
+            }
+
+            @Override
+            public void OnComplete(boolean success, int schemaVersion) {
+                Log.d(
+                        Universals.StatisticMessages.StatisticMessageTag,
+                        Universals.StatisticMessages.MigrationCompleteMessage(success, schemaVersion)
+                );
+                if (DatabaseManager.IsEncryptionEnabled()){
+                    MainActivity.GetDatabaseManager().EncryptStoredFiles();
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        MainActivity.this.CreateHelperLoadDrinkTemplates();
+                        MainActivity.this.CreateHelperLoadDrinkLog();
+                    }
+                });
+            }
+        });
+    }
+
+    /// <summary>
+    ///     Loads previously saved templates into the global drink template manager.
+    ///     Templates are stored in the binary template list format and are read in catalog
+    ///     mode, so only template names are read at startup. If only a template
+    ///     list from an older version of the app stored as XML is found, it is read and
+    ///     migrated to the binary format once. The XML file is left in place as a backup
+    ///     and is no longer read after the binary file exists.
+    ///     Changes journaled since the binary file was written are applied afterward, and a
+    ///     journal is attached to record later changes.
+    ///     Templates made before the templates loaded (while files were migrated) are put
+    ///     after the saved ones, replacing any with the same name. A save requested before
+    ///     the templates loaded is requested once they have.
+    /// </summary>
+    private void CreateHelperLoadDrinkTemplates(){
+        File appRootDirectory = MainActivity.GetDatabaseManager().GetAppRootDirectory();
+        List<DrinkTemplate> earlyTemplates = new ArrayList<DrinkTemplate>(
+                MainActivity.drinkTemplateManager.GetTemplateList().values()
+        );
+        File binaryTemplateFile = new File(
+                appRootDirectory,
+                Universals.FileNames.TemplateListFile + Universals.FileNames.BinaryExtension
+        );
+        File xmlTemplateFile = new File(
+                appRootDirectory,
+                Universals.FileNames.TemplateListFile + Universals.FileNames.XMLExtension
+        );
+
+        if (binaryTemplateFile.exists()){
+            // If the file can't be indexed, salvage every intact template from it
+            if (!MainActivity.drinkTemplateManager.ReadTemplateListIndexed(
+                    appRootDirectory,
+                    Universals.FileNames.TemplateListFile)){
+                MainActivity.drinkTemplateManager.RecoverTemplateListBinary(
+                        appRootDirectory,
+                        Universals.FileNames.TemplateListFile,
+                        false
+                );
+            }
+        }
+        else if (xmlTemplateFile.exists()){
+            if (MainActivity.drinkTemplateManager.ReadTemplateListStreaming(
+                    appRootDirectory,
+                    Universals.FileNames.TemplateListFile,
+                    false)){
+                // If the migration fails part way, remove the partial binary file so the
+                //  XML file is read again next start.
+                if (!MainActivity.drinkTemplateManager.WriteTemplateListBinary(
+                        appRootDirectory,
+                        Universals.FileNames.TemplateListFile
+                )){
+                    binaryTemplateFile.delete();
+                }
+            }
+        }
+
+        // Apply template changes journaled since the last snapshot, then journal
+        //  later changes instead of rewriting the template list file.
+        DrinkTemplateJournal journal = new DrinkTemplateJournal(
+                appRootDirectory,
+                Universals.FileNames.TemplateListFile
+        );
+        journal.Replay(MainActivity.drinkTemplateManager);
+        if (journal.Open()){
+            MainActivity.drinkTemplateManager.AttachJournal(journal);
+        }
+        for (DrinkTemplate template : earlyTemplates){
+            if (!MainActivity.drinkTemplateManager.PutTemplate(template)){
+                MainActivity.drinkTemplateManager.ModifyTemplate(template);
+            }
+        }
+
+        MainActivity.drinkTemplatesLoaded = true;
+        if (MainActivity.drinkTemplateSavePending){
+            MainActivity.drinkTemplateSavePending = false;
+            MainActivity.SaveDrinkTemplates();
+        }
+    }
+
+    /// <summary>
+    ///     Loads logged drinks from the drink log into the global drink list, in the order
+    ///     they were logged, and opens the log to store later drinks.
+    ///     Drinks from past months are moved to the drink history, which compacts the log
+    ///     down to this month's drinks. Otherwise the log is compacted if it has built up.
+    ///     If the log couldn't be read whole, it isn't compacted, so the records it couldn't
+    ///     read are kept.
+    ///     Drinks logged before the log loaded (while files were migrated) are stored
+    ///     after the ones already logged.
+    /// </summary>
+    private void CreateHelperLoadDrinkLog(){
+        DrinkLog log = new DrinkLog(
+                MainActivity.GetDatabaseManager().GetAppRootDirectory(),
+                Universals.FileNames.DrinkLogFile
+        );
+        DrinkHistory history = new DrinkHistory(
+                MainActivity.GetDatabaseManager().GetAppRootDirectory(),
+                Universals.FileNames.DrinkHistoryFile
+        );
+        List<Drink> loggedDrinks = new ArrayList<Drink>();
+        List<Drink> pastDrinks = new ArrayList<Drink>();
+        List<Drink> currentDrinks = new ArrayList<Drink>();
+        long monthStart = DrinkHistory.CurrentMonthStart(TimeZone.getDefault());
+        boolean replayed = log.Replay(loggedDrinks);
+        for (Drink drink : loggedDrinks){
+            if (drink.GetConsumedAt() < monthStart) pastDrinks.add(drink);
+            else currentDrinks.add(drink);
+        }
+
+        // If the log couldn't be read whole, compacting it would delete the records it
+        //  couldn't read, so it's left as it is.
+        // The history is written before the log lets go of the drinks, so none are lost. If
+        //  the log can't be compacted, they're moved again next time, replacing themselves.
+        if (!replayed){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.CorruptSegmentsKeptError);
+        }
+        else if (!pastDrinks.isEmpty() && history.AddDrinks(pastDrinks)){
+            log.Compact(currentDrinks);
+            loggedDrinks = currentDrinks;
+        }
+        else if (log.CompactionNeeded()){
+            log.Compact(loggedDrinks);
+        }
+        MainActivity.drinkHistory = history;
+
+        boolean opened = log.Open();
+        for (Drink drink : MainActivity.drinkList){
+            if (opened) log.Append(drink);
+            loggedDrinks.add(drink);
+        }
+        MainActivity.drinkList = new DrinkColumnList(loggedDrinks);
+        if (opened){
+            MainActivity.drinkLog = log;
+            MainActivity.drinkLogScheduler.RequestWrite(log.CreateFlushTask());
+        }
     }
 
     ///
@@ -296,18 +543,59 @@ public class MainActivity extends AppCompatActivity {
         else return MainActivity.drinkTemplateManager;
     }
 
-    // Gets the global drink list
+    // Gets the global drink list. Drinks gotten from it are copies, so it's changed through
+    //  PutDrinkInDrinkList and RemoveDrinkFromDrinkList.
     public static List<Drink> GetDrinkList(){
         return MainActivity.drinkList;
     }
     /// <summary>
-    ///     Puts a drink in the global drink list.
+    ///     Given a range of times of consumption (packed by ConsumptionTime), from
+    ///     (inclusive) to (exclusive), returns every drink logged in the range, from the
+    ///     drink history and the global drink list. Only the history's months that
+    ///     overlap the range are read.
+    /// </summary>
+    public static List<Drink> GetDrinksBetween(long fromConsumedAt, long toConsumedAt){
+        List<Drink> drinks;
+        if (MainActivity.drinkHistory != null) drinks = MainActivity.drinkHistory.Query(fromConsumedAt, toConsumedAt);
+        else drinks = new ArrayList<Drink>();
+        MainActivity.drinkList.AddDrinksBetween(fromConsumedAt, toConsumedAt, drinks);
+        return drinks;
+    }
+    /// <summary>
+    ///     Given a range of times of consumption (packed by ConsumptionTime), from
+    ///     (inclusive) to (exclusive), the local day (days since the epoch) of the first
+    ///     day to sum, and the number of days, returns the totals of the drinks logged in
+    ///     the range on each day, from the drink history and the global drink list. No
+    ///     drinks are made to sum them.
+    /// </summary>
+    public static DrinkTotals[] SumDrinksByDay(long fromConsumedAt, long toConsumedAt, long firstLocalEpochDay, int dayCount){
+        DrinkTotals[] dayTotals = new DrinkTotals[dayCount];
+        DrinkTotals[] listDayTotals = new DrinkTotals[dayCount];
+        for (int i = 0; i < dayCount; i++){
+            dayTotals[i] = new DrinkTotals();
+            listDayTotals[i] = new DrinkTotals();
+        }
+        if (MainActivity.drinkHistory != null){
+            MainActivity.drinkHistory.SumByDay(fromConsumedAt, toConsumedAt, firstLocalEpochDay, dayTotals);
+        }
+        MainActivity.drinkList.SumByDay(fromConsumedAt, toConsumedAt, firstLocalEpochDay, listDayTotals);
+        for (int i = 0; i < dayCount; i++) dayTotals[i].Add(listDayTotals[i]);
+        return dayTotals;
+    }
+    /// <summary>
+    ///     Puts a drink in the global drink list, and appends it to the drink log. The log
+    ///     is forced to disk on the drink log scheduler's thread, so this doesn't wait on
+    ///     storage.
     ///     Returns:
     ///         True if successful
     ///         False otherwise
     /// </summary>
     public static boolean PutDrinkInDrinkList(Drink newDrink){
         try{
+            // Logged first, so the list stores the log ID the log gives the drink
+            if (MainActivity.drinkLog != null && MainActivity.drinkLog.Append(newDrink)){
+                MainActivity.drinkLogScheduler.RequestWrite(MainActivity.drinkLog.CreateFlushTask());
+            }
             MainActivity.drinkList.add(newDrink);
             return true;
         }
@@ -316,7 +604,8 @@ public class MainActivity extends AppCompatActivity {
         }
     }
     /// <summary>
-    ///     Removes a drink from the global drink list by index.
+    ///     Removes a drink from the global drink list by index, and appends a record of its
+    ///     removal to the drink log.
     ///     Returns:
     ///         True if successful
     ///         False otherwise
@@ -327,7 +616,10 @@ public class MainActivity extends AppCompatActivity {
             return false;
         }
         try{
-            MainActivity.drinkList.remove(index);
+            Drink removedDrink = MainActivity.drinkList.remove(index);
+            if (MainActivity.drinkLog != null && MainActivity.drinkLog.AppendRemove(removedDrink)){
+                MainActivity.drinkLogScheduler.RequestWrite(MainActivity.drinkLog.CreateFlushTask());
+            }
             return true;
 
         } catch (Exception e) {
@@ -390,16 +682,27 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /// <summary>
-    ///     Saves all the drink templates in the system to the
+    ///     Requests that all the drink templates in the system be saved to the app's
+    ///     template list file. The save runs on the persistence scheduler's I/O thread, and
+    ///     requests made close together are coalesced into one write.
+    ///     If saved templates haven't loaded yet (files are still being migrated), the save
+    ///     waits and runs once they have, so a partial list never replaces the file and
+    ///     no save runs alongside the migration.
     /// </summary>
     public static void SaveDrinkTemplates(){
         // If the drink template manager and database manager are initialized, save the
         //  drink template manager templates
         if (MainActivity.initialized){
+            if (!MainActivity.drinkTemplatesLoaded){
+                MainActivity.drinkTemplateSavePending = true;
+                return;
+            }
             if (MainActivity.drinkTemplateManager != null && MainActivity.databaseManager != null){
-                MainActivity.GetDrinkTemplateManager().WriteTemplateList(
-                        MainActivity.GetDatabaseManager().GetAppRootDirectory(),
-                        Universals.FileNames.TemplateListFile
+                MainActivity.persistenceScheduler.RequestWrite(
+                        MainActivity.GetDrinkTemplateManager().CreateSaveTask(
+                                MainActivity.GetDatabaseManager().GetAppRootDirectory(),
+                                Universals.FileNames.TemplateListFile
+                        )
                 );
             }
         }
@@ -408,6 +711,19 @@ public class MainActivity extends AppCompatActivity {
         return MainActivity.currentMainActivity;
     }
 
+    /// <summary>
+    ///     Given the file path of a stored image, loads the image, decrypting it if
+    ///     storage is encrypted.
+    ///     Returns null if it couldn't be read.
+    /// </summary>
+    public static Bitmap LoadImage(String imageFilePath){
+        try (InputStream imageStream = DatabaseManager.OpenReadStream(new File(imageFilePath))){
+            return BitmapFactory.decodeStream(imageStream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     /// <summary>
     /// Given hours and minutes, this method produces a string in the form:
     ///     HH:MM A/P
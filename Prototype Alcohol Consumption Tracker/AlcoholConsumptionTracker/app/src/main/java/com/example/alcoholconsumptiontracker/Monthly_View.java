@@ -20,6 +20,10 @@ import android.widget.TextView;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Locale;
+import java.util.TimeZone;
+
+import com.example.alcoholconsumptiontracker.system.ConsumptionTime;
+import com.example.alcoholconsumptiontracker.system.DrinkTotals;
 
 /**
  * A simple {@link Fragment} subclass.
@@ -35,6 +39,8 @@ public class Monthly_View extends Fragment {
     private TextView totalTextView;
     private ImageButton buttonCalories, buttonUnits, buttonBAC, buttonMoney;
     private String activeDataset = "calories";
+    private DrinkTotals[] monthTotals;
+    private long monthStartDay;
 
     public Monthly_View() {
         // Required empty public constructor
@@ -83,6 +89,7 @@ public class Monthly_View extends Fragment {
         // Set current month
         String currentMonth = getCurrentMonth();
         textViewMonth.setText(currentMonth);
+        loadMonthTotals();
 
         // Default table view
         populateCalendar(getCaloriesData(), buttonCalories);
@@ -198,24 +205,52 @@ public class Monthly_View extends Fragment {
 
     }
 
-    // Example data for Calories
+    // Calories drunk each day this month
     private float[] getCaloriesData() {
-        return new float[]{200, 250, 300, 150, 0, 100, 50, 300, 400, 350, 200, 0, 250, 100, 50, 200, 150, 300, 400, 350, 200, 250, 300, 150, 0, 100, 50, 300, 400, 350, 200};
+        return sumByDay("calories");
     }
 
-    // Example data for Units
+    // Units drunk each day this month
     private float[] getUnitsData() {
-        return new float[]{2, 1, 3, 0, 0, 1, 1, 4, 3, 2, 0, 0, 2, 3, 1, 2, 1, 0, 1, 2, 3, 0, 0, 1, 1, 4, 3, 2, 0, 0, 2};
+        return sumByDay("units");
     }
 
-    // Example data for BAC
+    // Example data for BAC (not yet worked out from logged drinks)
     private float[] getBACData() {
         return new float[]{0.05f, 0.06f, 0.08f, 0, 0, 0.07f, 0.11f, 0.06f, 0.08f, 0, 0, 0.07f, 0.05f, 0.06f, 0.12f, 0, 0, 0.07f, 0.05f, 0.06f, 0.08f, 0, 0, 0.07f, 0.05f, 0.06f, 0.08f, 0, 0, 0.13f, 0};
     }
 
-    // Example data for Money
+    // Money spent each day this month
     private float[] getMoneyData() {
-        return new float[]{10, 12, 15, 8, 0, 5, 7, 25, 15, 10, 8, 0, 5, 7, 10, 12, 15, 8, 0, 5, 7, 22, 15, 10, 8, 0, 5, 7, 10, 12, 15};
+        return sumByDay("money");
+    }
+
+    // Sums the drinks logged each day this month
+    private void loadMonthTotals() {
+        long now = ConsumptionTime.Now();
+        int year = ConsumptionTime.GetYear(now);
+        int month = ConsumptionTime.GetMonth(now);
+        monthStartDay = ConsumptionTime.EpochDayOf(year, month, 1);
+        long nextMonthStartDay = month == 12
+                ? ConsumptionTime.EpochDayOf(year + 1, 1, 1)
+                : ConsumptionTime.EpochDayOf(year, month + 1, 1);
+        monthTotals = MainActivity.SumDrinksByDay(
+                ConsumptionTime.FromLocal(monthStartDay, 0, 0, TimeZone.getDefault()),
+                ConsumptionTime.FromLocal(nextMonthStartDay, 0, 0, TimeZone.getDefault()),
+                monthStartDay,
+                31
+        );
+    }
+
+    // Gets a value of this month's drinks summed on each day
+    private float[] sumByDay(String dataset) {
+        float[] totals = new float[monthTotals.length];
+        for (int day = 0; day < totals.length; day++) {
+            if (dataset.equals("calories")) totals[day] = (float) monthTotals[day].GetCalories();
+            else if (dataset.equals("units")) totals[day] = monthTotals[day].GetServings();
+            else if (dataset.equals("money")) totals[day] = (float) monthTotals[day].GetPrice();
+        }
+        return totals;
     }
 
     // Calculates total number of given metric
@@ -28,12 +28,18 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Locale;
+import java.util.TimeZone;
+
+import com.example.alcoholconsumptiontracker.system.ConsumptionTime;
+import com.example.alcoholconsumptiontracker.system.DrinkTotals;
 
 public class Weekly_View extends Fragment {
 
     private LineChart lineChart;
     private TextView totalTextView;
     private ImageButton buttonCalories, buttonUnits, buttonBAC, buttonMoney;
+    private DrinkTotals[] weekTotals;
+    private long weekStartDay;
 
     private static final String ARG_PARAM1 = "param1";
     private static final String ARG_PARAM2 = "param2";
@@ -61,6 +67,7 @@ public class Weekly_View extends Fragment {
         EditText editTextWeekRange = view.findViewById(R.id.editTextWeekRange);
         String weekRange = getCurrentWeekRange();
         editTextWeekRange.setText(weekRange);
+        loadWeekTotals();
 
         // Find views
         lineChart = view.findViewById(R.id.line_chart_w);
@@ -158,27 +165,11 @@ public class Weekly_View extends Fragment {
     }
 
     private ArrayList<Entry> getCaloriesData() {
-        ArrayList<Entry> values = new ArrayList<>();
-        values.add(new Entry(1, 0)); // Sunday
-        values.add(new Entry(2, 0)); // Monday
-        values.add(new Entry(3, 100)); // Tuesday
-        values.add(new Entry(4, 0)); // Wednesday
-        values.add(new Entry(5, 0)); // Thursday
-        values.add(new Entry(6, 350)); // Friday
-        values.add(new Entry(7, 250)); // Saturday
-        return values;
+        return toEntries(sumByDay("calories"));
     }
 
     private ArrayList<Entry> getUnitsData() {
-        ArrayList<Entry> values = new ArrayList<>();
-        values.add(new Entry(1, 0)); // Sunday
-        values.add(new Entry(2, 0)); // Monday
-        values.add(new Entry(3, 1)); // Tuesday
-        values.add(new Entry(4, 0)); // Wednesday
-        values.add(new Entry(5, 0)); // Thursday
-        values.add(new Entry(6, 3)); // Friday
-        values.add(new Entry(7, 2)); // Saturday
-        return values;
+        return toEntries(sumByDay("units"));
     }
 
     private ArrayList<Entry> getBACData() {
@@ -194,14 +185,39 @@ public class Weekly_View extends Fragment {
     }
 
     private ArrayList<Entry> getMoneyData() {
+        return toEntries(sumByDay("money"));
+    }
+
+    // Sums the drinks logged each day this week, which starts on the same day as the week range shown
+    private void loadWeekTotals() {
+        Calendar calendar = Calendar.getInstance();
+        int daysIntoWeek = (calendar.get(Calendar.DAY_OF_WEEK) - calendar.getFirstDayOfWeek() + 7) % 7;
+        weekStartDay = ConsumptionTime.GetLocalEpochDay(ConsumptionTime.Now()) - daysIntoWeek;
+        weekTotals = MainActivity.SumDrinksByDay(
+                ConsumptionTime.FromLocal(weekStartDay, 0, 0, TimeZone.getDefault()),
+                ConsumptionTime.FromLocal(weekStartDay + 7, 0, 0, TimeZone.getDefault()),
+                weekStartDay,
+                7
+        );
+    }
+
+    // Gets a value of this week's drinks summed on each day
+    private float[] sumByDay(String dataset) {
+        float[] totals = new float[weekTotals.length];
+        for (int day = 0; day < totals.length; day++) {
+            if (dataset.equals("calories")) totals[day] = (float) weekTotals[day].GetCalories();
+            else if (dataset.equals("units")) totals[day] = weekTotals[day].GetServings();
+            else if (dataset.equals("money")) totals[day] = (float) weekTotals[day].GetPrice();
+        }
+        return totals;
+    }
+
+    // Converts daily totals to chart entries, one per day starting at 1
+    private ArrayList<Entry> toEntries(float[] totals) {
         ArrayList<Entry> values = new ArrayList<>();
-        values.add(new Entry(1, 0)); // Sunday
-        values.add(new Entry(2, 0)); // Monday
-        values.add(new Entry(3, 5.5F)); // Tuesday
-        values.add(new Entry(4, 0)); // Wednesday
-        values.add(new Entry(5, 0)); // Thursday
-        values.add(new Entry(6, 21)); // Friday
-        values.add(new Entry(7, 18.50F)); // Saturday
+        for (int day = 0; day < totals.length; day++) {
+            values.add(new Entry(day + 1, totals[day]));
+        }
         return values;
     }
 
@@ -0,0 +1,109 @@
+/// <summary>
+///     File: Benchmark.java
+///         Description: Contains the methods used for measuring the performance of different
+///             classes and systems within the app.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+///
+///  Class responsible for running each class's benchmark methods
+///
+public class Benchmark {
+
+    ///
+    ///  Runs all benchmarks present from all classes.
+    ///     Results are printed to LogCat using Log.d under the benchmark message tag.
+    ///  benchmarkContext:
+    ///     The context for which backend functions are benchmarked.
+    ///
+    public static void BenchmarkAll(Context benchmarkContext){
+
+        // Notify begin benchmarking
+        Log.d(Universals.BenchmarkMessages.BenchmarkMessageTag, "-------Begin Benchmarking-------");
+
+        // ---- Backend
+        // StorageCipher Methods
+        StorageCipher.BenchmarkEncryption(benchmarkContext, 50000);
+
+        // ---- Alcohol Logging
+        // DrinkTemplateManager Methods
+        DrinkTemplateManager.BenchmarkReadTemplateList(benchmarkContext, 1000);
+        DrinkTemplateManager.BenchmarkReadTemplateList(benchmarkContext, 10000);
+        DrinkTemplateManager.BenchmarkReadTemplateList(benchmarkContext, 50000);
+        DrinkTemplateManager.BenchmarkReadTemplateListParallel(benchmarkContext, 10000);
+        DrinkTemplateManager.BenchmarkReadTemplateListParallel(benchmarkContext, 100000);
+        DrinkTemplateManager.BenchmarkReadTemplateListParallel(benchmarkContext, 1000000);
+        DrinkTemplateManager.BenchmarkImportTemplates(benchmarkContext, 200000);
+        DrinkTemplateManager.BenchmarkConcurrentAccess(10000, 1000000);
+        DrinkTemplateIndexes.BenchmarkSearchTemplates(200000, 1000);
+        DrinkLog.BenchmarkAppend(benchmarkContext, 100000);
+        DrinkHistory.BenchmarkSumSegment(benchmarkContext, 1000000);
+        DrinkColumnList.BenchmarkSum(1000000);
+
+        // ----
+        // Notify end benchmarking
+        Log.d(Universals.BenchmarkMessages.BenchmarkMessageTag, "-------End Benchmarking-------");
+
+    }
+
+    /// <summary>
+    ///     Returns the number of bytes currently used on the heap after requesting
+    ///     a garbage collection. Used as the baseline of a benchmark case.
+    /// </summary>
+    public static long UsedHeapBytes(){
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    ///
+    ///  Samples heap use on a background thread while a benchmark case runs and
+    ///     keeps the highest value seen.
+    ///     Start before the measured case, Stop after it. Stop returns the peak
+    ///     heap use in bytes.
+    ///
+    public static class HeapSampler implements Runnable{
+
+        private volatile boolean running;
+        private volatile long peakHeapBytes;
+        private Thread samplerThread;
+
+        public void Start(){
+            this.peakHeapBytes = Benchmark.UsedHeapBytes();
+            this.running = true;
+            this.samplerThread = new Thread(this);
+            this.samplerThread.setDaemon(true);
+            this.samplerThread.start();
+        }
+
+        public long Stop(){
+            this.running = false;
+            try{
+                this.samplerThread.join();
+            }
+            catch (InterruptedException ignored){
+                Thread.currentThread().interrupt();
+            }
+            return this.peakHeapBytes;
+        }
+
+        @Override
+        public void run(){
+            Runtime runtime = Runtime.getRuntime();
+            long used;
+            while (this.running){
+                used = runtime.totalMemory() - runtime.freeMemory();
+                if (used > this.peakHeapBytes) this.peakHeapBytes = used;
+                try{
+                    Thread.sleep(1);
+                }
+                catch (InterruptedException e){
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/// <summary>
+///  File: ConsumptionTime.java
+///     Description: Contains the methods of the packed time a drink was drunk, which
+///         carries the date, time, and time zone offset in a single long.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.util.TimeZone;
+
+///
+/// Consumption Time Class
+///     A consumption time is a long packing the minute a drink was drunk and the time zone
+///     offset it was drunk in:
+///         -Upper 56 bits: minutes since the epoch (1970-01-01 00:00 UTC), signed
+///         -Lower 8 bits: the offset from UTC in quarter hours, plus 128
+///     Packed times sort in the order the drinks were drunk, whatever zone each was drunk
+///     in, so drinks can be sorted, range searched, and bucketed by comparing longs. The
+///     local date and time are worked out with integer arithmetic, so no Calendar or Date
+///     object is made per drink.
+///
+public final class ConsumptionTime {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the bits of the offset, and the bias added to it so it's never negative
+    private static final int offsetBits = 8;
+    private static final int offsetMask = 0xFF;
+    private static final int offsetBias = 128;
+
+    // Represents the minutes in an offset step, an hour, and a day
+    private static final int minutesPerOffsetStep = 15;
+    public static final int MinutesPerHour = 60;
+    public static final int MinutesPerDay = 24 * 60;
+    private static final long millisPerMinute = 60 * 1000;
+
+    // Represents the days in 400 years, which the calendar repeats every, and the days from
+    //  0000-03-01 to the epoch
+    private static final long daysPerEra = 146097;
+    private static final long marchFirstOfYearZero = 719468;
+
+    /// <summary>
+    ///  The consumption time of the epoch in UTC, which drinks without a date are given.
+    /// </summary>
+    public static final long Epoch = ConsumptionTime.Pack(0, 0);
+
+    ///
+    /// Constructors
+    ///
+    private ConsumptionTime(){
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given minutes since the epoch and an offset from UTC in minutes, returns the packed
+    ///     consumption time. The offset is rounded down to a quarter hour, which every
+    ///     time zone in use is a whole number of.
+    /// </summary>
+    public static long Pack(long epochMinutes, int offsetMinutes){
+        int offsetSteps = Math.floorDiv(offsetMinutes, ConsumptionTime.minutesPerOffsetStep);
+        return (epochMinutes << ConsumptionTime.offsetBits)
+                | ((offsetSteps + ConsumptionTime.offsetBias) & ConsumptionTime.offsetMask);
+    }
+
+    /// <summary>
+    ///  Given milliseconds since the epoch and a time zone, returns the consumption time
+    ///     of that instant in that zone.
+    /// </summary>
+    public static long FromMillis(long epochMillis, TimeZone zone){
+        return ConsumptionTime.Pack(
+                Math.floorDiv(epochMillis, ConsumptionTime.millisPerMinute),
+                (int)(zone.getOffset(epochMillis) / ConsumptionTime.millisPerMinute)
+        );
+    }
+
+    /// <summary>
+    ///  Returns the consumption time of the current minute in the device's time zone.
+    /// </summary>
+    public static long Now(){
+        return ConsumptionTime.FromMillis(System.currentTimeMillis(), TimeZone.getDefault());
+    }
+
+    /// <summary>
+    ///  Given a local date as days since the epoch, an hour and minute, and a time zone,
+    ///     returns the consumption time of that local time in that zone. A local time
+    ///     skipped by a daylight saving change is moved forward by the change.
+    /// </summary>
+    public static long FromLocal(long localEpochDay, int hour, int minute, TimeZone zone){
+        long localMinutes = localEpochDay * ConsumptionTime.MinutesPerDay
+                + hour * ConsumptionTime.MinutesPerHour + minute;
+        // The offset depends on the instant, so guess it from the local time and correct it
+        long offsetMinutes = zone.getOffset(localMinutes * ConsumptionTime.millisPerMinute)
+                / ConsumptionTime.millisPerMinute;
+        offsetMinutes = zone.getOffset((localMinutes - offsetMinutes) * ConsumptionTime.millisPerMinute)
+                / ConsumptionTime.millisPerMinute;
+        return ConsumptionTime.Pack(localMinutes - offsetMinutes, (int)offsetMinutes);
+    }
+
+    /// <summary>
+    ///  Given a year, month (1 to 12), and day of the month, returns the date as days since
+    ///     the epoch.
+    /// </summary>
+    public static long EpochDayOf(int year, int month, int dayOfMonth){
+        // Count from March, so the leap day is the last day of the year
+        long shiftedYear = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(shiftedYear, 400);
+        long yearOfEra = shiftedYear - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * ConsumptionTime.daysPerEra + dayOfEra - ConsumptionTime.marchFirstOfYearZero;
+    }
+
+    /// <summary>
+    ///  Given a consumption time, an hour, and a minute, returns the consumption time of
+    ///     that hour and minute on the same local date with the same offset.
+    /// </summary>
+    public static long WithTimeOfDay(long consumptionTime, int hour, int minute){
+        int offsetMinutes = ConsumptionTime.GetOffsetMinutes(consumptionTime);
+        long localMinutes = ConsumptionTime.GetLocalEpochDay(consumptionTime) * ConsumptionTime.MinutesPerDay
+                + hour * ConsumptionTime.MinutesPerHour + minute;
+        return ConsumptionTime.Pack(localMinutes - offsetMinutes, offsetMinutes);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    // Minutes since the epoch, in UTC
+    public static long GetEpochMinutes(long consumptionTime){
+        return consumptionTime >> ConsumptionTime.offsetBits;
+    }
+    // Milliseconds since the epoch, in UTC
+    public static long GetEpochMillis(long consumptionTime){
+        return ConsumptionTime.GetEpochMinutes(consumptionTime) * ConsumptionTime.millisPerMinute;
+    }
+    // Offset from UTC in minutes
+    public static int GetOffsetMinutes(long consumptionTime){
+        return ((int)(consumptionTime & ConsumptionTime.offsetMask) - ConsumptionTime.offsetBias)
+                * ConsumptionTime.minutesPerOffsetStep;
+    }
+    // Minutes since the epoch, in local time
+    public static long GetLocalMinutes(long consumptionTime){
+        return ConsumptionTime.GetEpochMinutes(consumptionTime) + ConsumptionTime.GetOffsetMinutes(consumptionTime);
+    }
+    // Local date, as days since the epoch
+    public static long GetLocalEpochDay(long consumptionTime){
+        return Math.floorDiv(ConsumptionTime.GetLocalMinutes(consumptionTime), ConsumptionTime.MinutesPerDay);
+    }
+    // Local hour (military time) and minute
+    public static int GetHour(long consumptionTime){
+        return Math.floorMod(ConsumptionTime.GetLocalMinutes(consumptionTime), ConsumptionTime.MinutesPerDay)
+                / ConsumptionTime.MinutesPerHour;
+    }
+    public static int GetMinute(long consumptionTime){
+        return Math.floorMod(ConsumptionTime.GetLocalMinutes(consumptionTime), ConsumptionTime.MinutesPerHour);
+    }
+    // Local year, month (1 to 12), and day of the month
+    public static int GetYear(long consumptionTime){
+        return ConsumptionTime.LocalDate(consumptionTime) / 10000;
+    }
+    public static int GetMonth(long consumptionTime){
+        return ConsumptionTime.LocalDate(consumptionTime) / 100 % 100;
+    }
+    public static int GetDayOfMonth(long consumptionTime){
+        return ConsumptionTime.LocalDate(consumptionTime) % 100;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns the local date of a consumption time as the decimal number yyyymmdd
+    private static int LocalDate(long consumptionTime){
+        // Count from 0000-03-01, so the leap day is the last day of the year
+        long shiftedDay = ConsumptionTime.GetLocalEpochDay(consumptionTime) + ConsumptionTime.marchFirstOfYearZero;
+        long era = Math.floorDiv(shiftedDay, ConsumptionTime.daysPerEra);
+        long dayOfEra = shiftedDay - era * ConsumptionTime.daysPerEra;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long dayOfMonth = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int)(year * 10000 + month * 100 + dayOfMonth);
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test packing and unpacking consumption times
+    public static void TestPackAndUnpack(boolean printAllMessages){
+
+        long packed;
+        long earlier;
+        long later;
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        TimeZone kolkata = TimeZone.getTimeZone("Asia/Kolkata");
+
+        // Non-exception cases
+        //  -Case 1, epoch minutes and offset are unpacked as packed
+        packed = ConsumptionTime.Pack(28_000_000L, -300);
+        if (ConsumptionTime.GetEpochMinutes(packed) == 28_000_000L
+                && ConsumptionTime.GetOffsetMinutes(packed) == -300){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(true, 1));
+        }
+        else{
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(false, 1));
+        }
+
+        //  -Case 2, local date and time are worked out with the offset. 2024-03-01 23:30
+        //      in India (UTC+5:30) is 18:00 UTC.
+        packed = ConsumptionTime.FromLocal(19783, 23, 30, kolkata);
+        if (ConsumptionTime.GetLocalEpochDay(packed) == 19783
+                && ConsumptionTime.GetHour(packed) == 23
+                && ConsumptionTime.GetMinute(packed) == 30
+                && ConsumptionTime.GetOffsetMinutes(packed) == 330
+                && Math.floorMod(ConsumptionTime.GetEpochMinutes(packed), ConsumptionTime.MinutesPerDay) == 18 * 60){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(true, 2));
+        }
+        else{
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(false, 2));
+        }
+
+        //  -Case 3, packed times sort by instant across zones. 20:00 in New York (UTC-5) is
+        //      after 23:30 the same day in India.
+        earlier = ConsumptionTime.FromLocal(19783, 23, 30, kolkata);
+        later = ConsumptionTime.FromLocal(19783, 20, 0, newYork);
+        if (earlier < later && ConsumptionTime.GetOffsetMinutes(later) == -300){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(true, 3));
+        }
+        else{
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(false, 3));
+        }
+
+        //  -Case 4, daylight saving time is applied. 2024-07-01 12:00 in New York is UTC-4.
+        packed = ConsumptionTime.FromLocal(19905, 12, 0, newYork);
+        if (ConsumptionTime.GetOffsetMinutes(packed) == -240 && ConsumptionTime.GetHour(packed) == 12){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(true, 4));
+        }
+        else{
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(false, 4));
+        }
+
+        //  -Case 5, times before the epoch unpack to the right local date and time
+        packed = ConsumptionTime.WithTimeOfDay(ConsumptionTime.Pack(-1, 0), 6, 45);
+        if (ConsumptionTime.GetLocalEpochDay(packed) == -1
+                && ConsumptionTime.GetHour(packed) == 6
+                && ConsumptionTime.GetMinute(packed) == 45){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(true, 5));
+        }
+        else{
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(false, 5));
+        }
+
+        //  -Case 6, calendar dates convert to and from days since the epoch, across a leap
+        //      day and before the epoch
+        packed = ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 2, 29), 12, 0, kolkata);
+        earlier = ConsumptionTime.Pack((ConsumptionTime.EpochDayOf(1969, 12, 31) * ConsumptionTime.MinutesPerDay), 0);
+        if (ConsumptionTime.EpochDayOf(2024, 3, 1) == 19783
+                && ConsumptionTime.EpochDayOf(1970, 1, 1) == 0
+                && ConsumptionTime.GetYear(packed) == 2024
+                && ConsumptionTime.GetMonth(packed) == 2
+                && ConsumptionTime.GetDayOfMonth(packed) == 29
+                && ConsumptionTime.GetYear(earlier) == 1969
+                && ConsumptionTime.GetMonth(earlier) == 12
+                && ConsumptionTime.GetDayOfMonth(earlier) == 31){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(true, 6));
+        }
+        else{
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.ConsumptionTimeMessages.PackUnpackMessage(false, 6));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/// <summary>
+///  File: Crc32c.java
+///     Description: Contains the class and methods of the CRC-32C (Castagnoli) checksum used
+///         to detect corrupt records in the app's binary files.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+///
+/// Crc32c Class
+///     Computes the CRC-32C checksum, the variant used by iSCSI, ext4, and most storage
+///     formats. It catches every burst error up to 32 bits long and nearly every other
+///     error, so a record whose checksum matches was read as it was written.
+///     Java's own CRC32C isn't available at the app's minimum API level, so this computes
+///     it from lookup tables eight bytes at a time ("slicing-by-8"), which runs several
+///     times faster than one byte at a time and keeps up with reading from storage.
+///     Implements Checksum, so it can be used with CheckedInputStream and
+///     CheckedOutputStream to check records as they're streamed.
+///     Not safe to share between threads. Tables are shared and never change.
+///
+class Crc32c implements Checksum {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the CRC-32C polynomial with its bits reversed
+    private static final int polynomial = 0x82F63B78;
+
+    // Represents the lookup tables. table0 gives the checksum of one byte. Each table after
+    //  it gives the checksum of one byte followed by one more zero byte than the table
+    //  before it, so eight bytes are folded in with eight lookups.
+    private static final int[] table0 = new int[256];
+    private static final int[] table1 = new int[256];
+    private static final int[] table2 = new int[256];
+    private static final int[] table3 = new int[256];
+    private static final int[] table4 = new int[256];
+    private static final int[] table5 = new int[256];
+    private static final int[] table6 = new int[256];
+    private static final int[] table7 = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++){
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++){
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ Crc32c.polynomial : crc >>> 1;
+            }
+            Crc32c.table0[i] = crc;
+        }
+        int[][] tables = {
+                Crc32c.table0, Crc32c.table1, Crc32c.table2, Crc32c.table3,
+                Crc32c.table4, Crc32c.table5, Crc32c.table6, Crc32c.table7
+        };
+        for (int t = 1; t < tables.length; t++){
+            for (int i = 0; i < 256; i++){
+                int previous = tables[t - 1][i];
+                tables[t][i] = (previous >>> 8) ^ Crc32c.table0[previous & 0xFF];
+            }
+        }
+    }
+
+    // Represents the size of the array bytes are copied through from a buffer
+    private static final int scratchSize = 64 * 1024;
+
+    // Represents the running checksum, inverted as the algorithm keeps it
+    private int crc;
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with no bytes checked
+    Crc32c(){
+        this.crc = 0xFFFFFFFF;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given bytes, an offset, and a length, returns the checksum of that range of bytes.
+    /// </summary>
+    static int Compute(byte[] bytes, int offset, int length){
+        return ~Crc32c.Update(0xFFFFFFFF, bytes, offset, length);
+    }
+
+    @Override
+    public void update(int b) {
+        this.crc = (this.crc >>> 8) ^ Crc32c.table0[(this.crc ^ b) & 0xFF];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        this.crc = Crc32c.Update(this.crc, b, off, len);
+    }
+
+    /// <summary>
+    ///  Given a buffer, folds the bytes from its position to its limit into the checksum,
+    ///     and moves its position to its limit. A buffer not backed by an array, such as a
+    ///     mapped file, is copied through a small scratch array rather than whole.
+    /// </summary>
+    void UpdateFromBuffer(ByteBuffer buffer){
+        if (buffer.hasArray()){
+            this.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        byte[] scratch = new byte[Math.min(buffer.remaining(), Crc32c.scratchSize)];
+        while (buffer.hasRemaining()){
+            int length = Math.min(scratch.length, buffer.remaining());
+            buffer.get(scratch, 0, length);
+            this.update(scratch, 0, length);
+        }
+    }
+
+    @Override
+    public long getValue() {
+        return ~this.crc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = 0xFFFFFFFF;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Folds a range of bytes into a running checksum and returns the result
+    private static int Update(int crc, byte[] bytes, int offset, int length){
+        int end = offset + length;
+
+        // Eight bytes at a time. The first four are folded into the checksum, and every
+        //  byte is looked up in the table for its distance from the end of the eight.
+        while (end - offset >= 8){
+            crc ^= (bytes[offset] & 0xFF)
+                    | (bytes[offset + 1] & 0xFF) << 8
+                    | (bytes[offset + 2] & 0xFF) << 16
+                    | (bytes[offset + 3] & 0xFF) << 24;
+            crc = Crc32c.table7[crc & 0xFF]
+                    ^ Crc32c.table6[(crc >>> 8) & 0xFF]
+                    ^ Crc32c.table5[(crc >>> 16) & 0xFF]
+                    ^ Crc32c.table4[crc >>> 24]
+                    ^ Crc32c.table3[bytes[offset + 4] & 0xFF]
+                    ^ Crc32c.table2[bytes[offset + 5] & 0xFF]
+                    ^ Crc32c.table1[bytes[offset + 6] & 0xFF]
+                    ^ Crc32c.table0[bytes[offset + 7] & 0xFF];
+            offset += 8;
+        }
+
+        // Then one at a time
+        while (offset < end){
+            crc = (crc >>> 8) ^ Crc32c.table0[(crc ^ bytes[offset++]) & 0xFF];
+        }
+        return crc;
+    }
+}
@@ -8,9 +8,30 @@ package com.example.alcoholconsumptiontracker.system;
 import android.content.Context;
 import android.content.ContextWrapper;
 import android.os.Environment;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
 import android.util.Log;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 
 public class DatabaseManager {
 
@@ -27,6 +48,19 @@ public class DatabaseManager {
     private File imageDirectory;
     private static String imageDirectoryName = "imgDir";
 
+    // The migrator keeping the app directory's files at the current schema version
+    private StorageMigrator storageMigrator;
+
+    // The cipher stored files are written with, or null if storage isn't encrypted.
+    //  Shared by every reader and writer of stored files, which are all static.
+    private static volatile StorageCipher storageCipher;
+
+    // The Android keystore and the alias of the key there that the storage key is
+    //  encrypted with. The storage key itself is kept encrypted in the app directory.
+    private static final String keyStoreName = "AndroidKeyStore";
+    private static final String keyStoreAlias = "appStorageKey";
+    private static final String keyWrapTransformation = "AES/GCM/NoPadding";
+
     /// <summary>
     ///  Constructor. Initializes the database manager by
     ///     -Initializing the appRootDirectory and maintaining its folderPath
@@ -64,9 +98,43 @@ public class DatabaseManager {
         else
             return null;
     }
+    /// <summary>
+    ///     Gets the storage migrator of the app root directory, which records the schema
+    ///     version of the files in it and migrates them to the current version.
+    ///     If initialized, returns the migrator
+    ///     Returns null otherwise.
+    /// </summary>
+    public StorageMigrator GetStorageMigrator(){
+        if (initialized)
+            return storageMigrator;
+        else
+            return null;
+    }
     public boolean Initialized(){
         return this.initialized;
     }
+    /// <summary>
+    ///     Returns whether a storage key was created, in which case stored files may be
+    ///     encrypted and encryption must be enabled to read them.
+    ///     Returns false if uninitialized.
+    /// </summary>
+    public boolean HasStorageKey(){
+        if (!initialized) return false;
+        return new File(this.appRootDirectory, Universals.FileNames.StorageKeyFile + Universals.FileNames.BinaryExtension).exists();
+    }
+    /// <summary>
+    ///     Returns whether stored files are written encrypted.
+    /// </summary>
+    public static boolean IsEncryptionEnabled(){
+        return DatabaseManager.storageCipher != null;
+    }
+    // Get and set the cipher stored files are written and read with, null if not encrypted
+    static StorageCipher GetStorageCipher(){
+        return DatabaseManager.storageCipher;
+    }
+    static void SetStorageCipher(StorageCipher cipher){
+        DatabaseManager.storageCipher = cipher;
+    }
 
     ///
     /// Methods
@@ -140,6 +208,9 @@ public class DatabaseManager {
                 }
             }
 
+            // Create the migrator over the app directory's files
+            this.storageMigrator = new StorageMigrator(appDir, DatabaseManager.CreateMigrationSteps());
+
             // Set initialized to true once complete
             this.initialized = true;
 
@@ -153,6 +224,296 @@ public class DatabaseManager {
         return true;
     }
 
+    /// <summary>
+    ///  Returns the migration steps of the app's stored files, in the order they run.
+    ///     Step i moves the files from schema version i + 1 to i + 2. Steps are only ever
+    ///     added to the end, since stored files record how many have run.
+    ///     Every step must be safe to run again, since one interrupted by the app stopping
+    ///     is run again next start.
+    /// </summary>
+    static List<StorageMigrator.MigrationStep> CreateMigrationSteps(){
+        List<StorageMigrator.MigrationStep> steps = new ArrayList<>();
+
+        // Version 1 to 2: rewrite the template list file with checksums
+        steps.add(new StorageMigrator.MigrationStep() {
+            @Override
+            public boolean Migrate(StorageMigrator.MigrationContext context) {
+                return DatabaseManager.UpgradeTemplateListFile(context.GetDirectory());
+            }
+        });
+
+        return steps;
+    }
+
+    /// <summary>
+    ///  Enables encrypted storage. Every stored file written after is encrypted, and
+    ///     encrypted files can be read. Files already stored stay as they are until
+    ///     EncryptStoredFiles is run, and can still be read.
+    ///     The storage key is created the first time and kept in the app directory,
+    ///     encrypted with a key held by the Android keystore, so it can't be read off the
+    ///     device's storage.
+    ///     Returns true if enabled, false if uninitialized or the key couldn't be created
+    ///     or unlocked, in which case storage is left as it was.
+    /// </summary>
+    public boolean EnableEncryption(){
+        if (!initialized) return false;
+        if (DatabaseManager.storageCipher != null) return true;
+        SecretKey storageKey = this.LoadStorageKey();
+        if (storageKey == null) return false;
+        DatabaseManager.storageCipher = new StorageCipher(storageKey);
+        return true;
+    }
+
+    /// <summary>
+    ///  Rewrites every plaintext file in the app and image directories encrypted. Each
+    ///     file is replaced atomically, so stopping part way leaves each file either as it
+    ///     was or encrypted, and running again finishes the rest.
+    ///     Must be run before the template journal is opened, since it rewrites the
+    ///     journal's segments. The manifest is left as it is.
+    ///     Files may only be written while it runs through StoredFileOutputStream, which
+    ///     makes them appear whole and already encrypted. Any other write could be lost.
+    ///     Returns true if every file is encrypted, false if encryption isn't enabled or a
+    ///     file couldn't be rewritten.
+    /// </summary>
+    public boolean EncryptStoredFiles(){
+        if (!initialized || DatabaseManager.storageCipher == null) return false;
+        boolean result = true;
+        File[][] directories = { this.appRootDirectory.listFiles(), this.imageDirectory.listFiles() };
+        for (File[] files : directories){
+            if (files == null) continue;
+            for (File file : files){
+                if (!DatabaseManager.IsEncryptableFile(file)) continue;
+                if (!DatabaseManager.EncryptStoredFile(file)){
+                    Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DatabaseManagerErrorMessages.EncryptStoredFileError);
+                    result = false;
+                }
+            }
+        }
+        return result;
+    }
+
+    /// <summary>
+    ///  Returns whether encryption is enabled and any file EncryptStoredFiles would encrypt
+    ///     is still plaintext, or couldn't be checked. Only the first bytes of each file are
+    ///     read, stopping at the first plaintext file, so it's cheap enough to check at
+    ///     startup before deciding whether to run EncryptStoredFiles.
+    ///     Returns false if uninitialized.
+    /// </summary>
+    public boolean HasPlaintextStoredFiles(){
+        if (!initialized || DatabaseManager.storageCipher == null) return false;
+        File[][] directories = { this.appRootDirectory.listFiles(), this.imageDirectory.listFiles() };
+        byte[] magic = new byte[4];
+        for (File[] files : directories){
+            if (files == null) continue;
+            for (File file : files){
+                if (!DatabaseManager.IsEncryptableFile(file)) continue;
+                try (FileInputStream input = new FileInputStream(file)){
+                    if (!StorageCipher.IsEncryptedHeader(magic, input.read(magic))) return true;
+                }
+                catch (IOException e){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /// <summary>
+    ///  Given a stored file, opens a stream reading its contents, decrypting them if the
+    ///     file is encrypted. Plaintext and encrypted files can be read either way.
+    ///     Throws IOException if the file can't be opened, or it's encrypted and
+    ///     encryption isn't enabled.
+    /// </summary>
+    public static InputStream OpenReadStream(File file) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(new FileInputStream(file), 4);
+        try{
+            byte[] magic = new byte[4];
+            int magicLength = 0;
+            int read;
+            while (magicLength < magic.length && (read = input.read(magic, magicLength, magic.length - magicLength)) != -1){
+                magicLength += read;
+            }
+            input.unread(magic, 0, magicLength);
+            if (!StorageCipher.IsEncryptedHeader(magic, magicLength)) return input;
+            StorageCipher cipher = DatabaseManager.storageCipher;
+            if (cipher == null){
+                throw new IOException(Universals.ErrorMessages.DatabaseManagerErrorMessages.EncryptionKeyMissingError);
+            }
+            return cipher.DecryptStream(input);
+        }
+        catch (IOException e){
+            input.close();
+            throw e;
+        }
+    }
+
+    /// <summary>
+    ///  Given a stream writing a stored file, returns the stream to write the file's
+    ///     contents to: one encrypting into it if encryption is enabled, or the same stream
+    ///     otherwise. Writers that force the file to disk call FinishWriteStream first.
+    ///     Throws IOException if the encrypted file's header couldn't be written.
+    /// </summary>
+    public static OutputStream OpenWriteStream(OutputStream output) throws IOException {
+        StorageCipher cipher = DatabaseManager.storageCipher;
+        if (cipher == null) return output;
+        return cipher.EncryptStream(output);
+    }
+
+    /// <summary>
+    ///  Given a stream returned by OpenWriteStream, finishes the file so everything written
+    ///     to it is in the stream below and can be forced to disk. Nothing more can be
+    ///     written to an encrypted file after.
+    /// </summary>
+    public static void FinishWriteStream(OutputStream output) throws IOException {
+        if (output instanceof StorageCipher.EncryptingStream){
+            ((StorageCipher.EncryptingStream) output).Finish();
+        }
+        else output.flush();
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Loads the storage key from the app directory, decrypting it with the keystore's
+    //  key. The first time, creates both and saves the storage key encrypted, written to
+    //  a temporary file and renamed over so a partly written key is never kept.
+    //  The key file holds the IV's length (byte), the IV, and the encrypted key.
+    //  Returns null if the key couldn't be created or unlocked.
+    private SecretKey LoadStorageKey(){
+        File keyFile = new File(this.appRootDirectory, Universals.FileNames.StorageKeyFile + Universals.FileNames.BinaryExtension);
+        try{
+            KeyStore keyStore = KeyStore.getInstance(DatabaseManager.keyStoreName);
+            keyStore.load(null);
+            SecretKey wrappingKey;
+            if (keyStore.containsAlias(DatabaseManager.keyStoreAlias)){
+                wrappingKey = (SecretKey) keyStore.getKey(DatabaseManager.keyStoreAlias, null);
+            }
+            else{
+                KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, DatabaseManager.keyStoreName);
+                generator.init(new KeyGenParameterSpec.Builder(DatabaseManager.keyStoreAlias,
+                        KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                        .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                        .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                        .setKeySize(256)
+                        .build());
+                wrappingKey = generator.generateKey();
+            }
+            Cipher cipher = Cipher.getInstance(DatabaseManager.keyWrapTransformation);
+
+            // Unlock the saved key
+            if (keyFile.exists()){
+                byte[] iv;
+                byte[] wrappedKey;
+                try (DataInputStream input = new DataInputStream(new FileInputStream(keyFile))){
+                    iv = new byte[input.readUnsignedByte()];
+                    input.readFully(iv);
+                    wrappedKey = new byte[(int) keyFile.length() - 1 - iv.length];
+                    input.readFully(wrappedKey);
+                }
+                cipher.init(Cipher.DECRYPT_MODE, wrappingKey, new GCMParameterSpec(128, iv));
+                return new SecretKeySpec(cipher.doFinal(wrappedKey), KeyProperties.KEY_ALGORITHM_AES);
+            }
+
+            // Or create and save one
+            SecretKey storageKey = StorageCipher.GenerateKey();
+            cipher.init(Cipher.ENCRYPT_MODE, wrappingKey);
+            byte[] wrappedKey = cipher.doFinal(storageKey.getEncoded());
+            byte[] iv = cipher.getIV();
+            File tempFile = new File(this.appRootDirectory, Universals.FileNames.StorageKeyFile + Universals.FileNames.BinaryExtension + ".tmp");
+            try (FileOutputStream fileStream = new FileOutputStream(tempFile, false)){
+                DataOutputStream output = new DataOutputStream(fileStream);
+                output.writeByte(iv.length);
+                output.write(iv);
+                output.write(wrappedKey);
+                output.flush();
+                fileStream.getFD().sync();
+            }
+            if (!tempFile.renameTo(keyFile)){
+                tempFile.delete();
+                throw new IOException();
+            }
+            return storageKey;
+        }
+        catch (GeneralSecurityException | IOException | RuntimeException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DatabaseManagerErrorMessages.StorageKeyError);
+            return null;
+        }
+    }
+
+    // Returns whether a file in the app or image directory is one EncryptStoredFiles
+    //  encrypts. Directories, the manifest, the storage key, and temporary files aren't.
+    private static boolean IsEncryptableFile(File file){
+        String name = file.getName();
+        return !file.isDirectory()
+                && !name.startsWith(Universals.FileNames.ManifestFile + ".")
+                && !name.startsWith(Universals.FileNames.StorageKeyFile + ".")
+                && !name.endsWith(Universals.FileNames.TemporaryExtension);
+    }
+
+    // Rewrites a plaintext stored file encrypted, through a temporary file renamed over
+    //  it. An encrypted file is left alone.
+    //  Returns false if it couldn't be rewritten.
+    private static boolean EncryptStoredFile(File file){
+        byte[] magic = new byte[4];
+        int magicLength;
+        try (FileInputStream input = new FileInputStream(file)){
+            magicLength = input.read(magic);
+        }
+        catch (IOException e){
+            return false;
+        }
+        if (StorageCipher.IsEncryptedHeader(magic, magicLength)) return true;
+
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        try (FileInputStream input = new FileInputStream(file);
+             StoredFileOutputStream output = new StoredFileOutputStream(file)){
+            while ((read = input.read(buffer)) != -1){
+                output.write(buffer, 0, read);
+            }
+            output.Commit();
+        }
+        catch (IOException e){
+            return false;
+        }
+        return true;
+    }
+
+    // Rewrites a template list file in the unchecked binary format in the current format,
+    //  so its records are checked when read. The rewrite replaces the file atomically, so
+    //  running again after being interrupted either finds the old file or the new one.
+    //  A missing or current file is left alone. A file that can't be read is left for
+    //  the recovery run at startup, and the step still succeeds, since running it again
+    //  won't read it either.
+    //  Returns false if the upgraded file couldn't be written.
+    private static boolean UpgradeTemplateListFile(File directory){
+        File templateFile = new File(directory, Universals.FileNames.TemplateListFile + Universals.FileNames.BinaryExtension);
+        if (!templateFile.exists()) return true;
+
+        // Check the file's version
+        DrinkTemplateBinaryFormat.BinaryHeader header;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(DatabaseManager.OpenReadStream(templateFile)))){
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(input);
+        }
+        catch (IOException e){
+            header = null;
+        }
+        if (header == null){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DatabaseManagerErrorMessages.UpgradeTemplateListError);
+            return true;
+        }
+        if (header.IsChecksummed()) return true;
+
+        // Read the templates and write them back in the current format
+        DrinkTemplateManager upgradeManager = new DrinkTemplateManager();
+        if (!upgradeManager.ReadTemplateListBinary(directory, Universals.FileNames.TemplateListFile, false)){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DatabaseManagerErrorMessages.UpgradeTemplateListError);
+            return true;
+        }
+        return upgradeManager.WriteTemplateListBinary(directory, Universals.FileNames.TemplateListFile);
+    }
+
 
     ///
     /// Test Methods
@@ -200,4 +561,101 @@ public class DatabaseManager {
         }
 
     }
+
+    // Test the app's migration steps
+    public static void TestMigrateDatabase(boolean printAllMessages, Context testContext){
+
+        // Locals
+        DatabaseManager testManager = new DatabaseManager(testContext);
+        File testDirectory = new File(testManager.GetAppRootDirectory(), "testDatabaseMigrateDir");
+        File templateFile = new File(testDirectory, Universals.FileNames.TemplateListFile + Universals.FileNames.BinaryExtension);
+        DrinkTemplateManager sourceTemplates = DrinkTemplateManager.GenerateBenchmarkManager(50);
+        DrinkTemplateManager readTemplates;
+        StorageMigrator testMigrator;
+        DrinkTemplateBinaryFormat.BinaryHeader header = null;
+        boolean ok;
+
+        DatabaseManager.DeleteTestDirectory(testDirectory);
+        testDirectory.mkdir();
+
+        // Write a template list file in the unchecked format written before checksums
+        ok = true;
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(templateFile))){
+            output.writeInt(Universals.BinaryFormats.DrinkTemplateManagerFormat.MagicNumber);
+            output.writeShort(Universals.BinaryFormats.DrinkTemplateManagerFormat.UncheckedVersion);
+            output.writeInt(sourceTemplates.GetTemplateList().size());
+            for (DrinkTemplate template : sourceTemplates.GetTemplateList().values()){
+                DrinkTemplateBinaryFormat.WriteBinaryTemplate(output, template);
+            }
+        }
+        catch (IOException e){
+            ok = false;
+        }
+
+        // Non-exception case
+        //  Case 1, Migrating files without a manifest rewrites the unchecked template list
+        //      file in the current format, keeps every template, and records the current
+        //      schema version.
+        testMigrator = new StorageMigrator(testDirectory, DatabaseManager.CreateMigrationSteps());
+        ok &= testMigrator.IsMigrationNeeded() && testMigrator.Migrate(null);
+        try (DataInputStream input = new DataInputStream(new FileInputStream(templateFile))){
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(input);
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        readTemplates = new DrinkTemplateManager();
+        ok &= header != null
+                && header.IsChecksummed()
+                && readTemplates.ReadTemplateListBinary(testDirectory, Universals.FileNames.TemplateListFile, false)
+                && readTemplates.GetTemplateList().size() == sourceTemplates.GetTemplateList().size()
+                && readTemplates.GetTemplate("benchmarkName 7") != null
+                && readTemplates.GetTemplate("benchmarkName 7").GetPrice() == sourceTemplates.GetTemplate("benchmarkName 7").GetPrice()
+                && !testMigrator.IsMigrationNeeded();
+        if (!ok){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DatabaseManagerMessages.DatabaseMigrateMessage(false, 1));
+        }
+        else if (printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DatabaseManagerMessages.DatabaseMigrateMessage(true, 1));
+        }
+
+        //  Case 2, Running the steps again on migrated files, or on a directory without a
+        //      template list file, succeeds and leaves the files as they were.
+        long migratedLength = templateFile.length();
+        ok = true;
+        for (StorageMigrator.MigrationStep step : DatabaseManager.CreateMigrationSteps()){
+            ok &= step.Migrate(new StorageMigrator.MigrationContext(testMigrator, null, 1, 0));
+        }
+        ok &= templateFile.length() == migratedLength;
+        templateFile.delete();
+        for (StorageMigrator.MigrationStep step : DatabaseManager.CreateMigrationSteps()){
+            ok &= step.Migrate(new StorageMigrator.MigrationContext(testMigrator, null, 1, 0));
+        }
+        ok &= !templateFile.exists();
+        if (!ok){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DatabaseManagerMessages.DatabaseMigrateMessage(false, 2));
+        }
+        else if (printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DatabaseManagerMessages.DatabaseMigrateMessage(true, 2));
+        }
+
+        DatabaseManager.DeleteTestDirectory(testDirectory);
+    }
+
+    // Removes a test directory and the files in it
+    private static void DeleteTestDirectory(File testDirectory){
+        File[] files = testDirectory.listFiles();
+        if (files != null){
+            for (File file : files) file.delete();
+        }
+        testDirectory.delete();
+    }
 }
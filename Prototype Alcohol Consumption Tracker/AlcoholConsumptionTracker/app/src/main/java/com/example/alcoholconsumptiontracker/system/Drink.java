@@ -8,8 +8,6 @@ package com.example.alcoholconsumptiontracker.system;
 import android.content.Intent;
 import android.util.Log;
 
-import java.time.LocalTime;
-
 public class Drink {
 
     ///
@@ -28,10 +26,11 @@ public class Drink {
     // End corresponding locals
 
     private String occasion; // Occasion for drinking
-    private short hourOfConsumption; // Time drink was drunk in the form hour, minute. Military time
-    private short minuteOfConsumption;
+    private long consumedAt; // Date and time drink was drunk, packed by ConsumptionTime
     //
 
+    private long logId; // ID given by the drink log when logged. -1 if not logged
+
 
     ///
     /// Constructors
@@ -46,8 +45,8 @@ public class Drink {
         this.calories = 0;
         this.imageFilePath = Universals.General.EmptyString();
         this.occasion = Universals.General.EmptyString();
-        this.hourOfConsumption = 0;
-        this.minuteOfConsumption = 0;
+        this.consumedAt = ConsumptionTime.Epoch;
+        this.logId = -1;
     }
     // Construct from Drink Template
     public Drink(DrinkTemplate template){
@@ -58,6 +57,8 @@ public class Drink {
         this.price = template.GetPrice();
         this.calories = template.GetCalories();
         this.imageFilePath = template.GetImageFilePath();
+        this.consumedAt = ConsumptionTime.Epoch;
+        this.logId = -1;
     }
 
     ///
@@ -86,21 +87,43 @@ public class Drink {
     public void SetOccasion(String newOccasion){
         this.occasion = newOccasion;
     }
-    // Hour of Consumption
+    // Time of Consumption, packed by ConsumptionTime
+    public long GetConsumedAt(){
+        return this.consumedAt;
+    }
+    public void SetConsumedAt(long newConsumedAt){
+        this.consumedAt = newConsumedAt;
+    }
+    // Hour of Consumption. Local hour of the time of consumption, which setting keeps the
+    //  date and minute of.
     public short GetHourOfConsumption(){
-        return this.hourOfConsumption;
+        return (short)ConsumptionTime.GetHour(this.consumedAt);
     }
     public void SetHourOfConsumption(short newHour){
-        if (newHour < 0) this.hourOfConsumption = 0;
-        else this.hourOfConsumption = newHour;
+        if (newHour < 0) newHour = 0;
+        else if (newHour > 23) newHour = 23;
+        this.consumedAt = ConsumptionTime.WithTimeOfDay(
+                this.consumedAt, newHour, ConsumptionTime.GetMinute(this.consumedAt)
+        );
     }
-    // Minute of Consumption
+    // Minute of Consumption. Local minute of the time of consumption, which setting keeps
+    //  the date and hour of.
     public short GetMinuteOfConsumption(){
-        return this.minuteOfConsumption;
+        return (short)ConsumptionTime.GetMinute(this.consumedAt);
     }
     public void SetMinuteOfConsumption(short newMinute){
-        if (newMinute < 0) this.minuteOfConsumption = 0;
-        else this.minuteOfConsumption = newMinute;
+        if (newMinute < 0) newMinute = 0;
+        else if (newMinute > 59) newMinute = 59;
+        this.consumedAt = ConsumptionTime.WithTimeOfDay(
+                this.consumedAt, ConsumptionTime.GetHour(this.consumedAt), newMinute
+        );
+    }
+    // Log ID
+    public long GetLogId(){
+        return this.logId;
+    }
+    void SetLogId(long newLogId){
+        this.logId = newLogId;
     }
 
     ///
@@ -205,6 +228,27 @@ public class Drink {
             );
         }
 
+        //  - Case 6, normal values, time of consumption get and set. Hour and minute are
+        //      read from it, and setting them keeps its date.
+        testingDrink.SetConsumedAt(ConsumptionTime.Pack(28_000_000L, 60));
+        testingDrink.SetHourOfConsumption((short)22);
+        if (testingDrink.GetHourOfConsumption() != 22
+                || testingDrink.GetMinuteOfConsumption() != ConsumptionTime.GetMinute(ConsumptionTime.Pack(28_000_000L, 60))
+                || ConsumptionTime.GetLocalEpochDay(testingDrink.GetConsumedAt())
+                    != ConsumptionTime.GetLocalEpochDay(ConsumptionTime.Pack(28_000_000L, 60))
+                || ConsumptionTime.GetOffsetMinutes(testingDrink.GetConsumedAt()) != 60){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkMessages.GetterSetterMessage(false, 6)
+            );
+        }
+        else if (printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkMessages.GetterSetterMessage(true, 6)
+            );
+        }
+
     }
 
 
@@ -0,0 +1,505 @@
+/// <summary>
+///  File: DrinkColumnList.java
+///     Description: Contains the class and methods of a list of drinks stored by column,
+///         one primitive array per field, rather than as one object per drink.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+
+///
+/// Drink Column List Class
+///     A list of drinks holding each field in its own array, so a list of any length is a
+///     fixed number of objects. Names, occasions, and image paths are stored as ids into a
+///     dictionary of the distinct strings seen, so drinks of the same template share them.
+///     get returns a new drink holding the drink's fields. It's a copy: changing it doesn't
+///     change the list, set does. Sum and SumByDay read the arrays directly, without
+///     making drinks.
+///     Strings stay in the dictionary once added, even after every drink using them is
+///     removed. The list only holds a month of drinks, so the dictionary stays small.
+///     Not safe to share between threads.
+///
+public class DrinkColumnList extends AbstractList<Drink> implements RandomAccess {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the capacity of a new list
+    private static final int defaultCapacity = 16;
+
+    // Represents the number of drinks in the list
+    private int size;
+
+    // Represents each field of the drinks, the drink at index i being element i of each
+    private long[] consumedAts;
+    private long[] logIds;
+    private float[] calories;
+    private float[] prices;
+    private float[] aPVs;
+    private short[] servings;
+    private short[] types;
+    private int[] nameIds;
+    private int[] occasionIds;
+    private int[] imageFilePathIds;
+
+    // Represents the dictionary of strings, by id and to id
+    private final ArrayList<String> strings;
+    private final HashMap<String, Integer> stringIds;
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with no drinks
+    public DrinkColumnList(){
+        this.size = 0;
+        this.consumedAts = new long[DrinkColumnList.defaultCapacity];
+        this.logIds = new long[DrinkColumnList.defaultCapacity];
+        this.calories = new float[DrinkColumnList.defaultCapacity];
+        this.prices = new float[DrinkColumnList.defaultCapacity];
+        this.aPVs = new float[DrinkColumnList.defaultCapacity];
+        this.servings = new short[DrinkColumnList.defaultCapacity];
+        this.types = new short[DrinkColumnList.defaultCapacity];
+        this.nameIds = new int[DrinkColumnList.defaultCapacity];
+        this.occasionIds = new int[DrinkColumnList.defaultCapacity];
+        this.imageFilePathIds = new int[DrinkColumnList.defaultCapacity];
+        this.strings = new ArrayList<>();
+        this.stringIds = new HashMap<>();
+    }
+    // Construct holding drinks, in order
+    public DrinkColumnList(Collection<Drink> drinks){
+        this();
+        this.EnsureCapacity(drinks.size());
+        this.addAll(drinks);
+    }
+
+    ///
+    /// List Methods
+    ///
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Drink get(int index) {
+        this.CheckIndex(index, this.size);
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(this.strings.get(this.nameIds[index]));
+        template.SetType(this.types[index]);
+        template.SetServings(this.servings[index]);
+        template.SetAPV(this.aPVs[index]);
+        template.SetCalories(this.calories[index]);
+        template.SetPrice(this.prices[index]);
+        template.SetImageFilePath(this.strings.get(this.imageFilePathIds[index]));
+        Drink drink = template.ProduceDrink(this.strings.get(this.occasionIds[index]), this.consumedAts[index]);
+        drink.SetLogId(this.logIds[index]);
+        return drink;
+    }
+
+    @Override
+    public Drink set(int index, Drink drink) {
+        Drink previous = this.get(index);
+        this.Store(index, drink);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Drink drink) {
+        this.CheckIndex(index, this.size + 1);
+        this.EnsureCapacity(this.size + 1);
+        this.Shift(index, index + 1, this.size - index);
+        this.size++;
+        this.modCount++;
+        this.Store(index, drink);
+    }
+
+    @Override
+    public Drink remove(int index) {
+        Drink removed = this.get(index);
+        this.Shift(index + 1, index, this.size - index - 1);
+        this.size--;
+        this.modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        this.size = 0;
+        this.modCount++;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a range of times of consumption, from (inclusive) to (exclusive), adds each
+    ///     drink in the list drunk in the range to a list, in the order of this list. Only
+    ///     drinks in the range are made.
+    /// </summary>
+    public void AddDrinksBetween(long fromConsumedAt, long toConsumedAt, List<Drink> drinks){
+        for (int i = 0; i < this.size; i++){
+            if (this.consumedAts[i] >= fromConsumedAt && this.consumedAts[i] < toConsumedAt) drinks.add(this.get(i));
+        }
+    }
+
+    /// <summary>
+    ///     Given a range of times of consumption, from (inclusive) to (exclusive), and
+    ///     totals, sets the totals to those of every drink in the list drunk in the range.
+    /// </summary>
+    public void Sum(long fromConsumedAt, long toConsumedAt, DrinkTotals totals){
+        totals.Clear();
+        for (int i = 0; i < this.size; i++){
+            if (this.consumedAts[i] >= fromConsumedAt && this.consumedAts[i] < toConsumedAt){
+                totals.Add(this.servings[i], this.calories[i], this.prices[i]);
+            }
+        }
+    }
+
+    /// <summary>
+    ///     Given a range of times of consumption, from (inclusive) to (exclusive), the local
+    ///     day, as days since the epoch, of the first of an array of totals, and the array,
+    ///     sets each totals in the array to those of the drinks in the range drunk on its
+    ///     local day. Drinks in the range on days outside the array aren't summed.
+    /// </summary>
+    public void SumByDay(long fromConsumedAt, long toConsumedAt, long firstLocalEpochDay, DrinkTotals[] dayTotals){
+        for (DrinkTotals totals : dayTotals) totals.Clear();
+        for (int i = 0; i < this.size; i++){
+            if (this.consumedAts[i] < fromConsumedAt || this.consumedAts[i] >= toConsumedAt) continue;
+            long day = ConsumptionTime.GetLocalEpochDay(this.consumedAts[i]) - firstLocalEpochDay;
+            if (day >= 0 && day < dayTotals.length) dayTotals[(int)day].Add(this.servings[i], this.calories[i], this.prices[i]);
+        }
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Stores a drink's fields at an index
+    private void Store(int index, Drink drink){
+        this.consumedAts[index] = drink.GetConsumedAt();
+        this.logIds[index] = drink.GetLogId();
+        this.calories[index] = drink.GetCalories();
+        this.prices[index] = drink.GetPrice();
+        this.aPVs[index] = drink.GetAPV();
+        this.servings[index] = drink.GetServings();
+        this.types[index] = drink.GetType().GetValue();
+        this.nameIds[index] = this.StringId(drink.GetName());
+        this.occasionIds[index] = this.StringId(drink.GetOccasion());
+        this.imageFilePathIds[index] = this.StringId(drink.GetImageFilePath());
+    }
+
+    // Returns the dictionary id of a string, adding it if it's new. Null is stored as empty.
+    private int StringId(String value){
+        if (value == null) value = Universals.General.EmptyString();
+        Integer id = this.stringIds.get(value);
+        if (id == null){
+            id = this.strings.size();
+            this.strings.add(value);
+            this.stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    // Moves a run of drinks from one index to another in every array
+    private void Shift(int from, int to, int length){
+        if (length <= 0) return;
+        System.arraycopy(this.consumedAts, from, this.consumedAts, to, length);
+        System.arraycopy(this.logIds, from, this.logIds, to, length);
+        System.arraycopy(this.calories, from, this.calories, to, length);
+        System.arraycopy(this.prices, from, this.prices, to, length);
+        System.arraycopy(this.aPVs, from, this.aPVs, to, length);
+        System.arraycopy(this.servings, from, this.servings, to, length);
+        System.arraycopy(this.types, from, this.types, to, length);
+        System.arraycopy(this.nameIds, from, this.nameIds, to, length);
+        System.arraycopy(this.occasionIds, from, this.occasionIds, to, length);
+        System.arraycopy(this.imageFilePathIds, from, this.imageFilePathIds, to, length);
+    }
+
+    // Grows every array to hold at least a number of drinks, doubling their capacity
+    private void EnsureCapacity(int capacity){
+        if (capacity <= this.consumedAts.length) return;
+        int newCapacity = Math.max(capacity, this.consumedAts.length * 2);
+        this.consumedAts = Arrays.copyOf(this.consumedAts, newCapacity);
+        this.logIds = Arrays.copyOf(this.logIds, newCapacity);
+        this.calories = Arrays.copyOf(this.calories, newCapacity);
+        this.prices = Arrays.copyOf(this.prices, newCapacity);
+        this.aPVs = Arrays.copyOf(this.aPVs, newCapacity);
+        this.servings = Arrays.copyOf(this.servings, newCapacity);
+        this.types = Arrays.copyOf(this.types, newCapacity);
+        this.nameIds = Arrays.copyOf(this.nameIds, newCapacity);
+        this.occasionIds = Arrays.copyOf(this.occasionIds, newCapacity);
+        this.imageFilePathIds = Arrays.copyOf(this.imageFilePathIds, newCapacity);
+    }
+
+    // Throws if an index isn't below a bound
+    private void CheckIndex(int index, int bound){
+        if (index < 0 || index >= bound){
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test changing the list and summing its columns against a list of drink objects
+    public static void TestColumns(boolean printAllMessages){
+
+        // Locals
+        ArrayList<Drink> expectedDrinks = new ArrayList<>();
+        DrinkColumnList testList;
+        DrinkTemplate testTemplate = new DrinkTemplate();
+        DrinkTotals testTotals = new DrinkTotals();
+        DrinkTotals[] testDayTotals = new DrinkTotals[10];
+        ArrayList<Drink> rangeDrinks = new ArrayList<>();
+        long firstDay = ConsumptionTime.EpochDayOf(2024, 5, 1);
+        long expectedCount;
+        long expectedServings;
+        double expectedCalories;
+        Drink testDrink;
+        boolean ok;
+        int i;
+
+        for (i = 0; i < testDayTotals.length; i++) testDayTotals[i] = new DrinkTotals();
+
+        // Two drinks a day, from 4 templates and 3 occasions, for 20 days
+        for (i = 0; i < 40; i++){
+            testTemplate.SetName("testName " + (i % 4));
+            testTemplate.SetType((short)(i % 4));
+            testTemplate.SetServings((short)(i % 3 + 1));
+            testTemplate.SetAPV(i % 4 * 5);
+            testTemplate.SetCalories(i);
+            testTemplate.SetPrice(i % 5);
+            testTemplate.SetImageFilePath("testImage " + (i % 4));
+            testDrink = testTemplate.ProduceDrink(
+                    "testOccasion " + (i % 3),
+                    ConsumptionTime.Pack((firstDay + i / 2) * ConsumptionTime.MinutesPerDay + 600 + i, 0)
+            );
+            testDrink.SetLogId(i);
+            expectedDrinks.add(testDrink);
+        }
+        testList = new DrinkColumnList(expectedDrinks);
+
+        // Non-exception cases
+        //  -Case 1, the list holds the drinks in order, storing each distinct string once
+        ok = testList.size() == expectedDrinks.size() && testList.strings.size() == 4 + 3 + 4;
+        for (i = 0; ok && i < expectedDrinks.size(); i++){
+            ok = DrinkColumnList.SameDrink(testList.get(i), expectedDrinks.get(i));
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(false, 1));
+
+        //  -Case 2, inserting, replacing, and removing keeps every column in step
+        testTemplate.SetName("testName inserted");
+        testDrink = testTemplate.ProduceDrink("testOccasion inserted", ConsumptionTime.Pack(firstDay * ConsumptionTime.MinutesPerDay, 0));
+        testList.add(0, testDrink);
+        expectedDrinks.add(0, testDrink);
+        testList.set(10, testDrink);
+        expectedDrinks.set(10, testDrink);
+        ok = DrinkColumnList.SameDrink(testList.remove(5), expectedDrinks.remove(5));
+        testList.remove(testList.size() - 1);
+        expectedDrinks.remove(expectedDrinks.size() - 1);
+        ok &= testList.size() == expectedDrinks.size();
+        for (i = 0; ok && i < expectedDrinks.size(); i++){
+            ok = DrinkColumnList.SameDrink(testList.get(i), expectedDrinks.get(i));
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(false, 2));
+
+        //  -Case 3, summing a range matches summing the drink objects in it
+        long from = ConsumptionTime.Pack((firstDay + 3) * ConsumptionTime.MinutesPerDay, 0);
+        long to = ConsumptionTime.Pack((firstDay + 8) * ConsumptionTime.MinutesPerDay, 0);
+        expectedCount = 0;
+        expectedServings = 0;
+        expectedCalories = 0;
+        for (Drink drink : expectedDrinks){
+            if (drink.GetConsumedAt() < from || drink.GetConsumedAt() >= to) continue;
+            expectedCount++;
+            expectedServings += drink.GetServings();
+            expectedCalories += drink.GetCalories();
+        }
+        testList.Sum(from, to, testTotals);
+        testList.AddDrinksBetween(from, to, rangeDrinks);
+        ok = expectedCount > 0
+                && testTotals.GetDrinkCount() == expectedCount
+                && testTotals.GetServings() == expectedServings
+                && testTotals.GetCalories() == expectedCalories
+                && rangeDrinks.size() == expectedCount;
+        for (i = 0; ok && i < rangeDrinks.size(); i++){
+            ok = rangeDrinks.get(i).GetConsumedAt() >= from && rangeDrinks.get(i).GetConsumedAt() < to;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(false, 3));
+
+        //  -Case 4, summing by day puts each drink on its day, and skips days outside the array
+        long[] expectedDayCounts = new long[testDayTotals.length];
+        double[] expectedDayCalories = new double[testDayTotals.length];
+        for (Drink drink : expectedDrinks){
+            long day = ConsumptionTime.GetLocalEpochDay(drink.GetConsumedAt()) - firstDay;
+            if (day >= testDayTotals.length) continue;
+            expectedDayCounts[(int)day]++;
+            expectedDayCalories[(int)day] += drink.GetCalories();
+        }
+        testList.SumByDay(Long.MIN_VALUE, Long.MAX_VALUE, firstDay, testDayTotals);
+        ok = true;
+        for (i = 0; ok && i < testDayTotals.length; i++){
+            ok = testDayTotals[i].GetDrinkCount() == expectedDayCounts[i]
+                    && testDayTotals[i].GetCalories() == expectedDayCalories[i];
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(false, 4));
+
+        // Exception cases
+        //  -Case 5, an index past the end throws, as for any list
+        try{
+            testList.get(testList.size());
+            ok = false;
+        }
+        catch (IndexOutOfBoundsException e){
+            ok = true;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkColumnListMessages.ColumnsMessage(false, 5));
+    }
+
+    // Returns whether two drinks hold the same fields
+    private static boolean SameDrink(Drink first, Drink second){
+        return first.GetConsumedAt() == second.GetConsumedAt()
+                && first.GetLogId() == second.GetLogId()
+                && first.GetCalories() == second.GetCalories()
+                && first.GetPrice() == second.GetPrice()
+                && first.GetAPV() == second.GetAPV()
+                && first.GetServings() == second.GetServings()
+                && first.GetType().GetValue() == second.GetType().GetValue()
+                && first.GetName().equals(second.GetName())
+                && first.GetOccasion().equals(second.GetOccasion())
+                && first.GetImageFilePath().equals(second.GetImageFilePath());
+    }
+
+    ///
+    /// Benchmark Methods
+    ///
+    /// <summary>
+    ///  Each benchmark method is self contained and measures the method it is named after
+    ///     against a generated workload. Results are printed to LogCat using the Log.d method.
+    /// </summary>
+    ///
+
+    // Represents the number of times each list is summed in the benchmark, which reports
+    //  the average, so the first pass's compiling isn't most of the time
+    private static final int benchmarkSumPasses = 10;
+
+    // Benchmark the heap held by a list of drinks and the time to sum it, as drink objects
+    //  in an ArrayList against columns
+    public static void BenchmarkSum(int drinkCount){
+
+        // Locals
+        ArrayList<DrinkTemplate> templateList = new ArrayList<>(
+                DrinkTemplateManager.GenerateBenchmarkManager(100).GetTemplateList().values()
+        );
+        ArrayList<Drink> objectList = new ArrayList<>();
+        DrinkColumnList columnList = new DrinkColumnList();
+        DrinkTotals benchmarkTotals = new DrinkTotals();
+        long startHeap;
+        long heldHeap;
+        long startTime;
+        long elapsedTime;
+
+        // Fill a column list, making each drink only to add it
+        startHeap = Benchmark.UsedHeapBytes();
+        for (int i = 0; i < drinkCount; i++){
+            columnList.add(DrinkColumnList.BenchmarkDrink(templateList, i));
+        }
+        heldHeap = Benchmark.UsedHeapBytes() - startHeap;
+        startTime = System.nanoTime();
+        for (int pass = 0; pass < DrinkColumnList.benchmarkSumPasses; pass++){
+            columnList.Sum(Long.MIN_VALUE, Long.MAX_VALUE, benchmarkTotals);
+        }
+        elapsedTime = (System.nanoTime() - startTime) / DrinkColumnList.benchmarkSumPasses;
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkColumnListMessages.DrinkColumnListBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkColumnListMessages.SumColumnListCase,
+                        benchmarkTotals.GetDrinkCount(),
+                        elapsedTime,
+                        heldHeap
+                )
+        );
+
+        // Fill a list of drink objects with the same drinks, as the app has held them
+        startHeap = Benchmark.UsedHeapBytes();
+        for (int i = 0; i < drinkCount; i++){
+            objectList.add(DrinkColumnList.BenchmarkDrink(templateList, i));
+        }
+        heldHeap = Benchmark.UsedHeapBytes() - startHeap;
+        startTime = System.nanoTime();
+        for (int pass = 0; pass < DrinkColumnList.benchmarkSumPasses; pass++){
+            benchmarkTotals.Clear();
+            for (int i = 0; i < objectList.size(); i++){
+                Drink drink = objectList.get(i);
+                benchmarkTotals.Add(drink.GetServings(), drink.GetCalories(), drink.GetPrice());
+            }
+        }
+        elapsedTime = (System.nanoTime() - startTime) / DrinkColumnList.benchmarkSumPasses;
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkColumnListMessages.DrinkColumnListBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkColumnListMessages.SumObjectListCase,
+                        benchmarkTotals.GetDrinkCount(),
+                        elapsedTime,
+                        heldHeap
+                )
+        );
+    }
+
+    // Returns the benchmark drink at an index, drunk a minute after the one before it
+    private static Drink BenchmarkDrink(List<DrinkTemplate> templateList, int index){
+        Drink drink = templateList.get(index % templateList.size()).ProduceDrink(
+                "benchmarkOccasion " + (index % 10),
+                ConsumptionTime.Pack(28_000_000L + index, -300)
+        );
+        drink.SetLogId(index);
+        return drink;
+    }
+}
@@ -0,0 +1,1065 @@
+/// <summary>
+///  File: DrinkHistory.java
+///     Description: Contains the class and methods of the drink history, which stores
+///         drinks from past months in one file per month so a query over a date range
+///         only reads the months it covers.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+///
+/// Drink History Class
+///     Stores logged drinks partitioned by the local month they were drunk in, as one
+///     segment file per month named
+///         <fileName>.month.<yyyymm>
+///     Each segment holds its month's drinks sorted by time of consumption, followed by a
+///     fixed size footer giving the number of drinks and the earliest and latest times, so
+///     a query reads a segment's footer to skip it before reading any drinks. Segments of
+///     months outside a query's range, by name, aren't opened at all.
+///     Segments are never changed in place. Adding drinks to a month writes the month's
+///     segment whole to a temporary file and renames it over the old one, so a segment is
+///     only ever read complete, and one that's been written stays the same until the month
+///     is added to again. Drinks are added from the drink log once their month has passed,
+///     so past months are written once and then only read.
+///     If storage is encrypted, segments are encrypted.
+///     Not safe to share between threads.
+///
+public class DrinkHistory {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the sizes in bytes of a segment's header and footer
+    static final int HeaderSize = 4 + 2 + 4;
+    static final int FooterSize = 4 + 8 + 8 + 4 + 4;
+
+    // Represents the size of the buffer segments are read and written through
+    private static final int bufferSize = 16 * 1024;
+
+    // Represents the directory and file name (without extension) of the history
+    private final File directory;
+    private final String fileName;
+
+    // Represents the number of segments whose drinks were read by the last query
+    private int lastQuerySegmentCount;
+
+    // Represents the buffer encrypted segments are decrypted into to be summed in place
+    private final DrinkSegmentReader.SegmentBuffer segmentBuffer;
+
+    /// <summary>
+    ///  The footer of a segment.
+    /// </summary>
+    private static class SegmentFooter {
+        int drinkCount;
+        long earliestConsumedAt;
+        long latestConsumedAt;
+        int recordsChecksum;
+    }
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a directory and file name (without extension), creates a history stored there.
+    /// </summary>
+    public DrinkHistory(File directory, String fileName){
+        this.directory = directory;
+        this.fileName = fileName;
+        this.lastQuerySegmentCount = 0;
+        this.segmentBuffer = new DrinkSegmentReader.SegmentBuffer();
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public int GetLastQuerySegmentCount(){
+        return this.lastQuerySegmentCount;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a time of consumption, returns the key of its local month, the decimal number
+    ///     yyyymm.
+    /// </summary>
+    public static int MonthKey(long consumedAt){
+        return ConsumptionTime.GetYear(consumedAt) * 100 + ConsumptionTime.GetMonth(consumedAt);
+    }
+
+    /// <summary>
+    ///  Given a time zone, returns the time the current month began in that zone. Drinks
+    ///     from before it belong in the history rather than the drink log.
+    /// </summary>
+    public static long CurrentMonthStart(TimeZone zone){
+        long now = ConsumptionTime.FromMillis(System.currentTimeMillis(), zone);
+        return ConsumptionTime.FromLocal(
+                ConsumptionTime.EpochDayOf(ConsumptionTime.GetYear(now), ConsumptionTime.GetMonth(now), 1),
+                0, 0, zone
+        );
+    }
+
+    /// <summary>
+    ///     Given drinks, adds each to the segment of its month. A drink whose log ID is
+    ///     already in its month (added before, by an add that was interrupted) replaces it.
+    ///     Drinks never logged have no ID, so they're matched on what they hold instead: an
+    ///     added drink is only stored if its month holds fewer drinks the same as it than
+    ///     the added drinks do. So adding the same drinks again stores nothing more, and
+    ///     identical drinks added together are all kept.
+    ///     Each month's segment is rewritten whole and renamed into place.
+    ///     Returns true if successful.
+    ///     Returns false if a segment couldn't be read or written. Months written before
+    ///     the failure keep their drinks.
+    /// </summary>
+    public boolean AddDrinks(Collection<Drink> drinks){
+
+        TreeMap<Integer, ArrayList<Drink>> drinksByMonth = new TreeMap<>();
+        for (Drink drink : drinks){
+            int monthKey = DrinkHistory.MonthKey(drink.GetConsumedAt());
+            ArrayList<Drink> monthDrinks = drinksByMonth.get(monthKey);
+            if (monthDrinks == null){
+                monthDrinks = new ArrayList<>();
+                drinksByMonth.put(monthKey, monthDrinks);
+            }
+            monthDrinks.add(drink);
+        }
+
+        for (Map.Entry<Integer, ArrayList<Drink>> month : drinksByMonth.entrySet()){
+            File segmentFile = this.SegmentFile(month.getKey());
+            LinkedHashMap<Long, Drink> monthDrinks = new LinkedHashMap<>();
+            ArrayList<Drink> storedDrinks = new ArrayList<>();
+            HashMap<String, Integer> storedUnloggedCounts = new HashMap<>();
+            HashMap<String, Integer> addedUnloggedCounts = new HashMap<>();
+            long unloggedKey = -1;
+
+            // Merge with what's stored for the month, counting the stored drinks never logged
+            if (segmentFile.exists() && !this.ReadSegment(segmentFile, Long.MIN_VALUE, Long.MAX_VALUE, storedDrinks)){
+                return false;
+            }
+            for (Drink drink : storedDrinks){
+                if (drink.GetLogId() < 0){
+                    monthDrinks.put(unloggedKey--, drink);
+                    DrinkHistory.CountUnloggedDrink(storedUnloggedCounts, drink);
+                }
+                else monthDrinks.put(drink.GetLogId(), drink);
+            }
+            for (Drink drink : month.getValue()){
+                if (drink.GetLogId() >= 0) monthDrinks.put(drink.GetLogId(), drink);
+                else{
+                    int addedCount = DrinkHistory.CountUnloggedDrink(addedUnloggedCounts, drink);
+                    Integer storedCount = storedUnloggedCounts.get(DrinkHistory.UnloggedDrinkKey(drink));
+                    if (storedCount == null || addedCount > storedCount) monthDrinks.put(unloggedKey--, drink);
+                }
+            }
+
+            ArrayList<Drink> sortedDrinks = new ArrayList<>(monthDrinks.values());
+            DrinkHistory.SortByConsumedAt(sortedDrinks);
+            if (!DrinkHistory.WriteSegment(segmentFile, month.getKey(), sortedDrinks)) return false;
+        }
+        return true;
+    }
+
+    /// <summary>
+    ///     Given a range of times of consumption, from (inclusive) to (exclusive), returns
+    ///     every drink in the history drunk in the range, sorted by time of consumption.
+    ///     Only segments of months that can hold drinks in the range are opened, and only
+    ///     those whose footers overlap the range are read.
+    ///     A segment that can't be read is skipped.
+    /// </summary>
+    public List<Drink> Query(long fromConsumedAt, long toConsumedAt){
+
+        ArrayList<Drink> drinks = new ArrayList<>();
+
+        this.lastQuerySegmentCount = 0;
+        if (fromConsumedAt >= toConsumedAt) return drinks;
+        for (int monthKey : this.ListMonthKeys()){
+            if (!DrinkHistory.MonthMayOverlap(monthKey, fromConsumedAt, toConsumedAt)) continue;
+            if (!this.ReadSegment(this.SegmentFile(monthKey), fromConsumedAt, toConsumedAt, drinks)){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkHistoryErrorMessages.ReadSegmentError);
+            }
+        }
+        DrinkHistory.SortByConsumedAt(drinks);
+        return drinks;
+    }
+
+    /// <summary>
+    ///     Given a range of times of consumption, from (inclusive) to (exclusive), and
+    ///     totals, sets the totals to those of every drink in the history drunk in the range.
+    ///     Segments are read in place through a DrinkSegmentReader, so no drink is decoded.
+    ///     Encrypted segments are first decrypted whole into a buffer the history reuses,
+    ///     which is kept as large as the largest encrypted segment summed.
+    ///     Returns true if successful.
+    ///     Returns false if a segment that may hold drinks in the range is corrupt or can't
+    ///     be read. The totals still hold the drinks of every other segment.
+    /// </summary>
+    public boolean Sum(long fromConsumedAt, long toConsumedAt, DrinkTotals totals){
+        totals.Clear();
+        return this.Aggregate(fromConsumedAt, toConsumedAt, totals, 0, null);
+    }
+
+    /// <summary>
+    ///     Given a range of times of consumption, from (inclusive) to (exclusive), the local
+    ///     day, as days since the epoch, of the first of an array of totals, and the array,
+    ///     sets each totals in the array to those of the drinks in the range drunk on its
+    ///     local day. Drinks in the range on days outside the array aren't summed.
+    ///     Segments are read as by Sum.
+    ///     Returns true if successful.
+    ///     Returns false as Sum does.
+    /// </summary>
+    public boolean SumByDay(long fromConsumedAt, long toConsumedAt, long firstLocalEpochDay, DrinkTotals[] dayTotals){
+        for (DrinkTotals totals : dayTotals) totals.Clear();
+        return this.Aggregate(fromConsumedAt, toConsumedAt, null, firstLocalEpochDay, dayTotals);
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Writes a month's drinks, sorted by time of consumption, to its segment file
+    private static boolean WriteSegment(File segmentFile, int monthKey, List<Drink> drinks){
+
+        File temporaryFile = new File(segmentFile.getAbsolutePath() + Universals.FileNames.TemporaryExtension);
+        FileOutputStream targetFileStream = null;
+        OutputStream storageStream;
+        DataOutputStream targetStream;
+        Crc32c checksum = new Crc32c();
+        ByteBuffer footer = ByteBuffer.allocate(DrinkHistory.FooterSize);
+
+        try{
+            targetFileStream = new FileOutputStream(temporaryFile, false);
+            storageStream = DatabaseManager.OpenWriteStream(targetFileStream);
+            targetStream = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(storageStream, DrinkHistory.bufferSize),
+                    checksum
+            ));
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkHistoryErrorMessages.WriteSegmentError);
+            if (targetFileStream != null){
+                try{
+                    targetFileStream.close();
+                }
+                catch (IOException ignored){
+                }
+                temporaryFile.delete();
+            }
+            return false;
+        }
+
+        // Write the header and drinks, then the footer and its checksum
+        try{
+            targetStream.writeInt(Universals.BinaryFormats.DrinkHistoryFormat.MagicNumber);
+            targetStream.writeShort(Universals.BinaryFormats.DrinkHistoryFormat.Version);
+            targetStream.writeInt(monthKey);
+            for (Drink drink : drinks){
+                DrinkHistory.WriteDrink(targetStream, drink);
+            }
+            footer.putInt(drinks.size());
+            footer.putLong(drinks.isEmpty() ? Long.MAX_VALUE : drinks.get(0).GetConsumedAt());
+            footer.putLong(drinks.isEmpty() ? Long.MIN_VALUE : drinks.get(drinks.size() - 1).GetConsumedAt());
+            footer.putInt((int)checksum.getValue());
+            checksum.reset();
+            checksum.update(footer.array(), 0, footer.position());
+            footer.putInt((int)checksum.getValue());
+            targetStream.write(footer.array());
+            targetStream.flush();
+            DatabaseManager.FinishWriteStream(storageStream);
+            targetFileStream.getFD().sync();
+            targetStream.close();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkHistoryErrorMessages.WriteSegmentError);
+            try{
+                targetStream.close();
+            }
+            catch (IOException ignored){
+            }
+            temporaryFile.delete();
+            return false;
+        }
+
+        if (!temporaryFile.renameTo(segmentFile)){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkHistoryErrorMessages.WriteSegmentError);
+            temporaryFile.delete();
+            return false;
+        }
+        return true;
+    }
+
+    // Reads the drinks of a segment drunk in a range into a list. The footer is read first,
+    //  and the drinks are only read, and counted as a segment read, if it overlaps the
+    //  range. Returns false if the segment is corrupt or can't be read, in which case
+    //  nothing is added.
+    private boolean ReadSegment(File segmentFile, long fromConsumedAt, long toConsumedAt, List<Drink> drinks){
+
+        SegmentFooter footer;
+        ArrayList<Drink> segmentDrinks;
+        Crc32c checksum = new Crc32c();
+
+        try (StorageFileReader reader = StorageFileReader.Open(segmentFile)){
+            long length = reader.GetLength();
+            if (length < DrinkHistory.HeaderSize + DrinkHistory.FooterSize) return false;
+            footer = DrinkHistory.ReadFooter(reader, length);
+            if (footer == null) return false;
+            if (footer.drinkCount == 0
+                    || footer.latestConsumedAt < fromConsumedAt
+                    || footer.earliestConsumedAt >= toConsumedAt){
+                return true;
+            }
+
+            // Read every drink, so they can be checked against the footer's checksum
+            this.lastQuerySegmentCount++;
+            segmentDrinks = new ArrayList<>(footer.drinkCount);
+            DataInputStream inputStream = new DataInputStream(new CheckedInputStream(
+                    reader.OpenStream(DrinkHistory.bufferSize), checksum
+            ));
+            if (inputStream.readInt() != Universals.BinaryFormats.DrinkHistoryFormat.MagicNumber
+                    || inputStream.readShort() != Universals.BinaryFormats.DrinkHistoryFormat.Version){
+                return false;
+            }
+            inputStream.readInt();
+
+            // Records are read before their checksum can be checked, so each string is
+            //  bounded by the end of the records, where the footer begins
+            long recordsEnd = length - DrinkHistory.FooterSize;
+            for (int i = 0; i < footer.drinkCount; i++){
+                segmentDrinks.add(DrinkHistory.ReadDrink(inputStream, recordsEnd));
+            }
+            if ((int)checksum.getValue() != footer.recordsChecksum) return false;
+        }
+        catch (IOException e){
+            return false;
+        }
+
+        for (Drink drink : segmentDrinks){
+            if (drink.GetConsumedAt() >= fromConsumedAt && drink.GetConsumedAt() < toConsumedAt) drinks.add(drink);
+        }
+        return true;
+    }
+
+    // Adds the drinks in a range to totals, or to the totals of their days, or both. Each
+    //  segment the range may cover is read in place, mapped or decrypted into the segment
+    //  buffer, or decoded if it can't be opened that way.
+    private boolean Aggregate(long fromConsumedAt, long toConsumedAt, DrinkTotals totals, long firstLocalEpochDay, DrinkTotals[] dayTotals){
+
+        boolean allRead = true;
+        ArrayList<Drink> decodedDrinks = new ArrayList<>();
+
+        this.lastQuerySegmentCount = 0;
+        if (fromConsumedAt >= toConsumedAt) return true;
+        for (int monthKey : this.ListMonthKeys()){
+            if (!DrinkHistory.MonthMayOverlap(monthKey, fromConsumedAt, toConsumedAt)) continue;
+            File segmentFile = this.SegmentFile(monthKey);
+            DrinkSegmentReader segmentReader = DrinkSegmentReader.Open(segmentFile, this.segmentBuffer);
+
+            // Segments that can't be opened in place, because they're corrupt or can't be
+            //  decrypted, are decoded
+            if (segmentReader == null){
+                decodedDrinks.clear();
+                if (!this.ReadSegment(segmentFile, fromConsumedAt, toConsumedAt, decodedDrinks)){
+                    Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkHistoryErrorMessages.ReadSegmentError);
+                    allRead = false;
+                    continue;
+                }
+                for (Drink drink : decodedDrinks){
+                    DrinkHistory.AddToTotals(
+                            drink.GetConsumedAt(), drink.GetServings(), drink.GetCalories(), drink.GetPrice(),
+                            totals, firstLocalEpochDay, dayTotals
+                    );
+                }
+                continue;
+            }
+
+            if (segmentReader.GetDrinkCount() == 0
+                    || segmentReader.GetLatestConsumedAt() < fromConsumedAt
+                    || segmentReader.GetEarliestConsumedAt() >= toConsumedAt){
+                continue;
+            }
+            this.lastQuerySegmentCount++;
+            if (!segmentReader.VerifyRecords()){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkHistoryErrorMessages.ReadSegmentError);
+                allRead = false;
+                continue;
+            }
+
+            // Records are sorted, so stop at the first past the range
+            DrinkSegmentReader.Cursor cursor = segmentReader.NewCursor();
+            while (cursor.Next()){
+                long consumedAt = cursor.GetConsumedAt();
+                if (consumedAt < fromConsumedAt) continue;
+                if (consumedAt >= toConsumedAt) break;
+                DrinkHistory.AddToTotals(
+                        consumedAt, cursor.GetServings(), cursor.GetCalories(), cursor.GetPrice(),
+                        totals, firstLocalEpochDay, dayTotals
+                );
+            }
+        }
+        return allRead;
+    }
+
+    // Adds a drink to totals, if given, and to the totals of its local day, if given and
+    //  in the array
+    private static void AddToTotals(long consumedAt, short servings, float calories, float price, DrinkTotals totals, long firstLocalEpochDay, DrinkTotals[] dayTotals){
+        if (totals != null) totals.Add(servings, calories, price);
+        if (dayTotals != null){
+            long day = ConsumptionTime.GetLocalEpochDay(consumedAt) - firstLocalEpochDay;
+            if (day >= 0 && day < dayTotals.length) dayTotals[(int)day].Add(servings, calories, price);
+        }
+    }
+
+    // Returns whether a month's segment may hold drinks in a range. Local months can
+    //  begin up to a day either side of the UTC instant.
+    private static boolean MonthMayOverlap(int monthKey, long fromConsumedAt, long toConsumedAt){
+        long fromMinutes = ConsumptionTime.GetEpochMinutes(fromConsumedAt) - ConsumptionTime.MinutesPerDay;
+        long toMinutes = ConsumptionTime.GetEpochMinutes(toConsumedAt) + ConsumptionTime.MinutesPerDay;
+        long monthStart = ConsumptionTime.EpochDayOf(monthKey / 100, monthKey % 100, 1) * ConsumptionTime.MinutesPerDay;
+        long monthEnd = DrinkHistory.EpochDayOfNextMonth(monthKey) * ConsumptionTime.MinutesPerDay;
+        return monthEnd > fromMinutes && monthStart < toMinutes;
+    }
+
+    // Reads and checks the footer at the end of a segment. Returns null if it's corrupt.
+    private static SegmentFooter ReadFooter(StorageFileReader reader, long length) throws IOException {
+        byte[] footerBytes = new byte[DrinkHistory.FooterSize];
+        Crc32c checksum = new Crc32c();
+        SegmentFooter footer = new SegmentFooter();
+
+        reader.ReadFully(length - DrinkHistory.FooterSize, footerBytes, 0, DrinkHistory.FooterSize);
+        checksum.update(footerBytes, 0, DrinkHistory.FooterSize - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(footerBytes);
+        footer.drinkCount = buffer.getInt();
+        footer.earliestConsumedAt = buffer.getLong();
+        footer.latestConsumedAt = buffer.getLong();
+        footer.recordsChecksum = buffer.getInt();
+        if (buffer.getInt() != (int)checksum.getValue() || footer.drinkCount < 0) return null;
+        return footer;
+    }
+
+    // Writes a drink as a segment record
+    private static void WriteDrink(DataOutputStream stream, Drink drink) throws IOException {
+        stream.writeLong(drink.GetConsumedAt());
+        stream.writeLong(drink.GetLogId());
+        DrinkTemplateBinaryFormat.WriteBinaryString(stream, drink.GetName());
+        stream.writeShort(drink.GetType().GetValue());
+        stream.writeShort(drink.GetServings());
+        stream.writeFloat(drink.GetAPV());
+        stream.writeFloat(drink.GetCalories());
+        stream.writeFloat(drink.GetPrice());
+        DrinkTemplateBinaryFormat.WriteBinaryString(stream, drink.GetImageFilePath());
+        DrinkTemplateBinaryFormat.WriteBinaryString(stream, drink.GetOccasion());
+    }
+
+    // Reads a drink from a segment record. Each string takes up at most maxLength bytes, so
+    //  a corrupt length throws IOException instead of being allocated.
+    private static Drink ReadDrink(DataInputStream stream, long maxLength) throws IOException {
+        long consumedAt = stream.readLong();
+        long logId = stream.readLong();
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength));
+        template.SetType(stream.readShort());
+        template.SetServings(stream.readShort());
+        template.SetAPV(stream.readFloat());
+        template.SetCalories(stream.readFloat());
+        template.SetPrice(stream.readFloat());
+        template.SetImageFilePath(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength));
+        Drink drink = template.ProduceDrink(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength), consumedAt);
+        drink.SetLogId(logId);
+        return drink;
+    }
+
+    // Returns a key of what a drink never logged holds, the same for drinks that are the same
+    private static String UnloggedDrinkKey(Drink drink){
+        return drink.GetConsumedAt()
+                + "|" + drink.GetName()
+                + "|" + drink.GetType().GetValue()
+                + "|" + drink.GetServings()
+                + "|" + Float.floatToIntBits(drink.GetAPV())
+                + "|" + Float.floatToIntBits(drink.GetCalories())
+                + "|" + Float.floatToIntBits(drink.GetPrice())
+                + "|" + drink.GetImageFilePath()
+                + "|" + drink.GetOccasion();
+    }
+
+    // Counts a drink never logged in counts by key, and returns its key's new count
+    private static int CountUnloggedDrink(HashMap<String, Integer> counts, Drink drink){
+        String key = DrinkHistory.UnloggedDrinkKey(drink);
+        Integer count = counts.get(key);
+        int newCount = count == null ? 1 : count + 1;
+        counts.put(key, newCount);
+        return newCount;
+    }
+
+    // Sorts drinks by time of consumption, keeping the order of drinks drunk at the same time
+    private static void SortByConsumedAt(List<Drink> drinks){
+        Collections.sort(drinks, new Comparator<Drink>() {
+            @Override
+            public int compare(Drink first, Drink second) {
+                return Long.compare(first.GetConsumedAt(), second.GetConsumedAt());
+            }
+        });
+    }
+
+    // Returns the first day of the month after a month key, as days since the epoch
+    private static long EpochDayOfNextMonth(int monthKey){
+        int year = monthKey / 100;
+        int month = monthKey % 100;
+        if (month == 12) return ConsumptionTime.EpochDayOf(year + 1, 1, 1);
+        return ConsumptionTime.EpochDayOf(year, month + 1, 1);
+    }
+
+    // Returns the file of a month key
+    private File SegmentFile(int monthKey){
+        return new File(this.directory, this.fileName + Universals.FileNames.MonthExtension + "." + monthKey);
+    }
+
+    // Returns the month keys of every segment on disk in ascending order
+    private int[] ListMonthKeys(){
+        String prefix = this.fileName + Universals.FileNames.MonthExtension + ".";
+        String[] names = this.directory.list();
+        ArrayList<Integer> monthKeys = new ArrayList<>();
+        int[] result;
+
+        if (names != null){
+            for (String name : names){
+                if (!name.startsWith(prefix)) continue;
+                try{
+                    monthKeys.add(Integer.parseInt(name.substring(prefix.length())));
+                }
+                catch (NumberFormatException ignored){
+                }
+            }
+        }
+        result = new int[monthKeys.size()];
+        for (int i = 0; i < result.length; i++) result[i] = monthKeys.get(i);
+        Arrays.sort(result);
+        return result;
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test adding drinks to monthly segments and querying ranges of them
+    public static void TestPartitionAndQuery(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testDirectory = new File(dbm.GetAppRootDirectory(), "testDrinkHistoryDirectory");
+        String testFileName = "testDrinkHistory";
+        TimeZone testZone = TimeZone.getTimeZone("America/Los_Angeles");
+        DrinkHistory testHistory = new DrinkHistory(testDirectory, testFileName);
+        ArrayList<Drink> testDrinks = new ArrayList<>();
+        DrinkTemplate testTemplate = new DrinkTemplate();
+        List<Drink> queriedDrinks;
+        Drink testDrink;
+        boolean ok;
+        int i;
+
+        // Start from an empty directory
+        testDirectory.mkdirs();
+        String[] staleNames = testDirectory.list();
+        if (staleNames != null) for (String name : staleNames) new File(testDirectory, name).delete();
+
+        // One drink a day at 9pm from 2024-01-01 through 2024-06-29, added out of order
+        for (i = 179; i >= 0; i--){
+            testTemplate.SetName("testName " + i);
+            testTemplate.SetCalories(i);
+            testDrink = testTemplate.ProduceDrink(
+                    "testOccasion " + i,
+                    ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 1, 1) + i, 21, 0, testZone)
+            );
+            testDrink.SetLogId(i);
+            testDrinks.add(testDrink);
+        }
+
+        // Non-exception cases
+        //  -Case 1, drinks are stored in one segment per month
+        ok = testHistory.AddDrinks(testDrinks) && testDirectory.list().length == 6;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 1));
+
+        //  -Case 2, a query of one month reads one segment and returns its drinks in order.
+        //      March 31 at 9pm in Los Angeles is April 1 in UTC, and stays in March.
+        queriedDrinks = testHistory.Query(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 1), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 4, 1), 0, 0, testZone)
+        );
+        ok = queriedDrinks.size() == 31 && testHistory.GetLastQuerySegmentCount() == 1;
+        for (i = 0; ok && i < queriedDrinks.size(); i++){
+            ok = queriedDrinks.get(i).GetName().equals("testName " + (60 + i))
+                    && DrinkHistory.MonthKey(queriedDrinks.get(i).GetConsumedAt()) == 202403;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 2));
+
+        //  -Case 3, a week across a month boundary returns the drinks of both months
+        queriedDrinks = testHistory.Query(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 2, 26), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 4), 0, 0, testZone)
+        );
+        if (queriedDrinks.size() == 7
+                && queriedDrinks.get(0).GetName().equals("testName 56")
+                && queriedDrinks.get(6).GetName().equals("testName 62")){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 3));
+
+        //  -Case 4, adding drinks already stored (an interrupted move from the drink log)
+        //      doesn't store them twice, and keeps the drinks around them
+        testTemplate.SetName("testName late");
+        testDrink = testTemplate.ProduceDrink(
+                "testOccasion late",
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 15), 23, 0, testZone)
+        );
+        testDrink.SetLogId(1000);
+        ArrayList<Drink> addedDrinks = new ArrayList<>(testDrinks.subList(100, 130));
+        addedDrinks.add(testDrink);
+        ok = testHistory.AddDrinks(addedDrinks);
+        queriedDrinks = testHistory.Query(Long.MIN_VALUE, Long.MAX_VALUE);
+        ok &= queriedDrinks.size() == 181 && testHistory.GetLastQuerySegmentCount() == 6;
+        for (i = 1; ok && i < queriedDrinks.size(); i++){
+            ok = queriedDrinks.get(i - 1).GetConsumedAt() <= queriedDrinks.get(i).GetConsumedAt();
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 4));
+
+        //  -Case 5, adding the same drinks never logged twice (a move from the drink log
+        //      that stopped before the log was compacted) stores them once. Two drinks the
+        //      same as each other are both kept.
+        testTemplate.SetName("testName unlogged");
+        addedDrinks = new ArrayList<>();
+        for (i = 0; i < 2; i++){
+            addedDrinks.add(testTemplate.ProduceDrink(
+                    "testOccasion unlogged",
+                    ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 4, 10), 12, 0, testZone)
+            ));
+        }
+        ok = testHistory.AddDrinks(addedDrinks) && testHistory.AddDrinks(addedDrinks);
+        queriedDrinks = testHistory.Query(Long.MIN_VALUE, Long.MAX_VALUE);
+        ok &= queriedDrinks.size() == 183;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 5));
+
+        //  -Case 6, a range outside every segment's footer reads no drinks
+        queriedDrinks = testHistory.Query(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 6, 30), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 8, 1), 0, 0, testZone)
+        );
+        if (queriedDrinks.isEmpty() && testHistory.GetLastQuerySegmentCount() == 0){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 6));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 6));
+
+        // Exception cases
+        //  -Case 7, a corrupt segment is skipped, and the others are still read
+        File januarySegment = testHistory.SegmentFile(202401);
+        try (RandomAccessFile corrupter = new RandomAccessFile(januarySegment, "rw")){
+            corrupter.seek(DrinkHistory.HeaderSize + 20);
+            int value = corrupter.read();
+            corrupter.seek(DrinkHistory.HeaderSize + 20);
+            corrupter.write(value ^ 0xFF);
+            ok = true;
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        queriedDrinks = testHistory.Query(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 1, 1), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 1), 0, 0, testZone)
+        );
+        if (ok && queriedDrinks.size() == 29 && queriedDrinks.get(0).GetName().equals("testName 31")){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 7));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 7));
+
+        //  -Case 8, a name length corrupted to nearly 2 GB skips the segment without being
+        //      allocated, and the others are still read
+        File februarySegment = testHistory.SegmentFile(202402);
+        try (RandomAccessFile corrupter = new RandomAccessFile(februarySegment, "rw")){
+            corrupter.seek(DrinkHistory.HeaderSize + 16);
+            corrupter.write(0x7F);
+            ok = true;
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        queriedDrinks = testHistory.Query(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 2, 1), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 4, 1), 0, 0, testZone)
+        );
+        if (ok && queriedDrinks.size() == 32 && queriedDrinks.get(0).GetName().equals("testName 60")){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(true, 8));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.PartitionQueryMessage(false, 8));
+
+        // Clean up
+        String[] names = testDirectory.list();
+        if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        testDirectory.delete();
+    }
+
+    // Test summing ranges of drinks in place through mapped segments
+    public static void TestMappedAggregation(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testDirectory = new File(dbm.GetAppRootDirectory(), "testDrinkHistoryMappedDirectory");
+        String testFileName = "testDrinkHistoryMapped";
+        TimeZone testZone = TimeZone.getTimeZone("America/Los_Angeles");
+        DrinkHistory testHistory = new DrinkHistory(testDirectory, testFileName);
+        ArrayList<Drink> testDrinks = new ArrayList<>();
+        DrinkTemplate testTemplate = new DrinkTemplate();
+        DrinkTotals testTotals = new DrinkTotals();
+        DrinkTotals[] testDayTotals = new DrinkTotals[31];
+        StorageCipher previousCipher = DatabaseManager.GetStorageCipher();
+        ArrayList<ArrayList<Drink>> monthDrinks = new ArrayList<>();
+        int[] monthKeys;
+        List<Drink> queriedDrinks;
+        Drink testDrink;
+        long expectedServings;
+        double expectedCalories;
+        double expectedPrice;
+        boolean ok;
+        int i;
+
+        // Start from an empty directory
+        testDirectory.mkdirs();
+        String[] staleNames = testDirectory.list();
+        if (staleNames != null) for (String name : staleNames) new File(testDirectory, name).delete();
+        for (i = 0; i < testDayTotals.length; i++) testDayTotals[i] = new DrinkTotals();
+
+        // One drink a day at 9pm from 2024-01-01 through 2024-06-29, with whole number
+        //  calories and prices so sums are exact
+        for (i = 0; i < 180; i++){
+            testTemplate.SetName("testName " + i);
+            testTemplate.SetServings((short)(i % 3 + 1));
+            testTemplate.SetCalories(i);
+            testTemplate.SetPrice(i % 5);
+            testDrink = testTemplate.ProduceDrink(
+                    "testOccasion " + i,
+                    ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 1, 1) + i, 21, 0, testZone)
+            );
+            testDrink.SetLogId(i);
+            testDrinks.add(testDrink);
+        }
+        testHistory.AddDrinks(testDrinks);
+
+        // Non-exception cases
+        //  -Case 1, a cursor over a segment reads the same drinks as decoding it
+        queriedDrinks = testHistory.Query(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 1), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 4, 1), 0, 0, testZone)
+        );
+        DrinkSegmentReader testReader = DrinkSegmentReader.Open(testHistory.SegmentFile(202403));
+        ok = testReader != null && testReader.GetDrinkCount() == 31 && testReader.VerifyRecords();
+        DrinkSegmentReader.Cursor testCursor = ok ? testReader.NewCursor() : null;
+        for (i = 0; ok && i < queriedDrinks.size(); i++){
+            testDrink = queriedDrinks.get(i);
+            ok = testCursor.Next()
+                    && testCursor.GetConsumedAt() == testDrink.GetConsumedAt()
+                    && testCursor.GetLogId() == testDrink.GetLogId()
+                    && testCursor.GetServings() == testDrink.GetServings()
+                    && testCursor.GetCalories() == testDrink.GetCalories()
+                    && testCursor.GetPrice() == testDrink.GetPrice()
+                    && testCursor.GetName().equals(testDrink.GetName())
+                    && testCursor.GetOccasion().equals(testDrink.GetOccasion())
+                    && testCursor.ToDrink().GetImageFilePath().equals(testDrink.GetImageFilePath());
+        }
+        ok &= queriedDrinks.size() == 31 && testCursor != null && !testCursor.Next();
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(false, 1));
+
+        //  -Case 2, summing the whole history matches summing the drinks a query decodes
+        expectedServings = 0;
+        expectedCalories = 0;
+        expectedPrice = 0;
+        for (Drink drink : testHistory.Query(Long.MIN_VALUE, Long.MAX_VALUE)){
+            expectedServings += drink.GetServings();
+            expectedCalories += drink.GetCalories();
+            expectedPrice += drink.GetPrice();
+        }
+        ok = testHistory.Sum(Long.MIN_VALUE, Long.MAX_VALUE, testTotals);
+        if (ok && testTotals.GetDrinkCount() == 180
+                && testTotals.GetServings() == expectedServings
+                && testTotals.GetCalories() == expectedCalories
+                && testTotals.GetPrice() == expectedPrice
+                && testHistory.GetLastQuerySegmentCount() == 6){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(false, 2));
+
+        //  -Case 3, summing a month by day puts each drink on its local day. March 31 at
+        //      9pm in Los Angeles is April 1 in UTC, and stays on the last day.
+        ok = testHistory.SumByDay(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 1), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 4, 1), 0, 0, testZone),
+                ConsumptionTime.EpochDayOf(2024, 3, 1),
+                testDayTotals
+        );
+        for (i = 0; ok && i < testDayTotals.length; i++){
+            ok = testDayTotals[i].GetDrinkCount() == 1 && testDayTotals[i].GetCalories() == 60 + i;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(false, 3));
+
+        //  -Case 4, a range within a month sums only its drinks, from one segment
+        ok = testHistory.Sum(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 10), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 3, 20), 0, 0, testZone),
+                testTotals
+        );
+        expectedCalories = 0;
+        for (i = 69; i < 79; i++) expectedCalories += i;
+        if (ok && testTotals.GetDrinkCount() == 10
+                && testTotals.GetCalories() == expectedCalories
+                && testHistory.GetLastQuerySegmentCount() == 1){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(false, 4));
+
+        //  -Case 5, with storage encrypted, encrypted segments can't be mapped but are summed
+        //      in place from the history's segment buffer, with the same totals as case 2
+        monthKeys = testHistory.ListMonthKeys();
+        ok = true;
+        for (int monthKey : monthKeys){
+            ArrayList<Drink> drinks = new ArrayList<>();
+            ok &= testHistory.ReadSegment(testHistory.SegmentFile(monthKey), Long.MIN_VALUE, Long.MAX_VALUE, drinks);
+            monthDrinks.add(drinks);
+        }
+        DatabaseManager.SetStorageCipher(new StorageCipher(StorageCipher.GenerateKey(), 1024));
+        for (i = 0; ok && i < monthKeys.length; i++){
+            ok = DrinkHistory.WriteSegment(testHistory.SegmentFile(monthKeys[i]), monthKeys[i], monthDrinks.get(i));
+        }
+        ok &= DrinkSegmentReader.Open(testHistory.SegmentFile(202403)) == null
+                && testHistory.Sum(Long.MIN_VALUE, Long.MAX_VALUE, testTotals);
+        if (ok && testTotals.GetDrinkCount() == 180
+                && testTotals.GetServings() == expectedServings
+                && testTotals.GetPrice() == expectedPrice
+                && testHistory.GetLastQuerySegmentCount() == 6
+                && testHistory.segmentBuffer.GetCapacity() > 0){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(false, 5));
+
+        // Exception cases
+        //  -Case 6, a corrupt encrypted segment fails the sum, and the others are still summed
+        File januarySegment = testHistory.SegmentFile(202401);
+        try (RandomAccessFile corrupter = new RandomAccessFile(januarySegment, "rw")){
+            corrupter.seek(DrinkHistory.HeaderSize + 20);
+            int value = corrupter.read();
+            corrupter.seek(DrinkHistory.HeaderSize + 20);
+            corrupter.write(value ^ 0xFF);
+            ok = true;
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        ok &= !testHistory.Sum(
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 1, 1), 0, 0, testZone),
+                ConsumptionTime.FromLocal(ConsumptionTime.EpochDayOf(2024, 4, 1), 0, 0, testZone),
+                testTotals
+        );
+        if (ok && testTotals.GetDrinkCount() == 60){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(true, 6));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkHistoryMessages.MappedAggregationMessage(false, 6));
+
+        // Clean up
+        DatabaseManager.SetStorageCipher(previousCipher);
+        String[] names = testDirectory.list();
+        if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        testDirectory.delete();
+    }
+
+    ///
+    /// Benchmark Methods
+    ///
+    /// <summary>
+    ///  Each benchmark method is self contained and measures the method it is named after
+    ///     against a generated workload. Results are printed to LogCat using the Log.d method.
+    /// </summary>
+    ///
+
+    // Benchmark summing a month of drinks by decoding its segment, as Query does, against
+    //  summing it in place through the mapped segment. Then the same with the segment
+    //  encrypted, summed in place after it's decrypted into the segment buffer.
+    public static void BenchmarkSumSegment(Context context, final int drinkCount){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File benchmarkDirectory = new File(dbm.GetAppRootDirectory(), "benchmarkDrinkHistoryDirectory");
+        String benchmarkFileName = "benchmarkDrinkHistory";
+        Benchmark.HeapSampler heapSampler = new Benchmark.HeapSampler();
+        StorageCipher previousCipher = DatabaseManager.GetStorageCipher();
+        DrinkHistory benchmarkHistory;
+        DrinkTotals benchmarkTotals = new DrinkTotals();
+        List<Drink> decodedDrinks;
+        final long monthStartMinutes = ConsumptionTime.EpochDayOf(2024, 1, 1) * ConsumptionTime.MinutesPerDay;
+        final long monthMinutes = 31L * ConsumptionTime.MinutesPerDay;
+        long startHeap;
+        long peakHeap;
+        long startTime;
+        long elapsedTime;
+
+        if (benchmarkDirectory.exists()){
+            String[] names = benchmarkDirectory.list();
+            if (names != null) for (String name : names) new File(benchmarkDirectory, name).delete();
+        }
+        else benchmarkDirectory.mkdir();
+        benchmarkHistory = new DrinkHistory(benchmarkDirectory, benchmarkFileName);
+
+        // Write one month holding every drink. Drinks are made as they're written, so the
+        //  month is never held in memory whole.
+        final ArrayList<DrinkTemplate> templateList = new ArrayList<>(
+                DrinkTemplateManager.GenerateBenchmarkManager(100).GetTemplateList().values()
+        );
+        List<Drink> generatedDrinks = new AbstractList<Drink>() {
+            @Override
+            public Drink get(int index) {
+                Drink drink = templateList.get(index % templateList.size()).ProduceDrink(
+                        "benchmarkOccasion " + (index % 10),
+                        ConsumptionTime.Pack(monthStartMinutes + index * monthMinutes / drinkCount, 0)
+                );
+                drink.SetLogId(index);
+                return drink;
+            }
+
+            @Override
+            public int size() {
+                return drinkCount;
+            }
+        };
+
+        // Write the month as plaintext, then encrypted, and sum it each way
+        for (int encrypted = 0; encrypted <= 1; encrypted++){
+            DatabaseManager.SetStorageCipher(encrypted == 1 ? new StorageCipher(StorageCipher.GenerateKey()) : null);
+            DrinkHistory.WriteSegment(benchmarkHistory.SegmentFile(202401), 202401, generatedDrinks);
+
+            // Decode the month and sum its drinks
+            startHeap = Benchmark.UsedHeapBytes();
+            heapSampler.Start();
+            startTime = System.nanoTime();
+            decodedDrinks = benchmarkHistory.Query(Long.MIN_VALUE, Long.MAX_VALUE);
+            benchmarkTotals.Clear();
+            for (Drink drink : decodedDrinks){
+                benchmarkTotals.Add(drink.GetServings(), drink.GetCalories(), drink.GetPrice());
+            }
+            elapsedTime = System.nanoTime() - startTime;
+            peakHeap = heapSampler.Stop();
+            decodedDrinks = null;
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.ResultMessage(
+                            Universals.BenchmarkMessages.DrinkHistoryMessages.DrinkHistoryBenchmarkTitle,
+                            encrypted == 1
+                                    ? Universals.BenchmarkMessages.DrinkHistoryMessages.SumDecodedEncryptedSegmentCase
+                                    : Universals.BenchmarkMessages.DrinkHistoryMessages.SumDecodedSegmentCase,
+                            benchmarkTotals.GetDrinkCount(),
+                            elapsedTime,
+                            peakHeap - startHeap
+                    )
+            );
+
+            // Sum the month in place, decrypting it first if it's encrypted
+            startHeap = Benchmark.UsedHeapBytes();
+            heapSampler.Start();
+            startTime = System.nanoTime();
+            benchmarkHistory.Sum(Long.MIN_VALUE, Long.MAX_VALUE, benchmarkTotals);
+            elapsedTime = System.nanoTime() - startTime;
+            peakHeap = heapSampler.Stop();
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.ResultMessage(
+                            Universals.BenchmarkMessages.DrinkHistoryMessages.DrinkHistoryBenchmarkTitle,
+                            encrypted == 1
+                                    ? Universals.BenchmarkMessages.DrinkHistoryMessages.SumDecryptedSegmentCase
+                                    : Universals.BenchmarkMessages.DrinkHistoryMessages.SumMappedSegmentCase,
+                            benchmarkTotals.GetDrinkCount(),
+                            elapsedTime,
+                            peakHeap - startHeap
+                    )
+            );
+        }
+        DatabaseManager.SetStorageCipher(previousCipher);
+
+        String[] names = benchmarkDirectory.list();
+        if (names != null) for (String name : names) new File(benchmarkDirectory, name).delete();
+        benchmarkDirectory.delete();
+    }
+}
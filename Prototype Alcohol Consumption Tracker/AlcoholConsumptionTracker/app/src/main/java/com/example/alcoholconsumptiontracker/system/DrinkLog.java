@@ -0,0 +1,974 @@
+/// <summary>
+///  File: DrinkLog.java
+///     Description: Contains the class and methods of the append-only log of logged drinks.
+///         The log keeps every drink logged in the app on disk, so none are lost when the
+///         app closes.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+///
+/// Drink Log Class
+///     Records each drink logged and each drink removed as a small record appended to the
+///     end of the log, so logging a drink never rewrites what's already stored.
+///     The log is stored as numbered segment files named
+///         <fileName>.log.<segment number>
+///     Each segment begins with the log magic number, version, and kind, followed by records:
+///         -Operation (byte): log or remove
+///         -Log: the drink's log ID (long), name, type (short), servings (short), APV,
+///             calories, and price (floats), image file path, occasion, and time of
+///             consumption (long, packed by ConsumptionTime). Strings are length-prefixed
+///             UTF-8. Version 1 segments hold the hour and minute of consumption (shorts)
+///             instead, and are still replayed, as drinks without a date.
+///         -Remove (a tombstone): the log ID of the drink removed (long)
+///         -Next log ID: the log ID to give the next drink logged (long). Begins each
+///             snapshot, so IDs of drinks compacted away are never given out again.
+///         -Checksum (int): the CRC-32C of the record's operation and contents
+///     Replay reads the segments in order in one pass, and stops at the first record that
+///     fails its checksum, so a corrupt record is never applied.
+///     A new segment is started each time the log is opened. Compacting writes the drinks
+///     still logged to a snapshot segment after the others, then deletes the others. Replay
+///     starts from the last snapshot segment, so a crash part way through compacting loses
+///     nothing and applies nothing twice.
+///     Each record is written through to the file as it's appended, which takes
+///     microseconds, so a drink is kept if the app is killed. Forcing it to disk is left to
+///     Flush, which is meant to run on a background thread.
+///     If storage is encrypted, segments are encrypted. Records since the last flush are
+///     held until the chunk holding them is written, and each flush finishes the active
+///     segment and starts a new one, so compaction keeps the number of segments down.
+///     Appending and flushing are synchronized so the log can be flushed from a background
+///     thread while drinks are logged.
+///
+public class DrinkLog {
+
+    ///
+    /// Local variables
+    ///
+    // Operation codes of log records
+    static final byte LogOperation = 1;
+    static final byte RemoveOperation = 2;
+    static final byte NextLogIdOperation = 3;
+
+    // Kinds of segment. A snapshot segment holds every drink logged when it was written,
+    //  so the segments before it are never read.
+    static final byte LogSegment = 0;
+    static final byte SnapshotSegment = 1;
+
+    // Represents the number of segments, and the number of removed drinks as a share of
+    //  logged drinks, after which the log should be compacted.
+    private static final int maxSegmentCount = 16;
+    private static final int compactionRemovedCount = 256;
+
+    // Represents the directory and file name (without extension) of the log
+    private final File directory;
+    private final String fileName;
+
+    // Represents the segment currently appended to and its streams. The storage stream
+    //  encrypts the segment if storage is encrypted, and is the file stream otherwise.
+    private int activeSegmentNumber;
+    private FileOutputStream activeSegmentFileStream;
+    private OutputStream activeSegmentStorageStream;
+    private DataOutputStream activeSegmentStream;
+    private final Crc32c activeSegmentChecksum;
+
+    // Represents the log ID given to the next drink logged
+    private long nextLogId;
+
+    // Represents the number of segments on disk, and the drinks logged and removed in them
+    private int segmentCount;
+    private long loggedCount;
+    private long removedCount;
+
+    // Represents the bytes appended since the last flush, and the cost of the last flush.
+    private long unflushedByteCount;
+    private long lastFlushByteCount;
+    private long lastFlushElapsedNanos;
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a directory and file name (without extension), creates a log stored there.
+    ///     The log must be replayed and opened before drinks are appended.
+    /// </summary>
+    public DrinkLog(File directory, String fileName){
+        this.directory = directory;
+        this.fileName = fileName;
+        this.activeSegmentNumber = 0;
+        this.activeSegmentChecksum = new Crc32c();
+        this.nextLogId = 0;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public synchronized long GetLastFlushByteCount(){
+        return this.lastFlushByteCount;
+    }
+    public synchronized long GetLastFlushElapsedNanos(){
+        return this.lastFlushElapsedNanos;
+    }
+    public synchronized boolean IsOpen(){
+        return this.activeSegmentStream != null;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a list, reads the log from its last snapshot in one pass and adds every
+    ///     drink logged and not removed to the list, in the order they were logged.
+    ///     A segment that ends part way through a record (a write interrupted by the app
+    ///     closing) is read up to its last whole record.
+    ///     Must be called before the log is opened.
+    ///     Returns true if every segment was read.
+    ///     Returns false otherwise, if a segment is corrupt or couldn't be read. Its records
+    ///     from the corrupt one on aren't in the list, so the log shouldn't be compacted,
+    ///     which would delete them.
+    /// </summary>
+    public synchronized boolean Replay(List<Drink> drinks){
+
+        LinkedHashMap<Long, Drink> loggedDrinks = new LinkedHashMap<>();
+        int[] segmentNumbers = this.ListSegmentNumbers();
+        boolean result = true;
+        int firstSegment = 0;
+
+        // Segments before the last snapshot are covered by it
+        for (int i = segmentNumbers.length - 1; i > 0; i--){
+            if (this.ReadSegmentKind(this.SegmentFile(segmentNumbers[i])) == DrinkLog.SnapshotSegment){
+                firstSegment = i;
+                break;
+            }
+        }
+
+        this.loggedCount = 0;
+        this.removedCount = 0;
+        for (int i = firstSegment; i < segmentNumbers.length; i++){
+            if (!this.ReplaySegment(this.SegmentFile(segmentNumbers[i]), loggedDrinks)) result = false;
+        }
+        this.segmentCount = segmentNumbers.length - firstSegment;
+        drinks.addAll(loggedDrinks.values());
+        return result;
+    }
+
+    /// <summary>
+    ///     Opens the log for appending by starting a new segment after any existing ones.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    public synchronized boolean Open(){
+        int[] segmentNumbers = this.ListSegmentNumbers();
+        if (segmentNumbers.length > 0){
+            this.activeSegmentNumber = segmentNumbers[segmentNumbers.length - 1] + 1;
+        }
+        return this.StartSegment(this.activeSegmentNumber, DrinkLog.LogSegment);
+    }
+
+    /// <summary>
+    ///     Closes the log. Pending records are flushed to disk first.
+    /// </summary>
+    public synchronized void Close(){
+        this.Flush();
+        try{
+            if (this.activeSegmentStream != null) this.activeSegmentStream.close();
+        }
+        catch (IOException ignored){
+        }
+        this.activeSegmentStream = null;
+        this.activeSegmentFileStream = null;
+        this.activeSegmentStorageStream = null;
+    }
+
+    /// <summary>
+    ///     Forces records appended since the last flush to disk. If the segment is
+    ///     encrypted and has records since the last flush, it's finished and a new segment
+    ///     is started.
+    ///     Forcing the file to disk can take milliseconds, so it's done without holding
+    ///     the log, and drinks can be appended meanwhile.
+    ///     The number of bytes flushed and the time taken are kept and can be retrieved with
+    ///     GetLastFlushByteCount and GetLastFlushElapsedNanos.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    public boolean Flush(){
+        long startTime = System.nanoTime();
+        FileOutputStream syncStream;
+        DataOutputStream finishedStream = null;
+        long flushedByteCount;
+        boolean result = true;
+
+        // Write out what's buffered, and finish an encrypted segment
+        synchronized (this){
+            if (this.activeSegmentStream == null) return false;
+            boolean finishSegment = this.activeSegmentStorageStream != this.activeSegmentFileStream && this.unflushedByteCount > 0;
+            try{
+                this.activeSegmentStream.flush();
+                if (finishSegment) DatabaseManager.FinishWriteStream(this.activeSegmentStorageStream);
+            }
+            catch (IOException e){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.AppendError);
+                return false;
+            }
+            syncStream = this.activeSegmentFileStream;
+            if (finishSegment){
+                finishedStream = this.activeSegmentStream;
+                this.activeSegmentNumber++;
+                result = this.StartSegment(this.activeSegmentNumber, DrinkLog.LogSegment);
+            }
+            flushedByteCount = this.unflushedByteCount;
+            this.unflushedByteCount = 0;
+        }
+
+        // Then force it to disk
+        try{
+            syncStream.getFD().sync();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.AppendError);
+            result = false;
+        }
+        if (finishedStream != null){
+            try{
+                finishedStream.close();
+            }
+            catch (IOException ignored){
+            }
+        }
+        synchronized (this){
+            this.lastFlushByteCount = flushedByteCount;
+            this.lastFlushElapsedNanos = System.nanoTime() - startTime;
+        }
+        return result;
+    }
+
+    /// <summary>
+    ///     Creates a task that flushes the log for a PersistenceScheduler to run.
+    ///     The task logs the bytes written and time taken when it succeeds.
+    /// </summary>
+    public PersistenceScheduler.WriteTask CreateFlushTask(){
+        return new PersistenceScheduler.WriteTask() {
+            @Override
+            public boolean Write() {
+                if (!DrinkLog.this.Flush()) return false;
+                Log.d(
+                        Universals.StatisticMessages.StatisticMessageTag,
+                        Universals.StatisticMessages.SaveDrinksMessage(
+                                DrinkLog.this.GetLastFlushByteCount(),
+                                DrinkLog.this.GetLastFlushElapsedNanos()
+                        )
+                );
+                return true;
+            }
+        };
+    }
+
+    /// <summary>
+    ///     Appends a record of a drink being logged, and gives the drink its log ID.
+    ///     Returns true if successful.
+    ///     Returns false if the log isn't open or the record couldn't be written.
+    /// </summary>
+    public synchronized boolean Append(Drink drink){
+        if (this.activeSegmentStream == null) return false;
+        long logId = this.nextLogId;
+        if (!this.WriteLogRecord(drink, logId)) return false;
+        drink.SetLogId(logId);
+        this.nextLogId++;
+        this.loggedCount++;
+        return true;
+    }
+
+    /// <summary>
+    ///     Appends a tombstone recording a logged drink being removed.
+    ///     Returns true if successful.
+    ///     Returns false if the log isn't open, the drink was never logged, or the record
+    ///     couldn't be written.
+    /// </summary>
+    public synchronized boolean AppendRemove(Drink drink){
+        if (this.activeSegmentStream == null || drink.GetLogId() < 0) return false;
+        int startSize = this.activeSegmentStream.size();
+        try{
+            this.activeSegmentChecksum.reset();
+            this.activeSegmentStream.writeByte(DrinkLog.RemoveOperation);
+            this.activeSegmentStream.writeLong(drink.GetLogId());
+            this.activeSegmentStream.writeInt((int)this.activeSegmentChecksum.getValue());
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.AppendError);
+            return false;
+        }
+        this.unflushedByteCount += this.activeSegmentStream.size() - startSize;
+        this.removedCount++;
+        return true;
+    }
+
+    /// <summary>
+    ///     Returns whether the log has built up enough segments or removed drinks that it
+    ///     should be compacted.
+    /// </summary>
+    public synchronized boolean CompactionNeeded(){
+        return this.segmentCount >= DrinkLog.maxSegmentCount
+                || (this.removedCount >= DrinkLog.compactionRemovedCount && this.removedCount * 2 >= this.loggedCount);
+    }
+
+    /// <summary>
+    ///     Given every drink still logged, as replayed, compacts the log. The drinks are
+    ///     written to a snapshot segment after the others, and the others are deleted.
+    ///     Must be called before the log is opened.
+    ///     Returns true if successful.
+    ///     Returns false if the log is open or the snapshot couldn't be written, in which
+    ///     case the log is left as it was.
+    /// </summary>
+    public synchronized boolean Compact(Collection<Drink> drinks){
+        if (this.activeSegmentStream != null) return false;
+
+        int[] segmentNumbers = this.ListSegmentNumbers();
+        int snapshotNumber = segmentNumbers.length > 0 ? segmentNumbers[segmentNumbers.length - 1] + 1 : 0;
+        File snapshotFile = this.SegmentFile(snapshotNumber);
+        File temporaryFile = new File(this.directory, snapshotFile.getName() + Universals.FileNames.TemporaryExtension);
+
+        // Write the snapshot aside, then rename it into place so it's only read whole
+        if (!this.StartSegmentFile(temporaryFile, DrinkLog.SnapshotSegment)) return false;
+        boolean written = this.WriteNextLogIdRecord();
+        for (Drink drink : drinks){
+            if (!written || !this.WriteLogRecord(drink, drink.GetLogId())){
+                written = false;
+                break;
+            }
+        }
+        try{
+            this.activeSegmentStream.flush();
+            DatabaseManager.FinishWriteStream(this.activeSegmentStorageStream);
+            this.activeSegmentFileStream.getFD().sync();
+        }
+        catch (IOException e){
+            written = false;
+        }
+        try{
+            this.activeSegmentStream.close();
+        }
+        catch (IOException ignored){
+        }
+        this.activeSegmentStream = null;
+        this.activeSegmentFileStream = null;
+        this.activeSegmentStorageStream = null;
+        this.unflushedByteCount = 0;
+        if (!written || !temporaryFile.renameTo(snapshotFile)){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.CompactionError);
+            temporaryFile.delete();
+            return false;
+        }
+
+        for (int segmentNumber : segmentNumbers){
+            this.SegmentFile(segmentNumber).delete();
+        }
+        this.segmentCount = 1;
+        this.loggedCount = drinks.size();
+        this.removedCount = 0;
+        return true;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Writes a log record of a drink under a log ID to the active segment
+    private boolean WriteLogRecord(Drink drink, long logId){
+        int startSize = this.activeSegmentStream.size();
+        try{
+            this.activeSegmentChecksum.reset();
+            this.activeSegmentStream.writeByte(DrinkLog.LogOperation);
+            this.activeSegmentStream.writeLong(logId);
+            DrinkTemplateBinaryFormat.WriteBinaryString(this.activeSegmentStream, drink.GetName());
+            this.activeSegmentStream.writeShort(drink.GetType().GetValue());
+            this.activeSegmentStream.writeShort(drink.GetServings());
+            this.activeSegmentStream.writeFloat(drink.GetAPV());
+            this.activeSegmentStream.writeFloat(drink.GetCalories());
+            this.activeSegmentStream.writeFloat(drink.GetPrice());
+            DrinkTemplateBinaryFormat.WriteBinaryString(this.activeSegmentStream, drink.GetImageFilePath());
+            DrinkTemplateBinaryFormat.WriteBinaryString(this.activeSegmentStream, drink.GetOccasion());
+            this.activeSegmentStream.writeLong(drink.GetConsumedAt());
+            this.activeSegmentStream.writeInt((int)this.activeSegmentChecksum.getValue());
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.AppendError);
+            return false;
+        }
+        this.unflushedByteCount += this.activeSegmentStream.size() - startSize;
+        return true;
+    }
+
+    // Writes a record of the next log ID to the active segment
+    private boolean WriteNextLogIdRecord(){
+        try{
+            this.activeSegmentChecksum.reset();
+            this.activeSegmentStream.writeByte(DrinkLog.NextLogIdOperation);
+            this.activeSegmentStream.writeLong(this.nextLogId);
+            this.activeSegmentStream.writeInt((int)this.activeSegmentChecksum.getValue());
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.AppendError);
+            return false;
+        }
+        return true;
+    }
+
+    // Reads a log record's drink, after its operation, from a stream of a segment version.
+    //  Each string takes up at most maxLength bytes, so a corrupt length throws IOException
+    //  instead of being allocated.
+    private static Drink ReadLogRecord(DataInputStream stream, short version, long maxLength) throws IOException {
+        long logId = stream.readLong();
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength));
+        template.SetType(stream.readShort());
+        template.SetServings(stream.readShort());
+        template.SetAPV(stream.readFloat());
+        template.SetCalories(stream.readFloat());
+        template.SetPrice(stream.readFloat());
+        template.SetImageFilePath(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength));
+        Drink drink = new Drink(template);
+        drink.SetOccasion(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength));
+        if (version == Universals.BinaryFormats.DrinkLogFormat.UntimedVersion){
+            drink.SetHourOfConsumption(stream.readShort());
+            drink.SetMinuteOfConsumption(stream.readShort());
+        }
+        else drink.SetConsumedAt(stream.readLong());
+        drink.SetLogId(logId);
+        return drink;
+    }
+
+    // Creates a segment file, writes its header, and makes it the active segment
+    private boolean StartSegment(int segmentNumber, byte segmentKind){
+        if (!this.StartSegmentFile(this.SegmentFile(segmentNumber), segmentKind)) return false;
+        this.segmentCount++;
+        return true;
+    }
+    private boolean StartSegmentFile(File segmentFile, byte segmentKind){
+        try{
+            this.activeSegmentFileStream = new FileOutputStream(segmentFile, false);
+            this.activeSegmentStorageStream = DatabaseManager.OpenWriteStream(this.activeSegmentFileStream);
+            this.activeSegmentStream = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(this.activeSegmentStorageStream),
+                    this.activeSegmentChecksum
+            ));
+            this.activeSegmentStream.writeInt(Universals.BinaryFormats.DrinkLogFormat.MagicNumber);
+            this.activeSegmentStream.writeShort(Universals.BinaryFormats.DrinkLogFormat.Version);
+            this.activeSegmentStream.writeByte(segmentKind);
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.OpenError);
+            if (this.activeSegmentFileStream != null){
+                try{
+                    this.activeSegmentFileStream.close();
+                }
+                catch (IOException ignored){
+                }
+            }
+            this.activeSegmentStream = null;
+            this.activeSegmentFileStream = null;
+            this.activeSegmentStorageStream = null;
+            return false;
+        }
+        return true;
+    }
+
+    // Returns the kind of a segment, or -1 if its header can't be read
+    private int ReadSegmentKind(File segmentFile){
+        try (DataInputStream inputStream = new DataInputStream(DatabaseManager.OpenReadStream(segmentFile))){
+            if (inputStream.readInt() != Universals.BinaryFormats.DrinkLogFormat.MagicNumber
+                    || !DrinkLog.IsReadableVersion(inputStream.readShort())){
+                return -1;
+            }
+            return inputStream.readByte();
+        }
+        catch (IOException e){
+            return -1;
+        }
+    }
+
+    // Applies the records of one segment to the drinks logged so far
+    private boolean ReplaySegment(File segmentFile, LinkedHashMap<Long, Drink> loggedDrinks){
+
+        DataInputStream inputStream;
+        long segmentLength;
+        Crc32c checksum = new Crc32c();
+        Drink drink;
+        long logId;
+        int operation;
+        short version;
+
+        // Bytes are checksummed as they're read. No record runs past the end of the file,
+        //  so a string longer than the file is corrupt, and isn't read.
+        segmentLength = segmentFile.length();
+        try{
+            inputStream = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(DatabaseManager.OpenReadStream(segmentFile)),
+                    checksum
+            ));
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.ReplayError);
+            return false;
+        }
+
+        try{
+            if (inputStream.readInt() != Universals.BinaryFormats.DrinkLogFormat.MagicNumber){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.ReplayError);
+                inputStream.close();
+                return false;
+            }
+            version = inputStream.readShort();
+            if (!DrinkLog.IsReadableVersion(version)){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.ReplayError);
+                inputStream.close();
+                return false;
+            }
+            inputStream.readByte();
+
+            // Read each record whole and check it before applying it
+            checksum.reset();
+            while ((operation = inputStream.read()) != -1){
+                drink = null;
+                if (operation == DrinkLog.LogOperation){
+                    drink = DrinkLog.ReadLogRecord(inputStream, version, segmentLength);
+                    logId = drink.GetLogId();
+                }
+                else if (operation == DrinkLog.RemoveOperation || operation == DrinkLog.NextLogIdOperation){
+                    logId = inputStream.readLong();
+                }
+                else{
+                    // Unknown operation. The rest of the segment can't be read.
+                    Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.ReplayError);
+                    inputStream.close();
+                    return false;
+                }
+                int expected = (int)checksum.getValue();
+                if (inputStream.readInt() != expected){
+                    Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.ChecksumError);
+                    inputStream.close();
+                    return false;
+                }
+
+                if (drink != null){
+                    loggedDrinks.put(logId, drink);
+                    this.loggedCount++;
+                    this.nextLogId = Math.max(this.nextLogId, logId + 1);
+                }
+                else if (operation == DrinkLog.NextLogIdOperation){
+                    this.nextLogId = Math.max(this.nextLogId, logId);
+                }
+                else{
+                    if (loggedDrinks.remove(logId) != null) this.removedCount++;
+                    this.nextLogId = Math.max(this.nextLogId, logId + 1);
+                }
+                checksum.reset();
+            }
+        }
+        catch (EOFException ignored){
+            // Segment ends part way through a record. Every whole record was applied.
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkLogErrorMessages.ReplayError);
+            try{
+                inputStream.close();
+            }
+            catch (IOException ignored){
+            }
+            return false;
+        }
+
+        try{
+            inputStream.close();
+        }
+        catch (IOException ignored){
+        }
+        return true;
+    }
+
+    // Returns whether segments of a version can be replayed
+    private static boolean IsReadableVersion(short version){
+        return version == Universals.BinaryFormats.DrinkLogFormat.Version
+                || version == Universals.BinaryFormats.DrinkLogFormat.UntimedVersion;
+    }
+
+    // Returns the file of a segment number
+    private File SegmentFile(int segmentNumber){
+        return new File(this.directory, this.fileName + Universals.FileNames.LogExtension + "." + segmentNumber);
+    }
+
+    // Returns the numbers of every segment on disk in ascending order
+    private int[] ListSegmentNumbers(){
+        String prefix = this.fileName + Universals.FileNames.LogExtension + ".";
+        String[] names = this.directory.list();
+        ArrayList<Integer> numbers = new ArrayList<>();
+        int[] result;
+
+        if (names != null){
+            for (String name : names){
+                if (!name.startsWith(prefix)) continue;
+                try{
+                    numbers.add(Integer.parseInt(name.substring(prefix.length())));
+                }
+                catch (NumberFormatException ignored){
+                }
+            }
+        }
+        result = new int[numbers.size()];
+        for (int i = 0; i < result.length; i++) result[i] = numbers.get(i);
+        Arrays.sort(result);
+        return result;
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test appending, replaying, and compacting the log
+    public static void TestReplayAndCompact(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testDirectory = new File(dbm.GetAppRootDirectory(), "testDrinkLogDirectory");
+        String testFileName = "testDrinkLog";
+        DrinkLog testLog;
+        ArrayList<Drink> testDrinks = new ArrayList<>();
+        ArrayList<Drink> replayedDrinks = new ArrayList<>();
+        Drink testDrink;
+        boolean ok;
+        int i;
+
+        // Start from an empty directory
+        if (testDirectory.exists()){
+            String[] names = testDirectory.list();
+            if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        }
+        else testDirectory.mkdir();
+
+        // Non-exception cases
+        //  -Case 1, log drinks and remove one. Replay gives the rest, in order, with every field
+        testLog = new DrinkLog(testDirectory, testFileName);
+        testLog.Replay(replayedDrinks);
+        testLog.Open();
+        for (i = 0; i < 20; i++){
+            DrinkTemplate testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName " + i);
+            testTemplate.SetType((short)(i % 4));
+            testTemplate.SetServings((short)(i % 3));
+            testTemplate.SetAPV(0.5f * i);
+            testTemplate.SetCalories(10f * i);
+            testTemplate.SetPrice(1.25f * i);
+            testTemplate.SetImageFilePath("testPath " + i);
+            testDrink = new Drink(testTemplate);
+            testDrink.SetOccasion("testOccasion " + i);
+            testDrink.SetConsumedAt(ConsumptionTime.Pack(28_000_000L + i * 97L, (i % 8) * 60 - 300));
+            testLog.Append(testDrink);
+            testDrinks.add(testDrink);
+        }
+        testLog.AppendRemove(testDrinks.remove(4));
+        testLog.Close();
+
+        replayedDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        ok = testLog.Replay(replayedDrinks) && replayedDrinks.size() == 19;
+        for (i = 0; ok && i < replayedDrinks.size(); i++){
+            Drink expected = testDrinks.get(i);
+            Drink actual = replayedDrinks.get(i);
+            ok = actual.GetLogId() == expected.GetLogId()
+                    && actual.GetName().equals(expected.GetName())
+                    && actual.GetType().GetValue() == expected.GetType().GetValue()
+                    && actual.GetServings() == expected.GetServings()
+                    && actual.GetAPV() == expected.GetAPV()
+                    && actual.GetCalories() == expected.GetCalories()
+                    && actual.GetPrice() == expected.GetPrice()
+                    && actual.GetImageFilePath().equals(expected.GetImageFilePath())
+                    && actual.GetOccasion().equals(expected.GetOccasion())
+                    && actual.GetConsumedAt() == expected.GetConsumedAt();
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 1));
+
+        //  -Case 2, drinks logged after reopening get new log IDs, and a removed drink from
+        //      an earlier segment stays removed
+        testLog.Open();
+        testDrink = new Drink(new DrinkTemplate());
+        testDrink.SetOccasion("testOccasion new");
+        ok = testLog.Append(testDrink) && testDrink.GetLogId() == 20;
+        testLog.AppendRemove(replayedDrinks.get(0));
+        testLog.Close();
+        replayedDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        ok &= testLog.Replay(replayedDrinks)
+                && replayedDrinks.size() == 19
+                && replayedDrinks.get(0).GetName().equals("testName 1")
+                && replayedDrinks.get(18).GetLogId() == 20;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 2));
+
+        //  -Case 3, compacting leaves one segment that replays to the same drinks
+        ok = testLog.Compact(replayedDrinks) && testDirectory.list().length == 1;
+        ArrayList<Drink> compactedDrinks = new ArrayList<>();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        ok &= testLog.Replay(compactedDrinks) && compactedDrinks.size() == replayedDrinks.size();
+        for (i = 0; ok && i < compactedDrinks.size(); i++){
+            ok = compactedDrinks.get(i).GetLogId() == replayedDrinks.get(i).GetLogId()
+                    && compactedDrinks.get(i).GetName().equals(replayedDrinks.get(i).GetName());
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 3));
+
+        //  -Case 4, segments left beside the snapshot covering them (a crash before they
+        //      were deleted) aren't replayed, so nothing is applied twice
+        testLog.Open();
+        testDrink = new Drink(new DrinkTemplate());
+        testDrink.SetOccasion("testOccasion after");
+        testLog.Append(testDrink);
+        testLog.Close();
+        File coveredSegment = testLog.SegmentFile(testLog.ListSegmentNumbers()[1]);
+        byte[] coveredBytes = new byte[(int)coveredSegment.length()];
+        try (RandomAccessFile reader = new RandomAccessFile(coveredSegment, "r")){
+            reader.readFully(coveredBytes);
+        }
+        catch (IOException e){
+            coveredBytes = null;
+        }
+        replayedDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        testLog.Replay(replayedDrinks);
+        ok = coveredBytes != null && testLog.Compact(replayedDrinks);
+        try (RandomAccessFile writer = new RandomAccessFile(coveredSegment, "rw")){
+            if (coveredBytes != null) writer.write(coveredBytes);
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        compactedDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        ok &= testDirectory.list().length == 2
+                && testLog.Replay(compactedDrinks)
+                && compactedDrinks.size() == replayedDrinks.size()
+                && compactedDrinks.size() == 20;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 4));
+
+        // Exception cases
+        //  -Case 5, a segment cut part way through a record replays up to its last whole record
+        testLog.Open();
+        for (i = 0; i < 5; i++){
+            testDrink = new Drink(new DrinkTemplate());
+            testDrink.SetOccasion("testOccasion cut " + i);
+            testLog.Append(testDrink);
+        }
+        testLog.Close();
+        int[] segmentNumbers = testLog.ListSegmentNumbers();
+        File lastSegment = testLog.SegmentFile(segmentNumbers[segmentNumbers.length - 1]);
+        try (RandomAccessFile truncator = new RandomAccessFile(lastSegment, "rw")){
+            truncator.setLength(truncator.length() - 3);
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        ArrayList<Drink> cutDrinks = new ArrayList<>();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        if (testLog.Replay(cutDrinks) && cutDrinks.size() == replayedDrinks.size() + 4){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 5));
+
+        //  -Case 6, compacting every drink away keeps log IDs from being given out again
+        long lastLogId = cutDrinks.get(cutDrinks.size() - 1).GetLogId();
+        ok = testLog.Compact(new ArrayList<Drink>());
+        cutDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        ok &= testLog.Replay(cutDrinks) && cutDrinks.isEmpty() && testLog.Open();
+        testDrink = new Drink(new DrinkTemplate());
+        ok &= testLog.Append(testDrink) && testDrink.GetLogId() > lastLogId;
+        testLog.Close();
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 6));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 6));
+
+        // Exception cases
+        //  -Case 7, a name length corrupted to nearly 2 GB fails the replay without being
+        //      allocated, and the drinks logged before it are still replayed
+        cutDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        ok = testLog.Replay(cutDrinks) && testLog.Open();
+        int loggedBefore = cutDrinks.size();
+        for (i = 0; i < 3; i++){
+            testLog.Append(new Drink(new DrinkTemplate()));
+        }
+        testLog.Close();
+        segmentNumbers = testLog.ListSegmentNumbers();
+        lastSegment = testLog.SegmentFile(segmentNumbers[segmentNumbers.length - 1]);
+        try (RandomAccessFile corrupter = new RandomAccessFile(lastSegment, "rw")){
+            // The first record's name length follows the header, operation, and log ID
+            corrupter.seek(4 + 2 + 1 + 1 + 8);
+            corrupter.write(0x7F);
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        cutDrinks.clear();
+        testLog = new DrinkLog(testDirectory, testFileName);
+        if (ok && !testLog.Replay(cutDrinks) && cutDrinks.size() == loggedBefore && lastSegment.exists()){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(true, 7));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.DrinkLogMessages.ReplayCompactMessage(false, 7));
+
+        // Clean up
+        String[] names = testDirectory.list();
+        if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        testDirectory.delete();
+    }
+
+    ///
+    /// Benchmark Methods
+    ///
+    /// <summary>
+    ///  Each benchmark method is self contained and measures the method it is named after
+    ///     against a generated workload. Results are printed to LogCat using the Log.d method.
+    /// </summary>
+    ///
+
+    // Benchmark the time to log a drink, as on the UI thread, while the log is flushed in
+    //  the background, and the time to replay the log at startup
+    public static void BenchmarkAppend(Context context, int drinkCount){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File benchmarkDirectory = new File(dbm.GetAppRootDirectory(), "benchmarkDrinkLogDirectory");
+        String benchmarkFileName = "benchmarkDrinkLog";
+        PersistenceScheduler flushScheduler = new PersistenceScheduler();
+        Benchmark.HeapSampler heapSampler = new Benchmark.HeapSampler();
+        DrinkLog benchmarkLog;
+        ArrayList<Drink> benchmarkDrinks = new ArrayList<>();
+        Drink benchmarkDrink;
+        long totalNanos = 0;
+        long slowestNanos = 0;
+        long startHeap;
+        long peakHeap;
+        long startTime;
+        long elapsedTime;
+
+        if (benchmarkDirectory.exists()){
+            String[] names = benchmarkDirectory.list();
+            if (names != null) for (String name : names) new File(benchmarkDirectory, name).delete();
+        }
+        else benchmarkDirectory.mkdir();
+
+        // Log drinks one at a time, requesting a flush after each as the app does
+        benchmarkLog = new DrinkLog(benchmarkDirectory, benchmarkFileName);
+        benchmarkLog.Replay(benchmarkDrinks);
+        benchmarkLog.Open();
+        ArrayList<DrinkTemplate> templateList = new ArrayList<>(
+                DrinkTemplateManager.GenerateBenchmarkManager(100).GetTemplateList().values()
+        );
+        for (int i = 0; i < drinkCount; i++){
+            benchmarkDrink = new Drink(templateList.get(i % templateList.size()));
+            benchmarkDrink.SetOccasion("benchmarkOccasion " + (i % 10));
+            benchmarkDrink.SetConsumedAt(ConsumptionTime.Pack(28_000_000L + i, -300));
+            startTime = System.nanoTime();
+            benchmarkLog.Append(benchmarkDrink);
+            flushScheduler.RequestWrite(benchmarkLog.CreateFlushTask());
+            elapsedTime = System.nanoTime() - startTime;
+            totalNanos += elapsedTime;
+            slowestNanos = Math.max(slowestNanos, elapsedTime);
+        }
+        flushScheduler.Flush();
+        flushScheduler.Shutdown();
+        benchmarkLog.Close();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.LatencyMessage(
+                        Universals.BenchmarkMessages.DrinkLogMessages.DrinkLogBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkLogMessages.AppendDrinkCase,
+                        drinkCount,
+                        totalNanos / drinkCount
+                )
+        );
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.DrinkLogMessages.SlowestAppendMessage(slowestNanos)
+        );
+
+        // Replay the whole log
+        benchmarkDrinks.clear();
+        benchmarkLog = new DrinkLog(benchmarkDirectory, benchmarkFileName);
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        startTime = System.nanoTime();
+        benchmarkLog.Replay(benchmarkDrinks);
+        elapsedTime = System.nanoTime() - startTime;
+        peakHeap = heapSampler.Stop();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkLogMessages.DrinkLogBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkLogMessages.ReplayLogCase,
+                        benchmarkDrinks.size(),
+                        elapsedTime,
+                        peakHeap - startHeap
+                )
+        );
+
+        String[] names = benchmarkDirectory.list();
+        if (names != null) for (String name : names) new File(benchmarkDirectory, name).delete();
+        benchmarkDirectory.delete();
+    }
+}
@@ -0,0 +1,352 @@
+/// <summary>
+///  File: DrinkSegmentReader.java
+///     Description: Contains the class and methods of reading a drink history month segment
+///         mapped into memory, record by record, without decoding drinks.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+///
+/// Drink Segment Reader Class
+///     Maps a plaintext drink history segment into memory and reads its records in place.
+///     An encrypted segment can't be mapped, so it's decrypted whole into a SegmentBuffer,
+///     a direct buffer reused from segment to segment, and read in place from there.
+///     A Cursor is a flyweight over one record at a time: moving it reads only the lengths
+///     of the record's strings, and its getters read fields straight from the mapped bytes,
+///     so summing a month of drinks makes no object per drink. Only the string getters and
+///     ToDrink make objects.
+///     Opening a segment checks its header and footer. The records' checksum is checked by
+///     VerifyRecords, so a segment a query skips by its footer is never read through.
+///     The mapping is released when the reader is garbage collected. The segment must not be
+///     changed in place while it's mapped; the drink history only replaces segments by
+///     renaming a new file over them, which is safe.
+///     A reader of a decrypted segment is only valid until its SegmentBuffer opens another.
+///     Safe to share between threads once opened, as long as each thread has its own Cursor.
+///
+public class DrinkSegmentReader {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the offsets within a record of its fixed size fields, from the start of
+    //  the record or, after the name, from the end of the name
+    private static final int logIdOffset = 8;
+    private static final int nameLengthOffset = 16;
+    private static final int nameOffset = 20;
+    private static final int typeOffset = 0;
+    private static final int servingsOffset = 2;
+    private static final int aPVOffset = 4;
+    private static final int caloriesOffset = 8;
+    private static final int priceOffset = 12;
+    private static final int imagePathLengthOffset = 16;
+    private static final int imagePathOffset = 20;
+
+    // Represents the size of the transfers decrypted chunks are copied into a segment
+    //  buffer through
+    private static final int transferSize = StorageCipher.DefaultChunkSize;
+
+    // Represents the mapped or decrypted segment. Only read with absolute gets, so it's
+    //  never moved.
+    private final ByteBuffer segment;
+
+    // Represents the end of the records, where the footer begins, and the footer's fields
+    private final int recordsEnd;
+    private final int drinkCount;
+    private final long earliestConsumedAt;
+    private final long latestConsumedAt;
+    private final int recordsChecksum;
+
+    ///
+    /// Constructors
+    ///
+    private DrinkSegmentReader(ByteBuffer segment){
+        this.segment = segment;
+        this.recordsEnd = segment.capacity() - DrinkHistory.FooterSize;
+        this.drinkCount = segment.getInt(this.recordsEnd);
+        this.earliestConsumedAt = segment.getLong(this.recordsEnd + 4);
+        this.latestConsumedAt = segment.getLong(this.recordsEnd + 12);
+        this.recordsChecksum = segment.getInt(this.recordsEnd + 20);
+    }
+
+    /// <summary>
+    ///  Given a drink history segment file, maps it into memory and checks its header and
+    ///     footer.
+    ///     Returns null if the segment is encrypted, can't be read, is over 2 GB, or its
+    ///     header or footer is corrupt.
+    /// </summary>
+    public static DrinkSegmentReader Open(File segmentFile){
+        return DrinkSegmentReader.Open(segmentFile, null);
+    }
+
+    /// <summary>
+    ///  Given a drink history segment file and a segment buffer, opens the segment as by
+    ///     Open, except an encrypted segment is decrypted whole into the buffer. Every chunk
+    ///     is checked as it's decrypted.
+    ///     Returns null if the segment can't be read, can't be decrypted, is over 2 GB, or
+    ///     its header or footer is corrupt. An encrypted segment is also not opened if the
+    ///     buffer is null.
+    /// </summary>
+    public static DrinkSegmentReader Open(File segmentFile, SegmentBuffer decryptBuffer){
+
+        ByteBuffer segment;
+        try (RandomAccessFile segmentReader = new RandomAccessFile(segmentFile, "r")){
+            byte[] magic = new byte[4];
+            if (StorageCipher.IsEncryptedHeader(magic, segmentReader.read(magic))){
+                if (decryptBuffer == null) return null;
+                segment = decryptBuffer.Decrypt(segmentReader);
+                if (segment == null) return null;
+            }
+            else{
+                FileChannel segmentChannel = segmentReader.getChannel();
+                long size = segmentChannel.size();
+                if (size < DrinkHistory.HeaderSize + DrinkHistory.FooterSize || size > Integer.MAX_VALUE) return null;
+                segment = segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        catch (IOException e){
+            return null;
+        }
+
+        // Check the header, then the footer against its checksum
+        if (segment.getInt(0) != Universals.BinaryFormats.DrinkHistoryFormat.MagicNumber
+                || segment.getShort(4) != Universals.BinaryFormats.DrinkHistoryFormat.Version){
+            return null;
+        }
+        int footerStart = segment.capacity() - DrinkHistory.FooterSize;
+        Crc32c checksum = new Crc32c();
+        ByteBuffer footer = segment.duplicate();
+        footer.position(footerStart).limit(footerStart + DrinkHistory.FooterSize - 4);
+        checksum.UpdateFromBuffer(footer);
+        if ((int)checksum.getValue() != segment.getInt(footerStart + DrinkHistory.FooterSize - 4)
+                || segment.getInt(footerStart) < 0){
+            return null;
+        }
+        return new DrinkSegmentReader(segment);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public int GetDrinkCount(){
+        return this.drinkCount;
+    }
+    public long GetEarliestConsumedAt(){
+        return this.earliestConsumedAt;
+    }
+    public long GetLatestConsumedAt(){
+        return this.latestConsumedAt;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Returns whether the header and records match the checksum in the footer. Reads
+    ///     through the whole segment.
+    /// </summary>
+    public boolean VerifyRecords(){
+        Crc32c checksum = new Crc32c();
+        ByteBuffer records = this.segment.duplicate();
+        records.position(0).limit(this.recordsEnd);
+        checksum.UpdateFromBuffer(records);
+        return (int)checksum.getValue() == this.recordsChecksum;
+    }
+
+    /// <summary>
+    ///     Returns a new cursor positioned before the first record.
+    /// </summary>
+    public Cursor NewCursor(){
+        return new Cursor();
+    }
+
+    ///
+    /// Segment Buffer Class
+    ///     A direct buffer encrypted segments are decrypted into, so a reader can read them
+    ///     in place. It grows to the largest segment it has held and is then reused, so
+    ///     opening segment after segment makes no buffer per segment.
+    ///     Not safe to share between threads.
+    ///
+    public static final class SegmentBuffer {
+
+        private ByteBuffer buffer;
+        private byte[] transfer;
+
+        public SegmentBuffer(){
+            this.buffer = null;
+            this.transfer = null;
+        }
+
+        /// <summary>
+        ///     Returns the capacity of the buffer in bytes, or 0 if nothing has been
+        ///     decrypted into it yet.
+        /// </summary>
+        public int GetCapacity(){
+            return this.buffer == null ? 0 : this.buffer.capacity();
+        }
+
+        // Decrypts an encrypted segment, already opened for reading, into the buffer.
+        //  Returns the decrypted segment, or null if storage encryption isn't enabled or the
+        //  segment is too small or over 2 GB. Throws IOException if a chunk fails to decrypt.
+        private ByteBuffer Decrypt(RandomAccessFile source) throws IOException {
+            StorageCipher storageCipher = DatabaseManager.GetStorageCipher();
+            if (storageCipher == null) return null;
+
+            // The chunk reader reads through the source, which the caller closes
+            StorageCipher.ChunkReader chunkReader = storageCipher.OpenChunkReader(source);
+            long length = chunkReader.GetLength();
+            if (length < DrinkHistory.HeaderSize + DrinkHistory.FooterSize || length > Integer.MAX_VALUE) return null;
+            if (this.buffer == null || this.buffer.capacity() < length){
+                this.buffer = ByteBuffer.allocateDirect((int)length);
+            }
+            if (this.transfer == null) this.transfer = new byte[DrinkSegmentReader.transferSize];
+
+            // Chunks are read in order, so each is decrypted once
+            ByteBuffer segment = this.buffer.duplicate();
+            segment.clear();
+            segment.limit((int)length);
+            segment = segment.slice();
+            for (long position = 0; position < length; position += this.transfer.length){
+                int transferLength = (int)Math.min(this.transfer.length, length - position);
+                chunkReader.ReadFully(position, this.transfer, 0, transferLength);
+                segment.put(this.transfer, 0, transferLength);
+            }
+            segment.rewind();
+            return segment;
+        }
+    }
+
+    ///
+    /// Cursor Class
+    ///     A flyweight over one record of the segment. Next moves it to the following
+    ///     record; records are in order of time of consumption. Getters are only valid
+    ///     after Next returns true.
+    ///     Not safe to share between threads.
+    ///
+    public final class Cursor {
+
+        // Represents the start of the current record, the end of its name (where its fixed
+        //  size fields begin), and the start of the next record
+        private int recordStart;
+        private int fixedFieldsStart;
+        private int nextRecordStart;
+        private int recordsLeft;
+
+        private Cursor(){
+            this.Reset();
+        }
+
+        /// <summary>
+        ///     Moves the cursor back before the first record.
+        /// </summary>
+        public void Reset(){
+            this.recordStart = -1;
+            this.fixedFieldsStart = -1;
+            this.nextRecordStart = DrinkHistory.HeaderSize;
+            this.recordsLeft = DrinkSegmentReader.this.drinkCount;
+        }
+
+        /// <summary>
+        ///     Moves the cursor to the next record.
+        ///     Returns true if there was one.
+        ///     Returns false at the end of the segment, or if a record runs past the end of
+        ///     the records (a segment whose records weren't verified).
+        /// </summary>
+        public boolean Next(){
+            ByteBuffer segment = DrinkSegmentReader.this.segment;
+            int recordsEnd = DrinkSegmentReader.this.recordsEnd;
+            if (this.recordsLeft <= 0) return false;
+
+            // Skip over the strings by their lengths, checking each stays in the records
+            int start = this.nextRecordStart;
+            if (start + DrinkSegmentReader.nameOffset > recordsEnd) return this.Stop();
+            int nameLength = segment.getInt(start + DrinkSegmentReader.nameLengthOffset);
+            if (nameLength < 0 || nameLength > recordsEnd - start - DrinkSegmentReader.nameOffset - DrinkSegmentReader.imagePathOffset) return this.Stop();
+            int fixedStart = start + DrinkSegmentReader.nameOffset + nameLength;
+            int imagePathLength = segment.getInt(fixedStart + DrinkSegmentReader.imagePathLengthOffset);
+            if (imagePathLength < 0 || imagePathLength > recordsEnd - fixedStart - DrinkSegmentReader.imagePathOffset - 4) return this.Stop();
+            int occasionLengthStart = fixedStart + DrinkSegmentReader.imagePathOffset + imagePathLength;
+            int occasionLength = segment.getInt(occasionLengthStart);
+            if (occasionLength < 0 || occasionLength > recordsEnd - occasionLengthStart - 4) return this.Stop();
+
+            this.recordStart = start;
+            this.fixedFieldsStart = fixedStart;
+            this.nextRecordStart = occasionLengthStart + 4 + occasionLength;
+            this.recordsLeft--;
+            return true;
+        }
+
+        // Fields of the current record
+        public long GetConsumedAt(){
+            return DrinkSegmentReader.this.segment.getLong(this.recordStart);
+        }
+        public long GetLogId(){
+            return DrinkSegmentReader.this.segment.getLong(this.recordStart + DrinkSegmentReader.logIdOffset);
+        }
+        public short GetType(){
+            return DrinkSegmentReader.this.segment.getShort(this.fixedFieldsStart + DrinkSegmentReader.typeOffset);
+        }
+        public short GetServings(){
+            return DrinkSegmentReader.this.segment.getShort(this.fixedFieldsStart + DrinkSegmentReader.servingsOffset);
+        }
+        public float GetAPV(){
+            return DrinkSegmentReader.this.segment.getFloat(this.fixedFieldsStart + DrinkSegmentReader.aPVOffset);
+        }
+        public float GetCalories(){
+            return DrinkSegmentReader.this.segment.getFloat(this.fixedFieldsStart + DrinkSegmentReader.caloriesOffset);
+        }
+        public float GetPrice(){
+            return DrinkSegmentReader.this.segment.getFloat(this.fixedFieldsStart + DrinkSegmentReader.priceOffset);
+        }
+        // String fields of the current record. Each call decodes a new string.
+        public String GetName(){
+            return this.ReadString(this.recordStart + DrinkSegmentReader.nameLengthOffset);
+        }
+        public String GetImageFilePath(){
+            return this.ReadString(this.fixedFieldsStart + DrinkSegmentReader.imagePathLengthOffset);
+        }
+        public String GetOccasion(){
+            int imagePathLength = DrinkSegmentReader.this.segment.getInt(this.fixedFieldsStart + DrinkSegmentReader.imagePathLengthOffset);
+            return this.ReadString(this.fixedFieldsStart + DrinkSegmentReader.imagePathOffset + imagePathLength);
+        }
+
+        /// <summary>
+        ///     Returns a new drink holding the current record.
+        /// </summary>
+        public Drink ToDrink(){
+            DrinkTemplate template = new DrinkTemplate();
+            template.SetName(this.GetName());
+            template.SetType(this.GetType());
+            template.SetServings(this.GetServings());
+            template.SetAPV(this.GetAPV());
+            template.SetCalories(this.GetCalories());
+            template.SetPrice(this.GetPrice());
+            template.SetImageFilePath(this.GetImageFilePath());
+            Drink drink = template.ProduceDrink(this.GetOccasion(), this.GetConsumedAt());
+            drink.SetLogId(this.GetLogId());
+            return drink;
+        }
+
+        // Decodes the length-prefixed UTF-8 string at an offset
+        private String ReadString(int lengthOffset){
+            ByteBuffer reader = DrinkSegmentReader.this.segment.duplicate();
+            int length = reader.getInt(lengthOffset);
+            byte[] bytes = new byte[length];
+            reader.position(lengthOffset + 4);
+            reader.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Ends the cursor early, after a record that runs past the end of the records
+        private boolean Stop(){
+            this.recordsLeft = 0;
+            return false;
+        }
+    }
+}
@@ -8,6 +8,8 @@ package com.example.alcoholconsumptiontracker.system;
 
 import android.util.Log;
 
+import java.util.TimeZone;
+
 public class DrinkTemplate {
 
     //
@@ -31,6 +33,17 @@ public class DrinkTemplate {
         this.price = 0;
         this.imageFilePath = Universals.General.EmptyString();
     }
+    // Copy. Strings can't change, so they're shared with the original
+    public DrinkTemplate(DrinkTemplate template){
+        this.name = template.GetName();
+        this.type = new DrinkType();
+        this.type.Set(template.GetType().GetValue());
+        this.servings = template.GetServings();
+        this.aPV = template.GetAPV();
+        this.price = template.GetPrice();
+        this.calories = template.GetCalories();
+        this.imageFilePath = template.GetImageFilePath();
+    }
 
     ///
     ///  Setters and Getters
@@ -77,16 +90,29 @@ public class DrinkTemplate {
     /// Methods
     ///
     /// <summary>
-    ///  Given an occasion, hour, and minute, produces a new drink object using
-    ///     the contents of this drink template.
+    ///  Given an occasion and time of consumption (packed by ConsumptionTime), produces a
+    ///     new drink object using the contents of this drink template.
     /// </summary>
-    public Drink ProduceDrink(String occasion, short hour, short minute){
+    public Drink ProduceDrink(String occasion, long consumedAt){
         Drink newDrink = new Drink(this);
         newDrink.SetOccasion(occasion);
-        newDrink.SetHourOfConsumption(hour);
-        newDrink.SetMinuteOfConsumption(minute);
+        newDrink.SetConsumedAt(consumedAt);
         return newDrink;
     }
+    /// <summary>
+    ///  Given an occasion, hour, and minute, produces a new drink object using
+    ///     the contents of this drink template, drunk at that hour and minute today in the
+    ///     device's time zone.
+    /// </summary>
+    public Drink ProduceDrink(String occasion, short hour, short minute){
+        if (hour < 0) hour = 0;
+        else if (hour > 23) hour = 23;
+        if (minute < 0) minute = 0;
+        else if (minute > 59) minute = 59;
+        return this.ProduceDrink(occasion, ConsumptionTime.FromLocal(
+                ConsumptionTime.GetLocalEpochDay(ConsumptionTime.Now()), hour, minute, TimeZone.getDefault()
+        ));
+    }
 
 
     ///
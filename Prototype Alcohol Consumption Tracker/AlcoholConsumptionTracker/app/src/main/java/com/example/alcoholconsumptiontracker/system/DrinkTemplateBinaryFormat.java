@@ -0,0 +1,420 @@
+/// <summary>
+///  File: DrinkTemplateBinaryFormat.java
+///     Description: Contains the class and methods of writing and reading the binary
+///         template list format, record by record. Shared by the template manager, its
+///         catalog, journal, and lazy map, and by the drink log and history.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+///
+/// Drink Template Binary Format Class
+///     Writes and reads binary template list files: a header holding a magic number,
+///     version, and template count, followed by one record per template. Current version
+///     files have a checksum after the header and after each record. Version 1 files have
+///     none, and are still read.
+///     Strings are written as their UTF-8 byte length followed by their UTF-8 bytes.
+///
+final class DrinkTemplateBinaryFormat {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the size of the buffer reads and writes go through.
+    private static final int bufferSize = 64 * 1024;
+
+    ///
+    /// Constructors
+    ///
+    // Only holds static methods
+    private DrinkTemplateBinaryFormat(){
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a collection of templates and an output file, writes the templates to the
+    ///     file in the binary template list format.
+    ///     The templates are written through a StoredFileOutputStream: to a temporary file
+    ///     next to the output file, forced to disk, then renamed over the output file. If
+    ///     the app stops part way through, the output file keeps its previous contents.
+    ///     If storage is encrypted, the file is encrypted as it's written.
+    ///     Used by WriteTemplateListBinary and by callers that write a copy of the
+    ///     templates away from the manager, such as journal compaction and background saves.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    static boolean WriteTemplatesBinary(Collection<DrinkTemplate> templates, File outputFile){
+
+        StoredFileOutputStream outputFileStream;
+        DataOutputStream targetStream;
+        Crc32c checksum = new Crc32c();
+
+        // Open a buffered stream replacing the output file. Bytes are checksummed as
+        //  they're written, then encrypted if storage is encrypted.
+        try{
+            outputFileStream = new StoredFileOutputStream(outputFile);
+            targetStream = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(outputFileStream, DrinkTemplateBinaryFormat.bufferSize),
+                    checksum
+            ));
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorFailedToCreateFile);
+            return false;
+        }
+
+        // Write the header, then each template as a record, then replace the output file
+        try{
+            DrinkTemplateBinaryFormat.WriteBinaryHeader(targetStream, checksum, templates.size());
+            for (DrinkTemplate tempTemplate : templates){
+                DrinkTemplateBinaryFormat.WriteChecksummedTemplate(targetStream, checksum, tempTemplate);
+            }
+            targetStream.flush();
+            outputFileStream.Commit();
+        }
+        catch (IOException e){
+            // If error encountered, discard the temporary file and return false.
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorStreamError);
+            try{
+                outputFileStream.close();
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /// <summary>
+    ///     Given a reader over a file in the binary template list format, reads every
+    ///     template in the file, in the order they appear. The reader isn't closed.
+    ///     The header and each record are checked against their checksums as they're read.
+    ///     Returns null, logging why, if the file isn't a supported binary template list file.
+    ///     Throws IOException if the file couldn't be read, ends part way through a record,
+    ///     or any part of it fails its checksum.
+    /// </summary>
+    static ArrayList<DrinkTemplate> ReadTemplatesBinary(StorageFileReader reader) throws IOException {
+
+        // Locals
+        DataInputStream inputStream;
+        long fileLength = reader.GetLength();
+        long recordsLength;
+        BinaryHeader header;
+        Crc32c checksum = new Crc32c();
+        ArrayList<DrinkTemplate> templates;
+
+        // Bytes are checksummed as they're read
+        inputStream = new DataInputStream(new CheckedInputStream(
+                reader.OpenStream(DrinkTemplateBinaryFormat.bufferSize),
+                checksum
+        ));
+
+        // Verify the header, then read and verify each record. No record can run past the
+        //  end of the file, so a corrupt length fails the read instead of being allocated.
+        header = DrinkTemplateBinaryFormat.ReadBinaryHeader(inputStream);
+        if (header == null || !header.FitsLength(fileLength)) return null;
+        recordsLength = fileLength - header.GetRecordsOffset();
+        templates = new ArrayList<>(header.templateCount);
+        for (int i = 0; i < header.templateCount; i++){
+            if (header.IsChecksummed()) templates.add(DrinkTemplateBinaryFormat.ReadChecksummedTemplate(inputStream, checksum, recordsLength));
+            else templates.add(DrinkTemplateBinaryFormat.ReadBinaryTemplate(inputStream, recordsLength));
+        }
+        return templates;
+    }
+
+    /// <summary>
+    ///     Given a data stream and a template, writes the template as a binary template record.
+    /// </summary>
+    static void WriteBinaryTemplate(DataOutputStream stream, DrinkTemplate template) throws IOException {
+        DrinkTemplateBinaryFormat.WriteBinaryString(stream, template.GetName());
+        stream.writeShort(template.GetServings());
+        stream.writeShort(template.GetType().GetValue());
+        stream.writeFloat(template.GetAPV());
+        stream.writeFloat(template.GetCalories());
+        stream.writeFloat(template.GetPrice());
+        DrinkTemplateBinaryFormat.WriteBinaryString(stream, template.GetImageFilePath());
+    }
+
+    /// <summary>
+    ///     Given a data stream positioned at a binary template record and the most bytes
+    ///     the record can take up (the bytes left in its record or file), reads the record
+    ///     and returns the template it represents.
+    ///     Throws IOException if either string's length doesn't fit in those bytes.
+    /// </summary>
+    static DrinkTemplate ReadBinaryTemplate(DataInputStream stream, long maxLength) throws IOException {
+        long maxStringLength = maxLength - Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize * 2
+                - Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize;
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxStringLength));
+        template.SetServings(stream.readShort());
+        template.SetType(stream.readShort());
+        template.SetAPV(stream.readFloat());
+        template.SetCalories(stream.readFloat());
+        template.SetPrice(stream.readFloat());
+        template.SetImageFilePath(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxStringLength));
+        return template;
+    }
+
+    /// <summary>
+    ///     Given a buffer positioned at a binary template record, reads the record and
+    ///     returns the template it represents, leaving the buffer after the record.
+    ///     Throws BufferUnderflowException if the buffer ends part way through the record.
+    /// </summary>
+    static DrinkTemplate ReadBinaryTemplate(ByteBuffer buffer){
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(DrinkTemplateBinaryFormat.ReadBinaryString(buffer));
+        template.SetServings(buffer.getShort());
+        template.SetType(buffer.getShort());
+        template.SetAPV(buffer.getFloat());
+        template.SetCalories(buffer.getFloat());
+        template.SetPrice(buffer.getFloat());
+        template.SetImageFilePath(DrinkTemplateBinaryFormat.ReadBinaryString(buffer));
+        return template;
+    }
+
+    /// <summary>
+    ///     Given a data stream and a string, writes the string as its UTF-8 byte length
+    ///     followed by its UTF-8 bytes. A null string is written as an empty string.
+    /// </summary>
+    static void WriteBinaryString(DataOutputStream stream, String value) throws IOException {
+        if (value == null) value = Universals.General.EmptyString();
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    /// <summary>
+    ///     Given a data stream positioned at a length-prefixed UTF-8 string and the most
+    ///     bytes the string's UTF-8 bytes can take up (at most the bytes left in its record
+    ///     or file), reads and returns the string. The length is checked before anything is allocated, so a
+    ///     corrupt length can't run the app out of memory.
+    ///     Throws IOException if the length is negative or over maxLength, either of which
+    ///     means it's corrupt. This isn't an EOFException, so it's never taken for a file
+    ///     cut short part way through a record.
+    /// </summary>
+    static String ReadBinaryString(DataInputStream stream, long maxLength) throws IOException {
+        int length = stream.readInt();
+        if (length < 0 || length > maxLength){
+            throw new IOException(Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidBinaryFile);
+        }
+        byte[] bytes = new byte[length];
+        stream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /// <summary>
+    ///     Given a buffer positioned at a length-prefixed UTF-8 string, reads and returns
+    ///     the string.
+    ///     Throws BufferUnderflowException if the buffer ends part way through the string.
+    /// </summary>
+    static String ReadBinaryString(ByteBuffer buffer){
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /// <summary>
+    ///     Given a data stream over a checked stream, the checksum the checked stream
+    ///     updates, and a template count, writes the binary template list header followed
+    ///     by its checksum.
+    /// </summary>
+    static void WriteBinaryHeader(DataOutputStream stream, Crc32c checksum, int templateCount) throws IOException {
+        checksum.reset();
+        stream.writeInt(Universals.BinaryFormats.DrinkTemplateManagerFormat.MagicNumber);
+        stream.writeShort(Universals.BinaryFormats.DrinkTemplateManagerFormat.Version);
+        stream.writeInt(templateCount);
+        stream.writeInt((int)checksum.getValue());
+    }
+
+    /// <summary>
+    ///     Given a data stream over a checked stream, the checksum the checked stream
+    ///     updates, and a template, writes the template as a binary template record
+    ///     followed by its checksum.
+    /// </summary>
+    static void WriteChecksummedTemplate(DataOutputStream stream, Crc32c checksum, DrinkTemplate template) throws IOException {
+        checksum.reset();
+        DrinkTemplateBinaryFormat.WriteBinaryTemplate(stream, template);
+        stream.writeInt((int)checksum.getValue());
+    }
+
+    /// <summary>
+    ///     Given a data stream over a checked stream positioned at a checksummed binary
+    ///     template record, the checksum the checked stream updates, and the most bytes the
+    ///     record can take up, reads the record and returns the template it represents.
+    ///     Throws IOException if the record doesn't match its checksum.
+    /// </summary>
+    static DrinkTemplate ReadChecksummedTemplate(DataInputStream stream, Crc32c checksum, long maxLength) throws IOException {
+        checksum.reset();
+        DrinkTemplate template = DrinkTemplateBinaryFormat.ReadBinaryTemplate(
+                stream,
+                maxLength - Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize
+        );
+        int expected = (int)checksum.getValue();
+        if (stream.readInt() != expected){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch
+            );
+            throw new IOException(Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch);
+        }
+        return template;
+    }
+
+    /// <summary>
+    ///     Given a buffer positioned just past a record, and the offset the record started
+    ///     at, reads the checksum after the record and returns whether the record matches it.
+    ///     Leaves the buffer after the checksum.
+    ///     Throws BufferUnderflowException if the buffer ends before the checksum.
+    /// </summary>
+    static boolean VerifyRecordChecksum(ByteBuffer buffer, int recordOffset){
+        int recordLength = buffer.position() - recordOffset;
+        int expected;
+        if (buffer.hasArray()){
+            expected = Crc32c.Compute(buffer.array(), buffer.arrayOffset() + recordOffset, recordLength);
+        }
+        else {
+            byte[] record = new byte[recordLength];
+            ByteBuffer recordReader = buffer.duplicate();
+            recordReader.position(recordOffset);
+            recordReader.get(record);
+            expected = Crc32c.Compute(record, 0, recordLength);
+        }
+        return buffer.getInt() == expected;
+    }
+
+    /// <summary>
+    ///     Given a data stream at the start of a binary template list file, reads and
+    ///     verifies the header, leaving the stream at the first record.
+    ///     Returns null, logging why, if the file isn't a supported binary template list file
+    ///     or its header doesn't match its checksum.
+    ///     Throws IOException if the stream ends part way through the header.
+    /// </summary>
+    static BinaryHeader ReadBinaryHeader(DataInputStream stream) throws IOException {
+        byte[] headerBytes = new byte[Universals.BinaryFormats.DrinkTemplateManagerFormat.HeaderSize];
+        stream.readFully(headerBytes);
+        BinaryHeader header = DrinkTemplateBinaryFormat.ParseBinaryHeader(ByteBuffer.wrap(headerBytes));
+        if (header == null || !header.IsChecksummed()) return header;
+        if (stream.readInt() != Crc32c.Compute(headerBytes, 0, headerBytes.length)){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch
+            );
+            return null;
+        }
+        return header;
+    }
+
+    /// <summary>
+    ///     Given a buffer positioned at the start of a binary template list file, reads and
+    ///     verifies the header, leaving the buffer at the first record.
+    ///     Returns null, logging why, if the file isn't a supported binary template list file
+    ///     or its header doesn't match its checksum.
+    ///     Throws BufferUnderflowException if the buffer ends part way through the header.
+    /// </summary>
+    static BinaryHeader ReadBinaryHeader(ByteBuffer buffer){
+        int headerOffset = buffer.position();
+        BinaryHeader header = DrinkTemplateBinaryFormat.ParseBinaryHeader(buffer);
+        if (header == null || !header.IsChecksummed()) return header;
+        if (!DrinkTemplateBinaryFormat.VerifyRecordChecksum(buffer, headerOffset)){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch
+            );
+            return null;
+        }
+        return header;
+    }
+
+    /// <summary>
+    ///     Given a file, reads the whole of its contents into a byte array, decrypting
+    ///     them if storage is encrypted.
+    ///     Used by parallel reads and recovery, and by tests to compare written files.
+    /// </summary>
+    static byte[] ReadFileBytes(File file) throws IOException {
+        try (StorageFileReader reader = StorageFileReader.Open(file)){
+            long length = reader.GetLength();
+            if (length > Integer.MAX_VALUE) throw new IOException(Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError);
+            byte[] bytes = new byte[(int)length];
+            reader.ReadFully(0, bytes, 0, bytes.length);
+            return bytes;
+        }
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Reads the magic number, version, and template count of a binary template list header.
+    //  Returns null, logging why, if they aren't valid.
+    private static BinaryHeader ParseBinaryHeader(ByteBuffer buffer){
+        int magicNumber = buffer.getInt();
+        short version = buffer.getShort();
+        int templateCount = buffer.getInt();
+        if (magicNumber != Universals.BinaryFormats.DrinkTemplateManagerFormat.MagicNumber
+                || (version != Universals.BinaryFormats.DrinkTemplateManagerFormat.Version
+                    && version != Universals.BinaryFormats.DrinkTemplateManagerFormat.UncheckedVersion)
+                || templateCount < 0){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidBinaryFile
+            );
+            return null;
+        }
+        return new BinaryHeader(version, templateCount);
+    }
+
+    ///
+    ///  The header of a binary template list file: its version and template count.
+    ///     Current version files have a checksum after the header and after each record.
+    ///     Version 1 files have none.
+    ///
+    static final class BinaryHeader {
+
+        final short version;
+        final int templateCount;
+
+        BinaryHeader(short version, int templateCount){
+            this.version = version;
+            this.templateCount = templateCount;
+        }
+
+        boolean IsChecksummed(){
+            return this.version != Universals.BinaryFormats.DrinkTemplateManagerFormat.UncheckedVersion;
+        }
+        // Returns the number of bytes of checksum following the header and each record
+        int GetChecksumSize(){
+            return this.IsChecksummed() ? Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize : 0;
+        }
+        // Returns the offset of the first record in the file
+        int GetRecordsOffset(){
+            return Universals.BinaryFormats.DrinkTemplateManagerFormat.HeaderSize + this.GetChecksumSize();
+        }
+        // Returns whether a file of a length can hold the template count, with every
+        //  record as small as a record can be. Version 1 headers have no checksum, so a
+        //  corrupt count is caught here before anything is allocated for it.
+        boolean FitsLength(long fileLength){
+            long minimumRecordSize = Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize * 2
+                    + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize
+                    + this.GetChecksumSize();
+            return (long)this.templateCount * minimumRecordSize <= fileLength - this.GetRecordsOffset();
+        }
+    }
+}
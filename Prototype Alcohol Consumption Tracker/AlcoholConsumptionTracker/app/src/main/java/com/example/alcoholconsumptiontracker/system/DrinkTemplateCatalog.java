@@ -0,0 +1,200 @@
+/// <summary>
+///  File: DrinkTemplateCatalog.java
+///     Description: Contains the class and methods of the read-only template catalog that
+///         several DrinkTemplateManagers can share as their base layer.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.zip.CheckedOutputStream;
+
+///
+/// Drink Template Catalog Class
+///     An immutable set of templates stored as one buffer in the binary template list format,
+///     with an index of template names to record offsets.
+///     The buffer is either a binary template list file mapped into memory, which the
+///     operating system can share between processes, or built on the heap from templates.
+///     Either way it holds each template once, however many managers use the catalog.
+///     Templates are decoded each time they're requested, so a caller changing a template it
+///     was given never changes the catalog.
+///     Safe to use from several threads at once.
+///
+public class DrinkTemplateCatalog {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the templates in the binary template list format. Never moved or written.
+    //  Readers work on duplicates so they don't share a position.
+    private final ByteBuffer records;
+
+    // Represents the index of templates in the buffer.
+    //  Key = template name, value = record offset.
+    private final HashMap<String, Integer> recordOffsets;
+    private final Set<String> names;
+
+    // Represents whether each record ends with a checksum, checked each time it is decoded.
+    private final boolean checksummed;
+
+    ///
+    /// Constructors
+    ///
+    // Construct from a buffer and its index
+    private DrinkTemplateCatalog(ByteBuffer records, HashMap<String, Integer> recordOffsets, boolean checksummed){
+        this.records = records;
+        this.recordOffsets = recordOffsets;
+        this.names = Collections.unmodifiableSet(recordOffsets.keySet());
+        this.checksummed = checksummed;
+    }
+
+    /// <summary>
+    ///  Given a collection of templates, creates a catalog holding a copy of them.
+    ///     If a name appears more than once, the first template with that name is used.
+    ///     Returns null if the templates couldn't be encoded.
+    /// </summary>
+    public static DrinkTemplateCatalog FromTemplates(Collection<DrinkTemplate> templates){
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Crc32c checksum = new Crc32c();
+        DataOutputStream stream = new DataOutputStream(new CheckedOutputStream(bytes, checksum));
+        try{
+            DrinkTemplateBinaryFormat.WriteBinaryHeader(stream, checksum, templates.size());
+            for (DrinkTemplate template : templates){
+                DrinkTemplateBinaryFormat.WriteChecksummedTemplate(stream, checksum, template);
+            }
+            stream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorStreamError);
+            return null;
+        }
+        return DrinkTemplateCatalog.FromBuffer(ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer());
+    }
+
+    /// <summary>
+    ///  Given a binary template list file, maps it into memory and creates a catalog over it.
+    ///     The file must not be changed in place while the catalog is in use. Replacing it by
+    ///     renaming a new file over it, as template list writes do, is safe.
+    ///     An encrypted file can't be mapped, so it's decrypted onto the heap instead.
+    ///     Returns null if the file couldn't be read or isn't a valid binary template list file.
+    /// </summary>
+    public static DrinkTemplateCatalog OpenFile(File catalogFile){
+
+        ByteBuffer mappedRecords;
+        try (RandomAccessFile catalogReader = new RandomAccessFile(catalogFile, "r")){
+            byte[] magic = new byte[4];
+            if (StorageCipher.IsEncryptedHeader(magic, catalogReader.read(magic))){
+                return DrinkTemplateCatalog.FromBuffer(DrinkTemplateCatalog.DecryptFile(catalogFile).asReadOnlyBuffer());
+            }
+            FileChannel catalogChannel = catalogReader.getChannel();
+            mappedRecords = catalogChannel.map(FileChannel.MapMode.READ_ONLY, 0, catalogChannel.size());
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError);
+            return null;
+        }
+        return DrinkTemplateCatalog.FromBuffer(mappedRecords);
+    }
+
+    // Reads the decrypted contents of an encrypted file into a buffer
+    private static ByteBuffer DecryptFile(File catalogFile) throws IOException {
+        try (StorageFileReader reader = StorageFileReader.Open(catalogFile)){
+            if (reader.GetLength() > Integer.MAX_VALUE) throw new IOException();
+            byte[] records = new byte[(int)reader.GetLength()];
+            reader.ReadFully(0, records, 0, records.length);
+            return ByteBuffer.wrap(records);
+        }
+    }
+
+    // Reads the index of a buffer in the binary template list format and creates a catalog
+    //  over it. Returns null if the buffer isn't valid.
+    private static DrinkTemplateCatalog FromBuffer(ByteBuffer records){
+
+        ByteBuffer reader = records.duplicate();
+        DrinkTemplateBinaryFormat.BinaryHeader header;
+        HashMap<String, Integer> recordOffsets;
+        int offset;
+        String name;
+
+        try{
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(reader);
+            if (header == null) return null;
+            recordOffsets = new HashMap<>(Math.max(16, (int)(header.templateCount / 0.75f) + 1));
+            for (int i = 0; i < header.templateCount; i++){
+                offset = reader.position();
+                name = DrinkTemplateBinaryFormat.ReadBinaryString(reader);
+                reader.position(reader.position() + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize);
+                int imagePathLength = reader.getInt();
+                if (imagePathLength < 0) throw new IllegalArgumentException();
+                reader.position(reader.position() + imagePathLength + header.GetChecksumSize());
+                if (!recordOffsets.containsKey(name)) recordOffsets.put(name, offset);
+            }
+        }
+        catch (BufferUnderflowException | IllegalArgumentException e){
+            // Includes the buffer ending before all of its records were read
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidBinaryFile);
+            return null;
+        }
+        return new DrinkTemplateCatalog(records, recordOffsets, header.IsChecksummed());
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public int Size(){
+        return this.recordOffsets.size();
+    }
+    /// <summary>
+    ///     Returns the names of every template in the catalog. The set can't be changed.
+    /// </summary>
+    public Set<String> GetNames(){
+        return this.names;
+    }
+    /// <summary>
+    ///     Returns the number of bytes the catalog's templates take up.
+    /// </summary>
+    public int GetByteCount(){
+        return this.records.capacity();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Returns whether the catalog has a template with the given name.
+    /// </summary>
+    public boolean Contains(String templateKey){
+        return this.recordOffsets.containsKey(templateKey);
+    }
+
+    /// <summary>
+    ///     Returns a new copy of the template with the given name, or null if the catalog
+    ///     doesn't have one or its record failed its checksum.
+    /// </summary>
+    public DrinkTemplate Get(String templateKey){
+        Integer offset = this.recordOffsets.get(templateKey);
+        if (offset == null) return null;
+        ByteBuffer reader = this.records.duplicate();
+        reader.position(offset);
+        DrinkTemplate template = DrinkTemplateBinaryFormat.ReadBinaryTemplate(reader);
+        if (this.checksummed && !DrinkTemplateBinaryFormat.VerifyRecordChecksum(reader, offset)){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch);
+            return null;
+        }
+        return template;
+    }
+}
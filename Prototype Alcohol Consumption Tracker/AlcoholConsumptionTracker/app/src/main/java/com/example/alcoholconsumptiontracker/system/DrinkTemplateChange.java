@@ -0,0 +1,79 @@
+/// <summary>
+///  File: DrinkTemplateChange.java
+///     Description: Contains the class of one change made to a DrinkTemplateManager's
+///         templates, as delivered to the manager's change listeners.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+///
+/// Drink Template Change Class
+///     Describes one change to a manager's templates: what kind of change it was, when it
+///     was made, the name of the template changed, and the template before and after.
+///     The sequence is the manager's version right after the change, so it increases with
+///     every change and matches the version of any snapshot taken after it. A listener that
+///     sees a sequence more than one past the last it saw missed changes, and should reread
+///     the templates it needs.
+///
+public class DrinkTemplateChange {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the kinds of change
+    //  -ADDED: a template was put. Only the new template is set.
+    //  -MODIFIED: a template was replaced by ModifyTemplate. Both templates are set. They
+    //      are the same object if the template was changed in place before being modified.
+    //  -REMOVED: a template was removed. Only the old template is set.
+    //  -RESET: every template was replaced at once, by a clear or a switch to a template
+    //      file. No name or templates are set. Listeners should reread every template.
+    public enum ChangeType {
+        ADDED,
+        MODIFIED,
+        REMOVED,
+        RESET
+    }
+
+    private final long sequence;
+    private final long timestamp;
+    private final ChangeType type;
+    private final String templateKey;
+    private final DrinkTemplate oldTemplate;
+    private final DrinkTemplate newTemplate;
+
+    ///
+    /// Constructors
+    ///
+    DrinkTemplateChange(long sequence, long timestamp, ChangeType type, String templateKey, DrinkTemplate oldTemplate, DrinkTemplate newTemplate){
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.templateKey = templateKey;
+        this.oldTemplate = oldTemplate;
+        this.newTemplate = newTemplate;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetSequence(){
+        return this.sequence;
+    }
+    /// <summary>
+    ///     Returns when the change was made, in milliseconds since the epoch.
+    /// </summary>
+    public long GetTimestamp(){
+        return this.timestamp;
+    }
+    public ChangeType GetType(){
+        return this.type;
+    }
+    public String GetTemplateKey(){
+        return this.templateKey;
+    }
+    public DrinkTemplate GetOldTemplate(){
+        return this.oldTemplate;
+    }
+    public DrinkTemplate GetNewTemplate(){
+        return this.newTemplate;
+    }
+}
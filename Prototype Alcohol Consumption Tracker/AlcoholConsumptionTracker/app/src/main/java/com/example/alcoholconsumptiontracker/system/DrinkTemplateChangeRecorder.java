@@ -0,0 +1,370 @@
+/// <summary>
+///  File: DrinkTemplateChangeRecorder.java
+///     Description: Contains the class and methods of recording a DrinkTemplateManager's
+///         changes to its journal and delivering them to its change listeners.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+///
+/// Drink Template Change Recorder Class
+///     Holds a manager's journal and change listeners, and decides which lock a mutation
+///     holds so its change is recorded in the order it happens: the journal if there is
+///     one, the change lock if there are listeners or a history, and none otherwise.
+///     Changes made under that lock are queued, then delivered once it's released, so
+///     listeners are told with no locks held, in order, one change at a time.
+///     Safe to use from several threads at once.
+///
+final class DrinkTemplateChangeRecorder {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the journal template mutations are recorded to. Null if mutations aren't journaled.
+    //  While attached, mutations lock the journal so they're recorded in the order they happen.
+    private volatile DrinkTemplateJournal journal;
+
+    // Represents the listeners told about each change, in the order they were added.
+    private final CopyOnWriteArrayList<DrinkTemplateManager.TemplateChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Represents the changes waiting to be delivered to listeners, in the order they were
+    //  made. While listeners are attached and no journal is, mutations hold this lock so
+    //  changes are queued in the order they happen. Guarded by changeLock.
+    private final ArrayDeque<DrinkTemplateChange> pendingChanges = new ArrayDeque<>();
+    private final Object changeLock = new Object();
+
+    // Represents the lock held while delivering changes, so one thread delivers them at a
+    //  time and in order, and the thread holding it. A listener's own changes are delivered
+    //  by the delivery already running on its thread, after the current change.
+    private final Object deliveryLock = new Object();
+    private volatile Thread deliveryThread;
+
+    ///
+    /// Setters and Getters
+    ///
+    DrinkTemplateJournal GetJournal(){
+        return this.journal;
+    }
+    void AttachJournal(DrinkTemplateJournal newJournal){
+        this.journal = newJournal;
+    }
+    /// <summary>
+    ///     Returns the change lock, for a mutation that must be ordered against every other
+    ///     even when GetMutationLock would return null.
+    /// </summary>
+    Object GetChangeLock(){
+        return this.changeLock;
+    }
+    boolean AddListener(DrinkTemplateManager.TemplateChangeListener listener){
+        if (listener == null) return false;
+        return this.changeListeners.addIfAbsent(listener);
+    }
+    boolean RemoveListener(DrinkTemplateManager.TemplateChangeListener listener){
+        if (listener == null) return false;
+        return this.changeListeners.remove(listener);
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given the journal a mutation will write to, and whether the template history is
+    ///     on, returns the lock the mutation must hold so it's recorded in the order it
+    ///     happens: the journal if there is one, the change lock if there are listeners or a
+    ///     history, and null if nothing records it.
+    /// </summary>
+    Object GetMutationLock(DrinkTemplateJournal currentJournal, boolean historyEnabled){
+        if (currentJournal != null) return currentJournal;
+        if (!this.changeListeners.isEmpty() || historyEnabled) return this.changeLock;
+        return null;
+    }
+
+    /// <summary>
+    ///     If the given journal has grown past its threshold, compacts it. Called with the
+    ///     journal locked, so the journal's cut falls between two recorded changes. Only
+    ///     the cut is taken here; the journal builds the fresh snapshot from its own files
+    ///     in the background, so no template is copied or decoded on the mutating thread.
+    /// </summary>
+    void CompactJournalIfNeeded(DrinkTemplateJournal currentJournal){
+        if (currentJournal.CompactionNeeded()) currentJournal.Compact();
+    }
+
+    /// <summary>
+    ///     Given a change just made under the mutation lock, queues it for the listeners.
+    /// </summary>
+    void Queue(DrinkTemplateChange change){
+        if (this.changeListeners.isEmpty()) return;
+        synchronized (this.changeLock){
+            this.pendingChanges.add(change);
+        }
+    }
+
+    /// <summary>
+    ///     Delivers every queued change to the listeners, in order. Called after a mutation
+    ///     releases its lock. If another thread is delivering, waits for it, then delivers
+    ///     whatever it left. A listener throwing doesn't stop the others from being told.
+    /// </summary>
+    void Deliver(){
+        if (this.deliveryThread == Thread.currentThread()) return;
+        synchronized (this.deliveryLock){
+            this.deliveryThread = Thread.currentThread();
+            try {
+                while (true){
+                    DrinkTemplateChange change;
+                    synchronized (this.changeLock){
+                        change = this.pendingChanges.poll();
+                    }
+                    if (change == null) return;
+                    for (DrinkTemplateManager.TemplateChangeListener listener : this.changeListeners){
+                        try {
+                            listener.OnTemplateChanged(change);
+                        }
+                        catch (RuntimeException e){
+                            Log.d(
+                                    Universals.ErrorMessages.ErrorMessageTag,
+                                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ChangeListenerError
+                            );
+                        }
+                    }
+                }
+            }
+            finally {
+                this.deliveryThread = null;
+            }
+        }
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    /// <summary>
+    ///  Tests change listeners with each kind of change, listeners that make changes, and
+    ///     changes made on several threads.
+    /// </summary>
+    public static void TestChangeFeed(boolean printAllMessages){
+
+        // Locals
+        final DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        DrinkTemplate modifiedTemplate;
+        final ArrayList<DrinkTemplateChange> changes = new ArrayList<>();
+        DrinkTemplateManager.TemplateChangeListener recorder = new DrinkTemplateManager.TemplateChangeListener() {
+            @Override
+            public void OnTemplateChanged(DrinkTemplateChange change) {
+                synchronized (changes){
+                    changes.add(change);
+                }
+            }
+        };
+        Runnable[] tasks = new Runnable[4];
+        HashMap<String, DrinkTemplate> replayed = new HashMap<>();
+        boolean matched;
+
+        // Non-exception cases
+        //  -Case 1, puts, modifies, and removes are delivered with their templates and
+        //      consecutive sequences matching the version
+        testManager.AddTemplateChangeListener(recorder);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Pilsner");
+        modifiedTemplate = new DrinkTemplate();
+        modifiedTemplate.SetName("Pilsner");
+        modifiedTemplate.SetPrice(6f);
+        testManager.PutTemplate(testTemplate);
+        testManager.ModifyTemplate(modifiedTemplate);
+        testManager.RemoveTemplate("Pilsner");
+        if (changes.size() == 3
+                && changes.get(0).GetType() == DrinkTemplateChange.ChangeType.ADDED
+                && changes.get(0).GetOldTemplate() == null
+                && changes.get(0).GetNewTemplate() == testTemplate
+                && changes.get(1).GetType() == DrinkTemplateChange.ChangeType.MODIFIED
+                && changes.get(1).GetOldTemplate() == testTemplate
+                && changes.get(1).GetNewTemplate() == modifiedTemplate
+                && changes.get(2).GetType() == DrinkTemplateChange.ChangeType.REMOVED
+                && changes.get(2).GetTemplateKey().equals("Pilsner")
+                && changes.get(2).GetOldTemplate() == modifiedTemplate
+                && changes.get(2).GetNewTemplate() == null
+                && changes.get(0).GetSequence() + 1 == changes.get(1).GetSequence()
+                && changes.get(1).GetSequence() + 1 == changes.get(2).GetSequence()
+                && changes.get(2).GetSequence() == testManager.GetVersion()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, clears are delivered as resets, failed changes aren't delivered, and
+        //      removed listeners aren't told
+        changes.clear();
+        testManager.PutTemplate(testTemplate);
+        testManager.PutTemplate(testTemplate);
+        testManager.RemoveTemplate("Porter");
+        testManager.ModifyTemplate(new DrinkTemplate());
+        testManager.ClearTemplates();
+        matched = changes.size() == 2
+                && changes.get(1).GetType() == DrinkTemplateChange.ChangeType.RESET
+                && changes.get(1).GetTemplateKey() == null
+                && !testManager.AddTemplateChangeListener(recorder);
+        testManager.RemoveTemplateChangeListener(recorder);
+        testManager.PutTemplate(testTemplate);
+        if (matched
+                && changes.size() == 2
+                && !testManager.RemoveTemplateChangeListener(recorder)){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, a change made by a listener is delivered after every listener is told
+        //      about the change that caused it
+        changes.clear();
+        testManager.ClearTemplates();
+        testManager.AddTemplateChangeListener(new DrinkTemplateManager.TemplateChangeListener() {
+            @Override
+            public void OnTemplateChanged(DrinkTemplateChange change) {
+                if (change.GetType() == DrinkTemplateChange.ChangeType.ADDED && !change.GetTemplateKey().endsWith(" Copy")){
+                    DrinkTemplate copy = new DrinkTemplate();
+                    copy.SetName(change.GetTemplateKey() + " Copy");
+                    testManager.PutTemplate(copy);
+                }
+            }
+        });
+        testManager.AddTemplateChangeListener(recorder);
+        testManager.PutTemplate(testTemplate);
+        if (changes.size() == 2
+                && changes.get(0).GetTemplateKey().equals("Pilsner")
+                && changes.get(1).GetTemplateKey().equals("Pilsner Copy")
+                && testManager.ContainsTemplate("Pilsner Copy")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(false, 3)
+            );
+        }
+
+        //  -Case 4, changes on several threads are delivered once each, in sequence order,
+        //      and replaying them gives the manager's templates
+        final DrinkTemplateManager concurrentManager = new DrinkTemplateManager();
+        changes.clear();
+        concurrentManager.AddTemplateChangeListener(recorder);
+        for (int t = 0; t < tasks.length; t++){
+            final Random random = new Random(15 + t);
+            tasks[t] = new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 2000; i++){
+                        DrinkTemplate template = new DrinkTemplate();
+                        template.SetName("Template " + random.nextInt(50));
+                        switch (random.nextInt(3)){
+                            case 0:
+                                concurrentManager.PutTemplate(template);
+                                break;
+                            case 1:
+                                concurrentManager.ModifyTemplate(template);
+                                break;
+                            default:
+                                concurrentManager.RemoveTemplate(template.GetName());
+                        }
+                    }
+                }
+            };
+        }
+        matched = DrinkTemplateManager.RunConcurrently(tasks, tasks.length);
+        for (int i = 0; i < changes.size() && matched; i++){
+            DrinkTemplateChange change = changes.get(i);
+            if (change.GetSequence() != i + 1) matched = false;
+            else if (change.GetType() == DrinkTemplateChange.ChangeType.REMOVED){
+                if (replayed.remove(change.GetTemplateKey()) != change.GetOldTemplate()) matched = false;
+            }
+            else if (replayed.put(change.GetTemplateKey(), change.GetNewTemplate()) != change.GetOldTemplate()){
+                matched = false;
+            }
+        }
+        if (matched
+                && changes.size() == concurrentManager.GetVersion()
+                && replayed.equals(new HashMap<>(concurrentManager.GetTemplateList()))){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(false, 4)
+            );
+        }
+
+        // Exception cases
+        //  -Case 5, a null listener, and a listener that throws. Expect the null listener
+        //      refused, and the change made and delivered to the other listeners
+        changes.clear();
+        concurrentManager.RemoveTemplateChangeListener(recorder);
+        concurrentManager.AddTemplateChangeListener(new DrinkTemplateManager.TemplateChangeListener() {
+            @Override
+            public void OnTemplateChanged(DrinkTemplateChange change) {
+                throw new IllegalStateException();
+            }
+        });
+        concurrentManager.AddTemplateChangeListener(recorder);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Thrown");
+        if (!concurrentManager.AddTemplateChangeListener(null)
+                && !concurrentManager.RemoveTemplateChangeListener(null)
+                && concurrentManager.PutTemplate(testTemplate)
+                && changes.size() == 1
+                && changes.get(0).GetNewTemplate() == testTemplate){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(true, 5)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChangeFeedMessage(false, 5)
+            );
+        }
+    }
+}
@@ -0,0 +1,619 @@
+/// <summary>
+///  File: DrinkTemplateDiff.java
+///     Description: Contains the class and methods of the field-level differences between two
+///         sets of drink templates, and the three-way merge built on them. Diffs can be
+///         encoded to bytes so only the changes need to be sent between devices.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+///
+/// Drink Template Diff Class
+///     Holds the changes that turn one set of templates into another, one entry per template
+///     name that differs, in template name order:
+///         -ADDED: the template only exists in the new set. The whole template is kept.
+///         -MODIFIED: the template exists in both. Only the fields that differ are kept.
+///         -REMOVED: the template only exists in the old set. Only the name is kept.
+///     Diffs are computed in one pass over both sets' names in sorted order, taken from the
+///     managers' snapshots, so comparing two managers costs one look at each template.
+///     Encoded as bytes, a diff holds only the fields that changed:
+///         -Header: magic number (int), version (short), entry count (int)
+///         -Each entry: change (byte), then
+///             -Added: the template as a binary template record
+///             -Modified: the name, the changed fields (byte, one bit per field), and the
+///                 value of each changed field in field order
+///             -Removed: the name
+///
+public class DrinkTemplateDiff {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the fields of a template a change can be made to. The name identifies the
+    //  template, so it's never a changed field.
+    public enum Field {
+        TYPE,
+        SERVINGS,
+        APV,
+        PRICE,
+        CALORIES,
+        IMAGE
+    }
+    // Represents a mask with every field set
+    static final int AllFields = (1 << Field.values().length) - 1;
+
+    /// <summary>
+    ///  One template's change. For modified templates, only the fields in the mask are set
+    ///     on the template. The rest are left at their defaults.
+    /// </summary>
+    public static class Entry {
+        private final DrinkTemplateChange.ChangeType type;
+        private final String templateKey;
+        private final int fieldMask;
+        private final DrinkTemplate template;
+
+        Entry(DrinkTemplateChange.ChangeType type, String templateKey, int fieldMask, DrinkTemplate template){
+            this.type = type;
+            this.templateKey = templateKey;
+            this.fieldMask = fieldMask;
+            this.template = template;
+        }
+
+        public DrinkTemplateChange.ChangeType GetType(){
+            return this.type;
+        }
+        public String GetTemplateKey(){
+            return this.templateKey;
+        }
+        public boolean HasField(Field field){
+            return (this.fieldMask & (1 << field.ordinal())) != 0;
+        }
+        int GetFieldMask(){
+            return this.fieldMask;
+        }
+        /// <summary>
+        ///     Returns the template added, or the new values of the changed fields.
+        ///     Null for removed templates.
+        /// </summary>
+        public DrinkTemplate GetTemplate(){
+            return this.template;
+        }
+    }
+
+    private final List<Entry> entries;
+
+    ///
+    /// Constructors
+    ///
+    DrinkTemplateDiff(List<Entry> entries){
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    /// <summary>
+    ///     Returns the changes in template name order. The list can't be changed.
+    /// </summary>
+    public List<Entry> GetEntries(){
+        return this.entries;
+    }
+    public int Size(){
+        return this.entries.size();
+    }
+    public boolean IsEmpty(){
+        return this.entries.isEmpty();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given two managers, returns the changes that turn the first's templates into the
+    ///     second's.
+    /// </summary>
+    public static DrinkTemplateDiff Compute(DrinkTemplateManager oldManager, DrinkTemplateManager newManager){
+        return DrinkTemplateDiff.Compute(oldManager.GetSnapshot(), newManager.GetSnapshot());
+    }
+    /// <summary>
+    ///  Given two snapshots, returns the changes that turn the first's templates into the
+    ///     second's. Walks both in name order together, so each template is looked at once.
+    /// </summary>
+    public static DrinkTemplateDiff Compute(DrinkTemplateSnapshot oldTemplates, DrinkTemplateSnapshot newTemplates){
+
+        ArrayList<Entry> entries = new ArrayList<>();
+        int oldPosition = 0;
+        int newPosition = 0;
+
+        while (oldPosition < oldTemplates.Size() || newPosition < newTemplates.Size()){
+            int order;
+            if (oldPosition == oldTemplates.Size()) order = 1;
+            else if (newPosition == newTemplates.Size()) order = -1;
+            else order = DrinkTemplateSnapshot.NameOrder.compare(oldTemplates.GetName(oldPosition), newTemplates.GetName(newPosition));
+
+            // Only in the old set. Its template isn't needed.
+            if (order < 0){
+                entries.add(new Entry(DrinkTemplateChange.ChangeType.REMOVED, oldTemplates.GetName(oldPosition++), 0, null));
+            }
+            // Only in the new set
+            else if (order > 0){
+                DrinkTemplate newTemplate = newTemplates.Get(newPosition++);
+                if (newTemplate == null) continue;
+                entries.add(new Entry(
+                        DrinkTemplateChange.ChangeType.ADDED, newTemplate.GetName(), DrinkTemplateDiff.AllFields, new DrinkTemplate(newTemplate)
+                ));
+            }
+            // In both. Keep the fields that differ, if any. A template that can't be read
+            //  from its file can't be compared, and is left out.
+            else {
+                DrinkTemplate oldTemplate = oldTemplates.Get(oldPosition++);
+                DrinkTemplate newTemplate = newTemplates.Get(newPosition++);
+                if (oldTemplate == null || newTemplate == null) continue;
+                int fieldMask = DrinkTemplateDiff.DifferingFields(oldTemplate, newTemplate);
+                if (fieldMask != 0){
+                    entries.add(DrinkTemplateDiff.ModifiedEntry(newTemplate.GetName(), fieldMask, newTemplate));
+                }
+            }
+        }
+        return new DrinkTemplateDiff(entries);
+    }
+
+    /// <summary>
+    ///  Given a manager, applies the changes to it. Added templates replace any template
+    ///     with the same name. Modified templates have only their changed fields set.
+    ///     Returns true if every change applied.
+    ///     Returns false if a modified or removed template wasn't in the manager. The other
+    ///     changes are still applied.
+    /// </summary>
+    public boolean Apply(DrinkTemplateManager targetManager){
+
+        boolean allApplied = true;
+        for (Entry entry : this.entries){
+            switch (entry.GetType()){
+                case ADDED:
+                    DrinkTemplate addedTemplate = new DrinkTemplate(entry.GetTemplate());
+                    if (!targetManager.PutTemplate(addedTemplate)) targetManager.ModifyTemplate(addedTemplate);
+                    break;
+                case MODIFIED:
+                    DrinkTemplate currentTemplate = targetManager.GetTemplate(entry.GetTemplateKey());
+                    if (currentTemplate == null){
+                        allApplied = false;
+                        break;
+                    }
+                    DrinkTemplate modifiedTemplate = new DrinkTemplate(currentTemplate);
+                    DrinkTemplateDiff.CopyFields(entry.GetTemplate(), modifiedTemplate, entry.GetFieldMask());
+                    if (!targetManager.ModifyTemplate(modifiedTemplate)) allApplied = false;
+                    break;
+                default:
+                    if (!targetManager.RemoveTemplate(entry.GetTemplateKey())) allApplied = false;
+                    break;
+            }
+        }
+        return allApplied;
+    }
+
+    /// <summary>
+    ///  Given the templates two copies started from and both copies now, merges the changes
+    ///     made to the second copy (theirs) into the first (ours):
+    ///         -Changes made on one side only are taken from that side.
+    ///         -The same change made on both sides is taken once.
+    ///         -Changes to different fields of the same template are combined.
+    ///         -Different values given to the same field, a template added on both sides with
+    ///             different fields, and a template changed on one side and removed on the
+    ///             other are conflicts. Ours is kept and the conflict is reported. Their
+    ///             other fields of that template are still merged.
+    ///     Returns the result, whose changes turn ours into the merged templates when applied.
+    /// </summary>
+    public static DrinkTemplateMergeResult Merge(DrinkTemplateManager baseManager, DrinkTemplateManager ourManager, DrinkTemplateManager theirManager){
+        return DrinkTemplateDiff.Merge(
+                DrinkTemplateDiff.Compute(baseManager, ourManager),
+                DrinkTemplateDiff.Compute(baseManager, theirManager)
+        );
+    }
+    /// <summary>
+    ///  Given the changes made to each copy since a common base, merges them as above.
+    ///     Walks both diffs in name order together.
+    /// </summary>
+    public static DrinkTemplateMergeResult Merge(DrinkTemplateDiff ourChanges, DrinkTemplateDiff theirChanges){
+
+        ArrayList<Entry> mergedEntries = new ArrayList<>();
+        ArrayList<DrinkTemplateMergeResult.Conflict> conflicts = new ArrayList<>();
+        int ourPosition = 0;
+        int theirPosition = 0;
+
+        while (theirPosition < theirChanges.Size()){
+            Entry theirEntry = theirChanges.entries.get(theirPosition);
+            Entry ourEntry = ourPosition < ourChanges.Size() ? ourChanges.entries.get(ourPosition) : null;
+            int order = ourEntry == null ? 1 : DrinkTemplateDiff.CompareNames(ourEntry.GetTemplateKey(), theirEntry.GetTemplateKey());
+
+            // Changed on our side only. Ours already has it.
+            if (order < 0){
+                ourPosition++;
+                continue;
+            }
+            theirPosition++;
+
+            // Changed on their side only. Take it.
+            if (order > 0){
+                mergedEntries.add(theirEntry);
+                continue;
+            }
+            ourPosition++;
+
+            // Changed on both sides
+            DrinkTemplateChange.ChangeType ourType = ourEntry.GetType();
+            DrinkTemplateChange.ChangeType theirType = theirEntry.GetType();
+            if (ourType == DrinkTemplateChange.ChangeType.REMOVED && theirType == DrinkTemplateChange.ChangeType.REMOVED){
+                continue;
+            }
+            if (ourType == DrinkTemplateChange.ChangeType.REMOVED || theirType == DrinkTemplateChange.ChangeType.REMOVED){
+                int changedFields = ourType == DrinkTemplateChange.ChangeType.REMOVED ? theirEntry.GetFieldMask() : ourEntry.GetFieldMask();
+                conflicts.add(new DrinkTemplateMergeResult.Conflict(ourEntry, theirEntry, changedFields));
+                continue;
+            }
+
+            // Both added or modified. Fields both sides set to different values conflict.
+            //  Fields only they set are merged.
+            int sharedFields = ourEntry.GetFieldMask() & theirEntry.GetFieldMask();
+            int conflictingFields = sharedFields & DrinkTemplateDiff.DifferingFields(ourEntry.GetTemplate(), theirEntry.GetTemplate());
+            int theirOnlyFields = theirEntry.GetFieldMask() & ~sharedFields;
+            if (conflictingFields != 0){
+                conflicts.add(new DrinkTemplateMergeResult.Conflict(ourEntry, theirEntry, conflictingFields));
+            }
+            if (theirOnlyFields != 0){
+                mergedEntries.add(DrinkTemplateDiff.ModifiedEntry(theirEntry.GetTemplateKey(), theirOnlyFields, theirEntry.GetTemplate()));
+            }
+        }
+        return new DrinkTemplateMergeResult(new DrinkTemplateDiff(mergedEntries), conflicts);
+    }
+
+    /// <summary>
+    ///  Encodes the diff as bytes in the format above.
+    /// </summary>
+    public byte[] ToBytes(){
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream stream = new DataOutputStream(bytes);
+        try {
+            stream.writeInt(Universals.BinaryFormats.DrinkTemplateDiffFormat.MagicNumber);
+            stream.writeShort(Universals.BinaryFormats.DrinkTemplateDiffFormat.Version);
+            stream.writeInt(this.entries.size());
+            for (Entry entry : this.entries){
+                switch (entry.GetType()){
+                    case ADDED:
+                        stream.writeByte(DrinkTemplateJournal.PutOperation);
+                        DrinkTemplateBinaryFormat.WriteBinaryTemplate(stream, entry.GetTemplate());
+                        break;
+                    case MODIFIED:
+                        stream.writeByte(DrinkTemplateJournal.ModifyOperation);
+                        DrinkTemplateBinaryFormat.WriteBinaryString(stream, entry.GetTemplateKey());
+                        stream.writeByte(entry.GetFieldMask());
+                        DrinkTemplateDiff.WriteFields(stream, entry.GetTemplate(), entry.GetFieldMask());
+                        break;
+                    default:
+                        stream.writeByte(DrinkTemplateJournal.RemoveOperation);
+                        DrinkTemplateBinaryFormat.WriteBinaryString(stream, entry.GetTemplateKey());
+                        break;
+                }
+            }
+            stream.flush();
+        }
+        catch (IOException e){
+            // Writing to memory doesn't fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /// <summary>
+    ///  Given bytes in the format above, returns the diff they encode.
+    ///     Returns null if the bytes aren't an encoded diff or end part way through one.
+    /// </summary>
+    public static DrinkTemplateDiff FromBytes(byte[] bytes){
+
+        if (bytes == null) return null;
+        DataInputStream stream = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (stream.readInt() != Universals.BinaryFormats.DrinkTemplateDiffFormat.MagicNumber
+                    || stream.readShort() != Universals.BinaryFormats.DrinkTemplateDiffFormat.Version){
+                Log.d(
+                        Universals.ErrorMessages.ErrorMessageTag,
+                        Universals.ErrorMessages.DrinkTemplateDiffErrorMessages.InvalidDiffError
+                );
+                return null;
+            }
+            int entryCount = stream.readInt();
+            if (entryCount < 0) throw new IOException();
+            ArrayList<Entry> entries = new ArrayList<>(Math.min(entryCount, 1024));
+            for (int i = 0; i < entryCount; i++){
+                byte operation = stream.readByte();
+                if (operation == DrinkTemplateJournal.PutOperation){
+                    DrinkTemplate template = DrinkTemplateBinaryFormat.ReadBinaryTemplate(stream, bytes.length);
+                    entries.add(new Entry(DrinkTemplateChange.ChangeType.ADDED, template.GetName(), DrinkTemplateDiff.AllFields, template));
+                }
+                else if (operation == DrinkTemplateJournal.ModifyOperation){
+                    String name = DrinkTemplateBinaryFormat.ReadBinaryString(stream, bytes.length);
+                    int fieldMask = stream.readByte() & DrinkTemplateDiff.AllFields;
+                    DrinkTemplate template = new DrinkTemplate();
+                    template.SetName(name);
+                    DrinkTemplateDiff.ReadFields(stream, template, fieldMask, bytes.length);
+                    entries.add(new Entry(DrinkTemplateChange.ChangeType.MODIFIED, name, fieldMask, template));
+                }
+                else if (operation == DrinkTemplateJournal.RemoveOperation){
+                    entries.add(new Entry(DrinkTemplateChange.ChangeType.REMOVED, DrinkTemplateBinaryFormat.ReadBinaryString(stream, bytes.length), 0, null));
+                }
+                else throw new IOException();
+            }
+            return new DrinkTemplateDiff(entries);
+        }
+        catch (EOFException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateDiffErrorMessages.TruncatedDiffError
+            );
+            return null;
+        }
+        catch (IOException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateDiffErrorMessages.InvalidDiffError
+            );
+            return null;
+        }
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns a modified entry holding a copy of the given fields of a template
+    private static Entry ModifiedEntry(String name, int fieldMask, DrinkTemplate source){
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(name);
+        DrinkTemplateDiff.CopyFields(source, template, fieldMask);
+        return new Entry(DrinkTemplateChange.ChangeType.MODIFIED, name, fieldMask, template);
+    }
+
+    // Returns the mask of fields whose values differ between two templates
+    static int DifferingFields(DrinkTemplate first, DrinkTemplate second){
+        int fieldMask = 0;
+        if (first.GetType().GetValue() != second.GetType().GetValue()) fieldMask |= 1 << Field.TYPE.ordinal();
+        if (first.GetServings() != second.GetServings()) fieldMask |= 1 << Field.SERVINGS.ordinal();
+        if (Float.compare(first.GetAPV(), second.GetAPV()) != 0) fieldMask |= 1 << Field.APV.ordinal();
+        if (Float.compare(first.GetPrice(), second.GetPrice()) != 0) fieldMask |= 1 << Field.PRICE.ordinal();
+        if (Float.compare(first.GetCalories(), second.GetCalories()) != 0) fieldMask |= 1 << Field.CALORIES.ordinal();
+        if (!first.GetImageFilePath().equals(second.GetImageFilePath())) fieldMask |= 1 << Field.IMAGE.ordinal();
+        return fieldMask;
+    }
+
+    // Copies the fields in the mask from one template to another
+    static void CopyFields(DrinkTemplate source, DrinkTemplate target, int fieldMask){
+        if ((fieldMask & (1 << Field.TYPE.ordinal())) != 0) target.SetType(source.GetType().GetValue());
+        if ((fieldMask & (1 << Field.SERVINGS.ordinal())) != 0) target.SetServings(source.GetServings());
+        if ((fieldMask & (1 << Field.APV.ordinal())) != 0) target.SetAPV(source.GetAPV());
+        if ((fieldMask & (1 << Field.PRICE.ordinal())) != 0) target.SetPrice(source.GetPrice());
+        if ((fieldMask & (1 << Field.CALORIES.ordinal())) != 0) target.SetCalories(source.GetCalories());
+        if ((fieldMask & (1 << Field.IMAGE.ordinal())) != 0) target.SetImageFilePath(source.GetImageFilePath());
+    }
+
+    // Writes the fields in the mask, in field order
+    private static void WriteFields(DataOutputStream stream, DrinkTemplate template, int fieldMask) throws IOException {
+        if ((fieldMask & (1 << Field.TYPE.ordinal())) != 0) stream.writeShort(template.GetType().GetValue());
+        if ((fieldMask & (1 << Field.SERVINGS.ordinal())) != 0) stream.writeShort(template.GetServings());
+        if ((fieldMask & (1 << Field.APV.ordinal())) != 0) stream.writeFloat(template.GetAPV());
+        if ((fieldMask & (1 << Field.PRICE.ordinal())) != 0) stream.writeFloat(template.GetPrice());
+        if ((fieldMask & (1 << Field.CALORIES.ordinal())) != 0) stream.writeFloat(template.GetCalories());
+        if ((fieldMask & (1 << Field.IMAGE.ordinal())) != 0) DrinkTemplateBinaryFormat.WriteBinaryString(stream, template.GetImageFilePath());
+    }
+
+    // Reads the fields in the mask, in field order, into a template. The image path takes
+    //  up at most maxLength bytes.
+    private static void ReadFields(DataInputStream stream, DrinkTemplate template, int fieldMask, long maxLength) throws IOException {
+        if ((fieldMask & (1 << Field.TYPE.ordinal())) != 0) template.SetType(stream.readShort());
+        if ((fieldMask & (1 << Field.SERVINGS.ordinal())) != 0) template.SetServings(stream.readShort());
+        if ((fieldMask & (1 << Field.APV.ordinal())) != 0) template.SetAPV(stream.readFloat());
+        if ((fieldMask & (1 << Field.PRICE.ordinal())) != 0) template.SetPrice(stream.readFloat());
+        if ((fieldMask & (1 << Field.CALORIES.ordinal())) != 0) template.SetCalories(stream.readFloat());
+        if ((fieldMask & (1 << Field.IMAGE.ordinal())) != 0) template.SetImageFilePath(DrinkTemplateBinaryFormat.ReadBinaryString(stream, maxLength));
+    }
+
+    // Compares two names in the order snapshots sort templates in
+    private static int CompareNames(String first, String second){
+        int result = String.CASE_INSENSITIVE_ORDER.compare(first, second);
+        if (result != 0) return result;
+        return first.compareTo(second);
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test computing, applying, encoding, and merging diffs
+    public static void TestDiffAndMerge(boolean printAllMessages){
+
+        // Locals
+        DrinkTemplateManager baseManager = new DrinkTemplateManager();
+        DrinkTemplateManager ourManager = new DrinkTemplateManager();
+        DrinkTemplateManager theirManager = new DrinkTemplateManager();
+        DrinkTemplateManager targetManager;
+        DrinkTemplateDiff testDiff;
+        DrinkTemplateDiff decodedDiff;
+        DrinkTemplateMergeResult testResult;
+        DrinkTemplate testTemplate;
+        byte[] encoded;
+
+        for (DrinkTemplateManager manager : new DrinkTemplateManager[]{baseManager, ourManager, theirManager}){
+            manager.PutTemplate(DrinkTemplateDiff.TestTemplate("Ale", 5f, 150f));
+            manager.PutTemplate(DrinkTemplateDiff.TestTemplate("Bock", 6f, 200f));
+            manager.PutTemplate(DrinkTemplateDiff.TestTemplate("Cider", 4f, 120f));
+        }
+
+        // Non-exception cases
+        //  -Case 1, a diff holds one entry per changed template in name order, only the
+        //      changed fields of modified templates, and applying it gives the new templates
+        testTemplate = DrinkTemplateDiff.TestTemplate("Ale", 7f, 150f);
+        ourManager.ModifyTemplate(testTemplate);
+        ourManager.RemoveTemplate("Bock");
+        ourManager.PutTemplate(DrinkTemplateDiff.TestTemplate("Dubbel", 8f, 250f));
+        testDiff = DrinkTemplateDiff.Compute(baseManager, ourManager);
+        targetManager = new DrinkTemplateManager();
+        DrinkTemplateDiff.Compute(targetManager, baseManager).Apply(targetManager);
+        if (testDiff.Size() == 3
+                && testDiff.GetEntries().get(0).GetTemplateKey().equals("Ale")
+                && testDiff.GetEntries().get(0).GetType() == DrinkTemplateChange.ChangeType.MODIFIED
+                && testDiff.GetEntries().get(0).HasField(Field.PRICE)
+                && !testDiff.GetEntries().get(0).HasField(Field.CALORIES)
+                && testDiff.GetEntries().get(1).GetType() == DrinkTemplateChange.ChangeType.REMOVED
+                && testDiff.GetEntries().get(2).GetType() == DrinkTemplateChange.ChangeType.ADDED
+                && testDiff.Apply(targetManager)
+                && DrinkTemplateDiff.Compute(targetManager, ourManager).IsEmpty()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateDiffMessages.DiffMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateDiffMessages.DiffMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, a diff decoded from its bytes applies the same changes
+        encoded = testDiff.ToBytes();
+        decodedDiff = DrinkTemplateDiff.FromBytes(encoded);
+        targetManager = new DrinkTemplateManager();
+        DrinkTemplateDiff.Compute(targetManager, baseManager).Apply(targetManager);
+        if (decodedDiff != null
+                && decodedDiff.Size() == testDiff.Size()
+                && decodedDiff.Apply(targetManager)
+                && DrinkTemplateDiff.Compute(targetManager, ourManager).IsEmpty()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateDiffMessages.DiffMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateDiffMessages.DiffMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, changes to different templates and to different fields of the same
+        //      template merge without conflicts
+        testTemplate = DrinkTemplateDiff.TestTemplate("Ale", 5f, 180f);
+        theirManager.ModifyTemplate(testTemplate);
+        theirManager.PutTemplate(DrinkTemplateDiff.TestTemplate("Dubbel", 8f, 250f));
+        theirManager.PutTemplate(DrinkTemplateDiff.TestTemplate("Eisbock", 9f, 300f));
+        theirManager.RemoveTemplate("Cider");
+        testResult = DrinkTemplateDiff.Merge(baseManager, ourManager, theirManager);
+        testResult.GetChanges().Apply(ourManager);
+        if (!testResult.HasConflicts()
+                && ourManager.GetTemplate("Ale").GetPrice() == 7f
+                && ourManager.GetTemplate("Ale").GetCalories() == 180f
+                && ourManager.GetTemplate("Bock") == null
+                && ourManager.GetTemplate("Cider") == null
+                && ourManager.GetTemplate("Dubbel").GetPrice() == 8f
+                && ourManager.GetTemplate("Eisbock") != null){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateDiffMessages.MergeMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateDiffMessages.MergeMessage(false, 3)
+            );
+        }
+
+        //  -Case 4, the same field changed to different values, and a template changed on
+        //      one side and removed on the other, are conflicts. Ours is kept
+        baseManager = new DrinkTemplateManager();
+        ourManager = new DrinkTemplateManager();
+        theirManager = new DrinkTemplateManager();
+        for (DrinkTemplateManager manager : new DrinkTemplateManager[]{baseManager, ourManager, theirManager}){
+            manager.PutTemplate(DrinkTemplateDiff.TestTemplate("Ale", 5f, 150f));
+            manager.PutTemplate(DrinkTemplateDiff.TestTemplate("Bock", 6f, 200f));
+        }
+        ourManager.ModifyTemplate(DrinkTemplateDiff.TestTemplate("Ale", 6f, 150f));
+        theirManager.ModifyTemplate(DrinkTemplateDiff.TestTemplate("Ale", 8f, 160f));
+        ourManager.RemoveTemplate("Bock");
+        theirManager.ModifyTemplate(DrinkTemplateDiff.TestTemplate("Bock", 7f, 200f));
+        testResult = DrinkTemplateDiff.Merge(baseManager, ourManager, theirManager);
+        testResult.GetChanges().Apply(ourManager);
+        if (testResult.GetConflicts().size() == 2
+                && testResult.GetConflicts().get(0).GetTemplateKey().equals("Ale")
+                && testResult.GetConflicts().get(0).HasField(Field.PRICE)
+                && !testResult.GetConflicts().get(0).HasField(Field.CALORIES)
+                && testResult.GetConflicts().get(1).GetOurChange().GetType() == DrinkTemplateChange.ChangeType.REMOVED
+                && ourManager.GetTemplate("Ale").GetPrice() == 6f
+                && ourManager.GetTemplate("Ale").GetCalories() == 160f
+                && ourManager.GetTemplate("Bock") == null){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateDiffMessages.MergeMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateDiffMessages.MergeMessage(false, 4)
+            );
+        }
+
+        // Exception cases
+        //  -Case 5, bytes cut part way through, or not a diff, decode to null
+        if (DrinkTemplateDiff.FromBytes(Arrays.copyOf(encoded, encoded.length - 3)) == null
+                && DrinkTemplateDiff.FromBytes(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}) == null){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateDiffMessages.DiffMessage(true, 5)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateDiffMessages.DiffMessage(false, 5)
+            );
+        }
+    }
+
+    // Returns a template with the given name, price, and calories
+    private static DrinkTemplate TestTemplate(String name, float price, float calories){
+        DrinkTemplate template = new DrinkTemplate();
+        template.SetName(name);
+        template.SetPrice(price);
+        template.SetCalories(calories);
+        return template;
+    }
+}
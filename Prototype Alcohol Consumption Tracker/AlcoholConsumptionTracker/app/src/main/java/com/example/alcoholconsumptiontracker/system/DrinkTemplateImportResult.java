@@ -0,0 +1,96 @@
+/// <summary>
+///  File: DrinkTemplateImportResult.java
+///     Description: Contains the class holding the outcome of a bulk template import into
+///         a DrinkTemplateManager.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+///
+/// Drink Template Import Result Class
+///     Counts what happened to each record of an imported catalog:
+///         -Inserted: the record's name wasn't in the manager, so it was added.
+///         -Updated: the record's name was already in the manager and replaced that template.
+///         -Skipped: the record's name was already in the manager and updates weren't
+///             allowed, or the name appeared earlier in the same import.
+///         -Rejected: the record was malformed (missing fields, unreadable numbers,
+///             unknown type, or an empty name).
+///     Also holds the time the import took and whether all of the input was read.
+///
+public class DrinkTemplateImportResult {
+
+    ///
+    /// Local variables
+    ///
+    private long insertedCount;
+    private long updatedCount;
+    private long skippedCount;
+    private long rejectedCount;
+    private long elapsedNanos;
+    private boolean complete;
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with no records counted
+    DrinkTemplateImportResult(){
+        this.insertedCount = 0;
+        this.updatedCount = 0;
+        this.skippedCount = 0;
+        this.rejectedCount = 0;
+        this.elapsedNanos = 0;
+        this.complete = false;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetInsertedCount(){
+        return this.insertedCount;
+    }
+    public long GetUpdatedCount(){
+        return this.updatedCount;
+    }
+    public long GetSkippedCount(){
+        return this.skippedCount;
+    }
+    public long GetRejectedCount(){
+        return this.rejectedCount;
+    }
+    public long GetRecordCount(){
+        return this.insertedCount + this.updatedCount + this.skippedCount + this.rejectedCount;
+    }
+    public long GetElapsedNanos(){
+        return this.elapsedNanos;
+    }
+    /// <summary>
+    ///     Returns whether all of the input was read. If false, the input couldn't be read
+    ///     part way through, and only records before that point were imported.
+    /// </summary>
+    public boolean IsComplete(){
+        return this.complete;
+    }
+    /// <summary>
+    ///     Returns the number of records processed per second, or 0 if no time was recorded.
+    /// </summary>
+    public double GetRecordsPerSecond(){
+        if (this.elapsedNanos <= 0) return 0;
+        return this.GetRecordCount() * 1000000000.0 / this.elapsedNanos;
+    }
+
+    void CountInserted(){
+        this.insertedCount++;
+    }
+    void CountUpdated(){
+        this.updatedCount++;
+    }
+    void CountSkipped(){
+        this.skippedCount++;
+    }
+    void CountRejected(){
+        this.rejectedCount++;
+    }
+    void Finish(long elapsedNanos, boolean complete){
+        this.elapsedNanos = elapsedNanos;
+        this.complete = complete;
+    }
+}
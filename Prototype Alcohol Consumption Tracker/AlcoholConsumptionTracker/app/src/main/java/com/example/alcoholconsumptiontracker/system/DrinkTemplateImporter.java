@@ -0,0 +1,400 @@
+/// <summary>
+///  File: DrinkTemplateImporter.java
+///     Description: Contains the class and methods used to bulk import a catalog of templates
+///         from CSV or XML into a DrinkTemplateManager.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+import android.util.Xml;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+
+///
+/// Drink Template Importer Class
+///     Streams records from an input, normalizes their names, and applies them to a manager
+///     in batches of bounded size. Only one batch of templates and one record of text are
+///     held at a time, so the input is never held in memory. Besides the templates added to
+///     the manager, the import keeps one comparison key per distinct name.
+///     Names are compared with their case and spacing ignored. A record whose name matches
+///     a template already in the manager updates that template (keeping its existing name)
+///     if updates are allowed, and is skipped otherwise. A record whose name appeared earlier
+///     in the same import is skipped, so the first record with a name wins.
+///
+///     CSV input has one record per line with the fields:
+///         Name, Type, Servings, APV, Calories, Price, ImageFilePath (optional)
+///     Type is a type name (Beer, Wine, Cocktail, Liquor) or its number. Fields may be
+///     quoted, and quoted fields may hold commas, line breaks, and doubled quotes. A first
+///     line whose first field is "Name" is treated as a header and ignored.
+///     XML input is read the same way as a template list file. Every drinkTemplate element
+///     is a record, wherever it is in the document.
+///
+class DrinkTemplateImporter {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the default number of records applied to the manager at once.
+    static final int DefaultBatchSize = 1024;
+
+    // Represents the most characters a CSV record may hold. Longer records are rejected
+    //  and the rest of their text is discarded as it is read.
+    private static final int maxRecordLength = 16 * 1024;
+
+    // Represents the number of CSV fields with and without the optional image path, and
+    //  the first field of a header line
+    private static final int csvFieldCount = 7;
+    private static final int csvRequiredFieldCount = 6;
+    private static final String csvHeaderFirstField = "Name";
+
+    // Represents the results of reading a CSV record
+    private static final int csvEnd = 0;
+    private static final int csvRecord = 1;
+    private static final int csvTooLong = 2;
+
+    // Represents the manager imported into, and whether existing templates may be replaced.
+    private final DrinkTemplateManager manager;
+    private final boolean updateExisting;
+    private final int batchSize;
+
+    // Represents every name in the manager by its comparison key.
+    //  Key = comparison key, value = name the template is stored under.
+    private final HashMap<String, String> existingNames;
+    // Represents comparison keys of names imported so far
+    private final HashSet<String> importedKeys;
+
+    // Represents templates waiting to be applied, and whether each one updates a template.
+    private final ArrayList<DrinkTemplate> batchTemplates;
+    private final ArrayList<Boolean> batchUpdates;
+
+    // Represents the counts of the import
+    private final DrinkTemplateImportResult result;
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a manager, whether existing templates may be replaced, and the number of
+    ///     records applied at once, creates an importer into that manager.
+    /// </summary>
+    DrinkTemplateImporter(DrinkTemplateManager manager, boolean updateExisting, int batchSize){
+        this.manager = manager;
+        this.updateExisting = updateExisting;
+        this.batchSize = Math.max(1, batchSize);
+        this.existingNames = new HashMap<>();
+        for (String name : manager.GetTemplateList().keySet()){
+            this.existingNames.put(DrinkTemplateImporter.ComparisonKey(name), name);
+        }
+        this.importedKeys = new HashSet<>();
+        this.batchTemplates = new ArrayList<>(this.batchSize);
+        this.batchUpdates = new ArrayList<>(this.batchSize);
+        this.result = new DrinkTemplateImportResult();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a reader over CSV text, imports each record.
+    ///     Returns the counts of the import. If the input couldn't be read part way through,
+    ///     records before that point are imported and the result isn't complete.
+    /// </summary>
+    DrinkTemplateImportResult ImportCSV(BufferedReader input){
+
+        long startTime = System.nanoTime();
+        ArrayList<String> fields = new ArrayList<>(DrinkTemplateImporter.csvFieldCount);
+        StringBuilder fieldText = new StringBuilder();
+        boolean complete = true;
+        boolean firstRecord = true;
+        int recordState;
+
+        try{
+            while ((recordState = DrinkTemplateImporter.ReadCSVRecord(input, fields, fieldText)) != DrinkTemplateImporter.csvEnd){
+                // Skip a header and blank lines
+                if (firstRecord){
+                    firstRecord = false;
+                    if (recordState == DrinkTemplateImporter.csvRecord
+                            && fields.get(0).trim().equalsIgnoreCase(DrinkTemplateImporter.csvHeaderFirstField)){
+                        continue;
+                    }
+                }
+                if (recordState == DrinkTemplateImporter.csvRecord && fields.size() == 1 && fields.get(0).isEmpty()){
+                    continue;
+                }
+
+                if (recordState == DrinkTemplateImporter.csvRecord){
+                    this.AddRecord(DrinkTemplateImporter.TemplateFromCSVFields(fields));
+                }
+                else {
+                    this.AddRecord(null);
+                }
+            }
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ImportTemplatesErrorInputError);
+            complete = false;
+        }
+
+        this.ApplyBatch();
+        this.result.Finish(System.nanoTime() - startTime, complete);
+        return this.result;
+    }
+
+    /// <summary>
+    ///     Given a reader over XML text, imports each drinkTemplate element.
+    ///     Returns the counts of the import. If the input couldn't be read or parsed part way
+    ///     through, records before that point are imported and the result isn't complete.
+    /// </summary>
+    DrinkTemplateImportResult ImportXML(Reader input){
+
+        long startTime = System.nanoTime();
+        boolean complete = true;
+        XmlPullParser parser;
+        int eventType;
+
+        try{
+            parser = Xml.newPullParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+            parser.setInput(input);
+
+            eventType = parser.next();
+            while (eventType != XmlPullParser.END_DOCUMENT){
+                if (eventType == XmlPullParser.START_TAG
+                        && Universals.XMLTags.DrinkTemplateTags.Header.equals(parser.getName())){
+                    this.AddRecord(DrinkTemplateManager.ReadTemplateElement(parser));
+                }
+                eventType = parser.next();
+            }
+        }
+        catch (XmlPullParserException | IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ImportTemplatesErrorInputError);
+            complete = false;
+        }
+
+        this.ApplyBatch();
+        this.result.Finish(System.nanoTime() - startTime, complete);
+        return this.result;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Given a parsed template (null if the record was malformed), normalizes its name,
+    //  decides whether it inserts, updates, or is skipped, and adds it to the batch.
+    private void AddRecord(DrinkTemplate template){
+
+        if (template == null){
+            this.result.CountRejected();
+            return;
+        }
+        String name = DrinkTemplateImporter.NormalizeName(template.GetName());
+        short type = template.GetType().GetValue();
+        if (name.isEmpty() || type < 0 || type >= DrinkType.DrinkTypeNames().length){
+            this.result.CountRejected();
+            return;
+        }
+
+        // First record with a name wins
+        String key = DrinkTemplateImporter.ComparisonKey(name);
+        if (!this.importedKeys.add(key)){
+            this.result.CountSkipped();
+            return;
+        }
+
+        // Insert new names. Existing names update the stored template under its stored name.
+        String existingName = this.existingNames.get(key);
+        if (existingName == null){
+            template.SetName(name);
+            this.existingNames.put(key, name);
+            this.batchTemplates.add(template);
+            this.batchUpdates.add(false);
+        }
+        else if (this.updateExisting){
+            template.SetName(existingName);
+            this.batchTemplates.add(template);
+            this.batchUpdates.add(true);
+        }
+        else {
+            this.result.CountSkipped();
+            return;
+        }
+
+        if (this.batchTemplates.size() >= this.batchSize) this.ApplyBatch();
+    }
+
+    // Puts or modifies every template in the batch, then empties it. If the manager is
+    //  journaled, the journal is flushed once per batch rather than once per template.
+    private void ApplyBatch(){
+
+        for (int i = 0; i < this.batchTemplates.size(); i++){
+            if (this.batchUpdates.get(i)){
+                if (this.manager.ModifyTemplate(this.batchTemplates.get(i))) this.result.CountUpdated();
+                else this.result.CountRejected();
+            }
+            else {
+                if (this.manager.PutTemplate(this.batchTemplates.get(i))) this.result.CountInserted();
+                else this.result.CountRejected();
+            }
+        }
+        if (!this.batchTemplates.isEmpty() && this.manager.GetJournal() != null){
+            this.manager.GetJournal().Flush();
+        }
+        this.batchTemplates.clear();
+        this.batchUpdates.clear();
+    }
+
+    /// <summary>
+    ///     Given a name, trims it, replaces each run of whitespace with a single space, and
+    ///     composes its Unicode characters (so an accented letter typed two ways matches).
+    /// </summary>
+    static String NormalizeName(String name){
+        if (name == null) return Universals.General.EmptyString();
+        String composed = Normalizer.normalize(name, Normalizer.Form.NFC);
+        StringBuilder normalized = new StringBuilder(composed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < composed.length(); i++){
+            char c = composed.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)){
+                pendingSpace = normalized.length() > 0;
+            }
+            else {
+                if (pendingSpace) normalized.append(' ');
+                pendingSpace = false;
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    // Given a normalized name, returns the key names are compared by
+    private static String ComparisonKey(String name){
+        return DrinkTemplateImporter.NormalizeName(name).toLowerCase(Locale.ROOT);
+    }
+
+    // Given the fields of a CSV record, returns the template they represent, or null if
+    //  they don't represent one.
+    private static DrinkTemplate TemplateFromCSVFields(ArrayList<String> fields){
+
+        if (fields.size() != DrinkTemplateImporter.csvFieldCount
+                && fields.size() != DrinkTemplateImporter.csvRequiredFieldCount) return null;
+
+        DrinkTemplate template = new DrinkTemplate();
+        try{
+            template.SetName(fields.get(0));
+            short type = DrinkTemplateImporter.ParseType(fields.get(1).trim());
+            if (type < 0) return null;
+            template.SetType(type);
+            template.SetServings(Short.parseShort(fields.get(2).trim()));
+            template.SetAPV(Float.parseFloat(fields.get(3).trim()));
+            template.SetCalories(Float.parseFloat(fields.get(4).trim()));
+            template.SetPrice(Float.parseFloat(fields.get(5).trim()));
+        }
+        catch (NumberFormatException e){
+            return null;
+        }
+        if (fields.size() == DrinkTemplateImporter.csvFieldCount){
+            template.SetImageFilePath(fields.get(6).trim());
+        }
+        return template;
+    }
+
+    // Given a type name (any case) or number, returns the type's value, or -1 if unknown.
+    private static short ParseType(String text){
+        String[] typeNames = DrinkType.DrinkTypeNames();
+        for (int i = 0; i < typeNames.length; i++){
+            if (typeNames[i].equalsIgnoreCase(text)) return (short)i;
+        }
+        try{
+            short type = Short.parseShort(text);
+            if (type >= 0 && type < typeNames.length) return type;
+        }
+        catch (NumberFormatException ignored){
+        }
+        return -1;
+    }
+
+    /// <summary>
+    ///     Given a reader, a list to fill with fields, and a builder to collect field text in,
+    ///     reads one CSV record.
+    ///     Returns csvRecord if a record was read, csvTooLong if the record was longer than
+    ///     the record limit (its text is discarded), or csvEnd if the input has ended.
+    /// </summary>
+    private static int ReadCSVRecord(BufferedReader input, ArrayList<String> fields, StringBuilder fieldText) throws IOException {
+
+        fields.clear();
+        fieldText.setLength(0);
+        boolean quoted = false;
+        boolean anyText = false;
+        int recordLength = 0;
+        int c;
+
+        while ((c = input.read()) != -1){
+            anyText = true;
+            recordLength++;
+
+            if (quoted){
+                if (c == '"'){
+                    // A doubled quote is a quote character. Otherwise the quoted part ends.
+                    input.mark(1);
+                    int next = input.read();
+                    if (next == '"'){
+                        fieldText.append('"');
+                        recordLength++;
+                    }
+                    else {
+                        quoted = false;
+                        if (next != -1) input.reset();
+                    }
+                }
+                else fieldText.append((char)c);
+            }
+            else if (c == '"') quoted = true;
+            else if (c == ','){
+                fields.add(fieldText.toString());
+                fieldText.setLength(0);
+            }
+            else if (c == '\n' || c == '\r'){
+                // Treat \r\n as one line break
+                if (c == '\r'){
+                    input.mark(1);
+                    if (input.read() != '\n') input.reset();
+                }
+                break;
+            }
+            else fieldText.append((char)c);
+
+            // Discard the rest of a record that is too long
+            if (recordLength > DrinkTemplateImporter.maxRecordLength){
+                DrinkTemplateImporter.SkipCSVRecord(input, quoted);
+                fields.clear();
+                fieldText.setLength(0);
+                return DrinkTemplateImporter.csvTooLong;
+            }
+        }
+
+        if (!anyText) return DrinkTemplateImporter.csvEnd;
+        fields.add(fieldText.toString());
+        return DrinkTemplateImporter.csvRecord;
+    }
+
+    // Reads and discards the rest of a CSV record
+    private static void SkipCSVRecord(Reader input, boolean quoted) throws IOException {
+        int c;
+        while ((c = input.read()) != -1){
+            if (c == '"') quoted = !quoted;
+            else if (!quoted && (c == '\n' || c == '\r')) return;
+        }
+    }
+}
@@ -0,0 +1,782 @@
+/// <summary>
+///  File: DrinkTemplateIndexes.java
+///     Description: Contains the class and methods of the indexes a DrinkTemplateManager
+///         answers FindByPrefix, SearchTemplates, and FindInRange from.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+///
+/// Drink Template Indexes Class
+///     Holds a manager's prefix index of names, trigram index of names and types, and
+///     sorted index of each attribute. Each is built from the templates the first time a
+///     query needs it, then kept up to date by the manager syncing every changed name into
+///     it. All are dropped when every template is replaced at once, and rebuilt when next
+///     queried.
+///     An index is published empty before templates are added to it, so a change made while
+///     it's built is either seen by the build or synced into the index afterward.
+///     The manager's template map can be replaced, so every method is given the current one.
+///     Safe to use from several threads at once.
+///
+final class DrinkTemplateIndexes {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the index of template names by prefix, or null until FindByPrefix first
+    //  needs it.
+    private volatile TemplateNameTrie prefixIndex;
+    private final Object prefixIndexLock = new Object();
+
+    // Represents the trigram index of template names and types, or null until Search
+    //  first needs it.
+    private volatile TemplateTrigramIndex searchIndex;
+    private final Object searchIndexLock = new Object();
+
+    // Represents the sorted index of templates for each attribute, by the attribute's
+    //  ordinal. An entry is null until FindInRange first needs it.
+    private final AtomicReferenceArray<TemplateAttributeIndex> attributeIndexes =
+            new AtomicReferenceArray<>(DrinkTemplateManager.TemplateAttribute.values().length);
+    private final Object attributeIndexLock = new Object();
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given the templates, the start of a template name, and the most templates wanted,
+    ///     returns up to that many templates whose names start with it, as described by
+    ///     DrinkTemplateManager.FindByPrefix.
+    /// </summary>
+    List<DrinkTemplate> FindByPrefix(Map<String, DrinkTemplate> templates, String prefix, int limit){
+
+        ArrayList<DrinkTemplate> results = new ArrayList<>();
+        if (prefix == null || limit <= 0) return results;
+
+        // A template may be removed between finding its name and getting it. Skip it.
+        for (String name : this.GetPrefixIndex(templates).FindByPrefix(prefix, limit)){
+            DrinkTemplate template = templates.get(name);
+            if (template != null) results.add(template);
+        }
+        return results;
+    }
+
+    /// <summary>
+    ///  Given the templates, a query, and the most templates wanted, returns up to that many
+    ///     templates best matching the query, as described by
+    ///     DrinkTemplateManager.SearchTemplates.
+    /// </summary>
+    List<DrinkTemplate> Search(Map<String, DrinkTemplate> templates, String query, int limit){
+
+        ArrayList<DrinkTemplate> results = new ArrayList<>();
+        if (query == null || limit <= 0) return results;
+
+        // A template may be removed between finding its name and getting it. Skip it.
+        for (String name : this.GetSearchIndex(templates).Search(query, limit)){
+            DrinkTemplate template = templates.get(name);
+            if (template != null) results.add(template);
+        }
+        return results;
+    }
+
+    /// <summary>
+    ///  Given the templates, an attribute, a drink type value, the lowest and highest values
+    ///     wanted, and the order, returns an iterator over the templates in the range, as
+    ///     described by DrinkTemplateManager.FindInRange.
+    /// </summary>
+    Iterator<DrinkTemplate> FindInRange(final Map<String, DrinkTemplate> templates, DrinkTemplateManager.TemplateAttribute attribute, short drinkType, float minimum, float maximum, boolean descending){
+
+        if (attribute == null) return Collections.<DrinkTemplate>emptyIterator();
+        final Iterator<String> names = this.GetAttributeIndex(templates, attribute).FindRange(drinkType, minimum, maximum, descending);
+
+        // Looks one template ahead so removed templates can be skipped
+        return new Iterator<DrinkTemplate>() {
+            private DrinkTemplate nextTemplate = null;
+
+            @Override
+            public boolean hasNext() {
+                while (this.nextTemplate == null && names.hasNext()){
+                    this.nextTemplate = templates.get(names.next());
+                }
+                return this.nextTemplate != null;
+            }
+            @Override
+            public DrinkTemplate next() {
+                if (!this.hasNext()) throw new NoSuchElementException();
+                DrinkTemplate template = this.nextTemplate;
+                this.nextTemplate = null;
+                return template;
+            }
+        };
+    }
+
+    /// <summary>
+    ///     Given a template name that was just put or removed, and the templates, updates
+    ///     every index that has been built to match the templates.
+    /// </summary>
+    void Sync(String templateKey, Map<String, DrinkTemplate> templates){
+        TemplateNameTrie currentPrefixIndex = this.prefixIndex;
+        if (currentPrefixIndex != null) currentPrefixIndex.Sync(templateKey, templates);
+        this.SyncModified(templateKey, templates);
+    }
+
+    /// <summary>
+    ///     Given a template name that was just modified, and the templates, updates every
+    ///     index that has been built to match the templates. The prefix index only holds
+    ///     names, so it's left as it is.
+    /// </summary>
+    void SyncModified(String templateKey, Map<String, DrinkTemplate> templates){
+        TemplateTrigramIndex currentSearchIndex = this.searchIndex;
+        if (currentSearchIndex != null) currentSearchIndex.Sync(templateKey, templates);
+        for (int i = 0; i < this.attributeIndexes.length(); i++){
+            TemplateAttributeIndex currentIndex = this.attributeIndexes.get(i);
+            if (currentIndex != null) currentIndex.Sync(templateKey, templates);
+        }
+    }
+
+    /// <summary>
+    ///     Drops every index. Each is rebuilt when next queried. Called when every template
+    ///     is replaced at once.
+    /// </summary>
+    void DropAll(){
+        this.prefixIndex = null;
+        this.searchIndex = null;
+        for (int i = 0; i < this.attributeIndexes.length(); i++){
+            this.attributeIndexes.set(i, null);
+        }
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns the prefix index, building it from the template names if there isn't one
+    private TemplateNameTrie GetPrefixIndex(Map<String, DrinkTemplate> templates){
+        TemplateNameTrie currentIndex = this.prefixIndex;
+        if (currentIndex != null) return currentIndex;
+        synchronized (this.prefixIndexLock){
+            currentIndex = this.prefixIndex;
+            if (currentIndex != null) return currentIndex;
+            currentIndex = new TemplateNameTrie();
+            synchronized (currentIndex){
+                this.prefixIndex = currentIndex;
+                for (String name : templates.keySet()){
+                    currentIndex.Sync(name, templates);
+                }
+            }
+            return currentIndex;
+        }
+    }
+
+    // Returns the search index, building it from the templates if there isn't one
+    private TemplateTrigramIndex GetSearchIndex(Map<String, DrinkTemplate> templates){
+        TemplateTrigramIndex currentIndex = this.searchIndex;
+        if (currentIndex != null) return currentIndex;
+        synchronized (this.searchIndexLock){
+            currentIndex = this.searchIndex;
+            if (currentIndex != null) return currentIndex;
+            currentIndex = new TemplateTrigramIndex();
+            synchronized (currentIndex){
+                this.searchIndex = currentIndex;
+                for (String name : templates.keySet()){
+                    currentIndex.Sync(name, templates);
+                }
+            }
+            return currentIndex;
+        }
+    }
+
+    // Returns an attribute's index, building it from the templates if there isn't one.
+    //  Queries wait for the build to finish.
+    private TemplateAttributeIndex GetAttributeIndex(Map<String, DrinkTemplate> templates, DrinkTemplateManager.TemplateAttribute attribute){
+        TemplateAttributeIndex currentIndex = this.attributeIndexes.get(attribute.ordinal());
+        if (currentIndex != null) return currentIndex;
+        synchronized (this.attributeIndexLock){
+            currentIndex = this.attributeIndexes.get(attribute.ordinal());
+            if (currentIndex != null) return currentIndex;
+            currentIndex = new TemplateAttributeIndex(attribute);
+            synchronized (currentIndex){
+                this.attributeIndexes.set(attribute.ordinal(), currentIndex);
+                currentIndex.Build(templates);
+            }
+            return currentIndex;
+        }
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    /// <summary>
+    ///  Tests FindByPrefix. Results are checked against a scan of every template name.
+    /// </summary>
+    public static void TestFindByPrefix(boolean printAllMessages){
+
+        // Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        List<DrinkTemplate> results;
+        Random random = new Random(12);
+        String[] names = new String[]{"Lager", "Light Lager", "lime Soda", "Limoncello", "LIME soda", "Ale", "IPA"};
+        String alphabet = "abcL ";
+        ArrayList<String> expected = new ArrayList<>();
+        boolean matched;
+
+        for (String name : names){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(name);
+            testManager.PutTemplate(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, matches ignore case, come in order, and stop at the limit
+        results = testManager.FindByPrefix("li", 10);
+        matched = results.size() == 4
+                && results.get(0).GetName().equals("Light Lager")
+                && results.get(1).GetName().equals("LIME soda")
+                && results.get(2).GetName().equals("lime Soda")
+                && results.get(3).GetName().equals("Limoncello");
+        results = testManager.FindByPrefix("L", 2);
+        if (matched
+                && results.size() == 2
+                && results.get(0).GetName().equals("Lager")
+                && results.get(1).GetName().equals("Light Lager")
+                && testManager.FindByPrefix("", 100).size() == names.length){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, the index follows puts, removes, and clears
+        testManager.RemoveTemplate("LIME soda");
+        testManager.RemoveTemplate("Limoncello");
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Limeade");
+        testManager.PutTemplate(testTemplate);
+        results = testManager.FindByPrefix("lim", 10);
+        matched = results.size() == 2
+                && results.get(0).GetName().equals("lime Soda")
+                && results.get(1).GetName().equals("Limeade");
+        testManager.ClearTemplates();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Lambic");
+        testManager.PutTemplate(testTemplate);
+        results = testManager.FindByPrefix("l", 10);
+        if (matched
+                && results.size() == 1
+                && results.get(0).GetName().equals("Lambic")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, random names and removes. Every prefix matches a scan of the names
+        testManager = new DrinkTemplateManager();
+        testManager.FindByPrefix("", 1);
+        for (int i = 0; i < 3000; i++){
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) name.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(name.toString());
+            if (random.nextInt(4) == 0) testManager.RemoveTemplate(name.toString());
+            else testManager.PutTemplate(testTemplate);
+        }
+        matched = true;
+        for (int i = 0; i < 200 && matched; i++){
+            StringBuilder prefix = new StringBuilder();
+            int length = random.nextInt(4);
+            for (int j = 0; j < length; j++) prefix.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String foldedPrefix = prefix.toString().toLowerCase(Locale.ROOT);
+            expected.clear();
+            for (String name : testManager.GetTemplateList().keySet()){
+                if (name.toLowerCase(Locale.ROOT).startsWith(foldedPrefix)) expected.add(name);
+            }
+            Collections.sort(expected, new Comparator<String>() {
+                @Override
+                public int compare(String first, String second) {
+                    int result = first.toLowerCase(Locale.ROOT).compareTo(second.toLowerCase(Locale.ROOT));
+                    return result != 0 ? result : first.compareTo(second);
+                }
+            });
+            results = testManager.FindByPrefix(prefix.toString(), 25);
+            if (results.size() != Math.min(25, expected.size())) matched = false;
+            for (int j = 0; j < results.size() && matched; j++){
+                if (!results.get(j).GetName().equals(expected.get(j))) matched = false;
+            }
+        }
+        if (matched){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(false, 3)
+            );
+        }
+
+        // Exception cases
+        //  -Case 4, null prefix, no limit, and no matches. Expect empty results
+        if (testManager.FindByPrefix(null, 10).isEmpty()
+                && testManager.FindByPrefix("a", 0).isEmpty()
+                && testManager.FindByPrefix("zzz", 10).isEmpty()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindByPrefixMessage(false, 4)
+            );
+        }
+    }
+
+    /// <summary>
+    ///  Tests SearchTemplates with misspelled names, drink types, and changing templates.
+    /// </summary>
+    public static void TestSearchTemplates(boolean printAllMessages){
+
+        // Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        List<DrinkTemplate> results;
+        String[] names = new String[]{"Stella Artois", "Stella Rosa", "Artisan Ale", "Corona Extra", "Merlot Reserve", "Old Fashioned"};
+        short[] types = new short[]{0, 1, 0, 0, 1, 2};
+        Random random = new Random(13);
+
+        for (int i = 0; i < names.length; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(names[i]);
+            testTemplate.SetType(types[i]);
+            testManager.PutTemplate(testTemplate);
+        }
+        for (int i = 0; i < 2000; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(DrinkTemplateIndexes.GenerateVendorName(random));
+            testManager.PutTemplate(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, misspelled and reordered letters find the intended template first
+        results = testManager.SearchTemplates("stela artios", 5);
+        boolean matched = !results.isEmpty() && results.get(0).GetName().equals("Stella Artois");
+        results = testManager.SearchTemplates("corona extar", 5);
+        matched = matched && !results.isEmpty() && results.get(0).GetName().equals("Corona Extra");
+        results = testManager.SearchTemplates("old fashoned", 5);
+        if (matched && !results.isEmpty() && results.get(0).GetName().equals("Old Fashioned")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, drink types are searched along with names
+        results = testManager.SearchTemplates("merlot wine", 3);
+        matched = !results.isEmpty() && results.get(0).GetName().equals("Merlot Reserve");
+        results = testManager.SearchTemplates("stella wine", 3);
+        if (matched && !results.isEmpty() && results.get(0).GetName().equals("Stella Rosa")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, the index follows modifies, removes, puts, and clears
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Stella Artois");
+        testTemplate.SetType((short)1);
+        testManager.ModifyTemplate(testTemplate);
+        results = testManager.SearchTemplates("stella wine", 3);
+        matched = results.size() >= 2
+                && (results.get(0).GetName().equals("Stella Artois") || results.get(1).GetName().equals("Stella Artois"));
+        testManager.RemoveTemplate("Corona Extra");
+        results = testManager.SearchTemplates("corona extra", 5);
+        for (DrinkTemplate result : results){
+            if (result.GetName().equals("Corona Extra")) matched = false;
+        }
+        testManager.ClearTemplates();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Modelo Especial");
+        testManager.PutTemplate(testTemplate);
+        results = testManager.SearchTemplates("modelo", 5);
+        if (matched
+                && results.size() == 1
+                && results.get(0).GetName().equals("Modelo Especial")
+                && testManager.SearchTemplates("stella", 5).isEmpty()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(false, 3)
+            );
+        }
+
+        // Exception cases
+        //  -Case 4, null query, a query without letters or digits, and no limit. Expect empty results
+        if (testManager.SearchTemplates(null, 5).isEmpty()
+                && testManager.SearchTemplates(" !? ", 5).isEmpty()
+                && testManager.SearchTemplates("modelo", 0).isEmpty()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SearchTemplatesMessage(false, 4)
+            );
+        }
+    }
+
+    /// <summary>
+    ///  Tests FindInRange over each attribute, drink types, bounds, and changing templates.
+    /// </summary>
+    public static void TestFindInRange(boolean printAllMessages){
+
+        // Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        Iterator<DrinkTemplate> results;
+        Random random = new Random(14);
+        short beer = DrinkType.DrinkTypeFromString("Beer");
+        short cocktail = DrinkType.DrinkTypeFromString("Cocktail");
+        String[] names = new String[]{"Mojito", "Margarita", "Negroni", "Lager", "Stout", "Daiquiri"};
+        short[] types = new short[]{cocktail, cocktail, cocktail, beer, beer, cocktail};
+        float[] prices = new float[]{7.5f, 9f, 8f, 5f, 6f, 7.5f};
+        float[] calories = new float[]{240f, 275f, 200f, 150f, 210f, 190f};
+        ArrayList<String> found = new ArrayList<>();
+        ArrayList<DrinkTemplate> expected = new ArrayList<>();
+        boolean matched;
+
+        for (int i = 0; i < names.length; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(names[i]);
+            testTemplate.SetType(types[i]);
+            testTemplate.SetPrice(prices[i]);
+            testTemplate.SetCalories(calories[i]);
+            testManager.PutTemplate(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, cocktails under $8 by calories, and every type by price with bounds
+        //      included and ties ordered by name
+        results = testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.CALORIES, cocktail, 0, Float.MAX_VALUE, false);
+        while (results.hasNext()){
+            testTemplate = results.next();
+            if (testTemplate.GetPrice() < 8) found.add(testTemplate.GetName());
+        }
+        matched = found.equals(Arrays.asList("Daiquiri", "Mojito"));
+        found.clear();
+        results = testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.PRICE, (short)-1, 6f, 8f, false);
+        while (results.hasNext()) found.add(results.next().GetName());
+        if (matched && found.equals(Arrays.asList("Stout", "Daiquiri", "Mojito", "Negroni"))){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, descending order, and the index follows modifies, removes, and clears
+        found.clear();
+        results = testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.CALORIES, beer, 0, 1000, true);
+        while (results.hasNext()) found.add(results.next().GetName());
+        matched = found.equals(Arrays.asList("Stout", "Lager"));
+        testTemplate = testManager.GetTemplate("Lager");
+        testTemplate.SetType(cocktail);
+        testTemplate.SetPrice(12f);
+        testManager.ModifyTemplate(testTemplate);
+        testManager.RemoveTemplate("Negroni");
+        found.clear();
+        results = testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.PRICE, cocktail, 7.5f, 100f, true);
+        while (results.hasNext()) found.add(results.next().GetName());
+        matched = matched
+                && found.equals(Arrays.asList("Lager", "Margarita", "Mojito", "Daiquiri"))
+                && !testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.PRICE, beer, 4f, 5.5f, false).hasNext();
+        testManager.ClearTemplates();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Sour");
+        testTemplate.SetType(cocktail);
+        testTemplate.SetAPV(12f);
+        testManager.PutTemplate(testTemplate);
+        results = testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.APV, (short)-1, 0, 100, false);
+        if (matched
+                && results.hasNext()
+                && results.next().GetName().equals("Sour")
+                && !results.hasNext()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, random templates and changes. Every range matches a scan of the templates
+        testManager = new DrinkTemplateManager();
+        for (DrinkTemplateManager.TemplateAttribute attribute : DrinkTemplateManager.TemplateAttribute.values()){
+            testManager.FindInRange(attribute, (short)-1, 0, 0, false);
+        }
+        for (int i = 0; i < 3000; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("Template " + random.nextInt(800));
+            testTemplate.SetType((short)random.nextInt(4));
+            testTemplate.SetPrice(random.nextInt(40) / 2f);
+            testTemplate.SetCalories(random.nextInt(300));
+            testTemplate.SetAPV(random.nextInt(50));
+            switch (random.nextInt(3)){
+                case 0:
+                    testManager.PutTemplate(testTemplate);
+                    break;
+                case 1:
+                    testManager.ModifyTemplate(testTemplate);
+                    break;
+                default:
+                    testManager.RemoveTemplate(testTemplate.GetName());
+            }
+        }
+        matched = true;
+        for (int i = 0; i < 300 && matched; i++){
+            final DrinkTemplateManager.TemplateAttribute attribute = DrinkTemplateManager.TemplateAttribute.values()[random.nextInt(3)];
+            short type = (short)(random.nextInt(5) - 1);
+            float minimum = random.nextInt(30);
+            float maximum = minimum + random.nextInt(150);
+            boolean descending = random.nextBoolean();
+            expected.clear();
+            for (DrinkTemplate template : testManager.GetTemplateList().values()){
+                float value = TemplateAttributeIndex.ValueOf(template, attribute);
+                if ((type < 0 || template.GetType().GetValue() == type) && value >= minimum && value <= maximum){
+                    expected.add(template);
+                }
+            }
+            Collections.sort(expected, new Comparator<DrinkTemplate>() {
+                @Override
+                public int compare(DrinkTemplate first, DrinkTemplate second) {
+                    int result = Float.compare(
+                            TemplateAttributeIndex.ValueOf(first, attribute),
+                            TemplateAttributeIndex.ValueOf(second, attribute)
+                    );
+                    return result != 0 ? result : first.GetName().compareTo(second.GetName());
+                }
+            });
+            if (descending) Collections.reverse(expected);
+            results = testManager.FindInRange(attribute, type, minimum, maximum, descending);
+            for (int j = 0; j < expected.size() && matched; j++){
+                if (!results.hasNext() || results.next() != expected.get(j)) matched = false;
+            }
+            if (results.hasNext()) matched = false;
+        }
+        if (matched){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(false, 3)
+            );
+        }
+
+        // Exception cases
+        //  -Case 4, null attribute, minimum above maximum, an unused type, and reading past
+        //      the end. Expect empty iterators, and NoSuchElementException past the end
+        results = testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.PRICE, (short)2, 5, 5, false);
+        while (results.hasNext()) results.next();
+        try {
+            results.next();
+            matched = false;
+        }
+        catch (NoSuchElementException e){
+            matched = true;
+        }
+        if (matched
+                && !testManager.FindInRange(null, (short)-1, 0, 100, false).hasNext()
+                && !testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.APV, (short)-1, 10, 5, false).hasNext()
+                && !testManager.FindInRange(DrinkTemplateManager.TemplateAttribute.APV, (short)50, 0, 100, false).hasNext()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.FindInRangeMessage(false, 4)
+            );
+        }
+    }
+
+    ///
+    /// Benchmark Methods
+    ///
+    /// <summary>
+    ///  Each benchmark method is self contained and measures the method it is named after
+    ///     against a generated workload. Results are printed to LogCat using the Log.d method.
+    /// </summary>
+    ///
+    // Benchmark building the search index over a vendor-sized catalog, the memory it uses,
+    //  and the latency of misspelled queries
+    public static void BenchmarkSearchTemplates(int templateCount, int queryCount){
+
+        // Locals
+        DrinkTemplateManager benchmarkManager = new DrinkTemplateManager();
+        DrinkTemplate benchmarkTemplate;
+        Random random = new Random(templateCount);
+        String[] queries = new String[queryCount];
+        long startHeap;
+        long startTime;
+        long elapsedTime;
+        int foundCount = 0;
+
+        for (int i = 0; i < templateCount; i++){
+            benchmarkTemplate = new DrinkTemplate();
+            benchmarkTemplate.SetName(DrinkTemplateIndexes.GenerateVendorName(random) + " " + i);
+            benchmarkTemplate.SetType((short)(i % DrinkType.DrinkTypeNames().length));
+            benchmarkManager.PutTemplate(benchmarkTemplate);
+        }
+
+        // Queries are existing names with two letters swapped and the number dropped
+        String[] existingNames = benchmarkManager.GetTemplateList().keySet().toArray(new String[0]);
+        for (int i = 0; i < queryCount; i++){
+            String name = existingNames[random.nextInt(existingNames.length)];
+            char[] letters = name.substring(0, name.lastIndexOf(' ')).toCharArray();
+            int swap = 1 + random.nextInt(letters.length - 2);
+            char held = letters[swap];
+            letters[swap] = letters[swap + 1];
+            letters[swap + 1] = held;
+            queries[i] = new String(letters);
+        }
+
+        // Build the index with the first query
+        startHeap = Benchmark.UsedHeapBytes();
+        startTime = System.nanoTime();
+        benchmarkManager.SearchTemplates(queries[0], 10);
+        elapsedTime = System.nanoTime() - startTime;
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.BuildSearchIndexCase,
+                        templateCount,
+                        elapsedTime,
+                        Benchmark.UsedHeapBytes() - startHeap
+                )
+        );
+
+        // Run every query
+        startTime = System.nanoTime();
+        for (String query : queries){
+            if (!benchmarkManager.SearchTemplates(query, 10).isEmpty()) foundCount++;
+        }
+        elapsedTime = System.nanoTime() - startTime;
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.LatencyMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.SearchTemplatesCase,
+                        foundCount,
+                        elapsedTime / queryCount
+                )
+        );
+    }
+
+    /// <summary>
+    ///  Given a random generator, returns a made-up brand and drink name built from
+    ///     syllables, such as "Kovaro Lagersta". Used to fill catalogs with varied names.
+    /// </summary>
+    private static String GenerateVendorName(Random random){
+        String[] syllables = new String[]{
+                "ka", "lo", "ve", "ri", "sta", "mor", "bel", "tra", "no", "zi",
+                "qua", "der", "fin", "gal", "hop", "ex", "por", "lu", "san", "vin"
+        };
+        String[] styles = new String[]{"Lager", "Pilsner", "Stout", "Porter", "Reserve", "Rosso", "Blanc", "Spritz", "Mule", "Sour"};
+        StringBuilder name = new StringBuilder();
+        int syllableCount = 2 + random.nextInt(3);
+        for (int i = 0; i < syllableCount; i++) name.append(syllables[random.nextInt(syllables.length)]);
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        name.append(' ').append(styles[random.nextInt(styles.length)]);
+        return name.toString();
+    }
+}
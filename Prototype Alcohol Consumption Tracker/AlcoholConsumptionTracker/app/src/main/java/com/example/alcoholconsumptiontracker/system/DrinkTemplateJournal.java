@@ -0,0 +1,817 @@
+/// <summary>
+///  File: DrinkTemplateJournal.java
+///     Description: Contains the class and methods of the append-only journal of template
+///         mutations. The journal lets a DrinkTemplateManager persist each put, modify, and
+///         remove as a small record instead of rewriting its whole template list file.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+///
+/// Drink Template Journal Class
+///     Records template mutations next to a binary template list file (the snapshot).
+///     The journal is stored as numbered segment files named
+///         <fileName>.journal.<segment number>
+///     Each segment begins with the journal magic number and version, followed by records:
+///         -Operation (byte): put, modify, remove, or clear
+///         -Put and modify: the template as a binary template record
+///         -Remove: the template's name as a length-prefixed UTF-8 string
+///         -Clear: nothing further
+///         -Checksum (int): the CRC-32C of the record's operation and contents
+///     Replay stops at the first record that fails its checksum, so a corrupt record is
+///     never applied. Segments written before checksums were added are replayed without them.
+///     A new segment is started each time the journal is opened and each time it is compacted.
+///     Compaction replays the segments it covers onto the snapshot in the background, writes
+///     the result as a fresh snapshot, then deletes those segments. Replaying a segment on
+///     top of a snapshot that already covers it gives the same result, so a crash at any
+///     point during compaction loses nothing.
+///     If storage is encrypted, segments are encrypted. A chunk of an encrypted file can't
+///     be written again once it's on disk, so each flush finishes the active segment and
+///     starts a new one, and compaction keeps the number of segments down.
+///     Appending, flushing, and compacting are synchronized so the journal can be flushed
+///     from a background thread while records are appended.
+///
+public class DrinkTemplateJournal {
+
+    ///
+    /// Local variables
+    ///
+    // Operation codes of journal records
+    static final byte PutOperation = 1;
+    static final byte ModifyOperation = 2;
+    static final byte RemoveOperation = 3;
+    static final byte ClearOperation = 4;
+
+    // Represents the default number of journal bytes after which the journal is compacted.
+    public static final long DefaultCompactionThreshold = 512 * 1024;
+    // Represents the number of segments after which the journal is compacted regardless of size.
+    private static final int maxSegmentCount = 16;
+
+    // Represents the directory and file name (without extension) of the snapshot the journal belongs to.
+    private final File directory;
+    private final String fileName;
+    // Represents the number of journal bytes after which the journal is compacted.
+    private final long compactionThreshold;
+
+    // Represents the segment currently appended to and its streams. The storage stream
+    //  encrypts the segment if storage is encrypted, and is the file stream otherwise.
+    private int activeSegmentNumber;
+    private FileOutputStream activeSegmentFileStream;
+    private OutputStream activeSegmentStorageStream;
+    private DataOutputStream activeSegmentStream;
+    private final Crc32c activeSegmentChecksum;
+
+    // Represents the total size in bytes and number of segments on disk
+    private long journalByteCount;
+    private int segmentCount;
+
+    // Represents the bytes appended since the last flush, and the cost of the last flush.
+    private long unflushedByteCount;
+    private long lastFlushByteCount;
+    private long lastFlushElapsedNanos;
+
+    // Represents the background thread snapshots are written on, and whether one is being written.
+    private final ExecutorService compactionExecutor;
+    private final AtomicBoolean compactionRunning;
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given the directory and file name (without extension) of a binary template list file,
+    ///     creates a journal for that file using the default compaction threshold.
+    ///     The journal must be replayed and opened before it is attached to a manager.
+    /// </summary>
+    public DrinkTemplateJournal(File directory, String fileName){
+        this(directory, fileName, DrinkTemplateJournal.DefaultCompactionThreshold);
+    }
+    // Construct with a compaction threshold in bytes
+    public DrinkTemplateJournal(File directory, String fileName, long compactionThreshold){
+        this.directory = directory;
+        this.fileName = fileName;
+        this.compactionThreshold = compactionThreshold;
+        this.activeSegmentNumber = 0;
+        this.activeSegmentChecksum = new Crc32c();
+        this.compactionExecutor = Executors.newSingleThreadExecutor();
+        this.compactionRunning = new AtomicBoolean(false);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetJournalByteCount(){
+        return this.journalByteCount;
+    }
+    public long GetLastFlushByteCount(){
+        return this.lastFlushByteCount;
+    }
+    public long GetLastFlushElapsedNanos(){
+        return this.lastFlushElapsedNanos;
+    }
+    public boolean IsOpen(){
+        return this.activeSegmentStream != null;
+    }
+    public boolean IsCompacting(){
+        return this.compactionRunning.get();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a template manager holding the contents of the snapshot, applies every record
+    ///     in the journal's segments to it in order. Put and modify records replace or add the
+    ///     template, remove records remove it, and clear records remove every template.
+    ///     A segment that ends part way through a record (a write interrupted by the app
+    ///     closing) is read up to its last whole record.
+    ///     Must be called before the journal is attached to the manager.
+    ///     Returns true if every segment was read.
+    ///     Returns false otherwise.
+    /// </summary>
+    public boolean Replay(DrinkTemplateManager manager){
+
+        boolean result = true;
+
+        for (int segmentNumber : this.ListSegmentNumbers()){
+            if (!this.ReplaySegment(this.SegmentFile(segmentNumber), manager)) result = false;
+        }
+        return result;
+    }
+
+    /// <summary>
+    ///     Opens the journal for appending by starting a new segment after any existing ones.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    public synchronized boolean Open(){
+
+        int[] segmentNumbers = this.ListSegmentNumbers();
+
+        // Count the journal already on disk
+        this.journalByteCount = 0;
+        for (int segmentNumber : segmentNumbers){
+            this.journalByteCount += this.SegmentFile(segmentNumber).length();
+        }
+        this.segmentCount = segmentNumbers.length;
+
+        // Start a new segment after the last existing one
+        if (segmentNumbers.length > 0){
+            this.activeSegmentNumber = segmentNumbers[segmentNumbers.length - 1] + 1;
+        }
+        return this.StartSegment(this.activeSegmentNumber);
+    }
+
+    /// <summary>
+    ///     Closes the journal. Pending records are flushed to disk first.
+    /// </summary>
+    public synchronized void Close(){
+        this.Flush();
+        try{
+            if (this.activeSegmentStream != null) this.activeSegmentStream.close();
+        }
+        catch (IOException ignored){
+        }
+        this.activeSegmentStream = null;
+        this.activeSegmentFileStream = null;
+        this.activeSegmentStorageStream = null;
+        this.compactionExecutor.shutdown();
+    }
+
+    /// <summary>
+    ///     Forces records appended since the last flush to disk. If the segment is
+    ///     encrypted and has records since the last flush, it's finished and a new segment
+    ///     is started.
+    ///     The number of bytes flushed and the time taken are kept and can be retrieved with
+    ///     GetLastFlushByteCount and GetLastFlushElapsedNanos.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    public synchronized boolean Flush(){
+        long startTime = System.nanoTime();
+        if (this.activeSegmentStream == null) return false;
+        boolean finishSegment = this.activeSegmentStorageStream != this.activeSegmentFileStream && this.unflushedByteCount > 0;
+        try{
+            this.activeSegmentStream.flush();
+            if (finishSegment) DatabaseManager.FinishWriteStream(this.activeSegmentStorageStream);
+            this.activeSegmentFileStream.getFD().sync();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.AppendError);
+            return false;
+        }
+        if (finishSegment){
+            try{
+                this.activeSegmentStream.close();
+            }
+            catch (IOException ignored){
+            }
+            this.activeSegmentNumber++;
+            if (!this.StartSegment(this.activeSegmentNumber)) return false;
+            this.journalByteCount += this.activeSegmentStream.size();
+        }
+        this.lastFlushByteCount = this.unflushedByteCount;
+        this.lastFlushElapsedNanos = System.nanoTime() - startTime;
+        this.unflushedByteCount = 0;
+        return true;
+    }
+
+    /// <summary>
+    ///     Appends a record of a template being put into the manager.
+    /// </summary>
+    synchronized boolean AppendPut(DrinkTemplate template){
+        return this.AppendTemplateRecord(DrinkTemplateJournal.PutOperation, template);
+    }
+
+    /// <summary>
+    ///     Appends a record of a template being modified within the manager.
+    /// </summary>
+    synchronized boolean AppendModify(DrinkTemplate template){
+        return this.AppendTemplateRecord(DrinkTemplateJournal.ModifyOperation, template);
+    }
+
+    /// <summary>
+    ///     Appends a record of a template being removed from the manager by name.
+    /// </summary>
+    synchronized boolean AppendRemove(String templateKey){
+        if (this.activeSegmentStream == null) return false;
+        int startSize = this.activeSegmentStream.size();
+        try{
+            this.activeSegmentChecksum.reset();
+            this.activeSegmentStream.writeByte(DrinkTemplateJournal.RemoveOperation);
+            DrinkTemplateBinaryFormat.WriteBinaryString(this.activeSegmentStream, templateKey);
+            this.activeSegmentStream.writeInt((int)this.activeSegmentChecksum.getValue());
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.AppendError);
+            return false;
+        }
+        this.CountAppendedBytes(this.activeSegmentStream.size() - startSize);
+        return true;
+    }
+
+    /// <summary>
+    ///     Appends a record of every template being removed from the manager.
+    /// </summary>
+    synchronized boolean AppendClear(){
+        if (this.activeSegmentStream == null) return false;
+        int startSize = this.activeSegmentStream.size();
+        try{
+            this.activeSegmentChecksum.reset();
+            this.activeSegmentStream.writeByte(DrinkTemplateJournal.ClearOperation);
+            this.activeSegmentStream.writeInt((int)this.activeSegmentChecksum.getValue());
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.AppendError);
+            return false;
+        }
+        this.CountAppendedBytes(this.activeSegmentStream.size() - startSize);
+        return true;
+    }
+
+    /// <summary>
+    ///     Returns whether the journal has grown past its compaction threshold and no
+    ///     compaction is running.
+    /// </summary>
+    synchronized boolean CompactionNeeded(){
+        if (this.compactionRunning.get()) return false;
+        return this.journalByteCount >= this.compactionThreshold
+                || this.segmentCount >= DrinkTemplateJournal.maxSegmentCount;
+    }
+
+    /// <summary>
+    ///     Compacts the journal. Only a cut is taken on the calling thread: the current
+    ///     snapshot file is opened, and the current segment is closed and a new one started
+    ///     for later records, without forcing either to disk. On a background thread, the
+    ///     segments before the new one are then replayed onto the opened snapshot, the
+    ///     result is written as a fresh snapshot, and once it's in place, those segments
+    ///     are deleted. No template is copied or decoded on the calling thread.
+    ///     The opened snapshot is read even if a save renames a newer file over it first.
+    ///     Records are whole templates, removals, and clears, so replaying the covered
+    ///     segments onto a newer snapshot gives the same result anyway.
+    ///     Returns true if compaction was started.
+    ///     Returns false if one is already running, or the snapshot couldn't be opened or a
+    ///     new segment couldn't be started.
+    /// </summary>
+    synchronized boolean Compact(){
+
+        final int coveredSegmentNumber;
+        final StorageFileReader snapshotReader;
+        File snapshotFile = this.SnapshotFile();
+
+        if (!this.compactionRunning.compareAndSet(false, true)) return false;
+
+        // Hold the snapshot open, so compaction starts from the one the segments follow.
+        //  There's none before the first save or compaction.
+        try{
+            snapshotReader = snapshotFile.exists() ? StorageFileReader.Open(snapshotFile) : null;
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.CompactionError);
+            this.compactionRunning.set(false);
+            return false;
+        }
+
+        // Rotate to a new segment. Records after this point aren't part of the snapshot.
+        coveredSegmentNumber = this.activeSegmentNumber;
+        this.FinishSegment();
+        this.activeSegmentNumber++;
+        if (!this.StartSegment(this.activeSegmentNumber)){
+            DrinkTemplateJournal.CloseReader(snapshotReader);
+            this.compactionRunning.set(false);
+            return false;
+        }
+        this.journalByteCount = this.activeSegmentStream.size();
+        this.unflushedByteCount = 0;
+        this.segmentCount = 1;
+
+        // Build and write the snapshot, and delete covered segments, in the background
+        this.compactionExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try{
+                    DrinkTemplateJournal.this.WriteSnapshot(snapshotReader, coveredSegmentNumber);
+                }
+                finally {
+                    DrinkTemplateJournal.CloseReader(snapshotReader);
+                    DrinkTemplateJournal.this.compactionRunning.set(false);
+                }
+            }
+        });
+        return true;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Writes a template record with the given operation to the active segment
+    private boolean AppendTemplateRecord(byte operation, DrinkTemplate template){
+        if (this.activeSegmentStream == null) return false;
+        int startSize = this.activeSegmentStream.size();
+        try{
+            this.activeSegmentChecksum.reset();
+            this.activeSegmentStream.writeByte(operation);
+            DrinkTemplateBinaryFormat.WriteBinaryTemplate(this.activeSegmentStream, template);
+            this.activeSegmentStream.writeInt((int)this.activeSegmentChecksum.getValue());
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.AppendError);
+            return false;
+        }
+        this.CountAppendedBytes(this.activeSegmentStream.size() - startSize);
+        return true;
+    }
+
+    // Adds appended bytes to the journal's counters
+    private void CountAppendedBytes(int byteCount){
+        this.journalByteCount += byteCount;
+        this.unflushedByteCount += byteCount;
+    }
+
+    // Creates a segment file, writes its header, and makes it the active segment
+    private boolean StartSegment(int segmentNumber){
+        try{
+            this.activeSegmentFileStream = new FileOutputStream(this.SegmentFile(segmentNumber), false);
+            this.activeSegmentStorageStream = DatabaseManager.OpenWriteStream(this.activeSegmentFileStream);
+            this.activeSegmentStream = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(this.activeSegmentStorageStream),
+                    this.activeSegmentChecksum
+            ));
+            this.activeSegmentStream.writeInt(Universals.BinaryFormats.DrinkTemplateJournalFormat.MagicNumber);
+            this.activeSegmentStream.writeShort(Universals.BinaryFormats.DrinkTemplateJournalFormat.Version);
+            this.activeSegmentStream.flush();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.OpenError);
+            if (this.activeSegmentFileStream != null){
+                try{
+                    this.activeSegmentFileStream.close();
+                }
+                catch (IOException ignored){
+                }
+            }
+            this.activeSegmentStream = null;
+            this.activeSegmentFileStream = null;
+            this.activeSegmentStorageStream = null;
+            return false;
+        }
+        this.segmentCount++;
+        return true;
+    }
+
+    // Finishes the active segment and closes it. Encrypted segments have their last chunk
+    //  written. Nothing is forced to disk; the segment is read back through the file cache.
+    private void FinishSegment(){
+        if (this.activeSegmentStream == null) return;
+        try{
+            this.activeSegmentStream.flush();
+            if (this.activeSegmentStorageStream != this.activeSegmentFileStream){
+                DatabaseManager.FinishWriteStream(this.activeSegmentStorageStream);
+            }
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.AppendError);
+        }
+        try{
+            this.activeSegmentStream.close();
+        }
+        catch (IOException ignored){
+        }
+    }
+
+    // Forces the covered segment to disk, since the cut didn't, then replays segments up to
+    //  and including it onto the templates of the opened snapshot (none if it's null),
+    //  writes the result over the snapshot, and deletes those segments. If the snapshot or
+    //  a segment can't be read whole, nothing is written or deleted, so the journal still
+    //  holds every record. Runs on the compaction thread.
+    private void WriteSnapshot(StorageFileReader snapshotReader, int coveredSegmentNumber){
+        DrinkTemplateManager compactedManager = new DrinkTemplateManager();
+        ArrayList<DrinkTemplate> snapshotTemplates;
+
+        try (RandomAccessFile coveredSegment = new RandomAccessFile(this.SegmentFile(coveredSegmentNumber), "rw")){
+            coveredSegment.getFD().sync();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.CompactionError);
+            return;
+        }
+
+        if (snapshotReader != null){
+            try{
+                snapshotTemplates = DrinkTemplateBinaryFormat.ReadTemplatesBinary(snapshotReader);
+            }
+            catch (IOException e){
+                snapshotTemplates = null;
+            }
+            if (snapshotTemplates == null){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.CompactionError);
+                return;
+            }
+            for (DrinkTemplate template : snapshotTemplates) compactedManager.PutTemplate(template);
+        }
+        for (int segmentNumber : this.ListSegmentNumbers()){
+            if (segmentNumber <= coveredSegmentNumber && !this.ReplaySegment(this.SegmentFile(segmentNumber), compactedManager)){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.CompactionError);
+                return;
+            }
+        }
+
+        if (!DrinkTemplateBinaryFormat.WriteTemplatesBinary(compactedManager.GetTemplateList().values(), this.SnapshotFile())){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.CompactionError);
+            return;
+        }
+        for (int segmentNumber : this.ListSegmentNumbers()){
+            if (segmentNumber <= coveredSegmentNumber){
+                this.SegmentFile(segmentNumber).delete();
+            }
+        }
+    }
+
+    // Closes a reader, if there is one, ignoring errors
+    private static void CloseReader(StorageFileReader reader){
+        if (reader == null) return;
+        try{
+            reader.close();
+        }
+        catch (IOException ignored){
+        }
+    }
+
+    // Applies the records of one segment to a manager
+    private boolean ReplaySegment(File segmentFile, DrinkTemplateManager manager){
+
+        DataInputStream inputStream;
+        long segmentLength;
+        Crc32c checksum = new Crc32c();
+        boolean checksummed;
+        DrinkTemplate template;
+        String templateKey;
+        int operation;
+
+        // Bytes are checksummed as they're read. No record runs past the end of the file,
+        //  so a string longer than the file is corrupt, and isn't read.
+        segmentLength = segmentFile.length();
+        try{
+            inputStream = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(DatabaseManager.OpenReadStream(segmentFile)),
+                    checksum
+            ));
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.ReplayError);
+            return false;
+        }
+
+        try{
+            short version;
+            if (inputStream.readInt() != Universals.BinaryFormats.DrinkTemplateJournalFormat.MagicNumber
+                    || ((version = inputStream.readShort()) != Universals.BinaryFormats.DrinkTemplateJournalFormat.Version
+                        && version != Universals.BinaryFormats.DrinkTemplateJournalFormat.UncheckedVersion)){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.ReplayError);
+                inputStream.close();
+                return false;
+            }
+            checksummed = version == Universals.BinaryFormats.DrinkTemplateJournalFormat.Version;
+
+            // Read each record whole and check it before applying it
+            checksum.reset();
+            while ((operation = inputStream.read()) != -1){
+                template = null;
+                templateKey = null;
+                if (operation == DrinkTemplateJournal.PutOperation || operation == DrinkTemplateJournal.ModifyOperation){
+                    template = DrinkTemplateBinaryFormat.ReadBinaryTemplate(inputStream, segmentLength);
+                }
+                else if (operation == DrinkTemplateJournal.RemoveOperation){
+                    templateKey = DrinkTemplateBinaryFormat.ReadBinaryString(inputStream, segmentLength);
+                }
+                else if (operation != DrinkTemplateJournal.ClearOperation){
+                    // Unknown operation. The rest of the segment can't be read.
+                    Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.ReplayError);
+                    inputStream.close();
+                    return false;
+                }
+                if (checksummed){
+                    int expected = (int)checksum.getValue();
+                    if (inputStream.readInt() != expected){
+                        Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.ChecksumError);
+                        inputStream.close();
+                        return false;
+                    }
+                }
+
+                if (template != null){
+                    if (!manager.ModifyTemplate(template)) manager.PutTemplate(template);
+                }
+                else if (templateKey != null) manager.RemoveTemplate(templateKey);
+                else manager.ClearTemplates();
+                checksum.reset();
+            }
+        }
+        catch (EOFException ignored){
+            // Segment ends part way through a record. Every whole record was applied.
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateJournalErrorMessages.ReplayError);
+            try{
+                inputStream.close();
+            }
+            catch (IOException ignored){
+            }
+            return false;
+        }
+
+        try{
+            inputStream.close();
+        }
+        catch (IOException ignored){
+        }
+        return true;
+    }
+
+    // Returns the snapshot file the journal belongs to
+    private File SnapshotFile(){
+        return new File(this.directory, this.fileName + Universals.FileNames.BinaryExtension);
+    }
+
+    // Returns the file of a segment number
+    private File SegmentFile(int segmentNumber){
+        return new File(this.directory, this.fileName + Universals.FileNames.JournalExtension + "." + segmentNumber);
+    }
+
+    // Returns the numbers of every segment on disk in ascending order
+    private int[] ListSegmentNumbers(){
+        String prefix = this.fileName + Universals.FileNames.JournalExtension + ".";
+        String[] names = this.directory.list();
+        ArrayList<Integer> numbers = new ArrayList<>();
+        int[] result;
+
+        if (names != null){
+            for (String name : names){
+                if (!name.startsWith(prefix)) continue;
+                try{
+                    numbers.add(Integer.parseInt(name.substring(prefix.length())));
+                }
+                catch (NumberFormatException ignored){
+                }
+            }
+        }
+        result = new int[numbers.size()];
+        for (int i = 0; i < result.length; i++) result[i] = numbers.get(i);
+        Arrays.sort(result);
+        return result;
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test journal append, replay, and compaction
+    public static void TestReplayAndCompact(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testDirectory = new File(dbm.GetAppRootDirectory(), "testJournalDirectory");
+        String testFileName = "testJournalTemplates";
+        DrinkTemplateManager testManager;
+        DrinkTemplateJournal testJournal;
+        DrinkTemplate testTemplate;
+        int i;
+
+        // Start from an empty directory
+        if (testDirectory.exists()){
+            String[] names = testDirectory.list();
+            if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        }
+        else testDirectory.mkdir();
+
+        // Non-exception cases
+        //  -Case 1, put, modify, and remove through a journaled manager. Replay into a new manager
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName);
+        testJournal.Open();
+        testManager.AttachJournal(testJournal);
+        for (i = 0; i < 20; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName " + i);
+            testManager.PutTemplate(testTemplate);
+        }
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName 3");
+        testTemplate.SetServings((short)3);
+        testManager.ModifyTemplate(testTemplate);
+        testManager.RemoveTemplate("testName 4");
+        testJournal.Close();
+
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName);
+        testJournal.Replay(testManager);
+        if (testManager.GetTemplateList().size() == 19
+                && testManager.GetTemplate("testName 3").GetServings() == 3
+                && !testManager.ContainsTemplate("testName 4")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, compaction with a small threshold. Snapshot plus remaining journal gives the same contents
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName, 256);
+        testJournal.Replay(testManager);
+        testJournal.Open();
+        testManager.AttachJournal(testJournal);
+        for (i = 20; i < 60; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName " + i);
+            testManager.PutTemplate(testTemplate);
+        }
+        testJournal.Close();
+        try{
+            testJournal.compactionExecutor.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ignored){
+        }
+
+        testManager = new DrinkTemplateManager();
+        testManager.ReadTemplateListBinary(testDirectory, testFileName, false);
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName);
+        testJournal.Replay(testManager);
+        if (testManager.GetTemplateList().size() == 59
+                && testManager.GetTemplate("testName 3").GetServings() == 3
+                && new File(testDirectory, testFileName + Universals.FileNames.BinaryExtension).exists()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(false, 2)
+            );
+        }
+
+        // Exception cases
+        //  -Case 3, a segment cut off part way through a record replays up to its last whole record
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName + "Cut");
+        testJournal.Open();
+        testManager.AttachJournal(testJournal);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName cut");
+        testManager.PutTemplate(testTemplate);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName cut 2");
+        testManager.PutTemplate(testTemplate);
+        testJournal.Close();
+        try (java.io.RandomAccessFile cutFile = new java.io.RandomAccessFile(testJournal.SegmentFile(0), "rw")){
+            cutFile.setLength(cutFile.length() - 3);
+        }
+        catch (IOException ignored){
+        }
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName + "Cut");
+        if (testJournal.Replay(testManager)
+                && testManager.GetTemplateList().size() == 1
+                && testManager.ContainsTemplate("testName cut")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(false, 3)
+            );
+        }
+
+        //  -Case 4, a record that fails its checksum stops replay before it is applied
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName + "Corrupt");
+        testJournal.Open();
+        testManager.AttachJournal(testJournal);
+        for ( i = 0; i < 3; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName corrupt " + i);
+            testManager.PutTemplate(testTemplate);
+        }
+        testJournal.Close();
+        // Segment header, then the first record: operation, name, fixed fields, empty image
+        //  path, and checksum. Flip a bit in the second record's name.
+        long corruptOffset = 4 + 2
+                + 1 + Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + "testName corrupt 0".length()
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize
+                + 1 + Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + 2;
+        try (java.io.RandomAccessFile corruptFile = new java.io.RandomAccessFile(testJournal.SegmentFile(0), "rw")){
+            corruptFile.seek(corruptOffset);
+            int value = corruptFile.read();
+            corruptFile.seek(corruptOffset);
+            corruptFile.write(value ^ 1);
+        }
+        catch (IOException ignored){
+        }
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName + "Corrupt");
+        if (!testJournal.Replay(testManager)
+                && testManager.GetTemplateList().size() == 1
+                && testManager.ContainsTemplate("testName corrupt 0")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateJournalMessages.ReplayCompactMessage(false, 4)
+            );
+        }
+    }
+}
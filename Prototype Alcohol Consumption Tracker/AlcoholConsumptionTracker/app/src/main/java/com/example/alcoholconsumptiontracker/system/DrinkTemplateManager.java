@@ -9,6 +9,7 @@ package com.example.alcoholconsumptiontracker.system;
 
 import android.content.Context;
 import android.util.Log;
+import android.util.Xml;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -16,19 +17,39 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CheckedInputStream;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -44,31 +65,167 @@ import javax.xml.transform.stream.StreamResult;
 ///
 /// Drink Template Class
 ///     Stores drink templates for the app
+///     Safe to use from several threads at once. Getting and checking for templates doesn't
+///     lock. Puts, modifies, and removes each happen atomically, so two threads putting the
+///     same name see exactly one succeed. Iterating over the template list while it changes
+///     doesn't fail, and sees every template that isn't changed during the iteration.
 ///
 public class DrinkTemplateManager {
 
+    ///
+    /// Interfaces
+    ///
+    /// <summary>
+    ///  Told about each change made to the manager's templates, in the order they're made.
+    ///     Called on the thread that made the change, after the change is complete and no
+    ///     locks are held, so a listener may read or change templates itself.
+    /// </summary>
+    public interface TemplateChangeListener{
+        void OnTemplateChanged(DrinkTemplateChange change);
+    }
+
     ///
     /// Local variables
     ///
     // Represents a dictionary of templates.
     // Key = template name (String), value = template (DrinkTemplate)
-    private HashMap<String, DrinkTemplate> templateHashMap;
+    //  By default, this is a ConcurrentHashMap.
+    //  In catalog mode (see ReadTemplateListIndexed), this is a LazyDrinkTemplateMap.
+    //  When layered over a shared catalog, this is a LayeredDrinkTemplateMap.
+    //  All three are safe to use from several threads.
+    private volatile Map<String, DrinkTemplate> templateHashMap;
+
+    // Represents the size of the buffer streaming writes collect characters in before writing to file.
+    private static final int writeBufferSize = 64 * 1024;
+
+    // Represents the number of bytes written and time taken (nanoseconds) by the last streaming write.
+    //  Both are 0 if no streaming write has completed.
+    private volatile long lastWriteByteCount;
+    private volatile long lastWriteElapsedNanos;
+
+    // Represents the template attributes that can be indexed for range queries
+    public enum TemplateAttribute {
+        PRICE,
+        CALORIES,
+        APV
+    }
+
+    // Represents the version of the templates, with their latest snapshot and history
+    private final DrinkTemplateVersions versions = new DrinkTemplateVersions();
+
+    // Represents the indexes FindByPrefix, SearchTemplates, and FindInRange answer from
+    private final DrinkTemplateIndexes indexes = new DrinkTemplateIndexes();
+
+    // Represents the journal and change listeners every change is recorded to
+    private final DrinkTemplateChangeRecorder changeRecorder = new DrinkTemplateChangeRecorder();
 
     ///
     /// Constructors
     ///
     // Default. Initializes with no templates
     public DrinkTemplateManager(){
-        this.templateHashMap = new HashMap<>();
+        this.templateHashMap = new ConcurrentHashMap<>();
+    }
+    /// <summary>
+    ///  Given a shared catalog, initializes with the catalog's templates as a read-only base
+    ///     layer. Puts, modifies, and removes are stored in a layer of this manager's own, so
+    ///     managers sharing the catalog only use memory for their changes.
+    ///     Templates returned by GetTemplate are copies, so changing one without calling
+    ///     ModifyTemplate doesn't change the catalog.
+    /// </summary>
+    public DrinkTemplateManager(DrinkTemplateCatalog baseCatalog){
+        this.templateHashMap = new LayeredDrinkTemplateMap(baseCatalog);
     }
     // Initialize with templates from files
 
     ///
     /// Setters and Getters
     ///
-    public HashMap<String, DrinkTemplate> GetTemplateList(){
+    /// <summary>
+    ///     Returns the manager's map of templates.
+    ///     Changes should be made through PutTemplate, ModifyTemplate, and RemoveTemplate.
+    ///     Changing the map directly doesn't change the version, so snapshots won't see it.
+    /// </summary>
+    public Map<String, DrinkTemplate> GetTemplateList(){
         return this.templateHashMap;
     }
+    /// <summary>
+    ///     Returns the version of the manager's templates. It increases after every change,
+    ///     so a reader holding a snapshot can tell whether anything changed since.
+    /// </summary>
+    public long GetVersion(){
+        return this.versions.GetVersion();
+    }
+    /// <summary>
+    ///     Returns a snapshot of the templates sorted by name.
+    ///     The snapshot is shared by every caller until the templates change, so repeated
+    ///     calls without changes don't copy anything. Only names are copied when it's taken;
+    ///     templates are read as the snapshot's positions are asked for, so taking one over a
+    ///     catalog doesn't decode the catalog.
+    /// </summary>
+    public DrinkTemplateSnapshot GetSnapshot(){
+        return this.versions.GetSnapshot(this.templateHashMap);
+    }
+    /// <summary>
+    ///     Returns the shared catalog the manager's templates are layered over, or null if
+    ///     the manager wasn't created with one.
+    /// </summary>
+    public DrinkTemplateCatalog GetCatalog(){
+        if (this.templateHashMap instanceof LayeredDrinkTemplateMap){
+            return ((LayeredDrinkTemplateMap)this.templateHashMap).GetBase();
+        }
+        return null;
+    }
+    public long GetLastWriteByteCount(){
+        return this.lastWriteByteCount;
+    }
+    public long GetLastWriteElapsedNanos(){
+        return this.lastWriteElapsedNanos;
+    }
+    public DrinkTemplateJournal GetJournal(){
+        return this.changeRecorder.GetJournal();
+    }
+    /// <summary>
+    ///     Attaches an open journal to the manager. After this, every successful put,
+    ///     modify, and remove is appended to the journal, and the journal is compacted
+    ///     into a fresh snapshot once it grows past its threshold.
+    ///     The journal should be replayed into the manager before it is attached.
+    /// </summary>
+    public void AttachJournal(DrinkTemplateJournal newJournal){
+        this.changeRecorder.AttachJournal(newJournal);
+    }
+    /// <summary>
+    ///     Adds a listener told about every later change to the templates. Changes already
+    ///     under way when it's added may not reach it, so a listener should read the
+    ///     templates it needs after it's added.
+    ///     Returns false if the listener is null or was already added.
+    /// </summary>
+    public boolean AddTemplateChangeListener(TemplateChangeListener listener){
+        return this.changeRecorder.AddListener(listener);
+    }
+    /// <summary>
+    ///     Removes a listener. Changes already being delivered may still reach it.
+    ///     Returns false if the listener wasn't added.
+    /// </summary>
+    public boolean RemoveTemplateChangeListener(TemplateChangeListener listener){
+        return this.changeRecorder.RemoveListener(listener);
+    }
+    /// <summary>
+    ///     Starts recording every version of every template, so GetTemplateAsOf can find a
+    ///     template as it was at a past time. Templates are only copied when they change,
+    ///     so starting costs nothing and the history grows with the number of changes.
+    ///     Changes should be made through PutTemplate, ModifyTemplate, and RemoveTemplate
+    ///     with templates not changed in place afterward. A template changed in place
+    ///     before its first ModifyTemplate is recorded as already changed at the start, as
+    ///     is a change already under way on another thread when this is called.
+    ///     Calling this again does nothing.
+    /// </summary>
+    public void EnableTemplateHistory(){
+        this.versions.EnableHistory();
+    }
+    public boolean IsTemplateHistoryEnabled(){
+        return this.versions.IsHistoryEnabled();
+    }
 
     ///
     /// Methods
@@ -90,6 +247,18 @@ public class DrinkTemplateManager {
         if (temp != null) return temp.ProduceDrink(occasion, hour, minute);
         else return null;
     }
+    /// <summary>
+    /// Given a string representing the drink template key, a string representing
+    ///     a drink occasion, and a time of consumption packed by ConsumptionTime, makes a
+    ///     drink from that template, then returns that drink. Returns null if there's no
+    ///     template under the key.
+    /// </summary>
+    public Drink ProduceDrink(String key, String occasion, long consumedAt){
+
+        DrinkTemplate temp = this.GetTemplate(key);
+        if (temp != null) return temp.ProduceDrink(occasion, consumedAt);
+        else return null;
+    }
 
     ///
     /// - System
@@ -100,14 +269,32 @@ public class DrinkTemplateManager {
     /// it if it exists. returns null otherwise.
     /// </summary>
     public DrinkTemplate GetTemplate(String key){
-        // If the key isn't contained in the map, return null
-        if (!this.templateHashMap.containsKey(key))  return null;
+        // If the key is null, no template can have it
+        if (key == null) return null;
 
-        // If the key is contained in the map, return that template
-        //  *Template can be null
+        // Return the template with that key, or null if there isn't one.
+        //  A single lookup, so a concurrent remove can't happen between a check and a get
         return this.templateHashMap.get(key);
     }
     /// <summary>
+    /// Given a template name and a time in milliseconds since the epoch, returns a copy of
+    ///     the template as it was at that time. Takes time logarithmic in the number of
+    ///     versions of the template.
+    ///     Returns null if the template didn't exist at that time, the time is before
+    ///     EnableTemplateHistory was called, or the history isn't on.
+    /// </summary>
+    public DrinkTemplate GetTemplateAsOf(String key, long epochMillis){
+        return this.versions.GetTemplateAsOf(key, epochMillis, this.templateHashMap);
+    }
+    /// <summary>
+    /// Given a template name, returns how many versions of it the history holds, counting
+    ///     its version when the history started and its removals. Returns 0 if it hasn't
+    ///     changed since then, or the history isn't on.
+    /// </summary>
+    public int GetTemplateVersionCount(String key){
+        return this.versions.GetVersionCount(key);
+    }
+    /// <summary>
     /// Puts a new template into the dictionary using its name as its key.
     /// Given an inputted template, this method checks to see if a template with the input's
     ///     same name (key) exists in the dictionary.
@@ -115,8 +302,33 @@ public class DrinkTemplateManager {
     ///     If it does, return false
     /// </summary>
     public boolean PutTemplate(DrinkTemplate newTemplate){
-        if (this.templateHashMap.containsKey(newTemplate.GetName())) return false;
-        this.templateHashMap.put(newTemplate.GetName(), newTemplate);
+        if (newTemplate.GetName() == null) return false;
+
+        // Without a journal or listeners, the map makes the put atomic on its own
+        DrinkTemplateJournal currentJournal = this.changeRecorder.GetJournal();
+        Object mutationLock = this.changeRecorder.GetMutationLock(currentJournal, this.versions.IsHistoryEnabled());
+        if (mutationLock == null){
+            if (this.templateHashMap.putIfAbsent(newTemplate.GetName(), newTemplate) != null) return false;
+            this.versions.Advance();
+            this.indexes.Sync(newTemplate.GetName(), this.templateHashMap);
+            return true;
+        }
+        synchronized (mutationLock){
+            this.versions.PrepareHistory(newTemplate.GetName(), this.templateHashMap);
+            if (this.templateHashMap.putIfAbsent(newTemplate.GetName(), newTemplate) != null) return false;
+            long sequence = this.versions.Advance();
+            long time = System.currentTimeMillis();
+            this.indexes.Sync(newTemplate.GetName(), this.templateHashMap);
+            this.versions.RecordHistory(newTemplate.GetName(), newTemplate, time);
+            if (currentJournal != null){
+                currentJournal.AppendPut(newTemplate);
+                this.changeRecorder.CompactJournalIfNeeded(currentJournal);
+            }
+            this.changeRecorder.Queue(new DrinkTemplateChange(
+                    sequence, time, DrinkTemplateChange.ChangeType.ADDED, newTemplate.GetName(), null, newTemplate
+            ));
+        }
+        this.changeRecorder.Deliver();
         return true;
     }
     /// <summary>
@@ -127,11 +339,37 @@ public class DrinkTemplateManager {
     ///     If it doesn't, return false
     /// </summary>
     public boolean ModifyTemplate(DrinkTemplate newTemplateVersion){
-        if (this.templateHashMap.containsKey(newTemplateVersion.GetName())) {
-            this.templateHashMap.put(newTemplateVersion.GetName(), newTemplateVersion);
+        if (newTemplateVersion.GetName() == null) return false;
+
+        // Without a journal or listeners, the map makes the replace atomic on its own
+        DrinkTemplateJournal currentJournal = this.changeRecorder.GetJournal();
+        Object mutationLock = this.changeRecorder.GetMutationLock(currentJournal, this.versions.IsHistoryEnabled());
+        if (mutationLock == null){
+            this.versions.Pin(newTemplateVersion.GetName());
+            if (this.templateHashMap.replace(newTemplateVersion.GetName(), newTemplateVersion) == null) return false;
+            this.versions.Advance();
+            this.indexes.SyncModified(newTemplateVersion.GetName(), this.templateHashMap);
             return true;
         }
-        return false;
+        synchronized (mutationLock){
+            this.versions.PrepareHistory(newTemplateVersion.GetName(), this.templateHashMap);
+            this.versions.Pin(newTemplateVersion.GetName());
+            DrinkTemplate oldTemplate = this.templateHashMap.replace(newTemplateVersion.GetName(), newTemplateVersion);
+            if (oldTemplate == null) return false;
+            long sequence = this.versions.Advance();
+            long time = System.currentTimeMillis();
+            this.indexes.SyncModified(newTemplateVersion.GetName(), this.templateHashMap);
+            this.versions.RecordHistory(newTemplateVersion.GetName(), newTemplateVersion, time);
+            if (currentJournal != null){
+                currentJournal.AppendModify(newTemplateVersion);
+                this.changeRecorder.CompactJournalIfNeeded(currentJournal);
+            }
+            this.changeRecorder.Queue(new DrinkTemplateChange(
+                    sequence, time, DrinkTemplateChange.ChangeType.MODIFIED, newTemplateVersion.GetName(), oldTemplate, newTemplateVersion
+            ));
+        }
+        this.changeRecorder.Deliver();
+        return true;
     }
     /// <summary>
     /// Deletes an existing template within the dictionary with a matching key.
@@ -141,11 +379,68 @@ public class DrinkTemplateManager {
     ///     If it doesn't, return false
     /// </summary>
     public boolean RemoveTemplate(String templateKey){
-        if (this.templateHashMap.containsKey(templateKey)) {
-            this.templateHashMap.remove(templateKey);
+        if (templateKey == null) return false;
+
+        // Without a journal or listeners, the map makes the remove atomic on its own
+        DrinkTemplateJournal currentJournal = this.changeRecorder.GetJournal();
+        Object mutationLock = this.changeRecorder.GetMutationLock(currentJournal, this.versions.IsHistoryEnabled());
+        if (mutationLock == null){
+            this.versions.Pin(templateKey);
+            if (this.templateHashMap.remove(templateKey) == null) return false;
+            this.versions.Advance();
+            this.indexes.Sync(templateKey, this.templateHashMap);
             return true;
         }
-        return false;
+        synchronized (mutationLock){
+            this.versions.PrepareHistory(templateKey, this.templateHashMap);
+            this.versions.Pin(templateKey);
+            DrinkTemplate oldTemplate = this.templateHashMap.remove(templateKey);
+            if (oldTemplate == null) return false;
+            long sequence = this.versions.Advance();
+            long time = System.currentTimeMillis();
+            this.indexes.Sync(templateKey, this.templateHashMap);
+            this.versions.RecordHistory(templateKey, null, time);
+            if (currentJournal != null){
+                currentJournal.AppendRemove(templateKey);
+                this.changeRecorder.CompactJournalIfNeeded(currentJournal);
+            }
+            this.changeRecorder.Queue(new DrinkTemplateChange(
+                    sequence, time, DrinkTemplateChange.ChangeType.REMOVED, templateKey, oldTemplate, null
+            ));
+        }
+        this.changeRecorder.Deliver();
+        return true;
+    }
+
+    /// <summary>
+    /// Removes every template from the dictionary. Used when a template list is read
+    ///     without appending, and when a journal replays a clear.
+    /// </summary>
+    void ClearTemplates(){
+        DrinkTemplateJournal currentJournal = this.changeRecorder.GetJournal();
+        Object mutationLock = this.changeRecorder.GetMutationLock(currentJournal, this.versions.IsHistoryEnabled());
+        if (mutationLock == null){
+            this.versions.PinAll();
+            this.templateHashMap.clear();
+            this.versions.Advance();
+            this.indexes.DropAll();
+            return;
+        }
+        synchronized (mutationLock){
+            long time = System.currentTimeMillis();
+            this.versions.RecordHistoryReset(this.templateHashMap, time);
+            this.versions.PinAll();
+            this.templateHashMap.clear();
+            long sequence = this.versions.Advance();
+            this.indexes.DropAll();
+            if (currentJournal != null){
+                currentJournal.AppendClear();
+            }
+            this.changeRecorder.Queue(new DrinkTemplateChange(
+                    sequence, time, DrinkTemplateChange.ChangeType.RESET, null, null, null
+            ));
+        }
+        this.changeRecorder.Deliver();
     }
 
     /// <summary>
@@ -157,8 +452,55 @@ public class DrinkTemplateManager {
     ///     False otherwise
     /// </summary>
     public boolean ContainsTemplate(String templateKey){
+        if (templateKey == null) return false;
         return this.templateHashMap.containsKey(templateKey);
     }
+    /// <summary>
+    ///  Given the start of a template name and the most templates wanted, returns up to that
+    ///     many templates whose names start with it, ignoring case. Templates are ordered by
+    ///     lowercased name, then by name.
+    ///     Uses a prefix index of the names, so the time taken depends on the length of the
+    ///     prefix and the number of templates returned, not on how many templates there are.
+    ///     The index is built the first time this is called and kept up to date after that.
+    ///     Returns an empty list if the prefix is null or the limit isn't positive.
+    /// </summary>
+    public List<DrinkTemplate> FindByPrefix(String prefix, int limit){
+        return this.indexes.FindByPrefix(this.templateHashMap, prefix, limit);
+    }
+    /// <summary>
+    ///  Given a query and the most templates wanted, returns up to that many templates whose
+    ///     name or drink type best match the query, best first. Tolerates misspellings, so
+    ///     "stela artios" finds "Stella Artois".
+    ///     Templates are ranked by how many of the query's trigrams they share, then by how
+    ///     few character edits turn the query into their name. Templates sharing less than
+    ///     a third of the query's trigrams aren't returned.
+    ///     The index is built the first time this is called and kept up to date after that.
+    ///     Returns an empty list if the query is null or has no letters or digits, or the
+    ///     limit isn't positive.
+    /// </summary>
+    public List<DrinkTemplate> SearchTemplates(String query, int limit){
+        return this.indexes.Search(this.templateHashMap, query, limit);
+    }
+    /// <summary>
+    ///  Given an attribute, a drink type value, and the lowest and highest attribute values
+    ///     wanted (both included), returns an iterator over the templates of that type in
+    ///     that range, sorted by the attribute, then by name. A negative drink type value
+    ///     matches every type. Descending returns the highest values first.
+    ///     Uses a sorted index of the attribute, so the time taken depends on the number of
+    ///     templates iterated, not on how many templates there are. Templates are found as
+    ///     the iterator advances, so stopping early costs nothing for the rest of the range.
+    ///     Other conditions can be checked on each template while iterating, e.g. cocktails
+    ///     by calories, keeping those under a price.
+    ///     The attribute's index is built the first time it's queried and kept up to date
+    ///     after that. Templates changed in place are only re-sorted once ModifyTemplate is
+    ///     called with them.
+    ///     The iterator doesn't fail if templates change while it's used. It skips templates
+    ///     removed before they're reached.
+    ///     Returns an empty iterator if the attribute is null or the minimum is above the maximum.
+    /// </summary>
+    public Iterator<DrinkTemplate> FindInRange(TemplateAttribute attribute, short drinkType, float minimum, float maximum, boolean descending){
+        return this.indexes.FindInRange(this.templateHashMap, attribute, drinkType, minimum, maximum, descending);
+    }
     ///
     /// - Backend
     ///
@@ -173,12 +515,16 @@ public class DrinkTemplateManager {
     ///         - Creates a new XML file within the targetDirectory
     ///             with the name of fileName
     ///         - Stores the contents of its templateDictionary within fileName
+    ///     The file is written through a StoredFileOutputStream, so it's only replaced once
+    ///     the new file is complete and on disk.
     ///     Returns true if successful in both steps.
     ///     Returns false otherwise.
     /// </summary>
     public boolean WriteTemplateList(File targetDirectory, String fileName)  {
 
         // Locals
+        StoredFileOutputStream outputFileStream;
+        PrintWriter targetWriter;
         StreamResult targetStream;
         Element root;
         Element tempElement;
@@ -194,29 +540,19 @@ public class DrinkTemplateManager {
         File outputFile;
 
         // From the inputted directory file and name, attempt to
-        //  create a file within that directory.
+        //  open a stream replacing a file within that directory.
         //      -If target directory doesn't exist, return false
         if (!targetDirectory.exists()) return false;
-        //      -If file within directory exists, set the output stream to that file
-        //          Otherwise, create that file
-        //      Set the output stream of this method to the result of either case
+        //      -Write a temporary file next to the file, which replaces it once complete
         try {
             outputFile = new File(targetDirectory.getAbsolutePath() + "/" + fileName + ".xml");
-            if (outputFile.exists()) {
-                targetStream = new StreamResult(new PrintWriter(new FileOutputStream(outputFile, false)));
-            } else {
-                if (!outputFile.createNewFile()) return false;
-                targetStream = new StreamResult(new PrintWriter(new FileOutputStream(outputFile)));
-            }
-        }
-        catch (FileNotFoundException e){
-            // If file isn't found, file was deleted immediately after creation. Return false.
-            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorFailedToCreateFile);
-            return false;
+            outputFileStream = new StoredFileOutputStream(outputFile);
+            targetWriter = new PrintWriter(new OutputStreamWriter(outputFileStream, StandardCharsets.UTF_8));
+            targetStream = new StreamResult(targetWriter);
         }
         catch (IOException e){
-            // If IO error encountered, return false.
-            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorFileNotFound);
+            // If the temporary file couldn't be created, return false.
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorFailedToCreateFile);
             return false;
         }
 
@@ -226,13 +562,9 @@ public class DrinkTemplateManager {
             b = f.newDocumentBuilder();
             d = b.newDocument();
         } catch (ParserConfigurationException e) {
-            // If error encountered, close output stream an return false.
+            // If error encountered, discard the temporary file and return false.
             Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorFailedToCreateDocument);
-            try{
-                targetStream.getOutputStream().close();
-            } catch (IOException ex) {
-                return false;
-            }
+            targetWriter.close();
             return false;
         }
 
@@ -243,8 +575,9 @@ public class DrinkTemplateManager {
         // For each template member, write its contents
         while (hashmapIterator.hasNext()){
 
-            // Get current element
+            // Get current element. Skip templates removed while iterating
             tempTemplate = hashmapIterator.next().getValue();
+            if (tempTemplate == null) continue;
 
             // Create template with following format:
             //  -Name
@@ -306,19 +639,115 @@ public class DrinkTemplateManager {
             t.transform(DOMDocument, targetStream);
 
         } catch (TransformerFactoryConfigurationError | TransformerException e) {
-            // If error encountered, close output stream an return false.
+            // If error encountered, discard the temporary file and return false.
             Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorTransformerError);
+            targetWriter.close();
+            return false;
+        }
+
+        // Replace the file with the complete temporary file, which finishes an encrypted
+        //  file. The print writer doesn't throw, so check it for errors first.
+        targetWriter.flush();
+        if (targetWriter.checkError()){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorStreamError);
+            targetWriter.close();
+            return false;
+        }
+        try{
+            outputFileStream.Commit();
+        } catch (IOException e) {
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorRenameError);
+            return false;
+        }
+        return true;
+    }
+
+    /// <summary>
+    ///     Writes the contents of the DrinkTemplateManager to a directory without
+    ///     building a DOM document first.
+    ///     targetDirectory: directory to store xml file
+    ///     fileName: name of file to be created or overwritten and stored to.
+    ///         name of file expected to NOT contain ".xml"
+    ///     Each template is written straight from the template dictionary into a
+    ///     buffered stream. The file produced matches the bytes of WriteTemplateList,
+    ///     including characters above U+FFFF, which both write as character references.
+    ///     So files written by either method can be read by either read method.
+    ///     The file is written through a StoredFileOutputStream, so it's only replaced once
+    ///     the new file is complete and on disk.
+    ///     When finished, the number of bytes written and the time taken are kept and
+    ///     can be retrieved with GetLastWriteByteCount and GetLastWriteElapsedNanos.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    public boolean WriteTemplateListStreaming(File targetDirectory, String fileName){
+
+        // Locals
+        long startTime = System.nanoTime();
+        StoredFileOutputStream outputFileStream;
+        Writer targetWriter;
+        File outputFile;
+
+        // If target directory doesn't exist, return false
+        if (!targetDirectory.exists()) return false;
+
+        // Open a buffered writer over a temporary file next to the file, which replaces it
+        //  once complete.
+        try{
+            outputFile = new File(targetDirectory, fileName + ".xml");
+            outputFileStream = new StoredFileOutputStream(outputFile);
+            targetWriter = new BufferedWriter(
+                    new OutputStreamWriter(outputFileStream, StandardCharsets.UTF_8),
+                    DrinkTemplateManager.writeBufferSize
+            );
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorFailedToCreateFile);
+            return false;
+        }
+
+        // Write the header, each template, then the footer. Format matches WriteTemplateList:
+        //  -Name
+        //  -Servings
+        //  -Type
+        //  -APV
+        //  -Calories
+        //  -Price
+        //  -ImageFilePath
+        //
+        try{
+            targetWriter.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+            targetWriter.write("<" + Universals.XMLTags.DrinkTemplateManagerTags.Header + ">");
+            for (DrinkTemplate tempTemplate : this.templateHashMap.values()){
+                if (tempTemplate == null) continue;
+                targetWriter.write("<" + Universals.XMLTags.DrinkTemplateTags.Header + ">");
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.Name, tempTemplate.GetName());
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.Servings, String.valueOf(tempTemplate.GetServings()));
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.Type, String.valueOf(tempTemplate.GetType().GetValue()));
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.APV, String.valueOf(tempTemplate.GetAPV()));
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.Calories, String.valueOf(tempTemplate.GetCalories()));
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.Price, String.valueOf(tempTemplate.GetPrice()));
+                DrinkTemplateManager.WriteXMLElement(targetWriter, Universals.XMLTags.DrinkTemplateTags.ImageFilePath, tempTemplate.GetImageFilePath());
+                targetWriter.write("</" + Universals.XMLTags.DrinkTemplateTags.Header + ">");
+            }
+            targetWriter.write("</" + Universals.XMLTags.DrinkTemplateManagerTags.Header + ">");
+            targetWriter.flush();
+            outputFileStream.Commit();
+        }
+        catch (IOException e){
+            // If error encountered, discard the temporary file and return false.
+            Log.d(Universals.ErrorMessages.ErrorMessageTag,Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.WriteTemplatesErrorStreamError);
             try{
-                targetStream.getOutputStream().close();
+                outputFileStream.close();
             } catch (IOException ex) {
                 return false;
             }
             return false;
         }
 
-        // Close stream when finished. Verify file exists and is unlocked before returning true
-        if (outputFile.exists()) return true;
-        return false;
+        // Record the cost of the write
+        this.lastWriteByteCount = outputFile.length();
+        this.lastWriteElapsedNanos = System.nanoTime() - startTime;
+        return true;
     }
 
     /// <summary>
@@ -349,7 +778,7 @@ public class DrinkTemplateManager {
         DocumentBuilderFactory f;
         DocumentBuilder b;
         Document d;
-        FileInputStream inputFileStream;
+        InputStream inputFileStream;
         File inputFile;
         Element root;
         NodeList templatesRaw;
@@ -395,8 +824,8 @@ public class DrinkTemplateManager {
         }
 
         try{
-            inputFileStream = new FileInputStream(inputFile.getAbsolutePath());
-        } catch (FileNotFoundException e) {
+            inputFileStream = DatabaseManager.OpenReadStream(inputFile);
+        } catch (IOException e) {
             Log.d(
                     Universals.ErrorMessages.ErrorMessageTag,
                     Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileNotFound
@@ -480,63 +909,13 @@ public class DrinkTemplateManager {
 
                 rawField = tempDrinkTemplateRawFields.item(j);
 
-                // Name
-                if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.Name)){
-                    tempDrinkTemplate.SetName(rawField.getTextContent());
-                }
-                // Servings
-                else if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.Servings)){
-                    try{
-                        tempDrinkTemplate.SetServings(Short.parseShort(rawField.getTextContent()));
-                    }
-                    catch (NumberFormatException ignored){
-                        invalidTemplate = true;
-                    }
-                }
-                // Type
-                else if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.Type)){
-                    try{
-                        tempDrinkTemplate.SetType(Short.parseShort(rawField.getTextContent()));
-                    }
-                    catch (NumberFormatException ignored){
-                        invalidTemplate = true;
-                    }
-                }
-                // APV
-                else if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.APV)){
-                    try{
-                        tempDrinkTemplate.SetAPV(Float.parseFloat(rawField.getTextContent()));
-                    }
-                    catch (NumberFormatException ignored){
-                        invalidTemplate = true;
-                    }
-                }
-                // Calories
-                else if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.Calories)){
-                    try{
-                        tempDrinkTemplate.SetCalories(Float.parseFloat(rawField.getTextContent()));
-                    }
-                    catch (NumberFormatException ignored){
-                        invalidTemplate = true;
-                    }
-                }
-                // Price
-                else if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.Price)){
-                    try{
-                        tempDrinkTemplate.SetPrice(Float.parseFloat(rawField.getTextContent()));
-                    }
-                    catch (NumberFormatException ignored){
-                        invalidTemplate = true;
-                    }
-                }
-                // ImageFilePath
-                else if (rawField.getNodeName().equals(Universals.XMLTags.DrinkTemplateTags.ImageFilePath)){
-                    tempDrinkTemplate.SetImageFilePath(rawField.getTextContent());
-                }
-                // Invalid tag encountered in else statement. Set invalid template to true
-                else{
-                    invalidTemplate = true;
-                }
+                // Set the field matching the node's tag. If the field fails to parse or the tag
+                //  isn't a template field, the template is invalid.
+                invalidTemplate = !DrinkTemplateManager.ReadTemplateField(
+                        tempDrinkTemplate,
+                        rawField.getNodeName(),
+                        rawField.getTextContent()
+                );
             }
 
             // If the template is valid, add it to the holding list
@@ -548,7 +927,7 @@ public class DrinkTemplateManager {
         // If append is set to false, empty contents of DrinkTemplate HashMap
         //  Then add the contents of the holding list to the DrinkTemplateManager
         if (!append){
-            this.templateHashMap.clear();
+            this.ClearTemplates();
         }
         // Add contents of the holder list to the DrinkTemplateManager
         for (int i = 0; i < holderList.size(); i++){
@@ -559,315 +938,2577 @@ public class DrinkTemplateManager {
         return true;
     }
 
-    ///
-    /// Test Methods
-    ///
     /// <summary>
-    ///  Each test method is self contained and runs different scenarios based on the
-    ///     method associated with that method. Results of tests are printed to LogCat using
-    ///     Log.d method
-    ///     Cases are split into two categories: Test non-exception and test exception
-    ///         Test non-exception tests normal use of methods
-    ///         Test exception test methods throwing exceptions when they should be
-    ///     Additionally, tests can be set to only print failure messages or all messages.
-    /// </summary>
+    ///     Reads the contents of the DrinkTemplateManager from a file within a directory
+    ///     using a streaming pull parser rather than a DOM document.
+    ///     targetDirectory: directory to read xml file from
+    ///     targetFileName: name of file to be read from.
+    ///         name of file expected to NOT contain ".xml"
+    ///     append: Same behavior as ReadTemplateList. Templates with an existing name
+    ///         aren't added and don't modify the existing template.
+    ///     Unlike ReadTemplateList, templates are constructed one element at a time as the
+    ///     parser moves through the file, so the parser's memory use doesn't grow with the
+    ///     size of the file.
+    ///     Returns true if successful.
+    ///     Returns false otherwise. If false is returned, the contents of the
+    ///     DrinkTemplateManager are left unchanged.
     ///
+    ///     *Note invalid templates are skipped the same as in ReadTemplateList.
+    /// </summary>
+    public boolean ReadTemplateListStreaming(File targetDirectory, String targetFileName, boolean append){
 
-    // Test Put Template System method
-    public static void TestPutTemplate(boolean printAllMessages){
+        // Locals
+        XmlPullParser parser;
+        InputStream inputFileStream;
+        File inputFile;
+        DrinkTemplate tempDrinkTemplate;
+        int eventType;
+        ArrayList<DrinkTemplate> holderList = new ArrayList<DrinkTemplate>();
 
-        // Test Locals
-        DrinkTemplateManager testManager = new DrinkTemplateManager();
-        DrinkTemplate testTemplate = new DrinkTemplate();
-        String testTemplateName = "test name ";
-        short testShort = 0;
+        // Verify file's existence
+        inputFile = DrinkTemplateManager.FindTemplateListFile(targetDirectory, targetFileName, ".xml");
+        if (inputFile == null) return false;
 
-        // Non-exception cases
-        //  -Case 1, normal values
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            testManager.PutTemplate(testTemplate);
+        try{
+            inputFileStream = DatabaseManager.OpenReadStream(inputFile);
+        } catch (IOException e) {
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileNotFound
+            );
+            return false;
         }
-        for (testShort = 0; testShort < 10; testShort++){
-            if (testManager.GetTemplate(testTemplateName + testShort) == null) {
-                testShort = 11;
+
+        try{
+            // Set up pull parser over the file
+            parser = Xml.newPullParser();
+            parser.setFeature(XmlPullParser.FEATURE_PROCESS_NAMESPACES, false);
+            parser.setInput(inputFileStream, null);
+
+            // Verify DrinkTemplateManager Header as root
+            parser.nextTag();
+            if (!Universals.XMLTags.DrinkTemplateManagerTags.Header.equals(parser.getName())){
                 Log.d(
-                        Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(false, 1));
+                        Universals.ErrorMessages.ErrorMessageTag,
+                        Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidXMLFile
+                );
+                inputFileStream.close();
+                return false;
             }
-        }
-        if (testShort == 10 && printAllMessages){
-            Log.d(
-                    Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(true, 1));
-        }
 
-        // -Case 2, put template while key of template exists within dictionary (expect false return)
-        testManager = new DrinkTemplateManager();
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            testManager.PutTemplate(testTemplate);
+            // Construct a template each time a template element is reached. Templates that
+            //  are valid are added to a temporary list for holding.
+            eventType = parser.next();
+            while (eventType != XmlPullParser.END_DOCUMENT){
+                if (eventType == XmlPullParser.START_TAG
+                        && Universals.XMLTags.DrinkTemplateTags.Header.equals(parser.getName())){
+                    tempDrinkTemplate = DrinkTemplateManager.ReadTemplateElement(parser);
+                    if (tempDrinkTemplate != null){
+                        holderList.add(tempDrinkTemplate);
+                    }
+                }
+                eventType = parser.next();
+            }
         }
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            if (testManager.PutTemplate(testTemplate)) {
-                testShort = 11;
-                Log.d(
-                        Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(false, 12));
+        catch (XmlPullParserException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileParseError
+            );
+            try{
+                inputFileStream.close();
+            }
+            catch (IOException ex){
+                return false;
             }
+            return false;
         }
-        if (testShort == 10 && printAllMessages){
+        catch (IOException e){
             Log.d(
-                    Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(true, 2));
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError
+            );
+            try{
+                inputFileStream.close();
+            }
+            catch (IOException ex){
+                return false;
+            }
+            return false;
         }
-    }
-    // Test Modify Template System method
-    public static void TestModifyTemplate(boolean printAllMessages){
 
-        // Test Locals
-        DrinkTemplateManager testManager = new DrinkTemplateManager();
-        DrinkTemplate testTemplate = new DrinkTemplate();
-        String testTemplateName = "test name ";
-        short testShort = 0;
+        // Attempt to close the input stream as it is no longer needed.
+        try{
+            inputFileStream.close();
+        }
+        catch (IOException ignored){
+        }
+
+        // If append is set to false, empty contents of DrinkTemplate HashMap
+        //  Then add the contents of the holding list to the DrinkTemplateManager
+        if (!append){
+            this.ClearTemplates();
+        }
+        for (int i = 0; i < holderList.size(); i++){
+            this.PutTemplate(holderList.get(i));
+        }
+
+        // Return true when finished
+        return true;
+    }
+
+    /// <summary>
+    ///     Writes the contents of the DrinkTemplateManager to a directory in the binary
+    ///     template list format.
+    ///     targetDirectory: directory to store binary file
+    ///     fileName: name of file to be created or overwritten and stored to.
+    ///         name of file expected to NOT contain an extension
+    ///     The file starts with a header made of the format's magic number, the format version,
+    ///     and the number of templates. Each template follows as a record:
+    ///         -Name (length-prefixed UTF-8)
+    ///         -Servings (short)
+    ///         -Type (short)
+    ///         -APV (float)
+    ///         -Calories (float)
+    ///         -Price (float)
+    ///         -ImageFilePath (length-prefixed UTF-8)
+    ///     The header and each record are followed by their CRC-32C checksum, so reads can
+    ///     tell a corrupt or cut off file from a small one.
+    ///     When finished, the number of bytes written and the time taken are kept and
+    ///     can be retrieved with GetLastWriteByteCount and GetLastWriteElapsedNanos.
+    ///     Returns true if successful.
+    ///     Returns false otherwise.
+    /// </summary>
+    public boolean WriteTemplateListBinary(File targetDirectory, String fileName){
+
+        // Locals
+        long startTime = System.nanoTime();
+        File outputFile;
+
+        // If target directory doesn't exist, return false
+        if (!targetDirectory.exists()) return false;
+
+        // Write the templates to the file
+        outputFile = new File(targetDirectory, fileName + Universals.FileNames.BinaryExtension);
+        //  The templates are copied first, since the count written must match the records written.
+        //  If one can't be read from the file it's stored in, the file isn't replaced.
+        ArrayList<DrinkTemplate> templates = this.CopyTemplates();
+        if (templates == null || !DrinkTemplateBinaryFormat.WriteTemplatesBinary(templates, outputFile)) return false;
+
+        // Record the cost of the write
+        this.lastWriteByteCount = outputFile.length();
+        this.lastWriteElapsedNanos = System.nanoTime() - startTime;
+        return true;
+    }
+
+    /// <summary>
+    ///     Given a target directory and file name (without extension), creates a task that
+    ///     saves the manager's templates for a PersistenceScheduler to run.
+    ///     If template changes are journaled, they're already written, so the task flushes
+    ///     the journal to disk. Otherwise, the templates are copied now and the task writes
+    ///     the copy to the binary file, so changes made after this call aren't part of it.
+    ///     The task logs the bytes written and time taken when it succeeds.
+    ///     Returns null if a template couldn't be read from the file it's stored in, so the
+    ///     file isn't replaced by a copy missing it.
+    /// </summary>
+    public PersistenceScheduler.WriteTask CreateSaveTask(final File targetDirectory, final String fileName){
+
+        // Journaled templates only need their journal flushed
+        final DrinkTemplateJournal saveJournal = this.changeRecorder.GetJournal();
+        if (saveJournal != null && saveJournal.IsOpen()){
+            return new PersistenceScheduler.WriteTask() {
+                @Override
+                public boolean Write() {
+                    if (!saveJournal.Flush()) return false;
+                    Log.d(
+                            Universals.StatisticMessages.StatisticMessageTag,
+                            Universals.StatisticMessages.SaveTemplatesMessage(
+                                    saveJournal.GetLastFlushByteCount(),
+                                    saveJournal.GetLastFlushElapsedNanos()
+                            )
+                    );
+                    return true;
+                }
+            };
+        }
+
+        // Otherwise, copy the templates and write the copy
+        final ArrayList<DrinkTemplate> templates = this.CopyTemplates();
+        if (templates == null) return null;
+        return new PersistenceScheduler.WriteTask() {
+            @Override
+            public boolean Write() {
+                long startTime = System.nanoTime();
+                if (!targetDirectory.exists()) return false;
+                File outputFile = new File(targetDirectory, fileName + Universals.FileNames.BinaryExtension);
+                if (!DrinkTemplateBinaryFormat.WriteTemplatesBinary(templates, outputFile)) return false;
+
+                DrinkTemplateManager.this.lastWriteByteCount = outputFile.length();
+                DrinkTemplateManager.this.lastWriteElapsedNanos = System.nanoTime() - startTime;
+                Log.d(
+                        Universals.StatisticMessages.StatisticMessageTag,
+                        Universals.StatisticMessages.SaveTemplatesMessage(
+                                DrinkTemplateManager.this.lastWriteByteCount,
+                                DrinkTemplateManager.this.lastWriteElapsedNanos
+                        )
+                );
+                return true;
+            }
+        };
+    }
+
+    /// <summary>
+    ///     Reads the contents of the DrinkTemplateManager from a file in the binary
+    ///     template list format within a directory.
+    ///     targetDirectory: directory to read binary file from
+    ///     targetFileName: name of file to be read from.
+    ///         name of file expected to NOT contain an extension
+    ///     append: Same behavior as ReadTemplateList. Templates with an existing name
+    ///         aren't added and don't modify the existing template.
+    ///     The header and each record are checked against their checksums as they're read.
+    ///     Returns true if successful.
+    ///     Returns false otherwise, including if any part of the file is corrupt. Use
+    ///     RecoverTemplateListBinary to salvage a corrupt file. If false is returned, the contents of the
+    ///     DrinkTemplateManager are left unchanged.
+    /// </summary>
+    public boolean ReadTemplateListBinary(File targetDirectory, String targetFileName, boolean append){
+
+        // Locals
+        DataInputStream inputStream;
+        File inputFile;
+        long fileLength;
+        long recordsLength;
+        DrinkTemplateBinaryFormat.BinaryHeader header;
+        Crc32c checksum = new Crc32c();
+        ArrayList<DrinkTemplate> holderList;
+
+        // Verify file's existence
+        inputFile = DrinkTemplateManager.FindTemplateListFile(targetDirectory, targetFileName, Universals.FileNames.BinaryExtension);
+        if (inputFile == null) return false;
+        fileLength = inputFile.length();
+
+        // Bytes are checksummed as they're read
+        try{
+            inputStream = new DataInputStream(new CheckedInputStream(
+                    new BufferedInputStream(DatabaseManager.OpenReadStream(inputFile), DrinkTemplateManager.writeBufferSize),
+                    checksum
+            ));
+        } catch (IOException e) {
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileNotFound
+            );
+            return false;
+        }
+
+        // Verify the header, then read and verify each record into a temporary list for holding.
+        try{
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(inputStream);
+            if (header == null || !header.FitsLength(fileLength)){
+                inputStream.close();
+                return false;
+            }
+            // No record can run past the end of the file, so a corrupt length fails the read
+            //  instead of being allocated
+            recordsLength = fileLength - header.GetRecordsOffset();
+            holderList = new ArrayList<DrinkTemplate>(header.templateCount);
+            for (int i = 0; i < header.templateCount; i++){
+                if (header.IsChecksummed()) holderList.add(DrinkTemplateBinaryFormat.ReadChecksummedTemplate(inputStream, checksum, recordsLength));
+                else holderList.add(DrinkTemplateBinaryFormat.ReadBinaryTemplate(inputStream, recordsLength));
+            }
+            inputStream.close();
+        }
+        catch (IOException e){
+            // Includes the file ending before all of its records were read, and a record
+            //  failing its checksum
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError
+            );
+            try{
+                inputStream.close();
+            }
+            catch (IOException ex){
+                return false;
+            }
+            return false;
+        }
+
+        // If append is set to false, empty contents of DrinkTemplate HashMap
+        //  Then add the contents of the holding list to the DrinkTemplateManager
+        if (!append){
+            this.ClearTemplates();
+        }
+        for (int i = 0; i < holderList.size(); i++){
+            this.PutTemplate(holderList.get(i));
+        }
+
+        // Return true when finished
+        return true;
+    }
+
+    /// <summary>
+    ///     Reads the contents of the DrinkTemplateManager from a file in the binary template
+    ///     list format in catalog mode. Only the name and location of each template is read.
+    ///     A template's other fields are decoded from the file the first time it is used, and
+    ///     a bounded number of decoded templates are kept cached.
+    ///     targetDirectory: directory to read binary file from
+    ///     targetFileName: name of file to be read from.
+    ///         name of file expected to NOT contain an extension
+    ///     cacheCapacity: number of decoded templates kept cached
+    ///     The manager's templates are replaced. ContainsTemplate and the size of the
+    ///     template list don't decode any template.
+    ///     Must be called before a journal is attached, since journaling every template read
+    ///     would decode all of them.
+    ///     Returns true if successful.
+    ///     Returns false otherwise. If false is returned, the contents of the
+    ///     DrinkTemplateManager are left unchanged.
+    /// </summary>
+    public boolean ReadTemplateListIndexed(File targetDirectory, String targetFileName){
+        return this.ReadTemplateListIndexed(targetDirectory, targetFileName, LazyDrinkTemplateMap.DefaultCacheCapacity);
+    }
+    public boolean ReadTemplateListIndexed(File targetDirectory, String targetFileName, int cacheCapacity){
+
+        // Locals
+        File inputFile;
+        LazyDrinkTemplateMap indexedMap;
+
+        if (this.changeRecorder.GetJournal() != null){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorJournalAttached
+            );
+            return false;
+        }
+
+        // Verify file's existence, then read its index
+        inputFile = DrinkTemplateManager.FindTemplateListFile(targetDirectory, targetFileName, Universals.FileNames.BinaryExtension);
+        if (inputFile == null) return false;
+        indexedMap = LazyDrinkTemplateMap.Open(inputFile, cacheCapacity);
+        if (indexedMap == null) return false;
+
+        // Replace the templates with the indexed templates. Done under the mutation lock so
+        //  listeners see the reset after every earlier change.
+        DrinkTemplateJournal currentJournal = this.changeRecorder.GetJournal();
+        Object mutationLock = this.changeRecorder.GetMutationLock(currentJournal, this.versions.IsHistoryEnabled());
+        if (mutationLock == null) mutationLock = this.changeRecorder.GetChangeLock();
+        synchronized (mutationLock){
+            long time = System.currentTimeMillis();
+            this.versions.RecordHistoryReset(this.templateHashMap, time);
+            this.versions.PinAll();
+            this.templateHashMap.clear();
+            this.templateHashMap = indexedMap;
+            long sequence = this.versions.Advance();
+            this.indexes.DropAll();
+            this.changeRecorder.Queue(new DrinkTemplateChange(
+                    sequence, time, DrinkTemplateChange.ChangeType.RESET, null, null, null
+            ));
+        }
+        this.changeRecorder.Deliver();
+        return true;
+    }
+
+    /// <summary>
+    ///     Reads the contents of the DrinkTemplateManager from a file in the binary template
+    ///     list format, decoding records on several threads. Meant for very large catalogs.
+    ///     targetDirectory: directory to read binary file from
+    ///     targetFileName: name of file to be read from.
+    ///         name of file expected to NOT contain an extension
+    ///     append: Same behavior as ReadTemplateListBinary.
+    ///     parallelism: number of threads records are decoded on
+    ///     The file is read into memory, then split into chunks at record boundaries. Chunks
+    ///     are decoded on a fork/join pool, and the templates are put into the manager in the
+    ///     order they appear in the file, so if a name appears more than once the first
+    ///     template with that name is kept, the same as ReadTemplateListBinary.
+    ///     Returns true if successful.
+    ///     Returns false otherwise. If false is returned, the contents of the
+    ///     DrinkTemplateManager are left unchanged.
+    /// </summary>
+    public boolean ReadTemplateListParallel(File targetDirectory, String targetFileName, boolean append){
+        return this.ReadTemplateListParallel(targetDirectory, targetFileName, append, Runtime.getRuntime().availableProcessors());
+    }
+    public boolean ReadTemplateListParallel(File targetDirectory, String targetFileName, boolean append, int parallelism){
+
+        // Locals
+        File inputFile;
+        DrinkTemplate[] holderArray;
+
+        // Verify file's existence, then decode it into a temporary array for holding
+        inputFile = DrinkTemplateManager.FindTemplateListFile(targetDirectory, targetFileName, Universals.FileNames.BinaryExtension);
+        if (inputFile == null) return false;
+        holderArray = DrinkTemplateParallelReader.ReadTemplates(inputFile, parallelism);
+        if (holderArray == null) return false;
+
+        // If append is set to false, empty contents of DrinkTemplate HashMap
+        //  Then add the contents of the holding array to the DrinkTemplateManager in file order
+        if (!append){
+            this.ClearTemplates();
+        }
+        for (int i = 0; i < holderArray.length; i++){
+            this.PutTemplate(holderArray[i]);
+        }
+
+        // Return true when finished
+        return true;
+    }
+
+    /// <summary>
+    ///     Reads every intact template from a damaged file in the binary template list format.
+    ///     targetDirectory: directory to read binary file from
+    ///     targetFileName: name of file to be read from.
+    ///         name of file expected to NOT contain an extension
+    ///     append: Same behavior as ReadTemplateListBinary.
+    ///     Rather than stopping at the first error, the file is scanned for records that match
+    ///     their checksums. Past a corrupt record, the scan moves one byte at a time until it
+    ///     finds the next intact record, so a damaged record costs only itself. If the header
+    ///     is corrupt, records are looked for after where it would end.
+    ///     Version 1 files have no checksums, so their records are read until one can't be
+    ///     parsed, and the rest of the file is reported corrupt.
+    ///     Each corrupt range is logged and listed in the result.
+    ///     Returns the result, which reports an undamaged file as intact.
+    ///     Returns null if the file couldn't be found or read. If null is returned, the
+    ///     contents of the DrinkTemplateManager are left unchanged.
+    /// </summary>
+    public DrinkTemplateRecoveryResult RecoverTemplateListBinary(File targetDirectory, String targetFileName, boolean append){
+
+        // Locals
+        File inputFile;
+        ArrayList<DrinkTemplate> holderList = new ArrayList<>();
+        DrinkTemplateRecoveryResult result;
+
+        // Verify file's existence, then salvage its intact records into a temporary list for holding
+        inputFile = DrinkTemplateManager.FindTemplateListFile(targetDirectory, targetFileName, Universals.FileNames.BinaryExtension);
+        if (inputFile == null) return null;
+        result = DrinkTemplateRecovery.Recover(inputFile, holderList);
+        if (result == null) return null;
+
+        // If append is set to false, empty contents of DrinkTemplate HashMap
+        //  Then add the recovered templates to the DrinkTemplateManager in file order
+        if (!append){
+            this.ClearTemplates();
+        }
+        for (int i = 0; i < holderList.size(); i++){
+            this.PutTemplate(holderList.get(i));
+        }
+        return result;
+    }
+
+    /// <summary>
+    ///     Imports a catalog of templates from CSV text in batches, without reading the whole
+    ///     input into memory. See DrinkTemplateImporter for the CSV layout.
+    ///     input: reader over the CSV text. It isn't closed.
+    ///     updateExisting: whether a record whose name matches an existing template replaces
+    ///         it. If false, such records are skipped.
+    ///     Names are trimmed and their spacing normalized, and are compared ignoring case.
+    ///     The first record with a name is used and later ones are skipped.
+    ///     Returns the number of records inserted, updated, skipped, and rejected, and the
+    ///     time the import took.
+    /// </summary>
+    public DrinkTemplateImportResult ImportTemplatesCSV(Reader input, boolean updateExisting){
+        return this.ImportTemplatesCSV(input, updateExisting, DrinkTemplateImporter.DefaultBatchSize);
+    }
+    DrinkTemplateImportResult ImportTemplatesCSV(Reader input, boolean updateExisting, int batchSize){
+        BufferedReader bufferedInput = input instanceof BufferedReader
+                ? (BufferedReader)input
+                : new BufferedReader(input, DrinkTemplateManager.writeBufferSize);
+        DrinkTemplateImportResult result = new DrinkTemplateImporter(this, updateExisting, batchSize).ImportCSV(bufferedInput);
+        DrinkTemplateManager.LogImportResult(result);
+        return result;
+    }
+
+    /// <summary>
+    ///     Imports a catalog of templates from XML text in batches, without reading the whole
+    ///     input into memory. Every drinkTemplate element is read as a record.
+    ///     Otherwise the same as ImportTemplatesCSV.
+    /// </summary>
+    public DrinkTemplateImportResult ImportTemplatesXML(Reader input, boolean updateExisting){
+        return this.ImportTemplatesXML(input, updateExisting, DrinkTemplateImporter.DefaultBatchSize);
+    }
+    DrinkTemplateImportResult ImportTemplatesXML(Reader input, boolean updateExisting, int batchSize){
+        DrinkTemplateImportResult result = new DrinkTemplateImporter(this, updateExisting, batchSize).ImportXML(input);
+        DrinkTemplateManager.LogImportResult(result);
+        return result;
+    }
+
+    /// <summary>
+    ///     Imports a catalog of templates from a CSV or XML file, chosen by the file's extension.
+    ///     Returns the result of the import.
+    ///     Returns null if the file couldn't be opened or its extension isn't .csv or .xml.
+    /// </summary>
+    public DrinkTemplateImportResult ImportTemplateFile(File inputFile, boolean updateExisting){
+
+        String lowerCaseName = inputFile.getName().toLowerCase(Locale.ROOT);
+        boolean isCSV = lowerCaseName.endsWith(Universals.FileNames.CSVExtension);
+        if (!isCSV && !lowerCaseName.endsWith(Universals.FileNames.XMLExtension)){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ImportTemplatesErrorUnsupportedFile
+            );
+            return null;
+        }
+
+        try (BufferedReader input = new BufferedReader(
+                new InputStreamReader(new FileInputStream(inputFile), StandardCharsets.UTF_8),
+                DrinkTemplateManager.writeBufferSize)){
+            if (isCSV) return this.ImportTemplatesCSV(input, updateExisting);
+            else return this.ImportTemplatesXML(input, updateExisting);
+        }
+        catch (IOException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileNotFound
+            );
+            return null;
+        }
+    }
+
+    ///
+    /// - Backend Helpers
+    ///
+
+    /// <summary>
+    ///     Returns a copy of the manager's templates, for writes that replace the template
+    ///     list file. Templates removed while the copy is made are left out.
+    ///     In catalog mode a template can fail to decode from its file (an I/O error or a
+    ///     failed checksum) while still being in the map. Leaving it out of the copy would
+    ///     delete it from the file, so the copy fails instead.
+    ///     Returns null, logging why, if a template in the map couldn't be read.
+    /// </summary>
+    private ArrayList<DrinkTemplate> CopyTemplates(){
+        Map<String, DrinkTemplate> templates = this.templateHashMap;
+        ArrayList<DrinkTemplate> copy = new ArrayList<>(templates.size());
+        for (Map.Entry<String, DrinkTemplate> entry : templates.entrySet()){
+            DrinkTemplate template = entry.getValue();
+            if (template != null) copy.add(template);
+            else if (templates.containsKey(entry.getKey())){
+                Log.d(
+                        Universals.ErrorMessages.ErrorMessageTag,
+                        Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.CopyTemplatesErrorUnreadableTemplate
+                );
+                return null;
+            }
+        }
+        return copy;
+    }
+
+    /// <summary>
+    ///     Given a directory, a file name, and an extension, returns the file within the directory
+    ///     if the directory and file both exist. Returns null and logs the reason otherwise.
+    /// </summary>
+    private static File FindTemplateListFile(File targetDirectory, String targetFileName, String extension){
+
+        // Verify directory's existence
+        if (!targetDirectory.exists() || !targetDirectory.isDirectory()){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorDirectoryNotFound
+            );
+            return null;
+        }
+
+        // Verify file's existence
+        File inputFile = new File(targetDirectory, targetFileName + extension);
+        if (!inputFile.exists() || !inputFile.isFile()){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileNotFound
+            );
+            return null;
+        }
+        return inputFile;
+    }
+
+    /// <summary>
+    ///     Given a writer, a tag, and text, writes an XML element containing the text,
+    ///     escaped the same way the XML transformer used by WriteTemplateList escapes it.
+    ///     Like the transformer, characters above U+FFFF are written as character
+    ///     references, and a surrogate without its pair is left out.
+    ///     An element with no text is written as an empty element.
+    /// </summary>
+    private static void WriteXMLElement(Writer writer, String tag, String text) throws IOException {
+
+        // Empty element
+        if (text == null || text.isEmpty()){
+            writer.write("<" + tag + "/>");
+            return;
+        }
+
+        writer.write("<" + tag + ">");
+        for (int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            switch (c){
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '\r':
+                    writer.write("&#13;");
+                    break;
+                default:
+                    if (c < 0x20 && c != '\t' && c != '\n'){
+                        writer.write("&#" + (int)c + ";");
+                    }
+                    else if (Character.isHighSurrogate(c)
+                            && i + 1 < text.length()
+                            && Character.isLowSurrogate(text.charAt(i + 1))){
+                        writer.write("&#" + Character.toCodePoint(c, text.charAt(i + 1)) + ";");
+                        i++;
+                    }
+                    else if (Character.isSurrogate(c)){
+                        // Left out, as the transformer leaves it out
+                    }
+                    else{
+                        writer.write(c);
+                    }
+                    break;
+            }
+        }
+        writer.write("</" + tag + ">");
+    }
+
+    // Logs the counts and throughput of an import
+    private static void LogImportResult(DrinkTemplateImportResult result){
+        Log.d(
+                Universals.StatisticMessages.StatisticMessageTag,
+                Universals.StatisticMessages.ImportTemplatesMessage(
+                        result.GetInsertedCount(),
+                        result.GetUpdatedCount(),
+                        result.GetSkippedCount(),
+                        result.GetRejectedCount(),
+                        result.GetRecordsPerSecond()
+                )
+        );
+    }
+
+    /// <summary>
+    ///     Given a template, the tag of a template field, and the raw text of that field,
+    ///     sets the matching field of the template.
+    ///     Returns true if the tag is a template field and its text parsed.
+    ///     Returns false otherwise.
+    /// </summary>
+    private static boolean ReadTemplateField(DrinkTemplate template, String tag, String text){
+        try{
+            // Name
+            if (tag.equals(Universals.XMLTags.DrinkTemplateTags.Name)){
+                template.SetName(text);
+            }
+            // Servings
+            else if (tag.equals(Universals.XMLTags.DrinkTemplateTags.Servings)){
+                template.SetServings(Short.parseShort(text));
+            }
+            // Type
+            else if (tag.equals(Universals.XMLTags.DrinkTemplateTags.Type)){
+                template.SetType(Short.parseShort(text));
+            }
+            // APV
+            else if (tag.equals(Universals.XMLTags.DrinkTemplateTags.APV)){
+                template.SetAPV(Float.parseFloat(text));
+            }
+            // Calories
+            else if (tag.equals(Universals.XMLTags.DrinkTemplateTags.Calories)){
+                template.SetCalories(Float.parseFloat(text));
+            }
+            // Price
+            else if (tag.equals(Universals.XMLTags.DrinkTemplateTags.Price)){
+                template.SetPrice(Float.parseFloat(text));
+            }
+            // ImageFilePath
+            else if (tag.equals(Universals.XMLTags.DrinkTemplateTags.ImageFilePath)){
+                template.SetImageFilePath(text);
+            }
+            // Invalid tag encountered
+            else{
+                return false;
+            }
+        }
+        catch (NumberFormatException ignored){
+            return false;
+        }
+        return true;
+    }
+
+    /// <summary>
+    ///     Given a pull parser positioned on the start tag of a template element, reads
+    ///     the element's fields and leaves the parser on the template's end tag.
+    ///     Returns the template if all of its fields are valid.
+    ///     Returns null otherwise.
+    /// </summary>
+    static DrinkTemplate ReadTemplateElement(XmlPullParser parser) throws XmlPullParserException, IOException {
+
+        DrinkTemplate template = new DrinkTemplate();
+        int templateDepth = parser.getDepth();
+        boolean invalidTemplate = false;
+        int eventType = parser.next();
+
+        while (!(eventType == XmlPullParser.END_TAG && parser.getDepth() == templateDepth)){
+            if (eventType == XmlPullParser.START_TAG){
+                String tag = parser.getName();
+                String text = DrinkTemplateManager.ReadElementText(parser);
+                if (!invalidTemplate && !DrinkTemplateManager.ReadTemplateField(template, tag, text)){
+                    invalidTemplate = true;
+                }
+            }
+            // Text between fields other than whitespace doesn't belong to a template
+            else if (eventType == XmlPullParser.TEXT && !parser.isWhitespace()){
+                invalidTemplate = true;
+            }
+            eventType = parser.next();
+        }
+
+        if (invalidTemplate) return null;
+        return template;
+    }
+
+    /// <summary>
+    ///     Given a pull parser positioned on a start tag, returns all text contained within
+    ///     that element and leaves the parser on the element's end tag.
+    /// </summary>
+    private static String ReadElementText(XmlPullParser parser) throws XmlPullParserException, IOException {
+
+        StringBuilder text = new StringBuilder();
+        int elementDepth = parser.getDepth();
+        int eventType = parser.next();
+
+        while (!(eventType == XmlPullParser.END_TAG && parser.getDepth() == elementDepth)){
+            if (eventType == XmlPullParser.TEXT){
+                text.append(parser.getText());
+            }
+            eventType = parser.next();
+        }
+        return text.toString();
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    // Test Put Template System method
+    public static void TestPutTemplate(boolean printAllMessages){
+
+        // Test Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate = new DrinkTemplate();
+        String testTemplateName = "test name ";
+        short testShort = 0;
+
+        // Non-exception cases
+        //  -Case 1, normal values
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            testManager.PutTemplate(testTemplate);
+        }
+        for (testShort = 0; testShort < 10; testShort++){
+            if (testManager.GetTemplate(testTemplateName + testShort) == null) {
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(false, 1));
+            }
+        }
+        if (testShort == 10 && printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(true, 1));
+        }
+
+        // -Case 2, put template while key of template exists within dictionary (expect false return)
+        testManager = new DrinkTemplateManager();
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            testManager.PutTemplate(testTemplate);
+        }
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            if (testManager.PutTemplate(testTemplate)) {
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(false, 12));
+            }
+        }
+        if (testShort == 10 && printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplatePutMessage(true, 2));
+        }
+    }
+    // Test Modify Template System method
+    public static void TestModifyTemplate(boolean printAllMessages){
+
+        // Test Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate = new DrinkTemplate();
+        String testTemplateName = "test name ";
+        short testShort = 0;
+
+        // Non-exception cases
+        //  -Case 1, normal values
+        testTemplate.SetServings((short)1);
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            testManager.PutTemplate(testTemplate);
+        }
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            testTemplate.SetServings((short)10);
+            if (!testManager.ModifyTemplate(testTemplate)) {
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(false, 1));
+            }
+            else if (testManager.GetTemplate(testTemplate.GetName()).GetServings() != 10){
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(false, 1));
+            }
+        }
+        if (testShort == 10 && printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(true, 1));
+        }
+
+        // -Case 2, modify a non-existent template (expected false return)
+        testManager = new DrinkTemplateManager();
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            if (testManager.ModifyTemplate(testTemplate)) {
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(false, 2));
+            }
+        }
+        if (testShort == 10 && printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(true, 2));
+        }
+    }
+
+    // Test Remove Template System Method
+    public static void TestRemoveTemplate(boolean printAllMessages){
+        // Test Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate = new DrinkTemplate();
+        String testTemplateName = "test name ";
+        short testShort = 0;
+
+        // Non-exception cases
+        //  -Case 1, normal values
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            testManager.PutTemplate(testTemplate);
+        }
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            if (!testManager.RemoveTemplate(testTemplate.GetName())) {
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(false, 1));
+            }
+        }
+        if (testShort == 10 && printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(true, 1));
+        }
+
+        // -Case 2, remove a non-existent template (expected false return)
+        testManager = new DrinkTemplateManager();
+        for (testShort = 0; testShort < 10; testShort++){
+            testTemplate.SetName(testTemplateName + testShort);
+            if (testManager.RemoveTemplate(testTemplate.GetName())) {
+                testShort = 11;
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(false, 2));
+            }
+        }
+        if (testShort == 10 && printAllMessages){
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(true, 2));
+        }
+    }
+
+    // Test WriteTemplateList Backend Method
+    public static void TestReadWriteTemplateList(boolean printAllMessages, Context context) {
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager testManager;
+        DrinkTemplate testTemplate;
+        int case3TemplatesGenerated = 100;
+        int i;
+
+        // Non-exception cases
+        //  -Case 1, Write. store to app root directory. No read verification
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName");
+        testManager.PutTemplate(testTemplate);
+        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile")) {
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 1)
+                );
+        }
+        else {
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 1)
+                );
+        }
+        //  -Case 2, Read Write. Store to app root directory. Read verification without append of written content (small)
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName");
+        testManager.PutTemplate(testTemplate);
+        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile2")) {
+            testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateFile2", false);
+            if (testManager.GetTemplate("testName") != null) {
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 2)
+                    );
+            } else {
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 2)
+                );
+            }
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 2)
+            );
+        }
+
+        //  -Case 3. Read Write. Store to app root directory. Read verification without append of written content (large)
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName");
+        testTemplate.SetPrice((float)1.1);
+        testTemplate.SetAPV((float)1.1);
+        testTemplate.SetCalories((float)1.1);
+        testTemplate.SetServings((short)1);
+        testTemplate.SetImageFilePath("testPath");
+        testTemplate.SetType((short)1);
+        for ( i = 0; i < case3TemplatesGenerated; i++){
+            testTemplate.SetName("testName " + String.valueOf(i));
+            testManager.PutTemplate(testTemplate);
+        }
+        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile3")){
+            testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateFile3", false);
+            for ( i = 0; i < case3TemplatesGenerated; i++){
+                testTemplate = testManager.GetTemplate("testName " + String.valueOf(i));
+                if (testTemplate == null){
+                    i = case3TemplatesGenerated + 1;
+                }
+                else{
+                    if (
+                            !(testTemplate.GetName().equals("testName " + String.valueOf(i)) &&
+                            testTemplate.GetServings() == 1 &&
+                            testTemplate.GetAPV() == 1.1 &&
+                            testTemplate.GetCalories() == 1.1 &&
+                            testTemplate.GetType().GetValue() == (short)1 &&
+                            testTemplate.GetPrice() == 1.1 &&
+                            testTemplate.GetImageFilePath().equals("testPath")      )
+                    ) i = case3TemplatesGenerated + 1;
+                }
+            }
+            if (i == case3TemplatesGenerated && printAllMessages){
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 3)
+                );
+            }
+            else if (i == case3TemplatesGenerated + 1){
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 3)
+                );
+            }
+        }
+
+        //  -Case 4. Read Write. Store to app root directory. Read verification with append of written content (large)
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName");
+        testTemplate.SetPrice((float)1.1);
+        testTemplate.SetAPV((float)1.1);
+        testTemplate.SetCalories((float)1.1);
+        testTemplate.SetServings((short)1);
+        testTemplate.SetImageFilePath("testPath");
+        testTemplate.SetType((short)1);
+        for ( i = 0; i < case3TemplatesGenerated; i++){
+            testTemplate.SetName("testName " + String.valueOf(i));
+            testManager.PutTemplate(testTemplate);
+        }
+        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile4")){
+            testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateFile4", true);
+            for ( i = 0; i < case3TemplatesGenerated; i++){
+                testTemplate = testManager.GetTemplate("testName " + String.valueOf(i));
+                if (testTemplate != null){
+                    i = case3TemplatesGenerated + 1;
+                }
+            }
+            if (i == case3TemplatesGenerated && printAllMessages){
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 4)
+                );
+            }
+            else if (i == case3TemplatesGenerated + 1){
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 4)
+                );
+            }
+        }
+
+
+        // Exception cases
+
+    }
+
+    // Test ReadTemplateListStreaming Backend Method
+    public static void TestReadTemplateListStreaming(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager testManager;
+        DrinkTemplate testTemplate;
+        int templatesGenerated = 100;
+        int i;
+
+        // Non-exception cases
+        //  -Case 1, Read written content without append. Verify every field of every template
+        testManager = new DrinkTemplateManager();
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName <&> " + i);
+            testTemplate.SetPrice((float)1.1);
+            testTemplate.SetAPV((float)1.1);
+            testTemplate.SetCalories((float)1.1);
+            testTemplate.SetServings((short)1);
+            testTemplate.SetImageFilePath("testPath");
+            testTemplate.SetType((short)1);
+            testManager.PutTemplate(testTemplate);
+        }
+        testManager.WriteTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingFile");
+        testManager = new DrinkTemplateManager();
+        testManager.ReadTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingFile", false);
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = testManager.GetTemplate("testName <&> " + i);
+            if (testTemplate == null
+                    || testTemplate.GetServings() != 1
+                    || testTemplate.GetAPV() != (float)1.1
+                    || testTemplate.GetCalories() != (float)1.1
+                    || testTemplate.GetType().GetValue() != (short)1
+                    || testTemplate.GetPrice() != (float)1.1
+                    || !testTemplate.GetImageFilePath().equals("testPath")){
+                i = templatesGenerated + 1;
+            }
+        }
+        if (i == templatesGenerated && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadStreamingMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadStreamingMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, Read with append. Existing templates keep their values
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName <&> 0");
+        testTemplate.SetServings((short)7);
+        testManager.PutTemplate(testTemplate);
+        testManager.ReadTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingFile", true);
+        if (testManager.GetTemplate("testName <&> 0").GetServings() == 7
+                && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadStreamingMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadStreamingMessage(false, 2)
+            );
+        }
+
+        // Exception cases
+        //  -Case 3, Read a file that doesn't exist. Expect false and unchanged contents
+        if (!testManager.ReadTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateMissingFile", false)
+                && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadStreamingMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadStreamingMessage(false, 3)
+            );
+        }
+    }
+
+    // Test WriteTemplateListStreaming Backend Method
+    public static void TestWriteTemplateListStreaming(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        byte[] domBytes;
+        byte[] streamingBytes;
+        File blockingFile;
+        int i;
+
+        for ( i = 0; i < 100; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName \"<&>\r\n\uD83C\uDF7A\u00e9 " + i);
+            testTemplate.SetPrice((float)1.1 * i);
+            testTemplate.SetAPV((float)0.05);
+            testTemplate.SetCalories((float)120.5);
+            testTemplate.SetServings((short)i);
+            testTemplate.SetType((short)(i % 4));
+            if (i % 2 == 0) testTemplate.SetImageFilePath("testPath " + i);
+            testManager.PutTemplate(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, Streaming write produces the same bytes as the DOM write, with names
+        //      holding markup, a character above U+FFFF, and a non-ASCII character
+        try{
+            testManager.WriteTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateDOMWriteFile");
+            testManager.WriteTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingWriteFile");
+            domBytes = DrinkTemplateBinaryFormat.ReadFileBytes(new File(dbm.GetAppRootDirectory(), "testDrinkTemplateDOMWriteFile.xml"));
+            streamingBytes = DrinkTemplateBinaryFormat.ReadFileBytes(new File(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingWriteFile.xml"));
+        }
+        catch (IOException e){
+            domBytes = new byte[0];
+            streamingBytes = new byte[1];
+        }
+        if (Arrays.equals(domBytes, streamingBytes)
+                && testManager.GetLastWriteByteCount() == streamingBytes.length){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateWriteStreamingMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateWriteStreamingMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, Streaming written file reads back every template
+        testManager = new DrinkTemplateManager();
+        testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingWriteFile", false);
+        if (testManager.GetTemplateList().size() == 100
+                && testManager.GetTemplate("testName \"<&>\r\n\uD83C\uDF7A\u00e9 " + 7).GetServings() == 7){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateWriteStreamingMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateWriteStreamingMessage(false, 2)
+            );
+        }
+
+        // Exception cases
+        //  -Case 3, Neither write can open its temporary file. Expect false from both and
+        //      the files they would replace unchanged
+        blockingFile = new File(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingWriteFile.xml" + Universals.FileNames.TemporaryExtension);
+        blockingFile.mkdir();
+        new File(dbm.GetAppRootDirectory(), "testDrinkTemplateDOMWriteFile.xml" + Universals.FileNames.TemporaryExtension).mkdir();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testNameUnwritten");
+        testManager.PutTemplate(testTemplate);
+        try{
+            if (!testManager.WriteTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingWriteFile")
+                    && !testManager.WriteTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateDOMWriteFile")){
+                domBytes = DrinkTemplateBinaryFormat.ReadFileBytes(new File(dbm.GetAppRootDirectory(), "testDrinkTemplateDOMWriteFile.xml"));
+                streamingBytes = DrinkTemplateBinaryFormat.ReadFileBytes(new File(dbm.GetAppRootDirectory(), "testDrinkTemplateStreamingWriteFile.xml"));
+            }
+            else{
+                domBytes = new byte[0];
+                streamingBytes = new byte[1];
+            }
+        }
+        catch (IOException e){
+            domBytes = new byte[0];
+            streamingBytes = new byte[1];
+        }
+        blockingFile.delete();
+        new File(dbm.GetAppRootDirectory(), "testDrinkTemplateDOMWriteFile.xml" + Universals.FileNames.TemporaryExtension).delete();
+        if (Arrays.equals(domBytes, streamingBytes)){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateWriteStreamingMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateWriteStreamingMessage(false, 3)
+            );
+        }
+    }
+
+    // Test WriteTemplateListBinary and ReadTemplateListBinary Backend Methods
+    public static void TestReadWriteTemplateListBinary(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        int templatesGenerated = 100;
+        int i;
+
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName \u00e9\u6f22 " + i);
+            testTemplate.SetPrice((float)1.1);
+            testTemplate.SetAPV((float)1.1);
+            testTemplate.SetCalories((float)1.1);
+            testTemplate.SetServings((short)i);
+            testTemplate.SetType((short)(i % 4));
+            testTemplate.SetImageFilePath("testPath " + i);
+            testManager.PutTemplate(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, Read written content without append. Verify every field of every template
+        testManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateBinaryFile");
+        testManager = new DrinkTemplateManager();
+        testManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateBinaryFile", false);
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = testManager.GetTemplate("testName \u00e9\u6f22 " + i);
+            if (testTemplate == null
+                    || testTemplate.GetServings() != i
+                    || testTemplate.GetAPV() != (float)1.1
+                    || testTemplate.GetCalories() != (float)1.1
+                    || testTemplate.GetType().GetValue() != (short)(i % 4)
+                    || testTemplate.GetPrice() != (float)1.1
+                    || !testTemplate.GetImageFilePath().equals("testPath " + i)){
+                i = templatesGenerated + 1;
+            }
+        }
+        if (i == templatesGenerated && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteBinaryMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteBinaryMessage(false, 1)
+            );
+        }
+
+        // Exception cases
+        //  -Case 2, Read an XML file as a binary file. Expect false and unchanged contents
+        testManager.WriteTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateBinaryFileAsXML");
+        new File(dbm.GetAppRootDirectory(), "testDrinkTemplateBinaryFileAsXML.xml").renameTo(
+                new File(dbm.GetAppRootDirectory(), "testDrinkTemplateBinaryFileAsXML" + Universals.FileNames.BinaryExtension)
+        );
+        if (!testManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateBinaryFileAsXML", false)
+                && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteBinaryMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteBinaryMessage(false, 2)
+            );
+        }
+    }
 
-        // Non-exception cases
-        //  -Case 1, normal values
-        testTemplate.SetServings((short)1);
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
+    /// <summary>
+    ///  Tests reading a binary template list file in catalog mode. Only names are read up
+    ///     front, templates are decoded when used, and the decoded cache stays bounded.
+    /// </summary>
+    public static void TestReadTemplateListIndexed(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        LazyDrinkTemplateMap indexedMap;
+        int templatesGenerated = 100;
+        int cacheCapacity = 8;
+        int i;
+
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName \u00e9\u6f22 " + i);
+            testTemplate.SetPrice((float)1.1);
+            testTemplate.SetAPV((float)1.1);
+            testTemplate.SetCalories((float)1.1);
+            testTemplate.SetServings((short)i);
+            testTemplate.SetType((short)(i % 4));
+            testTemplate.SetImageFilePath("testPath " + i);
             testManager.PutTemplate(testTemplate);
         }
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            testTemplate.SetServings((short)10);
-            if (!testManager.ModifyTemplate(testTemplate)) {
-                testShort = 11;
+        testManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedFile");
+
+        // Non-exception cases
+        //  -Case 1, Size, contains, and snapshot checks don't decode any template
+        testManager = new DrinkTemplateManager();
+        testManager.ReadTemplateListIndexed(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedFile", cacheCapacity);
+        indexedMap = (LazyDrinkTemplateMap)testManager.GetTemplateList();
+        if (testManager.GetTemplateList().size() == templatesGenerated
+                && testManager.ContainsTemplate("testName \u00e9\u6f22 " + 0)
+                && !testManager.ContainsTemplate("testName")
+                && testManager.GetTemplateList().keySet().size() == templatesGenerated
+                && testManager.GetSnapshot().Size() == templatesGenerated
+                && indexedMap.GetHydrationCount() == 0){
+            if (printAllMessages)
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(false, 1));
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, Every template decodes with every field, and the cache stays bounded
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = testManager.GetTemplate("testName \u00e9\u6f22 " + i);
+            if (testTemplate == null
+                    || testTemplate.GetServings() != i
+                    || testTemplate.GetAPV() != (float)1.1
+                    || testTemplate.GetCalories() != (float)1.1
+                    || testTemplate.GetType().GetValue() != (short)(i % 4)
+                    || testTemplate.GetPrice() != (float)1.1
+                    || !testTemplate.GetImageFilePath().equals("testPath " + i)){
+                i = templatesGenerated + 1;
             }
-            else if (testManager.GetTemplate(testTemplate.GetName()).GetServings() != 10){
-                testShort = 11;
+        }
+        testManager.GetTemplate("testName \u00e9\u6f22 " + (templatesGenerated - 1));
+        if (i == templatesGenerated
+                && indexedMap.GetHydrationCount() == templatesGenerated
+                && indexedMap.GetCachedCount() == cacheCapacity){
+            if (printAllMessages)
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(false, 1));
-            }
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(true, 2)
+                );
         }
-        if (testShort == 10 && printAllMessages){
+        else {
             Log.d(
                     Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(true, 1));
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(false, 2)
+            );
         }
 
-        // -Case 2, modify a non-existent template (expected false return)
+        //  -Case 3, Put, modify, and remove work over indexed templates, and the result
+        //      writes and reads back as a normal template list.
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName \u00e9\u6f22 " + 1);
+        testTemplate.SetServings((short)1000);
+        testManager.ModifyTemplate(testTemplate);
+        testManager.RemoveTemplate("testName \u00e9\u6f22 " + 2);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName new");
+        testManager.PutTemplate(testTemplate);
+        testManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedFile");
+        DrinkTemplateManager readManager = new DrinkTemplateManager();
+        readManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedFile", false);
+        if (testManager.GetTemplateList().size() == templatesGenerated
+                && testManager.GetTemplate("testName \u00e9\u6f22 " + 1).GetServings() == 1000
+                && !testManager.ContainsTemplate("testName \u00e9\u6f22 " + 2)
+                && testManager.ContainsTemplate("testName new")
+                && readManager.GetTemplateList().size() == templatesGenerated
+                && readManager.GetTemplate("testName \u00e9\u6f22 " + 1).GetServings() == 1000
+                && readManager.GetTemplate("testName \u00e9\u6f22 " + 3).GetServings() == 3
+                && readManager.ContainsTemplate("testName new")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(false, 3)
+            );
+        }
+        testManager.GetTemplateList().clear();
+
+        // Exception cases
+        //  -Case 4, a template that fails its checksum when decoded is still in the map, so
+        //      writing or saving the templates fails instead of leaving it out of the file
+        File indexedFile = new File(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedFile" + Universals.FileNames.BinaryExtension);
+        File copyFile = new File(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedCopy" + Universals.FileNames.BinaryExtension);
+        copyFile.delete();
         testManager = new DrinkTemplateManager();
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            if (testManager.ModifyTemplate(testTemplate)) {
-                testShort = 11;
+        testManager.ReadTemplateListIndexed(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedFile", cacheCapacity);
+        // The last byte of the file is the last record's checksum
+        DrinkTemplateManager.FlipTestFileBit(indexedFile, indexedFile.length() - 1);
+        if (!testManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedCopy")
+                && testManager.CreateSaveTask(dbm.GetAppRootDirectory(), "testDrinkTemplateIndexedCopy") == null
+                && !copyFile.exists()
+                && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(false, 2));
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadIndexedMessage(false, 4)
+            );
+        }
+        testManager.GetTemplateList().clear();
+    }
+
+
+    /// <summary>
+    ///  Tests reading a binary template list file on several threads gives the same
+    ///     templates, in the same first-wins way, as reading it on one.
+    /// </summary>
+    public static void TestReadTemplateListParallel(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        ArrayList<DrinkTemplate> fileTemplates = new ArrayList<>();
+        DrinkTemplateManager sequentialManager = new DrinkTemplateManager();
+        DrinkTemplateManager testManager;
+        DrinkTemplate testTemplate;
+        int templatesGenerated = 2000;
+        int[] parallelismCases = {1, 3, 8};
+        int i;
+
+        // Generate a file where every 100th template repeats the name of the one before it
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName \u00e9\u6f22 " + (i % 100 == 99 ? i - 1 : i));
+            testTemplate.SetServings((short)i);
+            testTemplate.SetType((short)(i % 4));
+            testTemplate.SetImageFilePath("testPath " + i);
+            fileTemplates.add(testTemplate);
+        }
+        DrinkTemplateBinaryFormat.WriteTemplatesBinary(
+                fileTemplates,
+                new File(dbm.GetAppRootDirectory(), "testDrinkTemplateParallelFile" + Universals.FileNames.BinaryExtension)
+        );
+        sequentialManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateParallelFile", false);
+
+        // Non-exception cases
+        //  -Cases 1 to 3, Read with different numbers of threads. Expect the same templates
+        //      as a sequential read, with the first of each repeated name kept.
+        for (int testCase = 0; testCase < parallelismCases.length; testCase++){
+            testManager = new DrinkTemplateManager();
+            boolean readResult = testManager.ReadTemplateListParallel(dbm.GetAppRootDirectory(), "testDrinkTemplateParallelFile", false, parallelismCases[testCase]);
+            boolean pass = readResult
+                    && testManager.GetTemplateList().size() == sequentialManager.GetTemplateList().size()
+                    && testManager.GetTemplate("testName \u00e9\u6f22 " + 98).GetServings() == 98;
+            for (DrinkTemplate sequentialTemplate : sequentialManager.GetTemplateList().values()){
+                testTemplate = testManager.GetTemplate(sequentialTemplate.GetName());
+                if (testTemplate == null
+                        || testTemplate.GetServings() != sequentialTemplate.GetServings()
+                        || testTemplate.GetType().GetValue() != sequentialTemplate.GetType().GetValue()
+                        || !testTemplate.GetImageFilePath().equals(sequentialTemplate.GetImageFilePath())){
+                    pass = false;
+                    break;
+                }
+            }
+            if (pass){
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadParallelMessage(true, testCase + 1)
+                    );
+            }
+            else {
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadParallelMessage(false, testCase + 1)
+                );
             }
         }
-        if (testShort == 10 && printAllMessages){
+
+        // Exception cases
+        //  -Case 4, Read a file cut off part way through a record. Expect false and unchanged contents
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName");
+        testManager.PutTemplate(testTemplate);
+        File truncatedFile = new File(dbm.GetAppRootDirectory(), "testDrinkTemplateParallelFile" + Universals.FileNames.BinaryExtension);
+        try (RandomAccessFile truncator = new RandomAccessFile(truncatedFile, "rw")){
+            truncator.setLength(truncatedFile.length() - 3);
+        }
+        catch (IOException ignored){
+        }
+        if (!testManager.ReadTemplateListParallel(dbm.GetAppRootDirectory(), "testDrinkTemplateParallelFile", false, 4)
+                && testManager.GetTemplateList().size() == 1
+                && testManager.ContainsTemplate("testName")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadParallelMessage(true, 4)
+                );
+        }
+        else {
             Log.d(
                     Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateModifyMessage(true, 2));
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadParallelMessage(false, 4)
+            );
+        }
+    }
+
+    /// <summary>
+    ///  Tests the checksums of binary template list files. A corrupt record fails a read
+    ///     and leaves the manager unchanged, and recovery keeps every intact record and
+    ///     reports exactly which bytes were corrupt.
+    /// </summary>
+    public static void TestChecksumRecovery(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        String testFileName = "testDrinkTemplateChecksumFile";
+        File testFile = new File(dbm.GetAppRootDirectory(), testFileName + Universals.FileNames.BinaryExtension);
+        ArrayList<DrinkTemplate> fileTemplates = new ArrayList<>();
+        DrinkTemplateManager testManager;
+        DrinkTemplate testTemplate;
+        DrinkTemplateRecoveryResult result;
+        Crc32c checksum;
+        byte[] checkBytes = "123456789".getBytes(StandardCharsets.US_ASCII);
+        byte[] longBytes = new byte[1000];
+        int templatesGenerated = 5;
+        // Every record holds a 9 byte name and an empty image path
+        int recordSize = Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + 9
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize;
+        int recordsOffset = Universals.BinaryFormats.DrinkTemplateManagerFormat.HeaderSize
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize;
+        int corruptRecord = 2;
+        int i;
+
+        for ( i = 0; i < templatesGenerated; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("Recover " + i);
+            testTemplate.SetPrice(i);
+            fileTemplates.add(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, the checksum matches the standard CRC-32C check value, and is the same
+        //      computed in pieces as all at once
+        new Random(18).nextBytes(longBytes);
+        checksum = new Crc32c();
+        for ( i = 0; i < longBytes.length; i += 13){
+            checksum.update(longBytes, i, Math.min(13, longBytes.length - i));
+        }
+        if (Crc32c.Compute(checkBytes, 0, checkBytes.length) == 0xE3069283
+                && (int)checksum.getValue() == Crc32c.Compute(longBytes, 0, longBytes.length)){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, recovering an undamaged file keeps every template and reports it intact
+        DrinkTemplateBinaryFormat.WriteTemplatesBinary(fileTemplates, testFile);
+        testManager = new DrinkTemplateManager();
+        result = testManager.RecoverTemplateListBinary(dbm.GetAppRootDirectory(), testFileName, false);
+        if (result != null
+                && result.IsIntact()
+                && result.GetRecoveredCount() == templatesGenerated
+                && testManager.GetTemplateList().size() == templatesGenerated){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(false, 2)
+            );
+        }
+
+        // Exception cases
+        //  -Case 3, a flipped bit in one record fails sequential and parallel reads, and
+        //      leaves the manager unchanged
+        DrinkTemplateManager.FlipTestFileBit(testFile, recordsOffset + corruptRecord * recordSize + 6);
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("testName");
+        testManager.PutTemplate(testTemplate);
+        if (!testManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), testFileName, false)
+                && !testManager.ReadTemplateListParallel(dbm.GetAppRootDirectory(), testFileName, false, 2)
+                && testManager.GetTemplateList().size() == 1
+                && testManager.ContainsTemplate("testName")){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(false, 3)
+            );
+        }
+
+        //  -Case 4, recovery keeps every other record and reports exactly the corrupt record
+        testManager = new DrinkTemplateManager();
+        result = testManager.RecoverTemplateListBinary(dbm.GetAppRootDirectory(), testFileName, false);
+        if (result != null
+                && !result.IsIntact()
+                && result.GetExpectedCount() == templatesGenerated
+                && result.GetRecoveredCount() == templatesGenerated - 1
+                && result.GetCorruptRanges().size() == 1
+                && result.GetCorruptRanges().get(0).GetStartOffset() == recordsOffset + corruptRecord * recordSize
+                && result.GetCorruptRanges().get(0).GetEndOffset() == recordsOffset + (corruptRecord + 1) * recordSize
+                && !testManager.ContainsTemplate(fileTemplates.get(corruptRecord).GetName())
+                && testManager.GetTemplate("Recover 4").GetPrice() == 4f){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(false, 4)
+            );
+        }
+
+        //  -Case 5, a corrupt header fails an indexed read, and recovery still finds every record
+        DrinkTemplateBinaryFormat.WriteTemplatesBinary(fileTemplates, testFile);
+        DrinkTemplateManager.FlipTestFileBit(testFile, 8);
+        testManager = new DrinkTemplateManager();
+        result = testManager.RecoverTemplateListBinary(dbm.GetAppRootDirectory(), testFileName, false);
+        if (!new DrinkTemplateManager().ReadTemplateListIndexed(dbm.GetAppRootDirectory(), testFileName)
+                && result != null
+                && result.GetExpectedCount() == -1
+                && result.GetRecoveredCount() == templatesGenerated
+                && result.GetCorruptRanges().size() == 1
+                && result.GetCorruptRanges().get(0).GetEndOffset() == recordsOffset){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(true, 5)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(false, 5)
+            );
+        }
+
+        //  -Case 6, a name length corrupted to nearly 2 GB fails every read without
+        //      allocating it, and recovery keeps every other record
+        DrinkTemplateBinaryFormat.WriteTemplatesBinary(fileTemplates, testFile);
+        try (RandomAccessFile corrupter = new RandomAccessFile(testFile, "rw")){
+            corrupter.seek(recordsOffset + corruptRecord * recordSize);
+            corrupter.write(0x7F);
+        }
+        catch (IOException ignored){
+        }
+        testManager = new DrinkTemplateManager();
+        result = testManager.RecoverTemplateListBinary(dbm.GetAppRootDirectory(), testFileName, false);
+        if (!new DrinkTemplateManager().ReadTemplateListBinary(dbm.GetAppRootDirectory(), testFileName, false)
+                && !new DrinkTemplateManager().ReadTemplateListParallel(dbm.GetAppRootDirectory(), testFileName, false, 2)
+                && !new DrinkTemplateManager().ReadTemplateListIndexed(dbm.GetAppRootDirectory(), testFileName)
+                && result != null
+                && result.GetRecoveredCount() == templatesGenerated - 1
+                && result.GetCorruptRanges().size() == 1
+                && result.GetCorruptRanges().get(0).GetStartOffset() == recordsOffset + corruptRecord * recordSize
+                && result.GetCorruptRanges().get(0).GetEndOffset() == recordsOffset + (corruptRecord + 1) * recordSize){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(true, 6)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ChecksumRecoveryMessage(false, 6)
+            );
+        }
+        testFile.delete();
+    }
+
+    // Flips the lowest bit of the byte at an offset of a file
+    private static void FlipTestFileBit(File file, long offset){
+        try (RandomAccessFile flipper = new RandomAccessFile(file, "rw")){
+            flipper.seek(offset);
+            int value = flipper.read();
+            flipper.seek(offset);
+            flipper.write(value ^ 1);
+        }
+        catch (IOException ignored){
+        }
+    }
+
+    /// <summary>
+    ///  Tests importing CSV and XML catalogs. Names are normalized and deduplicated, existing
+    ///     templates are updated or skipped, and malformed records are rejected.
+    /// </summary>
+    public static void TestImportTemplates(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager testManager;
+        DrinkTemplate testTemplate;
+        DrinkTemplateImportResult result;
+        String csvCatalog =
+                "Name,Type,Servings,APV,Calories,Price,ImageFilePath\r\n"
+                + "\"Stout, Imperial\",Beer,1,9.5,300,7.99,img/stout.png\r\n"
+                + "\"  STOUT,   imperial \",Beer,2,9.5,300,7.99\n"
+                + "\"Say \"\"Cheers\"\"\",cocktail,2,12,150,9.5\n"
+                + "existing  lager,Beer,3,5,150,4.5,img/lager.png\n"
+                + "\n"
+                + "Bad Number,Wine,one,12,120,10\n"
+                + "Too Few,Wine,1\n"
+                + "Unknown Type,Cider,1,5,100,5\n"
+                + " ,Beer,1,5,100,5\n"
+                + "Merlot,1,1,13.5,125,12";
+
+        // Non-exception cases
+        //  -Case 1, Import CSV allowing updates, in batches smaller than the catalog
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Existing Lager");
+        testManager.PutTemplate(testTemplate);
+        result = testManager.ImportTemplatesCSV(new StringReader(csvCatalog), true, 2);
+        if (result.IsComplete()
+                && result.GetInsertedCount() == 3
+                && result.GetUpdatedCount() == 1
+                && result.GetSkippedCount() == 1
+                && result.GetRejectedCount() == 4
+                && testManager.GetTemplateList().size() == 4
+                && testManager.GetTemplate("Stout, Imperial").GetServings() == 1
+                && testManager.GetTemplate("Stout, Imperial").GetImageFilePath().equals("img/stout.png")
+                && testManager.ContainsTemplate("Say \"Cheers\"")
+                && testManager.GetTemplate("Existing Lager").GetServings() == 3
+                && testManager.GetTemplate("Merlot").GetType().GetValue() == 1){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, Import CSV without updates. The existing template is skipped and unchanged
+        testManager = new DrinkTemplateManager();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Existing Lager");
+        testManager.PutTemplate(testTemplate);
+        result = testManager.ImportTemplatesCSV(new StringReader(csvCatalog), false);
+        if (result.GetInsertedCount() == 3
+                && result.GetUpdatedCount() == 0
+                && result.GetSkippedCount() == 2
+                && result.GetRejectedCount() == 4
+                && testManager.GetTemplate("Existing Lager").GetServings() == 0){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(false, 2)
+            );
         }
-    }
-
-    // Test Remove Template System Method
-    public static void TestRemoveTemplate(boolean printAllMessages){
-        // Test Locals
-        DrinkTemplateManager testManager = new DrinkTemplateManager();
-        DrinkTemplate testTemplate = new DrinkTemplate();
-        String testTemplateName = "test name ";
-        short testShort = 0;
 
-        // Non-exception cases
-        //  -Case 1, normal values
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            testManager.PutTemplate(testTemplate);
-        }
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            if (!testManager.RemoveTemplate(testTemplate.GetName())) {
-                testShort = 11;
+        //  -Case 3, Import an XML template list file into a manager holding one of its templates
+        testManager = DrinkTemplateManager.GenerateBenchmarkManager(3);
+        testManager.WriteTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateImportFile");
+        testManager = DrinkTemplateManager.GenerateBenchmarkManager(1);
+        result = testManager.ImportTemplateFile(
+                new File(dbm.GetAppRootDirectory(), "testDrinkTemplateImportFile" + Universals.FileNames.XMLExtension),
+                true
+        );
+        if (result != null
+                && result.IsComplete()
+                && result.GetInsertedCount() == 2
+                && result.GetUpdatedCount() == 1
+                && testManager.GetTemplateList().size() == 3){
+            if (printAllMessages)
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(false, 1));
-            }
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(true, 3)
+                );
         }
-        if (testShort == 10 && printAllMessages){
+        else {
             Log.d(
                     Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(true, 1));
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(false, 3)
+            );
         }
 
-        // -Case 2, remove a non-existent template (expected false return)
-        testManager = new DrinkTemplateManager();
-        for (testShort = 0; testShort < 10; testShort++){
-            testTemplate.SetName(testTemplateName + testShort);
-            if (testManager.RemoveTemplate(testTemplate.GetName())) {
-                testShort = 11;
+        // Exception cases
+        //  -Case 4, Import a file that isn't CSV or XML. Expect null and unchanged contents
+        if (testManager.ImportTemplateFile(new File(dbm.GetAppRootDirectory(), "testDrinkTemplateImportFile.txt"), true) == null
+                && testManager.GetTemplateList().size() == 3){
+            if (printAllMessages)
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(false, 2));
-            }
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(true, 4)
+                );
         }
-        if (testShort == 10 && printAllMessages){
+        else {
             Log.d(
                     Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateRemoveMessage(true, 2));
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateImportMessage(false, 4)
+            );
         }
     }
 
-    // Test WriteTemplateList Backend Method
-    public static void TestReadWriteTemplateList(boolean printAllMessages, Context context) {
+    /// <summary>
+    ///  Tests managers layered over a shared catalog. Each manager's changes stay in its own
+    ///     layer and the catalog itself never changes.
+    /// </summary>
+    public static void TestLayeredCatalog(boolean printAllMessages, Context context){
 
         // Locals
         DatabaseManager dbm = new DatabaseManager(context);
-        DrinkTemplateManager testManager;
+        DrinkTemplateManager sourceManager = DrinkTemplateManager.GenerateBenchmarkManager(100);
+        DrinkTemplateCatalog[] catalogs = new DrinkTemplateCatalog[2];
+        DrinkTemplateManager userManager;
+        DrinkTemplateManager otherManager;
         DrinkTemplate testTemplate;
-        int case3TemplatesGenerated = 100;
-        int i;
-
-        // Non-exception cases
-        //  -Case 1, Write. store to app root directory. No read verification
-        testManager = new DrinkTemplateManager();
-        testTemplate = new DrinkTemplate();
-        testTemplate.SetName("testName");
-        testManager.PutTemplate(testTemplate);
-        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile")) {
-            if (printAllMessages)
+        int caseNumber = 1;
+
+        // Test an in-memory catalog and a memory-mapped catalog
+        sourceManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), "testDrinkTemplateCatalogFile");
+        catalogs[0] = DrinkTemplateCatalog.FromTemplates(sourceManager.GetTemplateList().values());
+        catalogs[1] = DrinkTemplateCatalog.OpenFile(
+                new File(dbm.GetAppRootDirectory(), "testDrinkTemplateCatalogFile" + Universals.FileNames.BinaryExtension)
+        );
+
+        for (DrinkTemplateCatalog catalog : catalogs){
+
+            // Non-exception cases
+            //  -Case 1 and 4, Changes to one manager don't reach the catalog or another manager
+            userManager = new DrinkTemplateManager(catalog);
+            otherManager = new DrinkTemplateManager(catalog);
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("benchmarkName 1");
+            testTemplate.SetServings((short)100);
+            userManager.ModifyTemplate(testTemplate);
+            userManager.RemoveTemplate("benchmarkName 2");
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("user template");
+            userManager.PutTemplate(testTemplate);
+            userManager.GetTemplate("benchmarkName 3").SetServings((short)100);
+            int iteratedCount = 0;
+            for (DrinkTemplate iteratedTemplate : userManager.GetTemplateList().values()){
+                if (iteratedTemplate != null) iteratedCount++;
+            }
+            if (catalog != null
+                    && userManager.GetTemplateList().size() == 100
+                    && iteratedCount == 100
+                    && userManager.GetTemplate("benchmarkName 1").GetServings() == 100
+                    && !userManager.ContainsTemplate("benchmarkName 2")
+                    && userManager.ContainsTemplate("user template")
+                    && userManager.GetTemplate("benchmarkName 3").GetServings() == 3
+                    && ((LayeredDrinkTemplateMap)userManager.GetTemplateList()).GetOverlaySize() == 3
+                    && otherManager.GetTemplateList().size() == 100
+                    && otherManager.GetTemplate("benchmarkName 1").GetServings() == 1
+                    && otherManager.ContainsTemplate("benchmarkName 2")
+                    && !otherManager.ContainsTemplate("user template")
+                    && catalog.Size() == 100){
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(true, caseNumber)
+                    );
+            }
+            else {
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 1)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(false, caseNumber)
                 );
-        }
-        else {
+            }
+            caseNumber++;
+            if (catalog == null) continue;
+
+            //  -Case 2 and 5, Putting back a removed catalog template, and removing an added one
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("benchmarkName 2");
+            testTemplate.SetServings((short)200);
+            boolean putBack = userManager.PutTemplate(testTemplate);
+            boolean removedAdded = userManager.RemoveTemplate("user template");
+            boolean removedModified = userManager.RemoveTemplate("benchmarkName 1");
+            if (putBack && removedAdded && removedModified
+                    && userManager.GetTemplateList().size() == 99
+                    && userManager.GetTemplate("benchmarkName 2").GetServings() == 200
+                    && !userManager.ContainsTemplate("benchmarkName 1")
+                    && !userManager.ContainsTemplate("user template")){
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(true, caseNumber)
+                    );
+            }
+            else {
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 1)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(false, caseNumber)
                 );
-        }
-        //  -Case 2, Read Write. Store to app root directory. Read verification without append of written content (small)
-        testManager = new DrinkTemplateManager();
-        testTemplate = new DrinkTemplate();
-        testTemplate.SetName("testName");
-        testManager.PutTemplate(testTemplate);
-        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile2")) {
-            testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateFile2", false);
-            if (testManager.GetTemplate("testName") != null) {
+            }
+            caseNumber++;
+
+            //  -Case 3 and 6, Clearing hides the catalog without a tombstone per template
+            userManager.GetTemplateList().clear();
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("benchmarkName 5");
+            userManager.PutTemplate(testTemplate);
+            if (userManager.GetTemplateList().size() == 1
+                    && userManager.ContainsTemplate("benchmarkName 5")
+                    && !userManager.ContainsTemplate("benchmarkName 6")
+                    && ((LayeredDrinkTemplateMap)userManager.GetTemplateList()).GetOverlaySize() == 1
+                    && otherManager.GetTemplateList().size() == 100){
                 if (printAllMessages)
                     Log.d(
                             Universals.TestMessages.TestMessageTag,
-                            Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 2)
+                            Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(true, caseNumber)
                     );
-            } else {
+            }
+            else {
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 2)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(false, caseNumber)
                 );
             }
+            caseNumber++;
+        }
+
+        // Exception cases
+        //  -Case 7, Open a file that isn't a binary template list file. Expect null
+        sourceManager.WriteTemplateListStreaming(dbm.GetAppRootDirectory(), "testDrinkTemplateCatalogFile");
+        if (DrinkTemplateCatalog.OpenFile(new File(dbm.GetAppRootDirectory(), "testDrinkTemplateCatalogFile" + Universals.FileNames.XMLExtension)) == null){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(true, caseNumber)
+                );
         }
         else {
             Log.d(
                     Universals.TestMessages.TestMessageTag,
-                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 2)
+                    Universals.TestMessages.DrinkTemplateManagerMessages.LayeredCatalogMessage(false, caseNumber)
             );
         }
+    }
 
-        //  -Case 3. Read Write. Store to app root directory. Read verification without append of written content (large)
-        testManager = new DrinkTemplateManager();
-        testTemplate = new DrinkTemplate();
-        testTemplate.SetName("testName");
-        testTemplate.SetPrice((float)1.1);
-        testTemplate.SetAPV((float)1.1);
-        testTemplate.SetCalories((float)1.1);
-        testTemplate.SetServings((short)1);
-        testTemplate.SetImageFilePath("testPath");
-        testTemplate.SetType((short)1);
-        for ( i = 0; i < case3TemplatesGenerated; i++){
-            testTemplate.SetName("testName " + String.valueOf(i));
-            testManager.PutTemplate(testTemplate);
-        }
-        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile3")){
-            testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateFile3", false);
-            for ( i = 0; i < case3TemplatesGenerated; i++){
-                testTemplate = testManager.GetTemplate("testName " + String.valueOf(i));
-                if (testTemplate == null){
-                    i = case3TemplatesGenerated + 1;
-                }
-                else{
-                    if (
-                            !(testTemplate.GetName().equals("testName " + String.valueOf(i)) &&
-                            testTemplate.GetServings() == 1 &&
-                            testTemplate.GetAPV() == 1.1 &&
-                            testTemplate.GetCalories() == 1.1 &&
-                            testTemplate.GetType().GetValue() == (short)1 &&
-                            testTemplate.GetPrice() == 1.1 &&
-                            testTemplate.GetImageFilePath().equals("testPath")      )
-                    ) i = case3TemplatesGenerated + 1;
-                }
+    /// <summary>
+    ///  Tests puts, modifies, removes, and iteration from several threads at once, on a
+    ///     default manager and on a manager layered over a catalog.
+    /// </summary>
+    public static void TestConcurrentAccess(boolean printAllMessages){
+
+        // Locals
+        final int threadCount = 4;
+        final int templateCount = 1000;
+        final AtomicInteger successCount = new AtomicInteger();
+        final AtomicInteger readFailureCount = new AtomicInteger();
+        DrinkTemplateManager[] testManagers = new DrinkTemplateManager[]{
+                new DrinkTemplateManager(),
+                new DrinkTemplateManager(DrinkTemplateCatalog.FromTemplates(
+                        DrinkTemplateManager.GenerateBenchmarkManager(templateCount).GetTemplateList().values()
+                ))
+        };
+        Runnable[] tasks = new Runnable[threadCount + 1];
+        int caseNumber = 1;
+
+        for (final DrinkTemplateManager testManager : testManagers){
+            final boolean layered = testManager.GetCatalog() != null;
+            final String prefix = layered ? "benchmarkName " : "testName ";
+
+            // Non-exception cases
+            //  -Case 1 and 4, every thread puts the same names. Expect each name put exactly once.
+            //      The layered manager starts with the names, so its threads remove them first.
+            successCount.set(0);
+            for (int t = 0; t < threadCount; t++){
+                tasks[t] = new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < templateCount; i++){
+                            if (layered) testManager.RemoveTemplate(prefix + i);
+                            DrinkTemplate newTemplate = new DrinkTemplate();
+                            newTemplate.SetName(prefix + i);
+                            if (testManager.PutTemplate(newTemplate)) successCount.incrementAndGet();
+                        }
+                    }
+                };
             }
-            if (i == case3TemplatesGenerated && printAllMessages){
+            boolean completed = DrinkTemplateManager.RunConcurrently(tasks, threadCount);
+            if (completed
+                    && (layered ? successCount.get() >= templateCount : successCount.get() == templateCount)
+                    && testManager.GetTemplateList().size() == templateCount){
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(true, caseNumber)
+                    );
+            }
+            else {
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 3)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(false, caseNumber)
                 );
             }
-            else if (i == case3TemplatesGenerated + 1){
+            caseNumber++;
+
+            //  -Case 2 and 5, threads modify and remove the first half of the names while a
+            //      reader iterates. Expect the reader to always see the untouched second half,
+            //      and each name removed exactly once.
+            successCount.set(0);
+            readFailureCount.set(0);
+            for (int t = 0; t < threadCount; t++){
+                tasks[t] = new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < templateCount / 2; i++){
+                            DrinkTemplate newVersion = new DrinkTemplate();
+                            newVersion.SetName(prefix + i);
+                            newVersion.SetServings((short)2);
+                            testManager.ModifyTemplate(newVersion);
+                            if (testManager.RemoveTemplate(prefix + i)) successCount.incrementAndGet();
+                        }
+                    }
+                };
+            }
+            tasks[threadCount] = new Runnable() {
+                @Override
+                public void run() {
+                    for (int pass = 0; pass < 20; pass++){
+                        int untouchedSeen = 0;
+                        for (Map.Entry<String, DrinkTemplate> entry : testManager.GetTemplateList().entrySet()){
+                            int number = Integer.parseInt(entry.getKey().substring(prefix.length()));
+                            if (number >= templateCount / 2 && entry.getValue() != null) untouchedSeen++;
+                        }
+                        if (untouchedSeen != templateCount / 2) readFailureCount.incrementAndGet();
+                        if (testManager.GetTemplate(prefix + (templateCount - 1)) == null) readFailureCount.incrementAndGet();
+                    }
+                }
+            };
+            completed = DrinkTemplateManager.RunConcurrently(tasks, threadCount + 1);
+            if (completed
+                    && successCount.get() == templateCount / 2
+                    && readFailureCount.get() == 0
+                    && testManager.GetTemplateList().size() == templateCount / 2
+                    && !testManager.ContainsTemplate(prefix + 0)){
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(true, caseNumber)
+                    );
+            }
+            else {
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 3)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(false, caseNumber)
                 );
             }
-        }
-
-        //  -Case 4. Read Write. Store to app root directory. Read verification with append of written content (large)
-        testManager = new DrinkTemplateManager();
-        testTemplate = new DrinkTemplate();
-        testTemplate.SetName("testName");
-        testTemplate.SetPrice((float)1.1);
-        testTemplate.SetAPV((float)1.1);
-        testTemplate.SetCalories((float)1.1);
-        testTemplate.SetServings((short)1);
-        testTemplate.SetImageFilePath("testPath");
-        testTemplate.SetType((short)1);
-        for ( i = 0; i < case3TemplatesGenerated; i++){
-            testTemplate.SetName("testName " + String.valueOf(i));
-            testManager.PutTemplate(testTemplate);
-        }
-        if (testManager.WriteTemplateList(dbm.GetAppRootDirectory(),"testDrinkTemplateFile4")){
-            testManager.ReadTemplateList(dbm.GetAppRootDirectory(), "testDrinkTemplateFile4", true);
-            for ( i = 0; i < case3TemplatesGenerated; i++){
-                testTemplate = testManager.GetTemplate("testName " + String.valueOf(i));
-                if (testTemplate != null){
-                    i = case3TemplatesGenerated + 1;
-                }
+            caseNumber++;
+
+            //  -Case 3 and 6, threads race to modify and remove the same names. Expect each name
+            //      removed exactly once, and no modify to bring a removed name back.
+            successCount.set(0);
+            for (int t = 0; t < threadCount; t++){
+                final int threadNumber = t;
+                tasks[t] = new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = templateCount / 2; i < templateCount; i++){
+                            if (threadNumber % 2 == 0){
+                                DrinkTemplate newVersion = new DrinkTemplate();
+                                newVersion.SetName(prefix + i);
+                                testManager.ModifyTemplate(newVersion);
+                            }
+                            else if (testManager.RemoveTemplate(prefix + i)) successCount.incrementAndGet();
+                        }
+                    }
+                };
             }
-            if (i == case3TemplatesGenerated && printAllMessages){
+            completed = DrinkTemplateManager.RunConcurrently(tasks, threadCount);
+            if (completed
+                    && successCount.get() == templateCount / 2
+                    && testManager.GetTemplateList().isEmpty()){
+                if (printAllMessages)
+                    Log.d(
+                            Universals.TestMessages.TestMessageTag,
+                            Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(true, caseNumber)
+                    );
+            }
+            else {
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(true, 4)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(false, caseNumber)
                 );
             }
-            else if (i == case3TemplatesGenerated + 1){
+            caseNumber++;
+        }
+
+        // Exception cases
+        //  -Case 7, null names. Expect every method to refuse without throwing
+        DrinkTemplate nullTemplate = new DrinkTemplate();
+        nullTemplate.SetName(null);
+        if (!testManagers[0].PutTemplate(nullTemplate)
+                && !testManagers[0].ModifyTemplate(nullTemplate)
+                && !testManagers[0].RemoveTemplate(null)
+                && !testManagers[0].ContainsTemplate(null)
+                && testManagers[0].GetTemplate(null) == null){
+            if (printAllMessages)
                 Log.d(
                         Universals.TestMessages.TestMessageTag,
-                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateReadWriteTemplateListMessage(false, 4)
+                        Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(true, caseNumber)
                 );
-            }
         }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.ConcurrentAccessMessage(false, caseNumber)
+            );
+        }
+    }
 
+    /// <summary>
+    ///  Given tasks and how many of them to run, runs them on their own threads, starting
+    ///     them together. Returns false if a task threw or the thread was interrupted.
+    /// </summary>
+    static boolean RunConcurrently(Runnable[] tasks, int taskCount){
 
-        // Exception cases
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final AtomicInteger failureCount = new AtomicInteger();
+        Thread[] threads = new Thread[taskCount];
+
+        for (int t = 0; t < taskCount; t++){
+            final Runnable task = tasks[t];
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try{
+                        startSignal.await();
+                        task.run();
+                    }
+                    catch (InterruptedException | RuntimeException e){
+                        failureCount.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        startSignal.countDown();
+        try{
+            for (Thread thread : threads) thread.join();
+        }
+        catch (InterruptedException e){
+            return false;
+        }
+        return failureCount.get() == 0;
+    }
+
+    ///
+    /// Benchmark Methods
+    ///
+    /// <summary>
+    ///  Each benchmark method is self contained and measures the method it is named after
+    ///     against a generated workload. Results are printed to LogCat using the Log.d method.
+    /// </summary>
+    ///
+
+    // Generates a manager holding a catalog of templates with varied fields for benchmarks
+    static DrinkTemplateManager GenerateBenchmarkManager(int templateCount){
+        DrinkTemplateManager benchmarkManager = new DrinkTemplateManager();
+        DrinkTemplate benchmarkTemplate;
+        for (int i = 0; i < templateCount; i++){
+            benchmarkTemplate = new DrinkTemplate();
+            benchmarkTemplate.SetName("benchmarkName " + i);
+            benchmarkTemplate.SetServings((short)(i % 5));
+            benchmarkTemplate.SetType((short)(i % 4));
+            benchmarkTemplate.SetAPV((float)(i % 40) / 10);
+            benchmarkTemplate.SetCalories((float)(i % 300));
+            benchmarkTemplate.SetPrice((float)(i % 20) + (float)0.99);
+            benchmarkTemplate.SetImageFilePath("benchmarkPath " + i);
+            benchmarkManager.PutTemplate(benchmarkTemplate);
+        }
+        return benchmarkManager;
+    }
+
+    // Benchmark ReadTemplateList (DOM) against ReadTemplateListStreaming, ReadTemplateListBinary,
+    //  and ReadTemplateListIndexed
+    public static void BenchmarkReadTemplateList(Context context, int templateCount){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager benchmarkManager;
+        String benchmarkFileName = "benchmarkDrinkTemplateFile";
+        Benchmark.HeapSampler heapSampler = new Benchmark.HeapSampler();
+        long startHeap;
+        long peakHeap;
+        long startTime;
+        long elapsedTime;
+
+        // Generate and write the catalog to be read in both formats
+        benchmarkManager = DrinkTemplateManager.GenerateBenchmarkManager(templateCount);
+        if (!benchmarkManager.WriteTemplateList(dbm.GetAppRootDirectory(), benchmarkFileName)) return;
+        if (!benchmarkManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), benchmarkFileName)) return;
+        benchmarkManager = null;
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.FileSizeMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        templateCount,
+                        new File(dbm.GetAppRootDirectory(), benchmarkFileName + Universals.FileNames.XMLExtension).length(),
+                        new File(dbm.GetAppRootDirectory(), benchmarkFileName + Universals.FileNames.BinaryExtension).length()
+                )
+        );
+
+        // DOM path
+        benchmarkManager = new DrinkTemplateManager();
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        startTime = System.nanoTime();
+        benchmarkManager.ReadTemplateList(dbm.GetAppRootDirectory(), benchmarkFileName, false);
+        elapsedTime = System.nanoTime() - startTime;
+        peakHeap = heapSampler.Stop();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ReadTemplateListDOMCase,
+                        benchmarkManager.GetTemplateList().size(),
+                        elapsedTime,
+                        peakHeap - startHeap
+                )
+        );
+        benchmarkManager = null;
+
+        // Streaming path
+        benchmarkManager = new DrinkTemplateManager();
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        startTime = System.nanoTime();
+        benchmarkManager.ReadTemplateListStreaming(dbm.GetAppRootDirectory(), benchmarkFileName, false);
+        elapsedTime = System.nanoTime() - startTime;
+        peakHeap = heapSampler.Stop();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ReadTemplateListStreamingCase,
+                        benchmarkManager.GetTemplateList().size(),
+                        elapsedTime,
+                        peakHeap - startHeap
+                )
+        );
+        benchmarkManager = null;
+
+        // Binary path
+        benchmarkManager = new DrinkTemplateManager();
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        startTime = System.nanoTime();
+        benchmarkManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), benchmarkFileName, false);
+        elapsedTime = System.nanoTime() - startTime;
+        peakHeap = heapSampler.Stop();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ReadTemplateListBinaryCase,
+                        benchmarkManager.GetTemplateList().size(),
+                        elapsedTime,
+                        peakHeap - startHeap
+                )
+        );
+        benchmarkManager = null;
+
+        // Indexed path
+        benchmarkManager = new DrinkTemplateManager();
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        startTime = System.nanoTime();
+        benchmarkManager.ReadTemplateListIndexed(dbm.GetAppRootDirectory(), benchmarkFileName);
+        elapsedTime = System.nanoTime() - startTime;
+        peakHeap = heapSampler.Stop();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ReadTemplateListIndexedCase,
+                        benchmarkManager.GetTemplateList().size(),
+                        elapsedTime,
+                        peakHeap - startHeap
+                )
+        );
+        benchmarkManager.GetTemplateList().clear();
+    }
 
+    // Benchmark ReadTemplateListParallel against ReadTemplateListBinary across thread counts
+    public static void BenchmarkReadTemplateListParallel(Context context, int templateCount){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager benchmarkManager;
+        String benchmarkFileName = "benchmarkDrinkTemplateParallelFile";
+        Benchmark.HeapSampler heapSampler = new Benchmark.HeapSampler();
+        int[] threadCounts = {1, 2, 4, 8};
+        long startHeap;
+        long peakHeap;
+        long startTime;
+        long elapsedTime;
+
+        // Generate and write the catalog
+        benchmarkManager = DrinkTemplateManager.GenerateBenchmarkManager(templateCount);
+        benchmarkManager.WriteTemplateListBinary(dbm.GetAppRootDirectory(), benchmarkFileName);
+        benchmarkManager = null;
+
+        // Sequential path
+        benchmarkManager = new DrinkTemplateManager();
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        startTime = System.nanoTime();
+        benchmarkManager.ReadTemplateListBinary(dbm.GetAppRootDirectory(), benchmarkFileName, false);
+        elapsedTime = System.nanoTime() - startTime;
+        peakHeap = heapSampler.Stop();
+        Log.d(
+                Universals.BenchmarkMessages.BenchmarkMessageTag,
+                Universals.BenchmarkMessages.ResultMessage(
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                        Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ReadTemplateListBinaryCase,
+                        benchmarkManager.GetTemplateList().size(),
+                        elapsedTime,
+                        peakHeap - startHeap
+                )
+        );
+        benchmarkManager = null;
+
+        // Parallel path at each thread count
+        for (int threadCount : threadCounts){
+            benchmarkManager = new DrinkTemplateManager();
+            startHeap = Benchmark.UsedHeapBytes();
+            heapSampler.Start();
+            startTime = System.nanoTime();
+            benchmarkManager.ReadTemplateListParallel(dbm.GetAppRootDirectory(), benchmarkFileName, false, threadCount);
+            elapsedTime = System.nanoTime() - startTime;
+            peakHeap = heapSampler.Stop();
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.ResultMessage(
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ReadTemplateListParallelCase(threadCount),
+                            benchmarkManager.GetTemplateList().size(),
+                            elapsedTime,
+                            peakHeap - startHeap
+                    )
+            );
+            benchmarkManager = null;
+        }
+        new File(dbm.GetAppRootDirectory(), benchmarkFileName + Universals.FileNames.BinaryExtension).delete();
+    }
+
+    // Benchmark ImportTemplateFile with a generated CSV vendor catalog
+    public static void BenchmarkImportTemplates(Context context, int recordCount){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        DrinkTemplateManager benchmarkManager;
+        DrinkTemplateImportResult result;
+        File catalogFile = new File(dbm.GetAppRootDirectory(), "benchmarkDrinkTemplateCatalog" + Universals.FileNames.CSVExtension);
+        Benchmark.HeapSampler heapSampler = new Benchmark.HeapSampler();
+        String[] typeNames = DrinkType.DrinkTypeNames();
+        long startHeap;
+        long peakHeap;
+
+        // Write the catalog. Every 50th record repeats an earlier name with different spacing
+        //  and case, and every 200th record is malformed.
+        try (Writer catalogWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(catalogFile), StandardCharsets.UTF_8))){
+            catalogWriter.write("Name,Type,Servings,APV,Calories,Price,ImageFilePath\n");
+            for (int i = 0; i < recordCount; i++){
+                if (i % 200 == 199){
+                    catalogWriter.write("\"Vendor Drink " + i + "\",Unknown,1,5,100,5\n");
+                }
+                else if (i % 50 == 49){
+                    catalogWriter.write("\"  VENDOR   drink " + (i - 1) + "\"," + typeNames[i % typeNames.length] + ",1,5,100,5\n");
+                }
+                else {
+                    catalogWriter.write("\"Vendor Drink " + i + "\"," + typeNames[i % typeNames.length]
+                            + "," + (i % 5) + "," + (i % 40) / 10.0 + "," + (i % 300) + "," + (i % 20) + ".99"
+                            + ",img/vendor" + i + ".png\n");
+                }
+            }
+        }
+        catch (IOException e){
+            return;
+        }
+
+        // Import into an empty manager
+        benchmarkManager = new DrinkTemplateManager();
+        startHeap = Benchmark.UsedHeapBytes();
+        heapSampler.Start();
+        result = benchmarkManager.ImportTemplateFile(catalogFile, true);
+        peakHeap = heapSampler.Stop();
+        if (result != null){
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.ResultMessage(
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ImportTemplatesCSVCase,
+                            result.GetRecordCount(),
+                            result.GetElapsedNanos(),
+                            peakHeap - startHeap
+                    )
+            );
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.ThroughputMessage(
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ImportTemplatesCSVCase,
+                            result.GetRecordCount(),
+                            result.GetRecordsPerSecond()
+                    )
+            );
+        }
+        catalogFile.delete();
     }
 
+    // Benchmark a mixed workload of gets, modifies, puts, and removes from several threads.
+    //  Nine of every ten operations are gets.
+    public static void BenchmarkConcurrentAccess(int templateCount, int operationsPerThread){
+
+        // Locals
+        int[] threadCounts = new int[]{1, 2, 4, 8};
+        final DrinkTemplateManager benchmarkManager = DrinkTemplateManager.GenerateBenchmarkManager(templateCount);
+        final int keyCount = templateCount;
+        final int operationCount = operationsPerThread;
+        final String[] keys = new String[templateCount];
+        Runnable[] tasks;
+        long startTime;
+        long elapsedTime;
+
+        for (int i = 0; i < templateCount; i++) keys[i] = "benchmarkName " + i;
+
+        for (int threadCount : threadCounts){
+            tasks = new Runnable[threadCount];
+            for (int t = 0; t < threadCount; t++){
+                final int seed = t + 1;
+                tasks[t] = new Runnable() {
+                    @Override
+                    public void run() {
+                        // A small xorshift generator per thread keeps threads from sharing a Random
+                        int state = seed * 0x9E3779B9;
+                        for (int i = 0; i < operationCount; i++){
+                            state ^= state << 13;
+                            state ^= state >>> 17;
+                            state ^= state << 5;
+                            String key = keys[(state >>> 1) % keyCount];
+                            int operation = (state >>> 8) % 20;
+                            if (operation < 18){
+                                benchmarkManager.GetTemplate(key);
+                            }
+                            else if (operation == 18){
+                                DrinkTemplate newVersion = new DrinkTemplate();
+                                newVersion.SetName(key);
+                                benchmarkManager.ModifyTemplate(newVersion);
+                            }
+                            else if (!benchmarkManager.RemoveTemplate(key)){
+                                DrinkTemplate newTemplate = new DrinkTemplate();
+                                newTemplate.SetName(key);
+                                benchmarkManager.PutTemplate(newTemplate);
+                            }
+                        }
+                    }
+                };
+            }
+            startTime = System.nanoTime();
+            DrinkTemplateManager.RunConcurrently(tasks, threadCount);
+            elapsedTime = System.nanoTime() - startTime;
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.ThroughputMessage(
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.DrinkTemplateManagerBenchmarkTitle,
+                            Universals.BenchmarkMessages.DrinkTemplateManagerMessages.ConcurrentAccessCase(threadCount),
+                            (long)threadCount * operationsPerThread,
+                            (double)threadCount * operationsPerThread * 1000000000.0 / elapsedTime
+                    )
+            );
+        }
+    }
 }
@@ -0,0 +1,84 @@
+/// <summary>
+///  File: DrinkTemplateMergeResult.java
+///     Description: Contains the class of the result of a three-way merge of drink templates,
+///         as returned by DrinkTemplateDiff.Merge.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.Collections;
+import java.util.List;
+
+///
+/// Drink Template Merge Result Class
+///     Holds the changes to apply to our templates to merge theirs in, and the conflicts
+///     found. Applying the changes keeps our side of every conflict. To take their side,
+///     apply the conflict's template in its place.
+///
+public class DrinkTemplateMergeResult {
+
+    ///
+    /// Local variables
+    ///
+    /// <summary>
+    ///  One template both sides changed in ways that can't both be kept. If a side removed
+    ///     the template, its change has no template.
+    /// </summary>
+    public static class Conflict {
+        private final DrinkTemplateDiff.Entry ourChange;
+        private final DrinkTemplateDiff.Entry theirChange;
+        private final int fieldMask;
+
+        Conflict(DrinkTemplateDiff.Entry ourChange, DrinkTemplateDiff.Entry theirChange, int fieldMask){
+            this.ourChange = ourChange;
+            this.theirChange = theirChange;
+            this.fieldMask = fieldMask;
+        }
+
+        public String GetTemplateKey(){
+            return this.ourChange.GetTemplateKey();
+        }
+        public DrinkTemplateDiff.Entry GetOurChange(){
+            return this.ourChange;
+        }
+        public DrinkTemplateDiff.Entry GetTheirChange(){
+            return this.theirChange;
+        }
+        /// <summary>
+        ///     Returns whether a field is in conflict. When one side removed the template,
+        ///     these are the fields the other side changed.
+        /// </summary>
+        public boolean HasField(DrinkTemplateDiff.Field field){
+            return (this.fieldMask & (1 << field.ordinal())) != 0;
+        }
+    }
+
+    private final DrinkTemplateDiff changes;
+    private final List<Conflict> conflicts;
+
+    ///
+    /// Constructors
+    ///
+    DrinkTemplateMergeResult(DrinkTemplateDiff changes, List<Conflict> conflicts){
+        this.changes = changes;
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    /// <summary>
+    ///     Returns the changes that turn our templates into the merged templates.
+    /// </summary>
+    public DrinkTemplateDiff GetChanges(){
+        return this.changes;
+    }
+    /// <summary>
+    ///     Returns the conflicts in template name order. The list can't be changed.
+    /// </summary>
+    public List<Conflict> GetConflicts(){
+        return this.conflicts;
+    }
+    public boolean HasConflicts(){
+        return !this.conflicts.isEmpty();
+    }
+}
@@ -0,0 +1,209 @@
+/// <summary>
+///  File: DrinkTemplateParallelReader.java
+///     Description: Contains the class and methods of reading a binary template list file
+///         by decoding its records on several threads. Used by
+///         DrinkTemplateManager.ReadTemplateListParallel for very large catalogs.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+///
+/// Drink Template Parallel Reader Class
+///     Reads a binary template list file into memory, then splits it into chunks at record
+///     boundaries. Only the two string lengths of each record are read while splitting.
+///     Chunks are decoded on a fork/join pool, each into its place in an array, so the
+///     templates keep the order they appear in the file.
+///
+final class DrinkTemplateParallelReader {
+
+    ///
+    /// Local variables
+    ///
+    // Represents how many chunks per thread a read splits a file into, and the fewest
+    //  records a chunk holds. More chunks than threads evens out uneven chunks.
+    private static final int chunksPerThread = 4;
+    private static final int minChunkSize = 256;
+
+    ///
+    /// Constructors
+    ///
+    // Only holds static methods
+    private DrinkTemplateParallelReader(){
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a file in the binary template list format and the number of threads to decode
+    ///     records on, reads every template in the file.
+    ///     Records are checked against their checksums as they're decoded.
+    ///     Returns the templates in the order they appear in the file.
+    ///     Returns null, logging why, if the file couldn't be read or any part of it is
+    ///     corrupt.
+    /// </summary>
+    static DrinkTemplate[] ReadTemplates(File inputFile, int parallelism){
+
+        // Locals
+        byte[] fileBytes;
+        ByteBuffer fileBuffer;
+        DrinkTemplateBinaryFormat.BinaryHeader header;
+        int templateCount;
+        int chunkSize;
+        int[] chunkOffsets;
+        int offset;
+        DrinkTemplate[] templates;
+        ForkJoinPool decodePool;
+
+        // Read the file into memory
+        try{
+            fileBytes = DrinkTemplateBinaryFormat.ReadFileBytes(inputFile);
+        }
+        catch (IOException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError
+            );
+            return null;
+        }
+
+        // Verify the header, then find the offset of the first record of each chunk
+        fileBuffer = ByteBuffer.wrap(fileBytes);
+        try{
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(fileBuffer);
+            if (header == null || !header.FitsLength(fileBytes.length)) return null;
+            templateCount = header.templateCount;
+            parallelism = Math.max(1, parallelism);
+            chunkSize = Math.max(
+                    DrinkTemplateParallelReader.minChunkSize,
+                    (templateCount + parallelism * DrinkTemplateParallelReader.chunksPerThread - 1) / (parallelism * DrinkTemplateParallelReader.chunksPerThread)
+            );
+            chunkOffsets = new int[(templateCount + chunkSize - 1) / chunkSize];
+            offset = header.GetRecordsOffset();
+            for (int i = 0; i < templateCount; i++){
+                if (i % chunkSize == 0) chunkOffsets[i / chunkSize] = offset;
+                offset = DrinkTemplateParallelReader.SkipBinaryString(fileBuffer, offset);
+                offset += Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize;
+                offset = DrinkTemplateParallelReader.SkipBinaryString(fileBuffer, offset);
+                offset += header.GetChecksumSize();
+            }
+            if (offset > fileBytes.length) throw new IndexOutOfBoundsException();
+        }
+        catch (RuntimeException e){
+            // Includes the file ending before all of its records were found
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidBinaryFile
+            );
+            return null;
+        }
+
+        // Decode every chunk on the pool into its place in the array
+        templates = new DrinkTemplate[templateCount];
+        decodePool = new ForkJoinPool(parallelism);
+        try{
+            decodePool.invoke(new DecodeChunksAction(fileBytes, header.IsChecksummed(), chunkOffsets, chunkSize, templates, 0, chunkOffsets.length));
+        }
+        catch (RuntimeException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError
+            );
+            return null;
+        }
+        finally {
+            decodePool.shutdown();
+        }
+        return templates;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    /// <summary>
+    ///     Given a buffer holding a binary template list file and the offset of a
+    ///     length-prefixed string within it, returns the offset just past the string.
+    ///     Throws IndexOutOfBoundsException if the length is negative or the string runs
+    ///     past the end of the buffer.
+    /// </summary>
+    private static int SkipBinaryString(ByteBuffer buffer, int offset){
+        int length = buffer.getInt(offset);
+        if (length < 0 || length > buffer.limit() - offset - Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize){
+            throw new IndexOutOfBoundsException();
+        }
+        return offset + Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + length;
+    }
+
+    ///
+    ///  Decodes a range of chunks of a binary template list file into an array of templates,
+    ///     splitting the range in half until one chunk is left. Each chunk holds chunkSize
+    ///     records (the last may hold fewer) and its templates are placed at the chunk's
+    ///     position in the array, so the array keeps the file's order.
+    ///     A record failing its checksum fails the whole decode.
+    ///     Never serialized; the serial version is only declared for the Serializable
+    ///     interface ForkJoinTask implements.
+    ///
+    private static class DecodeChunksAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] fileBytes;
+        private final boolean checksummed;
+        private final int[] chunkOffsets;
+        private final int chunkSize;
+        private final DrinkTemplate[] templates;
+        private final int firstChunk;
+        private final int endChunk;
+
+        DecodeChunksAction(byte[] fileBytes, boolean checksummed, int[] chunkOffsets, int chunkSize, DrinkTemplate[] templates, int firstChunk, int endChunk){
+            this.fileBytes = fileBytes;
+            this.checksummed = checksummed;
+            this.chunkOffsets = chunkOffsets;
+            this.chunkSize = chunkSize;
+            this.templates = templates;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected void compute() {
+            // Split until one chunk is left
+            if (this.endChunk - this.firstChunk > 1){
+                int middleChunk = (this.firstChunk + this.endChunk) >>> 1;
+                ForkJoinTask.invokeAll(
+                        new DecodeChunksAction(this.fileBytes, this.checksummed, this.chunkOffsets, this.chunkSize, this.templates, this.firstChunk, middleChunk),
+                        new DecodeChunksAction(this.fileBytes, this.checksummed, this.chunkOffsets, this.chunkSize, this.templates, middleChunk, this.endChunk)
+                );
+                return;
+            }
+            if (this.endChunk == this.firstChunk) return;
+
+            // Decode the chunk's records in order
+            int firstTemplate = this.firstChunk * this.chunkSize;
+            int endTemplate = Math.min(firstTemplate + this.chunkSize, this.templates.length);
+            ByteBuffer chunkBuffer = ByteBuffer.wrap(this.fileBytes);
+            chunkBuffer.position(this.chunkOffsets[this.firstChunk]);
+            for (int i = firstTemplate; i < endTemplate; i++){
+                int recordOffset = chunkBuffer.position();
+                this.templates[i] = DrinkTemplateBinaryFormat.ReadBinaryTemplate(chunkBuffer);
+                if (this.checksummed && !DrinkTemplateBinaryFormat.VerifyRecordChecksum(chunkBuffer, recordOffset)){
+                    Log.d(
+                            Universals.ErrorMessages.ErrorMessageTag,
+                            Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch
+                    );
+                    throw new IllegalStateException(Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/// <summary>
+///  File: DrinkTemplateRecovery.java
+///     Description: Contains the class and methods of salvaging the intact templates of a
+///         damaged binary template list file. Used by
+///         DrinkTemplateManager.RecoverTemplateListBinary.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+///
+/// Drink Template Recovery Class
+///     Scans a binary template list file for records that match their checksums rather
+///     than stopping at the first error. Past a corrupt record, the scan moves one byte at a
+///     time until it finds the next intact record, so a damaged record costs only itself.
+///
+final class DrinkTemplateRecovery {
+
+    ///
+    /// Constructors
+    ///
+    // Only holds static methods
+    private DrinkTemplateRecovery(){
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a file in the binary template list format and a list, adds every intact
+    ///     template in the file to the list in file order.
+    ///     If the header is corrupt, records are looked for after where it would end.
+    ///     Version 1 files have no checksums, so their records are read until one can't be
+    ///     parsed, and the rest of the file is reported corrupt.
+    ///     Each corrupt range is logged and listed in the result.
+    ///     Returns the result, which reports an undamaged file as intact.
+    ///     Returns null if the file couldn't be read. If null is returned, the list is left
+    ///     unchanged.
+    /// </summary>
+    static DrinkTemplateRecoveryResult Recover(File inputFile, List<DrinkTemplate> recoveredTemplates){
+
+        // Locals
+        byte[] fileBytes;
+        ByteBuffer fileBuffer;
+        DrinkTemplateBinaryFormat.BinaryHeader header;
+        boolean checksummed;
+        DrinkTemplateRecoveryResult result = new DrinkTemplateRecoveryResult();
+        int offset;
+        int recordEnd;
+        int corruptStart = -1;
+
+        // Read the file into memory
+        try{
+            fileBytes = DrinkTemplateBinaryFormat.ReadFileBytes(inputFile);
+        }
+        catch (IOException e){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError
+            );
+            return null;
+        }
+        fileBuffer = ByteBuffer.wrap(fileBytes);
+
+        // Read the header. If it's corrupt, assume the current version's layout.
+        try{
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(fileBuffer);
+        }
+        catch (BufferUnderflowException e){
+            header = null;
+        }
+        if (header != null){
+            result.SetExpectedCount(header.templateCount);
+            checksummed = header.IsChecksummed();
+            offset = header.GetRecordsOffset();
+        }
+        else {
+            checksummed = true;
+            offset = Math.min(
+                    fileBytes.length,
+                    Universals.BinaryFormats.DrinkTemplateManagerFormat.HeaderSize + Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize
+            );
+            result.AddCorruptRange(0, offset);
+        }
+
+        // Keep each intact record, and step past bytes that don't start one
+        while (offset < fileBytes.length){
+            recordEnd = DrinkTemplateRecovery.FindRecordEnd(fileBuffer, offset, checksummed);
+            if (recordEnd >= 0){
+                if (corruptStart >= 0){
+                    result.AddCorruptRange(corruptStart, offset);
+                    corruptStart = -1;
+                }
+                fileBuffer.position(offset);
+                recoveredTemplates.add(DrinkTemplateBinaryFormat.ReadBinaryTemplate(fileBuffer));
+                result.CountRecovered();
+                offset = recordEnd;
+            }
+            else {
+                if (corruptStart < 0) corruptStart = offset;
+                // Without checksums, the next record can't be told apart from corrupt bytes
+                offset = checksummed ? offset + 1 : fileBytes.length;
+            }
+        }
+        if (corruptStart >= 0) result.AddCorruptRange(corruptStart, fileBytes.length);
+        for (DrinkTemplateRecoveryResult.CorruptRange range : result.GetCorruptRanges()){
+            Log.d(
+                    Universals.ErrorMessages.ErrorMessageTag,
+                    Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.RecoverTemplatesCorruptRange(
+                            range.GetStartOffset(),
+                            range.GetEndOffset()
+                    )
+            );
+        }
+        return result;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns the offset just past the record at an offset of a buffer holding a binary
+    //  template list file, including the record's checksum if it has one. Returns -1 if
+    //  there isn't a whole record there or it doesn't match its checksum.
+    private static int FindRecordEnd(ByteBuffer buffer, int offset, boolean checksummed){
+        long end = offset;
+        if (buffer.limit() - end < Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize) return -1;
+        int nameLength = buffer.getInt((int)end);
+        if (nameLength < 0) return -1;
+        end += Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + nameLength
+                + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize;
+        if (buffer.limit() - end < Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize) return -1;
+        int imagePathLength = buffer.getInt((int)end);
+        if (imagePathLength < 0) return -1;
+        end += Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + imagePathLength;
+        if (!checksummed) return end <= buffer.limit() ? (int)end : -1;
+        if (buffer.limit() - end < Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize) return -1;
+        int expected = Crc32c.Compute(buffer.array(), buffer.arrayOffset() + offset, (int)(end - offset));
+        if (buffer.getInt((int)end) != expected) return -1;
+        return (int)(end + Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize);
+    }
+}
@@ -0,0 +1,96 @@
+/// <summary>
+///  File: DrinkTemplateRecoveryResult.java
+///     Description: Contains the class holding the outcome of recovering templates from a
+///         damaged binary template list file.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+///
+/// Drink Template Recovery Result Class
+///     Holds what a recovery found in a binary template list file:
+///         -Recovered: the number of records that matched their checksums and were kept.
+///         -Expected: the number of templates the file's header says it holds, or -1 if the
+///             header itself was corrupt.
+///         -Corrupt ranges: the byte ranges of the file that weren't part of an intact
+///             header or record, in file order. Each runs from its start offset up to, but
+///             not including, its end offset.
+///
+public class DrinkTemplateRecoveryResult {
+
+    ///
+    /// Local variables
+    ///
+    /// <summary>
+    ///  One range of corrupt bytes in a file.
+    /// </summary>
+    public static class CorruptRange {
+        private final long startOffset;
+        private final long endOffset;
+
+        CorruptRange(long startOffset, long endOffset){
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+        }
+
+        public long GetStartOffset(){
+            return this.startOffset;
+        }
+        public long GetEndOffset(){
+            return this.endOffset;
+        }
+        public long GetByteCount(){
+            return this.endOffset - this.startOffset;
+        }
+    }
+
+    private long recoveredCount;
+    private long expectedCount;
+    private final ArrayList<CorruptRange> corruptRanges;
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with nothing recovered and no header read
+    DrinkTemplateRecoveryResult(){
+        this.recoveredCount = 0;
+        this.expectedCount = -1;
+        this.corruptRanges = new ArrayList<>();
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetRecoveredCount(){
+        return this.recoveredCount;
+    }
+    public long GetExpectedCount(){
+        return this.expectedCount;
+    }
+    /// <summary>
+    ///     Returns the corrupt ranges in file order. The list can't be changed.
+    /// </summary>
+    public List<CorruptRange> GetCorruptRanges(){
+        return Collections.unmodifiableList(this.corruptRanges);
+    }
+    /// <summary>
+    ///     Returns whether the file was undamaged: no corrupt bytes, and every template its
+    ///     header lists was recovered.
+    /// </summary>
+    public boolean IsIntact(){
+        return this.corruptRanges.isEmpty() && this.recoveredCount == this.expectedCount;
+    }
+
+    void CountRecovered(){
+        this.recoveredCount++;
+    }
+    void SetExpectedCount(long expectedCount){
+        this.expectedCount = expectedCount;
+    }
+    void AddCorruptRange(long startOffset, long endOffset){
+        this.corruptRanges.add(new CorruptRange(startOffset, endOffset));
+    }
+}
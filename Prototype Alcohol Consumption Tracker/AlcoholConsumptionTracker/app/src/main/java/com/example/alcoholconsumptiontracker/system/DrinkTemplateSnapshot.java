@@ -0,0 +1,165 @@
+/// <summary>
+///  File: DrinkTemplateSnapshot.java
+///     Description: Contains the class of an unchanging, sorted view of a
+///         DrinkTemplateManager's templates, shared by every reader of the same version.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+///
+/// Drink Template Snapshot Class
+///     Holds a manager's template names, sorted, as they were at one version of the
+///     manager. The manager's version increases with every put, modify, remove, and clear,
+///     so two snapshots with the same version hold the same templates.
+///     Only names are copied when the snapshot is taken. Each template is read from the
+///     manager the first time its position is asked for, then kept, so a list adapter
+///     showing a screenful of a large catalog only decodes that screenful.
+///     The snapshot still never changes: before the manager changes a template, it pins the
+///     template's current version into its latest snapshot. A snapshot the manager has
+///     replaced reads templates it hasn't kept from the snapshot that replaced it, which
+///     holds the same template for any name that hasn't been pinned.
+///     The templates in it are the manager's own templates.
+///
+public class DrinkTemplateSnapshot {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the order names are sorted in: ignoring case, then exactly.
+    static final Comparator<String> NameOrder = new Comparator<String>() {
+        @Override
+        public int compare(String first, String second) {
+            int result = String.CASE_INSENSITIVE_ORDER.compare(first, second);
+            if (result != 0) return result;
+            return first.compareTo(second);
+        }
+    };
+
+    private final long version;
+    private final String[] names;
+
+    // Represents the templates read or pinned so far, by position. Null until then.
+    private final AtomicReferenceArray<DrinkTemplate> templates;
+
+    // Represents where templates not yet kept are read from: the manager's map while this
+    //  is its latest snapshot, then the snapshot that replaced it.
+    private final Map<String, DrinkTemplate> source;
+    private volatile DrinkTemplateSnapshot successor;
+
+    ///
+    /// Constructors
+    ///
+    // Given the manager's version, an array of its template names the snapshot can keep,
+    //  and the manager's map, sorts the names and creates a snapshot over them.
+    DrinkTemplateSnapshot(long version, String[] names, Map<String, DrinkTemplate> source){
+        Arrays.sort(names, DrinkTemplateSnapshot.NameOrder);
+        this.version = version;
+        this.names = names;
+        this.templates = new AtomicReferenceArray<>(names.length);
+        this.source = source;
+        this.successor = null;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    /// <summary>
+    ///     Returns the version of the manager the snapshot was taken at. Readers can compare
+    ///     it with the manager's current version to tell if anything changed.
+    /// </summary>
+    public long GetVersion(){
+        return this.version;
+    }
+    public int Size(){
+        return this.names.length;
+    }
+    public boolean IsEmpty(){
+        return this.names.length == 0;
+    }
+    /// <summary>
+    ///     Returns the name of the template at the given position in name order, without
+    ///     reading the template.
+    /// </summary>
+    public String GetName(int position){
+        return this.names[position];
+    }
+    /// <summary>
+    ///     Returns the template at the given position in name order, reading it the first
+    ///     time it's asked for.
+    ///     Returns null if the template couldn't be read from the file it's stored in.
+    /// </summary>
+    public DrinkTemplate Get(int position){
+        DrinkTemplate template = this.templates.get(position);
+        if (template != null) return template;
+        DrinkTemplateSnapshot currentSuccessor = this.successor;
+        template = currentSuccessor != null
+                ? currentSuccessor.GetByName(this.names[position])
+                : this.source.get(this.names[position]);
+        if (template == null) return null;
+
+        // A pin made while the template was read wins, since it holds the version the
+        //  snapshot was taken at
+        if (this.templates.compareAndSet(position, null, template)) return template;
+        return this.templates.get(position);
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Returns the position of the template with the given name, or -1 if the snapshot
+    ///     doesn't have one.
+    /// </summary>
+    public int IndexOf(String templateKey){
+        if (templateKey == null) return -1;
+        int position = Arrays.binarySearch(this.names, templateKey, DrinkTemplateSnapshot.NameOrder);
+        return position < 0 ? -1 : position;
+    }
+
+    /// <summary>
+    ///     Given the name of a template the manager is about to change or remove, keeps its
+    ///     current template if the snapshot has the name and hasn't kept it yet. Called by
+    ///     the manager on its latest snapshot, before the change.
+    /// </summary>
+    void Pin(String templateKey){
+        int position = this.IndexOf(templateKey);
+        if (position >= 0 && this.templates.get(position) == null) this.Get(position);
+    }
+
+    /// <summary>
+    ///     Keeps every template the snapshot hasn't kept yet. Called by the manager on its
+    ///     latest snapshot before every template is replaced at once.
+    /// </summary>
+    void PinAll(){
+        for (int i = 0; i < this.names.length; i++){
+            if (this.templates.get(i) == null) this.Get(i);
+        }
+    }
+
+    /// <summary>
+    ///     Given the snapshot replacing this one as the manager's latest, reads templates
+    ///     not yet kept from it from now on. Called by the manager with the snapshot lock
+    ///     held, before the new snapshot is published.
+    /// </summary>
+    void Supersede(DrinkTemplateSnapshot newSnapshot){
+        this.successor = newSnapshot;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns the template with the given name, or, if the snapshot doesn't have the name,
+    //  the template the source holds now
+    private DrinkTemplate GetByName(String templateKey){
+        int position = this.IndexOf(templateKey);
+        if (position >= 0) return this.Get(position);
+        DrinkTemplateSnapshot currentSuccessor = this.successor;
+        return currentSuccessor != null ? currentSuccessor.GetByName(templateKey) : this.source.get(templateKey);
+    }
+}
@@ -0,0 +1,502 @@
+/// <summary>
+///  File: DrinkTemplateVersions.java
+///     Description: Contains the class and methods of a DrinkTemplateManager's version, its
+///         latest snapshot, and its history of template versions.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+///
+/// Drink Template Versions Class
+///     Keeps the two ways a manager's past templates can be read while it changes:
+///         - The latest snapshot, a sorted view of the templates at one version. Templates
+///             are pinned into it before they change, so it keeps holding them as they were.
+///         - The history, once enabled, holding every version of every template by time.
+///     Also keeps the version the snapshot is taken at, which increases after every change.
+///     The manager pins and prepares before it changes its map, and records after. History
+///     is prepared and recorded under the manager's mutation lock.
+///     The manager's template map can be replaced, so every method is given the current one.
+///     Safe to use from several threads at once.
+///
+final class DrinkTemplateVersions {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the version of the templates. Increases after every put, modify, remove,
+    //  and clear made through the manager.
+    private final AtomicLong version = new AtomicLong();
+
+    // Represents the latest snapshot of the templates, or null if none has been taken.
+    //  Rebuilt by GetSnapshot only once the version has moved past it.
+    private volatile DrinkTemplateSnapshot snapshot;
+    private final Object snapshotLock = new Object();
+
+    // Represents the history of template versions, or null until EnableHistory is called.
+    private volatile TemplateHistory history;
+    private final Object historyLock = new Object();
+
+    ///
+    /// Setters and Getters
+    ///
+    long GetVersion(){
+        return this.version.get();
+    }
+    boolean IsHistoryEnabled(){
+        return this.history != null;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Moves the version past a change just made, and returns the new version.
+    /// </summary>
+    long Advance(){
+        return this.version.incrementAndGet();
+    }
+
+    /// <summary>
+    ///     Given the templates, returns a snapshot of them sorted by name, as described by
+    ///     DrinkTemplateManager.GetSnapshot.
+    /// </summary>
+    DrinkTemplateSnapshot GetSnapshot(Map<String, DrinkTemplate> templates){
+
+        // Reuse the latest snapshot if nothing changed since it was taken
+        DrinkTemplateSnapshot currentSnapshot = this.snapshot;
+        if (currentSnapshot != null && currentSnapshot.GetVersion() == this.version.get()) return currentSnapshot;
+
+        // Otherwise, rebuild it on one thread. The version is read before the names are
+        //  copied, so the copy holds at least every change up to that version. A change made
+        //  during the copy moves the version past it, and the next call rebuilds.
+        //  The old snapshot reads templates it hasn't kept from the new one from now on.
+        synchronized (this.snapshotLock){
+            long currentVersion = this.version.get();
+            DrinkTemplateSnapshot oldSnapshot = this.snapshot;
+            if (oldSnapshot != null && oldSnapshot.GetVersion() == currentVersion) return oldSnapshot;
+            currentSnapshot = new DrinkTemplateSnapshot(currentVersion, templates.keySet().toArray(new String[0]), templates);
+            if (oldSnapshot != null) oldSnapshot.Supersede(currentSnapshot);
+            this.snapshot = currentSnapshot;
+            return currentSnapshot;
+        }
+    }
+
+    /// <summary>
+    ///     Given a template name about to change or be removed, pins its current template
+    ///     into the latest snapshot, so the snapshot keeps holding it as it was. Called
+    ///     before the map changes. A put needs no pin, since it only adds names the
+    ///     snapshot doesn't have or has already pinned.
+    /// </summary>
+    void Pin(String templateKey){
+        DrinkTemplateSnapshot currentSnapshot = this.snapshot;
+        if (currentSnapshot != null) currentSnapshot.Pin(templateKey);
+    }
+
+    /// <summary>
+    ///     Pins every template the latest snapshot hasn't read into it. Called before every
+    ///     template is replaced at once. Reads the whole snapshot, so it's only paid by a
+    ///     clear or reset made while a snapshot is held.
+    /// </summary>
+    void PinAll(){
+        DrinkTemplateSnapshot currentSnapshot = this.snapshot;
+        if (currentSnapshot != null) currentSnapshot.PinAll();
+    }
+
+    /// <summary>
+    ///     Starts the history, as described by DrinkTemplateManager.EnableTemplateHistory.
+    ///     Calling this again does nothing.
+    /// </summary>
+    void EnableHistory(){
+        synchronized (this.historyLock){
+            if (this.history == null) this.history = new TemplateHistory(System.currentTimeMillis());
+        }
+    }
+
+    /// <summary>
+    ///     Given a template name about to change and the templates, records the name's
+    ///     starting version if the history is on and the template hasn't changed before.
+    /// </summary>
+    void PrepareHistory(String templateKey, Map<String, DrinkTemplate> templates){
+        TemplateHistory currentHistory = this.history;
+        if (currentHistory != null) currentHistory.Prepare(templateKey, templates.get(templateKey));
+    }
+
+    /// <summary>
+    ///     Given a template name, its new template (or null if it was removed), and the time
+    ///     of the change, records the new version if the history is on.
+    /// </summary>
+    void RecordHistory(String templateKey, DrinkTemplate template, long time){
+        TemplateHistory currentHistory = this.history;
+        if (currentHistory != null) currentHistory.Record(templateKey, template, time);
+    }
+
+    /// <summary>
+    ///     Given the templates about to be replaced and the time, ends every template's
+    ///     version in the history, if it's on.
+    /// </summary>
+    void RecordHistoryReset(Map<String, DrinkTemplate> templates, long time){
+        TemplateHistory currentHistory = this.history;
+        if (currentHistory != null) currentHistory.RecordReset(templates, time);
+    }
+
+    /// <summary>
+    ///     Given a template name, a time in milliseconds since the epoch, and the templates,
+    ///     returns a copy of the template as it was at that time.
+    ///     Returns null if it didn't exist then, the time is before the history started, or
+    ///     the history isn't on.
+    /// </summary>
+    DrinkTemplate GetTemplateAsOf(String templateKey, long epochMillis, Map<String, DrinkTemplate> templates){
+        TemplateHistory currentHistory = this.history;
+        if (templateKey == null || currentHistory == null) return null;
+        DrinkTemplate template = currentHistory.GetAsOf(templateKey, epochMillis, templates);
+        return template == null ? null : new DrinkTemplate(template);
+    }
+
+    /// <summary>
+    ///     Given a template name, returns how many versions of it the history holds.
+    ///     Returns 0 if it hasn't changed since the history started, or the history isn't on.
+    /// </summary>
+    int GetVersionCount(String templateKey){
+        TemplateHistory currentHistory = this.history;
+        if (templateKey == null || currentHistory == null) return 0;
+        return currentHistory.GetVersionCount(templateKey);
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+
+    /// <summary>
+    ///  Tests snapshots. Snapshots are sorted, shared until the templates change, and never
+    ///     change themselves, including templates first read after they changed.
+    /// </summary>
+    public static void TestSnapshot(boolean printAllMessages){
+
+        // Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplateSnapshot firstSnapshot;
+        DrinkTemplateSnapshot secondSnapshot;
+        DrinkTemplateManager chainManager = new DrinkTemplateManager();
+        DrinkTemplateSnapshot olderSnapshot;
+        DrinkTemplateSnapshot newerSnapshot;
+        DrinkTemplateSnapshot newestSnapshot;
+        DrinkTemplate testTemplate;
+        String[] names = new String[]{"lager", "Cider", "ale", "Bourbon", "Ale"};
+        long firstVersion;
+
+        for (String name : names){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(name);
+            testManager.PutTemplate(testTemplate);
+        }
+
+        // Non-exception cases
+        //  -Case 1, repeated calls without changes share one sorted snapshot
+        firstSnapshot = testManager.GetSnapshot();
+        secondSnapshot = testManager.GetSnapshot();
+        if (firstSnapshot == secondSnapshot
+                && firstSnapshot.GetVersion() == testManager.GetVersion()
+                && firstSnapshot.Size() == 5
+                && firstSnapshot.Get(0).GetName().equals("Ale")
+                && firstSnapshot.Get(1).GetName().equals("ale")
+                && firstSnapshot.Get(2).GetName().equals("Bourbon")
+                && firstSnapshot.Get(4).GetName().equals("lager")
+                && firstSnapshot.IndexOf("Cider") == 3){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, changes move the version and give a new snapshot. The old one is unchanged
+        firstVersion = testManager.GetVersion();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Amaretto");
+        testManager.PutTemplate(testTemplate);
+        testManager.RemoveTemplate("lager");
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Cider");
+        testTemplate.SetServings((short)4);
+        testManager.ModifyTemplate(testTemplate);
+        secondSnapshot = testManager.GetSnapshot();
+        if (testManager.GetVersion() == firstVersion + 3
+                && secondSnapshot != firstSnapshot
+                && secondSnapshot.GetVersion() == firstVersion + 3
+                && secondSnapshot.Size() == 5
+                && secondSnapshot.Get(2).GetName().equals("Amaretto")
+                && secondSnapshot.Get(secondSnapshot.IndexOf("Cider")).GetServings() == 4
+                && secondSnapshot.IndexOf("lager") == -1
+                && firstSnapshot.Size() == 5
+                && firstSnapshot.IndexOf("lager") == 4
+                && firstSnapshot.Get(3).GetServings() != 4){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, a snapshot replaced by a newer one reads templates it hasn't read yet as
+        //      they were when it was taken
+        for (String name : new String[]{"a", "b", "c"}){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName(name);
+            testTemplate.SetServings((short)1);
+            chainManager.PutTemplate(testTemplate);
+        }
+        olderSnapshot = chainManager.GetSnapshot();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("b");
+        testTemplate.SetServings((short)5);
+        chainManager.ModifyTemplate(testTemplate);
+        newerSnapshot = chainManager.GetSnapshot();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("c");
+        testTemplate.SetServings((short)6);
+        chainManager.ModifyTemplate(testTemplate);
+        chainManager.RemoveTemplate("a");
+        newestSnapshot = chainManager.GetSnapshot();
+        if (olderSnapshot.Get(0) != null
+                && olderSnapshot.Get(1).GetServings() == 1
+                && olderSnapshot.Get(2).GetServings() == 1
+                && newerSnapshot.Get(0) != null
+                && newerSnapshot.Get(1).GetServings() == 5
+                && newerSnapshot.Get(2).GetServings() == 1
+                && newestSnapshot.Size() == 2
+                && newestSnapshot.GetName(0).equals("b")
+                && newestSnapshot.Get(1).GetServings() == 6){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(false, 3)
+            );
+        }
+
+        // Exception cases
+        //  -Case 4, changes that fail don't move the version or rebuild the snapshot
+        firstVersion = testManager.GetVersion();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Ale");
+        testManager.PutTemplate(testTemplate);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("missing");
+        testManager.ModifyTemplate(testTemplate);
+        testManager.RemoveTemplate("missing");
+        if (testManager.GetVersion() == firstVersion
+                && testManager.GetSnapshot() == secondSnapshot
+                && secondSnapshot.IndexOf(null) == -1
+                && new DrinkTemplateManager().GetSnapshot().IsEmpty()){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.SnapshotMessage(false, 4)
+            );
+        }
+    }
+
+    /// <summary>
+    ///  Tests GetTemplateAsOf across puts, modifies, removes, clears, and long histories.
+    /// </summary>
+    public static void TestTemplateHistory(boolean printAllMessages){
+
+        // Locals
+        DrinkTemplateManager testManager = new DrinkTemplateManager();
+        DrinkTemplate testTemplate;
+        TemplateHistory testHistory;
+        Random random = new Random(16);
+        long beforeStart;
+        long[] times = new long[5];
+        boolean matched;
+
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Cider");
+        testTemplate.SetPrice(5f);
+        testManager.PutTemplate(testTemplate);
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Mead");
+        testTemplate.SetPrice(11f);
+        testManager.PutTemplate(testTemplate);
+        beforeStart = System.currentTimeMillis();
+        DrinkTemplateVersions.WaitForNextMillisecond();
+        testManager.EnableTemplateHistory();
+
+        // Non-exception cases
+        //  -Case 1, a template's versions are found by time through modifies, removes,
+        //      and puts. Unchanged templates have no versions
+        times[0] = DrinkTemplateVersions.WaitForNextMillisecond();
+        matched = testManager.GetTemplateVersionCount("Cider") == 0
+                && testManager.GetTemplateAsOf("Cider", times[0]).GetPrice() == 5f;
+        DrinkTemplateVersions.WaitForNextMillisecond();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Cider");
+        testTemplate.SetPrice(7f);
+        testManager.ModifyTemplate(testTemplate);
+        times[1] = DrinkTemplateVersions.WaitForNextMillisecond();
+        DrinkTemplateVersions.WaitForNextMillisecond();
+        testManager.RemoveTemplate("Cider");
+        times[2] = DrinkTemplateVersions.WaitForNextMillisecond();
+        DrinkTemplateVersions.WaitForNextMillisecond();
+        testTemplate = new DrinkTemplate();
+        testTemplate.SetName("Cider");
+        testTemplate.SetPrice(9f);
+        testManager.PutTemplate(testTemplate);
+        times[3] = DrinkTemplateVersions.WaitForNextMillisecond();
+        if (matched
+                && testManager.GetTemplateAsOf("Cider", beforeStart) == null
+                && testManager.GetTemplateAsOf("Cider", times[0]).GetPrice() == 5f
+                && testManager.GetTemplateAsOf("Cider", times[1]).GetPrice() == 7f
+                && testManager.GetTemplateAsOf("Cider", times[2]) == null
+                && testManager.GetTemplateAsOf("Cider", times[3]).GetPrice() == 9f
+                && testManager.GetTemplateVersionCount("Cider") == 4){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(true, 1)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(false, 1)
+            );
+        }
+
+        //  -Case 2, changing a put or returned template in place doesn't change its history,
+        //      and a clear ends every version, including unchanged templates
+        testTemplate.SetPrice(100f);
+        testManager.GetTemplateAsOf("Cider", times[3]).SetPrice(200f);
+        matched = testManager.GetTemplateAsOf("Cider", times[3]).GetPrice() == 9f;
+        times[4] = DrinkTemplateVersions.WaitForNextMillisecond();
+        DrinkTemplateVersions.WaitForNextMillisecond();
+        testManager.ClearTemplates();
+        if (matched
+                && testManager.GetTemplateAsOf("Mead", times[4]).GetPrice() == 11f
+                && testManager.GetTemplateAsOf("Mead", DrinkTemplateVersions.WaitForNextMillisecond()) == null
+                && testManager.GetTemplateAsOf("Cider", System.currentTimeMillis()) == null
+                && testManager.GetTemplateAsOf("Cider", times[1]).GetPrice() == 7f){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(true, 2)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(false, 2)
+            );
+        }
+
+        //  -Case 3, a long history with set times. Every time finds the version made at or
+        //      just before it, and versions made in the same millisecond give the last
+        testHistory = new TemplateHistory(1000);
+        for (int i = 0; i < 1000; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("Lager");
+            testTemplate.SetPrice(i);
+            testHistory.Prepare("Lager", null);
+            testHistory.Record("Lager", testTemplate, 1000 + (i / 2) * 10);
+        }
+        matched = testHistory.GetVersionCount("Lager") == 1001
+                && testHistory.GetAsOf("Lager", 999, testManager.GetTemplateList()) == null
+                && testHistory.GetAsOf("Lager", 1000, testManager.GetTemplateList()).GetPrice() == 1f;
+        for (int i = 0; i < 500 && matched; i++){
+            long time = 1000 + random.nextInt(6000);
+            int expected = Math.min(999, (int)((time - 1000) / 10) * 2 + 1);
+            if (testHistory.GetAsOf("Lager", time, testManager.GetTemplateList()).GetPrice() != expected) matched = false;
+        }
+        if (matched){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(true, 3)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(false, 3)
+            );
+        }
+
+        // Exception cases
+        //  -Case 4, history off, null names, and enabling twice. Expect null and 0 without
+        //      a history, and the history kept when enabled again
+        DrinkTemplateManager plainManager = new DrinkTemplateManager();
+        plainManager.PutTemplate(testTemplate);
+        testManager.EnableTemplateHistory();
+        if (!plainManager.IsTemplateHistoryEnabled()
+                && plainManager.GetTemplateAsOf("Lager", System.currentTimeMillis()) == null
+                && plainManager.GetTemplateVersionCount("Lager") == 0
+                && testManager.GetTemplateAsOf(null, System.currentTimeMillis()) == null
+                && testManager.GetTemplateVersionCount(null) == 0
+                && testManager.GetTemplateVersionCount("Cider") == 5){
+            if (printAllMessages)
+                Log.d(
+                        Universals.TestMessages.TestMessageTag,
+                        Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(true, 4)
+                );
+        }
+        else {
+            Log.d(
+                    Universals.TestMessages.TestMessageTag,
+                    Universals.TestMessages.DrinkTemplateManagerMessages.TemplateHistoryMessage(false, 4)
+            );
+        }
+    }
+
+    /// <summary>
+    ///  Waits until the clock moves to the next millisecond, then returns it. Lets tests
+    ///     tell apart changes made one after another.
+    /// </summary>
+    private static long WaitForNextMillisecond(){
+        long start = System.currentTimeMillis();
+        long now = start;
+        while (now == start){
+            Thread.yield();
+            now = System.currentTimeMillis();
+        }
+        return now;
+    }
+}
@@ -0,0 +1,80 @@
+/// <summary>
+///  File: DrinkTotals.java
+///     Description: Contains the class holding the totals of a set of drinks, as summed by
+///         a drink history report.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+///
+/// Drink Totals Class
+///     Holds the number of drinks summed and the totals of their servings, calories, and
+///     prices. Sums are added to one drink at a time, so one object can total any number
+///     of drinks.
+///
+public class DrinkTotals {
+
+    ///
+    /// Local variables
+    ///
+    private long drinkCount;
+    private long servings;
+    private double calories;
+    private double price;
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with no drinks summed
+    public DrinkTotals(){
+        this.Clear();
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetDrinkCount(){
+        return this.drinkCount;
+    }
+    public long GetServings(){
+        return this.servings;
+    }
+    public double GetCalories(){
+        return this.calories;
+    }
+    public double GetPrice(){
+        return this.price;
+    }
+
+    ///
+    /// Methods
+    ///
+    /// <summary>
+    ///     Given a drink's servings, calories, and price, adds the drink to the totals.
+    /// </summary>
+    public void Add(short servings, float calories, float price){
+        this.drinkCount++;
+        this.servings += servings;
+        this.calories += calories;
+        this.price += price;
+    }
+
+    /// <summary>
+    ///     Given other totals, adds their drinks to these totals.
+    /// </summary>
+    public void Add(DrinkTotals other){
+        this.drinkCount += other.drinkCount;
+        this.servings += other.servings;
+        this.calories += other.calories;
+        this.price += other.price;
+    }
+
+    /// <summary>
+    ///     Resets the totals to no drinks summed.
+    /// </summary>
+    public void Clear(){
+        this.drinkCount = 0;
+        this.servings = 0;
+        this.calories = 0;
+        this.price = 0;
+    }
+}
@@ -0,0 +1,251 @@
+/// <summary>
+///  File: LayeredDrinkTemplateMap.java
+///     Description: Contains the class and methods of the template map used by a
+///         DrinkTemplateManager built on a shared DrinkTemplateCatalog. Only the manager's
+///         own changes to the catalog are stored in the map.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+///
+/// Layered Drink Template Map Class
+///     A map of template names to templates made of two layers:
+///         -Base: a shared, read-only catalog.
+///         -Overlay: templates put into this map. They replace any catalog template with the
+///             same name. Removed catalog templates are recorded as tombstones, which hide
+///             them.
+///     Lookups check the tombstones, then the overlay, then the catalog. Memory used by the
+///     map grows with the number of changes made to it, not the size of the catalog.
+///     Clearing the map hides the whole catalog with one flag rather than a tombstone per name.
+///     Safe to use from several threads at once. Lookups don't lock. Changes lock the map.
+///     Iteration covers the names in the map when the iterator was created, skipping any
+///     removed before they're reached.
+///
+class LayeredDrinkTemplateMap extends AbstractMap<String, DrinkTemplate> {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the shared catalog
+    private final DrinkTemplateCatalog base;
+
+    // Represents templates put into this map
+    private final ConcurrentHashMap<String, DrinkTemplate> overlay;
+
+    // Represents names of catalog templates removed from this map
+    private final Set<String> tombstones;
+
+    // Represents whether every catalog template is hidden (the map was cleared)
+    private volatile boolean baseHidden;
+
+    // Represents the number of overlay templates that replace a visible catalog template.
+    //  Used to compute size without looking through either layer.
+    private volatile int shadowCount;
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a catalog, creates a map holding the catalog's templates and no changes.
+    /// </summary>
+    LayeredDrinkTemplateMap(DrinkTemplateCatalog base){
+        this.base = base;
+        this.overlay = new ConcurrentHashMap<>();
+        this.tombstones = ConcurrentHashMap.newKeySet();
+        this.baseHidden = false;
+        this.shadowCount = 0;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public DrinkTemplateCatalog GetBase(){
+        return this.base;
+    }
+    /// <summary>
+    ///     Returns the number of changes stored in this map: templates added or replaced,
+    ///     and catalog templates removed.
+    /// </summary>
+    public synchronized int GetOverlaySize(){
+        return this.overlay.size() + this.tombstones.size();
+    }
+
+    ///
+    /// Map Methods
+    ///
+    // Reads the counts together so a change part way through can't be seen
+    @Override
+    public synchronized int size() {
+        int visibleBaseCount = this.baseHidden ? 0 : this.base.Size() - this.tombstones.size();
+        return visibleBaseCount + this.overlay.size() - this.shadowCount;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null) return false;
+        return this.overlay.containsKey(key) || this.BaseVisible(key);
+    }
+
+    @Override
+    public DrinkTemplate get(Object key) {
+        if (key == null) return null;
+        DrinkTemplate template = this.overlay.get(key);
+        if (template != null || !this.BaseVisible(key)) return template;
+        return this.base.Get((String)key);
+    }
+
+    // The overlay is written before the tombstone is cleared, so readers that don't lock
+    //  never see a removed catalog template come back in between.
+    @Override
+    public synchronized DrinkTemplate put(String key, DrinkTemplate value) {
+        DrinkTemplate previous = this.get(key);
+        boolean inBase = !this.baseHidden && this.base.Contains(key);
+
+        if (inBase && !this.overlay.containsKey(key)) this.shadowCount++;
+        this.overlay.put(key, value);
+        // A tombstoned catalog template becomes visible again through the overlay
+        this.tombstones.remove(key);
+        return previous;
+    }
+
+    @Override
+    public synchronized DrinkTemplate putIfAbsent(String key, DrinkTemplate value) {
+        if (this.containsKey(key)) return this.get(key);
+        return this.put(key, value);
+    }
+
+    @Override
+    public synchronized DrinkTemplate replace(String key, DrinkTemplate value) {
+        if (!this.containsKey(key)) return null;
+        return this.put(key, value);
+    }
+
+    // The tombstone is written before the overlay entry is removed, so readers that don't
+    //  lock never see the catalog template it replaced.
+    @Override
+    public synchronized DrinkTemplate remove(Object key) {
+        if (!this.containsKey(key)) return null;
+        DrinkTemplate previous = this.get(key);
+        boolean inBase = !this.baseHidden && this.base.Contains((String)key);
+
+        if (inBase) this.tombstones.add((String)key);
+        if (this.overlay.remove(key) != null && inBase) this.shadowCount--;
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.baseHidden = true;
+        this.overlay.clear();
+        this.tombstones.clear();
+        this.shadowCount = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, DrinkTemplate>> entrySet() {
+        return new AbstractSet<Map.Entry<String, DrinkTemplate>>() {
+            @Override
+            public Iterator<Map.Entry<String, DrinkTemplate>> iterator() {
+                return new EntryIterator();
+            }
+            @Override
+            public int size() {
+                return LayeredDrinkTemplateMap.this.size();
+            }
+        };
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns whether a name refers to a catalog template that isn't hidden
+    private boolean BaseVisible(Object key){
+        return !this.baseHidden && !this.tombstones.contains(key) && this.base.Contains((String)key);
+    }
+
+    // Iterates over the names in the map when the iterator was created. Overlay entries
+    //  hold their template. Catalog entries decode their template only when their value is
+    //  requested. Names removed since the iterator was created are skipped when reached.
+    private class EntryIterator implements Iterator<Map.Entry<String, DrinkTemplate>> {
+
+        private final Iterator<String> keyIterator;
+        private String nextKey;
+        private String lastKey;
+
+        // Copies the names while the map is locked so none are added or removed part way
+        EntryIterator(){
+            ArrayList<String> keys;
+            synchronized (LayeredDrinkTemplateMap.this){
+                keys = new ArrayList<>(LayeredDrinkTemplateMap.this.size());
+                keys.addAll(LayeredDrinkTemplateMap.this.overlay.keySet());
+                if (!LayeredDrinkTemplateMap.this.baseHidden){
+                    for (String key : LayeredDrinkTemplateMap.this.base.GetNames()){
+                        if (!LayeredDrinkTemplateMap.this.tombstones.contains(key)
+                                && !LayeredDrinkTemplateMap.this.overlay.containsKey(key)){
+                            keys.add(key);
+                        }
+                    }
+                }
+            }
+            this.keyIterator = keys.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.FindNextKey();
+        }
+
+        @Override
+        public Map.Entry<String, DrinkTemplate> next() {
+            if (!this.FindNextKey()) throw new NoSuchElementException();
+            final String key = this.nextKey;
+            this.nextKey = null;
+            this.lastKey = key;
+            DrinkTemplate overlayTemplate = LayeredDrinkTemplateMap.this.overlay.get(key);
+            if (overlayTemplate != null) return new AbstractMap.SimpleImmutableEntry<>(key, overlayTemplate);
+            return new Map.Entry<String, DrinkTemplate>() {
+                @Override
+                public String getKey() {
+                    return key;
+                }
+                @Override
+                public DrinkTemplate getValue() {
+                    return LayeredDrinkTemplateMap.this.get(key);
+                }
+                @Override
+                public DrinkTemplate setValue(DrinkTemplate value) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) throw new IllegalStateException();
+            LayeredDrinkTemplateMap.this.remove(this.lastKey);
+            this.lastKey = null;
+        }
+
+        // Advances to the next copied name still in the map
+        private boolean FindNextKey(){
+            if (this.nextKey != null) return true;
+            while (this.keyIterator.hasNext()){
+                String key = this.keyIterator.next();
+                if (LayeredDrinkTemplateMap.this.containsKey(key)){
+                    this.nextKey = key;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/// <summary>
+///  File: LazyDrinkTemplateMap.java
+///     Description: Contains the class and methods of the template map used by a
+///         DrinkTemplateManager in catalog mode. Only an index of template names to record
+///         offsets is loaded up front. Templates are decoded from the binary template list
+///         file when they're first used.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+///
+/// Lazy Drink Template Map Class
+///     A map of template names to templates backed by a binary template list file.
+///     Holds three sets of templates:
+///         -Indexed: templates still stored only in the file, found by record number.
+///             Decoded templates are kept in a cache of bounded size.
+///         -Overlay: templates put into the map after it was opened. They replace any
+///             indexed template with the same name.
+///     A name is in at most one of the index and the overlay, so size and containsKey
+///     never decode a template.
+///     Iterating over keys doesn't decode templates. Iterating over values decodes each
+///     indexed template as it is reached.
+///     Safe to use from several threads at once. size, containsKey, and get of an overlay
+///     template don't lock. Changes and decoding an indexed template lock the map.
+///     Iteration covers the names in the map when the iterator was created. A template
+///     removed after that is skipped if its removal is seen before it is reached, and
+///     otherwise has a null value.
+///
+class LazyDrinkTemplateMap extends AbstractMap<String, DrinkTemplate> {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the default number of decoded templates kept in the cache.
+    public static final int DefaultCacheCapacity = 64;
+
+    // Represents the size of the buffer the index is read through.
+    private static final int indexBufferSize = 64 * 1024;
+
+    // Represents the size of a record with empty strings and no checksum. A record's
+    //  strings take up at most the bytes left in the file past this.
+    private static final int minimumRecordSize = Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize * 2
+            + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize;
+
+    // Represents the reader used to decode templates. It is opened with the index and held
+    //  open, so a save that replaces the file by renaming over it doesn't move records
+    //  out from under the index.
+    private StorageFileReader sourceReader;
+
+    // Represents the index of templates still stored only in the file.
+    //  Key = template name, value = record number.
+    //  recordOffsets holds each record's offset in the file, followed by the file's length,
+    //  so record n spans recordOffsets[n] to recordOffsets[n + 1].
+    private final ConcurrentHashMap<String, Integer> recordNumbers;
+    private final long[] recordOffsets;
+
+    // Represents whether each record ends with a checksum, checked when it is decoded.
+    private final boolean checksummed;
+
+    // Represents templates put into the map after it was opened.
+    private final ConcurrentHashMap<String, DrinkTemplate> overlay;
+
+    // Represents recently decoded templates, least recently used first.
+    private final LinkedHashMap<String, DrinkTemplate> hydratedCache;
+
+    // Represents the number of templates decoded from the file.
+    private volatile long hydrationCount;
+
+    ///
+    /// Constructors
+    ///
+    // Construct from an index read by Open
+    private LazyDrinkTemplateMap(StorageFileReader sourceReader, HashMap<String, Integer> recordNumbers, long[] recordOffsets, boolean checksummed, final int cacheCapacity){
+        this.sourceReader = sourceReader;
+        this.recordNumbers = new ConcurrentHashMap<>(recordNumbers);
+        this.recordOffsets = recordOffsets;
+        this.checksummed = checksummed;
+        this.overlay = new ConcurrentHashMap<>();
+        this.hydratedCache = new LinkedHashMap<String, DrinkTemplate>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DrinkTemplate> eldest) {
+                return this.size() > cacheCapacity;
+            }
+        };
+        this.hydrationCount = 0;
+    }
+
+    /// <summary>
+    ///  Given a file in the binary template list format and the number of decoded templates
+    ///     to keep cached, reads the file's index of template names and record offsets and
+    ///     returns a map backed by the file.
+    ///     Only names are read. Other fields are skipped over. The header is checked against
+    ///     its checksum now, and each record against its checksum when it is decoded.
+    ///     If a name appears more than once, the first record with that name is used.
+    ///     If the file is encrypted, decoding a template decrypts only the chunks holding
+    ///     its record.
+    ///     Returns null if the file isn't a valid binary template list file.
+    /// </summary>
+    static LazyDrinkTemplateMap Open(File sourceFile, int cacheCapacity){
+
+        // Locals
+        StorageFileReader sourceReader;
+        DataInputStream inputStream;
+        DrinkTemplateBinaryFormat.BinaryHeader header;
+        int templateCount;
+        long offset;
+        long fileLength;
+        HashMap<String, Integer> recordNumbers;
+        long[] recordOffsets;
+        byte[] nameBytes;
+        String name;
+        int nameLength;
+        int imagePathLength;
+
+        // Open the reader first so the index and the decoded records come from the same file
+        try{
+            sourceReader = StorageFileReader.Open(sourceFile);
+            inputStream = new DataInputStream(sourceReader.OpenStream(LazyDrinkTemplateMap.indexBufferSize));
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileNotFound);
+            return null;
+        }
+
+        try{
+            // Verify the header
+            header = DrinkTemplateBinaryFormat.ReadBinaryHeader(inputStream);
+            fileLength = sourceReader.GetLength();
+            if (header == null || !header.FitsLength(fileLength)){
+                sourceReader.close();
+                return null;
+            }
+            templateCount = header.templateCount;
+            offset = header.GetRecordsOffset();
+
+            // Read each record's name and skip the rest of the record. Each length is
+            //  checked against the bytes left in the file before it's used, so a corrupt
+            //  length fails the index instead of being allocated.
+            recordNumbers = new HashMap<>(Math.max(16, (int)(templateCount / 0.75f) + 1));
+            recordOffsets = new long[templateCount + 1];
+            for (int i = 0; i < templateCount; i++){
+                recordOffsets[i] = offset;
+                nameLength = inputStream.readInt();
+                if (nameLength < 0 || nameLength > fileLength - offset - LazyDrinkTemplateMap.minimumRecordSize){
+                    throw new IOException(Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidBinaryFile);
+                }
+                nameBytes = new byte[nameLength];
+                inputStream.readFully(nameBytes);
+                name = new String(nameBytes, StandardCharsets.UTF_8);
+                LazyDrinkTemplateMap.SkipFully(inputStream, Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize);
+                imagePathLength = inputStream.readInt();
+                if (imagePathLength < 0 || imagePathLength > fileLength - offset - LazyDrinkTemplateMap.minimumRecordSize - nameLength){
+                    throw new IOException(Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorInvalidBinaryFile);
+                }
+                LazyDrinkTemplateMap.SkipFully(inputStream, imagePathLength + header.GetChecksumSize());
+                offset += Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + nameLength
+                        + Universals.BinaryFormats.DrinkTemplateManagerFormat.FixedFieldsSize
+                        + Universals.BinaryFormats.DrinkTemplateManagerFormat.StringLengthSize + imagePathLength
+                        + header.GetChecksumSize();
+
+                if (!recordNumbers.containsKey(name)) recordNumbers.put(name, i);
+            }
+            recordOffsets[templateCount] = offset;
+        }
+        catch (IOException e){
+            // Includes the file ending before all of its records were read
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError);
+            try{
+                sourceReader.close();
+            }
+            catch (IOException ignored){
+            }
+            return null;
+        }
+
+        return new LazyDrinkTemplateMap(sourceReader, recordNumbers, recordOffsets, header.IsChecksummed(), cacheCapacity);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetHydrationCount(){
+        return this.hydrationCount;
+    }
+    public synchronized int GetCachedCount(){
+        return this.hydratedCache.size();
+    }
+    public int GetIndexedCount(){
+        return this.recordNumbers.size();
+    }
+
+    ///
+    /// Map Methods
+    ///
+    @Override
+    public int size() {
+        return this.overlay.size() + this.recordNumbers.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null) return false;
+        return this.overlay.containsKey(key) || this.recordNumbers.containsKey(key);
+    }
+
+    @Override
+    public DrinkTemplate get(Object key) {
+        if (key == null) return null;
+        DrinkTemplate template = this.overlay.get(key);
+        if (template != null || !this.recordNumbers.containsKey(key)) return template;
+        return this.Hydrate((String)key);
+    }
+
+    // The template is added to the overlay before it leaves the index, so readers that
+    //  don't lock always find the name in one of them.
+    @Override
+    public synchronized DrinkTemplate put(String key, DrinkTemplate value) {
+        DrinkTemplate previous = this.get(key);
+        this.overlay.put(key, value);
+        this.RemoveIndexed(key);
+        return previous;
+    }
+
+    @Override
+    public synchronized DrinkTemplate putIfAbsent(String key, DrinkTemplate value) {
+        if (this.containsKey(key)) return this.get(key);
+        this.overlay.put(key, value);
+        return null;
+    }
+
+    @Override
+    public synchronized DrinkTemplate replace(String key, DrinkTemplate value) {
+        if (!this.containsKey(key)) return null;
+        return this.put(key, value);
+    }
+
+    @Override
+    public synchronized DrinkTemplate remove(Object key) {
+        if (key == null) return null;
+        DrinkTemplate previous = this.get(key);
+        this.RemoveIndexed(key);
+        this.overlay.remove(key);
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.recordNumbers.clear();
+        this.hydratedCache.clear();
+        this.overlay.clear();
+        this.Close();
+    }
+
+    @Override
+    public Set<Map.Entry<String, DrinkTemplate>> entrySet() {
+        return new AbstractSet<Map.Entry<String, DrinkTemplate>>() {
+            @Override
+            public Iterator<Map.Entry<String, DrinkTemplate>> iterator() {
+                return new EntryIterator();
+            }
+            @Override
+            public int size() {
+                return LazyDrinkTemplateMap.this.size();
+            }
+        };
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Closes the reader used to decode templates. Indexed templates that aren't cached
+    ///     can't be read after this, so it is only called once none are left.
+    /// </summary>
+    private synchronized void Close(){
+        if (this.sourceReader != null){
+            try{
+                this.sourceReader.close();
+            }
+            catch (IOException ignored){
+            }
+            this.sourceReader = null;
+        }
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns the indexed template with the given name from the cache, decoding it from the
+    //  file if it isn't cached. Returns null if it couldn't be read or failed its checksum.
+    private synchronized DrinkTemplate Hydrate(String key){
+
+        DrinkTemplate template = this.hydratedCache.get(key);
+        if (template != null) return template;
+
+        // The template may have been removed since the caller checked the index
+        Integer recordNumber = this.recordNumbers.get(key);
+        if (recordNumber == null) return this.overlay.get(key);
+        long offset = this.recordOffsets[recordNumber];
+        byte[] record = new byte[(int)(this.recordOffsets[recordNumber + 1] - offset)];
+
+        try{
+            if (this.sourceReader == null) throw new IOException();
+            this.sourceReader.ReadFully(offset, record, 0, record.length);
+            if (this.checksummed){
+                int recordLength = record.length - Universals.BinaryFormats.DrinkTemplateManagerFormat.ChecksumSize;
+                if (ByteBuffer.wrap(record).getInt(recordLength) != Crc32c.Compute(record, 0, recordLength)){
+                    Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorChecksumMismatch);
+                    return null;
+                }
+            }
+            template = DrinkTemplateBinaryFormat.ReadBinaryTemplate(new DataInputStream(new ByteArrayInputStream(record)), record.length);
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.DrinkTemplateManagerErrorMessages.ReadTemplatesErrorFileIOError);
+            return null;
+        }
+
+        this.hydrationCount++;
+        this.hydratedCache.put(key, template);
+        return template;
+    }
+
+    // Removes a template from the index and cache. Closes the reader once the index is empty.
+    private synchronized void RemoveIndexed(Object key){
+        if (this.recordNumbers.remove(key) != null && this.recordNumbers.isEmpty()){
+            this.Close();
+        }
+        this.hydratedCache.remove(key);
+    }
+
+    // Skips exactly the given number of bytes of a stream
+    private static void SkipFully(DataInputStream stream, int byteCount) throws IOException {
+        while (byteCount > 0){
+            int skipped = stream.skipBytes(byteCount);
+            if (skipped <= 0){
+                // skipBytes may stop early without reaching the end. Read a byte to tell.
+                if (stream.read() == -1) throw new EOFException();
+                skipped = 1;
+            }
+            byteCount -= skipped;
+        }
+    }
+
+    // Iterates over the names in the map when the iterator was created. Overlay entries
+    //  hold their template. Indexed entries decode their template only when their value is
+    //  requested. Names removed since the iterator was created are skipped when reached.
+    private class EntryIterator implements Iterator<Map.Entry<String, DrinkTemplate>> {
+
+        private final Iterator<String> keyIterator;
+        private String nextKey;
+        private String lastKey;
+
+        // Copies the names while the map is locked so none are added or removed part way
+        EntryIterator(){
+            ArrayList<String> keys;
+            synchronized (LazyDrinkTemplateMap.this){
+                keys = new ArrayList<>(LazyDrinkTemplateMap.this.size());
+                keys.addAll(LazyDrinkTemplateMap.this.overlay.keySet());
+                keys.addAll(LazyDrinkTemplateMap.this.recordNumbers.keySet());
+            }
+            this.keyIterator = keys.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.FindNextKey();
+        }
+
+        @Override
+        public Map.Entry<String, DrinkTemplate> next() {
+            if (!this.FindNextKey()) throw new NoSuchElementException();
+            final String key = this.nextKey;
+            this.nextKey = null;
+            this.lastKey = key;
+            DrinkTemplate overlayTemplate = LazyDrinkTemplateMap.this.overlay.get(key);
+            if (overlayTemplate != null) return new AbstractMap.SimpleImmutableEntry<>(key, overlayTemplate);
+            return new Map.Entry<String, DrinkTemplate>() {
+                @Override
+                public String getKey() {
+                    return key;
+                }
+                @Override
+                public DrinkTemplate getValue() {
+                    return LazyDrinkTemplateMap.this.get(key);
+                }
+                @Override
+                public DrinkTemplate setValue(DrinkTemplate value) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastKey == null) throw new IllegalStateException();
+            LazyDrinkTemplateMap.this.remove(this.lastKey);
+            this.lastKey = null;
+        }
+
+        // Advances to the next copied name still in the map
+        private boolean FindNextKey(){
+            if (this.nextKey != null) return true;
+            while (this.keyIterator.hasNext()){
+                String key = this.keyIterator.next();
+                if (LazyDrinkTemplateMap.this.containsKey(key)){
+                    this.nextKey = key;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/// <summary>
+///  File: PersistenceScheduler.java
+///     Description: Contains the class and methods of the scheduler that runs save requests
+///         on a dedicated I/O thread. Requests made close together are coalesced into one write.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+///
+/// Persistence Scheduler Class
+///     Runs write tasks on a single background thread so saving never blocks the caller.
+///     When a write is requested, it is held for the coalescing window. If more writes are
+///     requested before the window ends, only the most recent one is kept and run, since
+///     each write task saves the whole state at the time it was requested.
+///     RequestFlush starts any held write immediately without waiting for it, and is meant
+///     to be called when the app is leaving the foreground. Flush also waits for it, so it
+///     must not be called on the UI thread.
+///
+public class PersistenceScheduler {
+
+    ///
+    /// Interfaces
+    ///
+    /// <summary>
+    ///  A unit of work that saves state to disk. Runs on the scheduler's I/O thread.
+    ///     Returns true if the write succeeded.
+    ///     Returns false otherwise.
+    /// </summary>
+    public interface WriteTask{
+        boolean Write();
+    }
+
+    ///
+    /// Local variables
+    ///
+    // Represents the default time in milliseconds a write is held for before it runs.
+    public static final long DefaultCoalesceWindowMillis = 250;
+
+    // Represents the time in milliseconds a write is held for before it runs.
+    private final long coalesceWindowMillis;
+
+    // Represents the I/O thread writes run on.
+    private final ScheduledExecutorService ioExecutor;
+
+    // Represents the write waiting for its window to end and its scheduled run. Both are
+    //  null if no write is waiting. Guarded by the scheduler.
+    private WriteTask pendingTask;
+    private ScheduledFuture<?> pendingFuture;
+
+    // Represents counts of writes requested, requests replaced by a later request,
+    //  writes run, and writes that returned false.
+    private final AtomicLong requestedWriteCount;
+    private final AtomicLong coalescedWriteCount;
+    private final AtomicLong executedWriteCount;
+    private final AtomicLong failedWriteCount;
+
+    // Used to number I/O threads across schedulers
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Creates a scheduler using the default coalescing window.
+    /// </summary>
+    public PersistenceScheduler(){
+        this(PersistenceScheduler.DefaultCoalesceWindowMillis);
+    }
+    // Construct with a coalescing window in milliseconds
+    public PersistenceScheduler(long coalesceWindowMillis){
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.ioExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "PersistenceScheduler-" + PersistenceScheduler.threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.requestedWriteCount = new AtomicLong(0);
+        this.coalescedWriteCount = new AtomicLong(0);
+        this.executedWriteCount = new AtomicLong(0);
+        this.failedWriteCount = new AtomicLong(0);
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public long GetRequestedWriteCount(){
+        return this.requestedWriteCount.get();
+    }
+    public long GetCoalescedWriteCount(){
+        return this.coalescedWriteCount.get();
+    }
+    public long GetExecutedWriteCount(){
+        return this.executedWriteCount.get();
+    }
+    public long GetFailedWriteCount(){
+        return this.failedWriteCount.get();
+    }
+    public synchronized boolean HasPendingWrite(){
+        return this.pendingTask != null;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a write task, schedules it to run on the I/O thread once the coalescing
+    ///     window ends. If a write is already waiting, it is replaced by the given task
+    ///     and counted as coalesced.
+    ///     Returns true if the task was scheduled.
+    ///     Returns false if the scheduler has been shut down.
+    /// </summary>
+    public synchronized boolean RequestWrite(WriteTask task){
+
+        if (task == null || this.ioExecutor.isShutdown()) return false;
+
+        this.requestedWriteCount.incrementAndGet();
+        if (this.pendingTask != null){
+            this.coalescedWriteCount.incrementAndGet();
+        }
+        this.pendingTask = task;
+
+        // Start the window if one isn't already running
+        if (this.pendingFuture == null){
+            this.pendingFuture = this.ioExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    PersistenceScheduler.this.RunPendingWrite();
+                }
+            }, this.coalesceWindowMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /// <summary>
+    ///     Starts the waiting write, if any, on the I/O thread without waiting for its
+    ///     window to end, and returns without waiting for it to finish. Safe to call on the
+    ///     UI thread.
+    ///     Returns true if the write was started or none was waiting.
+    ///     Returns false if the scheduler has been shut down.
+    /// </summary>
+    public synchronized boolean RequestFlush(){
+        if (this.ioExecutor.isShutdown()) return false;
+        this.ScheduleFlush();
+        return true;
+    }
+
+    /// <summary>
+    ///     Runs the waiting write, if any, without waiting for its window to end, then
+    ///     waits until every write requested before this call has finished. Blocks on
+    ///     disk I/O, so it isn't called on the UI thread.
+    ///     Returns true if no write failed while flushing.
+    ///     Returns false otherwise.
+    /// </summary>
+    public boolean Flush(){
+
+        long failedCountBefore = this.failedWriteCount.get();
+        ScheduledFuture<?> flushFuture;
+
+        synchronized (this){
+            if (this.ioExecutor.isShutdown()) return this.pendingTask == null;
+            flushFuture = this.ScheduleFlush();
+        }
+
+        try{
+            flushFuture.get();
+        }
+        catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (ExecutionException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.PersistenceSchedulerErrorMessages.WriteError);
+            return false;
+        }
+        return this.failedWriteCount.get() == failedCountBefore;
+    }
+
+    /// <summary>
+    ///     Flushes any waiting write, then stops the I/O thread. Later requests are refused.
+    /// </summary>
+    public void Shutdown(){
+        this.Flush();
+        this.ioExecutor.shutdown();
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Cancels the delayed run of the waiting write and queues a run now, behind anything
+    //  running on the single I/O thread. If the delayed run already started, it runs the
+    //  waiting write itself. Called with the scheduler locked.
+    private ScheduledFuture<?> ScheduleFlush(){
+        if (this.pendingFuture != null && this.pendingFuture.cancel(false)){
+            this.pendingFuture = null;
+        }
+        return this.ioExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                PersistenceScheduler.this.RunPendingWrite();
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+    }
+
+    // Takes the waiting write, if any, and runs it. Runs on the I/O thread.
+    private void RunPendingWrite(){
+
+        WriteTask task;
+
+        synchronized (this){
+            task = this.pendingTask;
+            this.pendingTask = null;
+            this.pendingFuture = null;
+        }
+        if (task == null) return;
+
+        boolean result;
+        try{
+            result = task.Write();
+        }
+        catch (RuntimeException e){
+            result = false;
+        }
+        this.executedWriteCount.incrementAndGet();
+        if (!result){
+            this.failedWriteCount.incrementAndGet();
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.PersistenceSchedulerErrorMessages.WriteError);
+        }
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+    // Test requesting several writes within one window coalesces them into the last one,
+    //  and that flushing runs a waiting write without waiting for the window
+    public static void TestCoalesceAndFlush(boolean printAllMessages, Context context){
+
+        // Locals
+        PersistenceScheduler testScheduler = new PersistenceScheduler(60 * 1000);
+        PersistenceScheduler shortScheduler;
+        DrinkTemplateManager testManager;
+        DrinkTemplateManager readManager;
+        final int[] lastWrittenValue = {0};
+        final CountDownLatch releaseWrite = new CountDownLatch(1);
+        String fileName = "persistenceSchedulerTest";
+        File outputFile = new File(context.getFilesDir(), fileName + Universals.FileNames.BinaryExtension);
+        File temporaryFile = new File(outputFile.getAbsolutePath() + Universals.FileNames.TemporaryExtension);
+        long executedBefore;
+        long deadline;
+        boolean requested;
+        boolean returnedFirst;
+
+        // Non-exception cases
+        //  -Case 1, three requests within a long window run once, with the last task, on flush
+        for (int i = 1; i <= 3; i++){
+            final int value = i;
+            testScheduler.RequestWrite(new WriteTask() {
+                @Override
+                public boolean Write() {
+                    lastWrittenValue[0] = value;
+                    return true;
+                }
+            });
+        }
+        if (testScheduler.GetExecutedWriteCount() == 0
+                && testScheduler.HasPendingWrite()
+                && testScheduler.Flush()
+                && testScheduler.GetRequestedWriteCount() == 3
+                && testScheduler.GetCoalescedWriteCount() == 2
+                && testScheduler.GetExecutedWriteCount() == 1
+                && lastWrittenValue[0] == 3
+                && !testScheduler.HasPendingWrite()){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(false, 1));
+
+        //  -Case 2, a write runs on its own once its window ends
+        shortScheduler = new PersistenceScheduler(10);
+        shortScheduler.RequestWrite(new WriteTask() {
+            @Override
+            public boolean Write() {
+                return true;
+            }
+        });
+        deadline = System.currentTimeMillis() + 5000;
+        while (shortScheduler.GetExecutedWriteCount() == 0 && System.currentTimeMillis() < deadline){
+            try{
+                Thread.sleep(5);
+            }
+            catch (InterruptedException e){
+                break;
+            }
+        }
+        if (shortScheduler.GetExecutedWriteCount() == 1){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(false, 2));
+        shortScheduler.Shutdown();
+
+        //  -Case 3, a template save leaves the complete file and no temporary file, and later
+        //      changes to the manager don't affect the captured save
+        testManager = DrinkTemplateManager.GenerateBenchmarkManager(100);
+        testScheduler.RequestWrite(testManager.CreateSaveTask(context.getFilesDir(), fileName));
+        testManager.GetTemplateList().clear();
+        readManager = new DrinkTemplateManager();
+        if (testScheduler.Flush()
+                && outputFile.exists()
+                && !temporaryFile.exists()
+                && readManager.ReadTemplateListBinary(context.getFilesDir(), fileName, false)
+                && readManager.GetTemplateList().size() == 100){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(false, 3));
+        outputFile.delete();
+
+        //  -Case 4, requesting a flush returns at once, and the waiting write still runs
+        //      without waiting for its window
+        testScheduler.RequestWrite(new WriteTask() {
+            @Override
+            public boolean Write() {
+                try{
+                    return releaseWrite.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e){
+                    return false;
+                }
+            }
+        });
+        executedBefore = testScheduler.GetExecutedWriteCount();
+        requested = testScheduler.RequestFlush();
+        returnedFirst = testScheduler.GetExecutedWriteCount() == executedBefore;
+        releaseWrite.countDown();
+        deadline = System.currentTimeMillis() + 5000;
+        while (testScheduler.GetExecutedWriteCount() == executedBefore && System.currentTimeMillis() < deadline){
+            try{
+                Thread.sleep(5);
+            }
+            catch (InterruptedException e){
+                break;
+            }
+        }
+        if (requested && returnedFirst && testScheduler.GetExecutedWriteCount() == executedBefore + 1){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(false, 4));
+
+        // Exception cases
+        //  -Case 5, a failing write is counted and reported by flush
+        executedBefore = testScheduler.GetExecutedWriteCount();
+        testScheduler.RequestWrite(new WriteTask() {
+            @Override
+            public boolean Write() {
+                return false;
+            }
+        });
+        if (!testScheduler.Flush()
+                && testScheduler.GetFailedWriteCount() == 1
+                && testScheduler.GetExecutedWriteCount() == executedBefore + 1){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(false, 5));
+
+        //  -Case 6, requesting a flush after shutdown is refused
+        testScheduler.Shutdown();
+        if (!testScheduler.RequestFlush()){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(true, 6));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.PersistenceSchedulerMessages.CoalesceFlushMessage(false, 6));
+    }
+}
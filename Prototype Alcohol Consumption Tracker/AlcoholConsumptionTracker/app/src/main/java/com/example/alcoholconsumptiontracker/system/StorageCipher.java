@@ -0,0 +1,947 @@
+/// <summary>
+///  File: StorageCipher.java
+///     Description: Contains the class and methods of the authenticated encryption used to
+///         store the app's files encrypted, in chunks that can each be read on their own.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+///
+/// Storage Cipher Class
+///     Encrypts and decrypts files with AES-GCM, split into chunks so a file can be
+///     streamed without holding it whole, and any chunk can be read without the ones
+///     before it. An encrypted file is stored as:
+///         -Header: magic number (int), version (short), chunk size (int), file salt
+///         -Followed by chunks. Each holds chunk size bytes of the file, encrypted, except
+///             the last, which holds the rest (possibly none). Each is followed by its tag.
+///     Each file is encrypted with its own key, derived from the storage key and the
+///     file's random salt with HMAC-SHA256. A file is given a new salt each time it's
+///     written, so no two files share a key, and nonces only need to be unique within a
+///     file: each chunk's nonce is its number and whether it's the last chunk. A chunk's
+///     associated data is the header. So a chunk can't be changed, moved to another place
+///     or file, or dropped from the end without failing to decrypt.
+///     Chunks are encrypted and decrypted in reused buffers, so streaming costs one
+///     cipher call per chunk and no buffer allocation per chunk.
+///     A StorageCipher is safe to share between threads. The streams and readers it
+///     creates aren't.
+///
+public class StorageCipher {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the default number of file bytes in each chunk. Each chunk costs a cipher
+    //  setup, which dominates below about 64 KB.
+    public static final int DefaultChunkSize = 64 * 1024;
+
+    // Represents the cipher, key size, and tag size used, and how file keys are derived
+    private static final String transformation = "AES/GCM/NoPadding";
+    private static final String keyAlgorithm = "AES";
+    private static final int keySizeBits = 256;
+    private static final String fileKeyAlgorithm = "HmacSHA256";
+
+    // Represents the key file keys are derived from and the size of chunks written
+    private final SecretKeySpec derivationKey;
+    private final int chunkSize;
+
+    // Used to create each file's salt
+    private final SecureRandom random;
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a 256-bit AES key, creates a cipher writing chunks of the default size.
+    /// </summary>
+    public StorageCipher(SecretKey key){
+        this(key, StorageCipher.DefaultChunkSize);
+    }
+    // Construct with the number of file bytes in each chunk written. Files written with
+    //  any chunk size can be read.
+    public StorageCipher(SecretKey key, int chunkSize){
+        if (chunkSize <= 0) throw new IllegalArgumentException();
+        this.derivationKey = new SecretKeySpec(key.getEncoded(), StorageCipher.fileKeyAlgorithm);
+        this.chunkSize = chunkSize;
+        this.random = new SecureRandom();
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    public int GetChunkSize(){
+        return this.chunkSize;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Returns a new random 256-bit AES key.
+    /// </summary>
+    public static SecretKey GenerateKey(){
+        try{
+            KeyGenerator generator = KeyGenerator.getInstance(StorageCipher.keyAlgorithm);
+            generator.init(StorageCipher.keySizeBits);
+            return generator.generateKey();
+        }
+        catch (GeneralSecurityException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /// <summary>
+    ///     Given the first bytes of a file, returns whether it's an encrypted file.
+    /// </summary>
+    public static boolean IsEncryptedHeader(byte[] bytes, int length){
+        return length >= 4 && ByteBuffer.wrap(bytes, 0, 4).getInt() == Universals.BinaryFormats.StorageCipherFormat.MagicNumber;
+    }
+
+    /// <summary>
+    ///     Given a stream, returns a stream that encrypts everything written to it into the
+    ///     given stream. The header is written now. The last chunk is written when the
+    ///     returned stream is finished or closed, and until then the file can't be read,
+    ///     so writers that force the file to disk must finish the stream first.
+    ///     Throws IOException if the header couldn't be written.
+    /// </summary>
+    public EncryptingStream EncryptStream(OutputStream output) throws IOException {
+        byte[] fileSalt = this.NewFileSalt();
+        return new EncryptingStream(output, this.NewCipher(), this.DeriveFileKey(fileSalt), this.chunkSize, fileSalt);
+    }
+
+    /// <summary>
+    ///     Given a stream positioned at the start of an encrypted file, reads the header
+    ///     and returns a stream of the decrypted file.
+    ///     Throws IOException if the file isn't an encrypted file. Reads from the returned
+    ///     stream throw IOException if a chunk fails to decrypt, and EOFException if the
+    ///     file ends before its last chunk.
+    /// </summary>
+    public InputStream DecryptStream(InputStream input) throws IOException {
+        byte[] header = new byte[Universals.BinaryFormats.StorageCipherFormat.HeaderSize];
+        StorageCipher.ReadFully(input, header, 0, header.length);
+        int fileChunkSize = StorageCipher.ParseHeader(header);
+        return new DecryptingStream(input, this.NewCipher(), this.DeriveFileKey(StorageCipher.SaltFromHeader(header)), header, fileChunkSize);
+    }
+
+    /// <summary>
+    ///     Given an encrypted file, opens it for reading any range of the decrypted file,
+    ///     decrypting only the chunks the range covers.
+    ///     Throws IOException if the file can't be opened or isn't an encrypted file.
+    /// </summary>
+    public ChunkReader OpenChunkReader(File file) throws IOException {
+        RandomAccessFile source = new RandomAccessFile(file, "r");
+        try{
+            return this.OpenChunkReader(source);
+        }
+        catch (IOException e){
+            source.close();
+            throw e;
+        }
+    }
+    // Open over a file already opened for reading. The reader closes it when it's closed.
+    ChunkReader OpenChunkReader(RandomAccessFile source) throws IOException {
+        byte[] header = new byte[Universals.BinaryFormats.StorageCipherFormat.HeaderSize];
+        source.seek(0);
+        source.readFully(header);
+        int fileChunkSize = StorageCipher.ParseHeader(header);
+        return new ChunkReader(source, this.NewCipher(), this.DeriveFileKey(StorageCipher.SaltFromHeader(header)), header, fileChunkSize);
+    }
+
+    ///
+    /// Streams and Readers
+    ///
+
+    ///
+    ///  Encrypts the bytes written to it into chunks written to another stream.
+    ///     Each full chunk is written as soon as it's filled, so the last chunk is never
+    ///     full. Flush only flushes the
+    ///     chunks already written, since a chunk can't be written again once it's on disk.
+    ///     Finish writes the last chunk without closing the stream it's written to.
+    ///
+    public static class EncryptingStream extends OutputStream {
+
+        private final OutputStream output;
+        private final Cipher cipher;
+        private final SecretKey key;
+        private final byte[] header;
+        private final byte[] nonce;
+        private final byte[] chunk;
+        private final byte[] sealedChunk;
+        private int chunkLength;
+        private int chunkNumber;
+        private boolean finished;
+
+        EncryptingStream(OutputStream output, Cipher cipher, SecretKey fileKey, int chunkSize, byte[] fileSalt) throws IOException {
+            this.output = output;
+            this.cipher = cipher;
+            this.key = fileKey;
+            this.header = StorageCipher.BuildHeader(chunkSize, fileSalt);
+            this.nonce = new byte[Universals.BinaryFormats.StorageCipherFormat.NonceSize];
+            this.chunk = new byte[chunkSize];
+            this.sealedChunk = new byte[chunkSize + Universals.BinaryFormats.StorageCipherFormat.TagSize];
+            this.chunkLength = 0;
+            this.chunkNumber = 0;
+            this.finished = false;
+            this.output.write(this.header);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.finished) throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.StreamFinishedError);
+            this.chunk[this.chunkLength++] = (byte)b;
+            if (this.chunkLength == this.chunk.length) this.WriteChunk(false);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (this.finished) throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.StreamFinishedError);
+            while (length > 0){
+                int copyLength = Math.min(length, this.chunk.length - this.chunkLength);
+                System.arraycopy(bytes, offset, this.chunk, this.chunkLength, copyLength);
+                this.chunkLength += copyLength;
+                offset += copyLength;
+                length -= copyLength;
+                if (this.chunkLength == this.chunk.length) this.WriteChunk(false);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.output.flush();
+        }
+
+        /// <summary>
+        ///     Writes the last chunk and flushes the stream it's written to. Nothing can be
+        ///     written after. Does nothing if already finished.
+        /// </summary>
+        public void Finish() throws IOException {
+            if (this.finished) return;
+            this.WriteChunk(true);
+            this.finished = true;
+            this.output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try{
+                this.Finish();
+            }
+            finally {
+                this.output.close();
+            }
+        }
+
+        // Encrypts the buffered chunk and writes it with its tag
+        private void WriteChunk(boolean last) throws IOException {
+            StorageCipher.SetChunkNonce(this.nonce, this.chunkNumber, last);
+            int sealedLength;
+            try{
+                this.cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(Universals.BinaryFormats.StorageCipherFormat.TagSize * 8, this.nonce));
+                this.cipher.updateAAD(this.header);
+                sealedLength = this.cipher.doFinal(this.chunk, 0, this.chunkLength, this.sealedChunk, 0);
+            }
+            catch (GeneralSecurityException e){
+                throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.EncryptError, e);
+            }
+            this.output.write(this.sealedChunk, 0, sealedLength);
+            this.chunkLength = 0;
+            this.chunkNumber++;
+        }
+    }
+
+    ///
+    ///  Decrypts the chunks of an encrypted file read from another stream. A full size
+    ///     chunk is never the last, so a chunk is known to be the last when the stream ends
+    ///     part way through it.
+    ///
+    private static class DecryptingStream extends InputStream {
+
+        private final InputStream input;
+        private final Cipher cipher;
+        private final SecretKey key;
+        private final byte[] header;
+        private final byte[] nonce;
+        private final byte[] sealedChunk;
+        private final byte[] chunk;
+        private int chunkPosition;
+        private int chunkLength;
+        private int chunkNumber;
+        private boolean lastRead;
+
+        DecryptingStream(InputStream input, Cipher cipher, SecretKey fileKey, byte[] header, int chunkSize){
+            this.input = input;
+            this.cipher = cipher;
+            this.key = fileKey;
+            this.header = header;
+            this.nonce = new byte[Universals.BinaryFormats.StorageCipherFormat.NonceSize];
+            this.sealedChunk = new byte[chunkSize + Universals.BinaryFormats.StorageCipherFormat.TagSize];
+            this.chunk = new byte[chunkSize];
+            this.chunkPosition = 0;
+            this.chunkLength = 0;
+            this.chunkNumber = 0;
+            this.lastRead = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.chunkPosition == this.chunkLength && !this.NextChunk()) return -1;
+            return this.chunk[this.chunkPosition++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (this.chunkPosition == this.chunkLength && !this.NextChunk()) return -1;
+            int copyLength = Math.min(length, this.chunkLength - this.chunkPosition);
+            System.arraycopy(this.chunk, this.chunkPosition, bytes, offset, copyLength);
+            this.chunkPosition += copyLength;
+            return copyLength;
+        }
+
+        @Override
+        public int available() {
+            return this.chunkLength - this.chunkPosition;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.input.close();
+        }
+
+        // Reads and decrypts the next chunk. Returns false if the last chunk was already read.
+        //  Skips past empty chunks.
+        private boolean NextChunk() throws IOException {
+            while (!this.lastRead){
+                int sealedLength = 0;
+                int read;
+                while (sealedLength < this.sealedChunk.length
+                        && (read = this.input.read(this.sealedChunk, sealedLength, this.sealedChunk.length - sealedLength)) != -1){
+                    sealedLength += read;
+                }
+                this.lastRead = sealedLength < this.sealedChunk.length;
+                this.chunkLength = StorageCipher.OpenChunk(
+                        this.cipher, this.key, this.header, this.nonce,
+                        this.chunkNumber, this.lastRead,
+                        this.sealedChunk, sealedLength, this.chunk
+                );
+                this.chunkPosition = 0;
+                this.chunkNumber++;
+                if (this.chunkLength > 0) return true;
+            }
+            return false;
+        }
+    }
+
+    ///
+    ///  Reads ranges of an encrypted file, decrypting only the chunks each range covers.
+    ///     The most recently decrypted chunk is kept, so reading nearby ranges in order
+    ///     decrypts each chunk once. Every read checks the chunks it decrypts, including
+    ///     checking that the file's last chunk is there.
+    ///
+    public static class ChunkReader implements Closeable {
+
+        private final RandomAccessFile source;
+        private final FileChannel channel;
+        private final Cipher cipher;
+        private final SecretKey key;
+        private final byte[] header;
+        private final byte[] nonce;
+        private final int chunkSize;
+        private final long chunkCount;
+        private final long length;
+        private final ByteBuffer sealedChunk;
+        private final byte[] chunk;
+        private long cachedChunkNumber;
+        private int cachedChunkLength;
+
+        ChunkReader(RandomAccessFile source, Cipher cipher, SecretKey fileKey, byte[] header, int chunkSize) throws IOException {
+            this.source = source;
+            this.channel = source.getChannel();
+            this.cipher = cipher;
+            this.key = fileKey;
+            this.header = header;
+            this.chunkSize = chunkSize;
+            this.nonce = new byte[Universals.BinaryFormats.StorageCipherFormat.NonceSize];
+
+            // Every chunk but the last is full, and the last holds less than a full chunk
+            long sealedChunkSize = (long)this.chunkSize + Universals.BinaryFormats.StorageCipherFormat.TagSize;
+            long sealedLength = this.channel.size() - this.header.length;
+            long lastSealedLength = sealedLength % sealedChunkSize;
+            if (lastSealedLength < Universals.BinaryFormats.StorageCipherFormat.TagSize){
+                throw new EOFException(Universals.ErrorMessages.StorageCipherErrorMessages.TruncatedFileError);
+            }
+            this.chunkCount = sealedLength / sealedChunkSize + 1;
+            this.length = (this.chunkCount - 1) * this.chunkSize + lastSealedLength - Universals.BinaryFormats.StorageCipherFormat.TagSize;
+            this.sealedChunk = ByteBuffer.allocate((int)sealedChunkSize);
+            this.chunk = new byte[this.chunkSize];
+            this.cachedChunkNumber = -1;
+        }
+
+        /// <summary>
+        ///     Returns the length of the decrypted file in bytes.
+        /// </summary>
+        public long GetLength(){
+            return this.length;
+        }
+
+        /// <summary>
+        ///     Given a position in the decrypted file, and an array, offset, and length to
+        ///     read into, reads that many bytes of the decrypted file from the position.
+        ///     Throws EOFException if the range runs past the end of the file, and
+        ///     IOException if a chunk in the range fails to decrypt.
+        /// </summary>
+        public void ReadFully(long position, byte[] bytes, int offset, int length) throws IOException {
+            if (position < 0 || position + length > this.length) throw new EOFException();
+            while (length > 0){
+                long chunkNumber = position / this.chunkSize;
+                int chunkPosition = (int)(position % this.chunkSize);
+                this.LoadChunk(chunkNumber);
+                int copyLength = Math.min(length, this.cachedChunkLength - chunkPosition);
+                System.arraycopy(this.chunk, chunkPosition, bytes, offset, copyLength);
+                position += copyLength;
+                offset += copyLength;
+                length -= copyLength;
+            }
+        }
+
+        /// <summary>
+        ///     Returns a buffered stream reading the decrypted file from its start. Reads
+        ///     through this reader, so the reader's chunk is replaced as the stream is read.
+        /// </summary>
+        public InputStream OpenStream(){
+            return new BufferedInputStream(new InputStream() {
+                private long position = 0;
+                private final byte[] single = new byte[1];
+
+                @Override
+                public int read() throws IOException {
+                    return this.read(this.single, 0, 1) == -1 ? -1 : this.single[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    if (length == 0) return 0;
+                    if (this.position >= ChunkReader.this.length) return -1;
+                    int readLength = (int)Math.min(length, ChunkReader.this.length - this.position);
+                    readLength = Math.min(readLength, ChunkReader.this.chunkSize - (int)(this.position % ChunkReader.this.chunkSize));
+                    ChunkReader.this.ReadFully(this.position, bytes, offset, readLength);
+                    this.position += readLength;
+                    return readLength;
+                }
+
+                @Override
+                public long skip(long count) {
+                    long skipped = Math.max(0, Math.min(count, ChunkReader.this.length - this.position));
+                    this.position += skipped;
+                    return skipped;
+                }
+            }, this.chunkSize);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.source.close();
+        }
+
+        // Decrypts a chunk into the reader's chunk, unless it's already there
+        private void LoadChunk(long chunkNumber) throws IOException {
+            if (chunkNumber == this.cachedChunkNumber) return;
+            long sealedChunkSize = this.sealedChunk.capacity();
+            long chunkOffset = this.header.length + chunkNumber * sealedChunkSize;
+            this.sealedChunk.clear();
+            if (chunkNumber == this.chunkCount - 1){
+                this.sealedChunk.limit((int)(this.channel.size() - chunkOffset));
+            }
+            while (this.sealedChunk.hasRemaining()){
+                if (this.channel.read(this.sealedChunk, chunkOffset + this.sealedChunk.position()) == -1) throw new EOFException();
+            }
+            this.cachedChunkNumber = -1;
+            this.cachedChunkLength = StorageCipher.OpenChunk(
+                    this.cipher, this.key, this.header, this.nonce,
+                    chunkNumber, chunkNumber == this.chunkCount - 1,
+                    this.sealedChunk.array(), this.sealedChunk.limit(), this.chunk
+            );
+            this.cachedChunkNumber = chunkNumber;
+        }
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns a new AES-GCM cipher
+    private Cipher NewCipher() throws IOException {
+        try{
+            return Cipher.getInstance(StorageCipher.transformation);
+        }
+        catch (GeneralSecurityException e){
+            throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.EncryptError, e);
+        }
+    }
+
+    // Returns a new random file salt
+    private byte[] NewFileSalt(){
+        byte[] fileSalt = new byte[Universals.BinaryFormats.StorageCipherFormat.FileSaltSize];
+        synchronized (this.random){
+            this.random.nextBytes(fileSalt);
+        }
+        return fileSalt;
+    }
+
+    // Returns the key of the file with a salt: HMAC-SHA256 of the salt under the storage key
+    private SecretKey DeriveFileKey(byte[] fileSalt) throws IOException {
+        try{
+            Mac mac = Mac.getInstance(StorageCipher.fileKeyAlgorithm);
+            mac.init(this.derivationKey);
+            return new SecretKeySpec(mac.doFinal(fileSalt), StorageCipher.keyAlgorithm);
+        }
+        catch (GeneralSecurityException e){
+            throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.EncryptError, e);
+        }
+    }
+
+    // Returns the header of an encrypted file with a chunk size and file salt
+    private static byte[] BuildHeader(int chunkSize, byte[] fileSalt){
+        ByteBuffer header = ByteBuffer.allocate(Universals.BinaryFormats.StorageCipherFormat.HeaderSize);
+        header.putInt(Universals.BinaryFormats.StorageCipherFormat.MagicNumber);
+        header.putShort(Universals.BinaryFormats.StorageCipherFormat.Version);
+        header.putInt(chunkSize);
+        header.put(fileSalt);
+        return header.array();
+    }
+
+    // Checks the header of an encrypted file and returns its chunk size.
+    //  Throws IOException if it isn't a supported header.
+    private static int ParseHeader(byte[] header) throws IOException {
+        ByteBuffer reader = ByteBuffer.wrap(header);
+        int magicNumber = reader.getInt();
+        short version = reader.getShort();
+        int chunkSize = reader.getInt();
+        if (magicNumber != Universals.BinaryFormats.StorageCipherFormat.MagicNumber
+                || version != Universals.BinaryFormats.StorageCipherFormat.Version
+                || chunkSize <= 0
+                || chunkSize > Universals.BinaryFormats.StorageCipherFormat.MaxChunkSize){
+            throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.InvalidFileError);
+        }
+        return chunkSize;
+    }
+
+    // Returns the file salt of a header
+    private static byte[] SaltFromHeader(byte[] header){
+        return Arrays.copyOfRange(
+                header,
+                Universals.BinaryFormats.StorageCipherFormat.HeaderSize - Universals.BinaryFormats.StorageCipherFormat.FileSaltSize,
+                Universals.BinaryFormats.StorageCipherFormat.HeaderSize
+        );
+    }
+
+    // Fills in the chunk number and last chunk flag at the end of a nonce. The rest of
+    //  the nonce stays zero.
+    private static void SetChunkNonce(byte[] nonce, long chunkNumber, boolean last){
+        int offset = Universals.BinaryFormats.StorageCipherFormat.NonceSize - 5;
+        nonce[offset] = (byte)(chunkNumber >>> 24);
+        nonce[offset + 1] = (byte)(chunkNumber >>> 16);
+        nonce[offset + 2] = (byte)(chunkNumber >>> 8);
+        nonce[offset + 3] = (byte)chunkNumber;
+        nonce[offset + 4] = (byte)(last ? 1 : 0);
+    }
+
+    // Decrypts and checks a sealed chunk into an array, and returns the chunk's length.
+    //  Throws EOFException if the chunk is cut short, and IOException if it fails to decrypt.
+    private static int OpenChunk(Cipher cipher, SecretKey key, byte[] header, byte[] nonce,
+                                 long chunkNumber, boolean last,
+                                 byte[] sealedChunk, int sealedLength, byte[] chunk) throws IOException {
+        if (sealedLength < Universals.BinaryFormats.StorageCipherFormat.TagSize){
+            throw new EOFException(Universals.ErrorMessages.StorageCipherErrorMessages.TruncatedFileError);
+        }
+        StorageCipher.SetChunkNonce(nonce, chunkNumber, last);
+        try{
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(Universals.BinaryFormats.StorageCipherFormat.TagSize * 8, nonce));
+            cipher.updateAAD(header);
+            return cipher.doFinal(sealedChunk, 0, sealedLength, chunk, 0);
+        }
+        catch (GeneralSecurityException e){
+            throw new IOException(Universals.ErrorMessages.StorageCipherErrorMessages.ChunkFailedError(chunkNumber), e);
+        }
+    }
+
+    // Reads exactly length bytes from a stream. Throws EOFException if it ends first.
+    private static void ReadFully(InputStream input, byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0){
+            int read = input.read(bytes, offset, length);
+            if (read == -1) throw new EOFException(Universals.ErrorMessages.StorageCipherErrorMessages.InvalidFileError);
+            offset += read;
+            length -= read;
+        }
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+    // Test EncryptStream, DecryptStream, OpenChunkReader, and stored files written encrypted
+    public static void TestEncryptDecrypt(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testDirectory = new File(dbm.GetAppRootDirectory(), "testStorageCipherDirectory");
+        File testFile = new File(testDirectory, "testEncryptedFile");
+        String testFileName = "testEncryptedTemplates";
+        StorageCipher testCipher = new StorageCipher(StorageCipher.GenerateKey(), 64);
+        Random random = new Random(20);
+        byte[] plaintext = new byte[1000];
+        byte[] sealed;
+        byte[] range = new byte[100];
+        int[] sizes = {0, 1, 63, 64, 65, 1000};
+        DrinkTemplateManager testManager;
+        DrinkTemplateJournal testJournal;
+        DrinkTemplate testTemplate;
+        boolean ok;
+        int i;
+
+        random.nextBytes(plaintext);
+
+        // Start from an empty directory
+        if (testDirectory.exists()){
+            String[] names = testDirectory.list();
+            if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        }
+        else testDirectory.mkdir();
+
+        // Non-exception cases
+        //  -Case 1, round trip files of no bytes, one byte, and either side of a chunk boundary,
+        //      and the same bytes encrypt differently each time
+        ok = true;
+        try{
+            for (int size : sizes){
+                sealed = StorageCipher.EncryptBytes(testCipher, Arrays.copyOf(plaintext, size));
+                ok &= StorageCipher.IsEncryptedHeader(sealed, sealed.length)
+                        && Arrays.equals(StorageCipher.DecryptBytes(testCipher, sealed), Arrays.copyOf(plaintext, size));
+            }
+
+            // Each file gets its own salt, so the same bytes never encrypt the same way
+            sealed = StorageCipher.EncryptBytes(testCipher, plaintext);
+            ok &= !Arrays.equals(sealed, StorageCipher.EncryptBytes(testCipher, plaintext));
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(false, 1));
+
+        //  -Case 2, a chunk reader reads ranges inside a chunk, across chunks, and at the end
+        ok = true;
+        try{
+            StorageCipher.WriteBytes(testFile, StorageCipher.EncryptBytes(testCipher, plaintext));
+            try (ChunkReader reader = testCipher.OpenChunkReader(testFile)){
+                ok = reader.GetLength() == plaintext.length;
+                int[][] ranges = {{0, 10}, {60, 10}, {130, 100}, {990, 10}, {500, 1}};
+                for (int[] r : ranges){
+                    reader.ReadFully(r[0], range, 0, r[1]);
+                    ok &= Arrays.equals(Arrays.copyOf(range, r[1]), Arrays.copyOfRange(plaintext, r[0], r[0] + r[1]));
+                }
+            }
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(false, 2));
+
+        //  -Case 3, with storage encryption enabled, template lists and the journal are
+        //      written encrypted and read back by every read method
+        DatabaseManager.SetStorageCipher(new StorageCipher(StorageCipher.GenerateKey()));
+        testManager = DrinkTemplateManager.GenerateBenchmarkManager(200);
+        ok = testManager.WriteTemplateListBinary(testDirectory, testFileName);
+        try (FileInputStream input = new FileInputStream(new File(testDirectory, testFileName + Universals.FileNames.BinaryExtension))){
+            byte[] magic = new byte[4];
+            ok &= StorageCipher.IsEncryptedHeader(magic, input.read(magic));
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        testManager = new DrinkTemplateManager();
+        ok &= testManager.ReadTemplateListBinary(testDirectory, testFileName, false)
+                && testManager.GetTemplateList().size() == 200
+                && testManager.GetTemplate("benchmarkName 150").GetImageFilePath().equals("benchmarkPath 150");
+        testManager = new DrinkTemplateManager();
+        ok &= testManager.ReadTemplateListIndexed(testDirectory, testFileName)
+                && testManager.GetTemplate("benchmarkName 199").GetImageFilePath().equals("benchmarkPath 199");
+        testManager = new DrinkTemplateManager();
+        ok &= testManager.ReadTemplateListParallel(testDirectory, testFileName, false)
+                && testManager.GetTemplateList().size() == 200;
+
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName + "Journal");
+        testJournal.Open();
+        testManager.AttachJournal(testJournal);
+        for (i = 0; i < 30; i++){
+            testTemplate = new DrinkTemplate();
+            testTemplate.SetName("testName " + i);
+            testManager.PutTemplate(testTemplate);
+            if (i % 10 == 9) testJournal.Flush();
+        }
+        testManager.RemoveTemplate("testName 4");
+        testJournal.Close();
+        testManager = new DrinkTemplateManager();
+        testJournal = new DrinkTemplateJournal(testDirectory, testFileName + "Journal");
+        ok &= testJournal.Replay(testManager)
+                && testManager.GetTemplateList().size() == 29
+                && !testManager.ContainsTemplate("testName 4");
+        DatabaseManager.SetStorageCipher(null);
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(false, 3));
+
+        // Exception cases
+        //  -Case 4, a changed byte fails only the chunk holding it. Chunks before it still read.
+        ok = false;
+        try{
+            sealed = StorageCipher.EncryptBytes(testCipher, plaintext);
+            sealed[Universals.BinaryFormats.StorageCipherFormat.HeaderSize + 3 * (64 + Universals.BinaryFormats.StorageCipherFormat.TagSize) + 5] ^= 1;
+            StorageCipher.WriteBytes(testFile, sealed);
+            try (ChunkReader reader = testCipher.OpenChunkReader(testFile)){
+                reader.ReadFully(0, range, 0, 100);
+                ok = Arrays.equals(range, Arrays.copyOf(plaintext, 100));
+                reader.ReadFully(200, range, 0, 10);
+                ok = false;
+            }
+        }
+        catch (IOException e){
+            // Expected from the changed chunk
+        }
+        try{
+            StorageCipher.DecryptBytes(testCipher, StorageCipher.ReadBytes(testFile));
+            ok = false;
+        }
+        catch (IOException e){
+            // Expected
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(false, 4));
+
+        //  -Case 5, a file with chunks cut from the end, or read with the wrong key, fails
+        ok = true;
+        try{
+            sealed = StorageCipher.EncryptBytes(testCipher, plaintext);
+            int cutLength = Universals.BinaryFormats.StorageCipherFormat.HeaderSize + 5 * (64 + Universals.BinaryFormats.StorageCipherFormat.TagSize);
+            StorageCipher.DecryptBytes(testCipher, Arrays.copyOf(sealed, cutLength));
+            ok = false;
+        }
+        catch (EOFException e){
+            // Expected
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        try{
+            sealed = StorageCipher.EncryptBytes(testCipher, plaintext);
+            StorageCipher.DecryptBytes(new StorageCipher(StorageCipher.GenerateKey(), 64), sealed);
+            ok = false;
+        }
+        catch (IOException e){
+            // Expected
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(false, 5));
+
+        //  -Case 6, an encrypted file can't be read with storage encryption disabled
+        testManager = new DrinkTemplateManager();
+        if (!testManager.ReadTemplateListBinary(testDirectory, testFileName, false)
+                && testManager.GetTemplateList().isEmpty()){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(true, 6));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageCipherMessages.EncryptDecryptMessage(false, 6));
+
+        // Clean up
+        String[] names = testDirectory.list();
+        if (names != null) for (String name : names) new File(testDirectory, name).delete();
+        testDirectory.delete();
+    }
+
+    ///
+    /// Benchmark Methods
+    ///
+    /// <summary>
+    ///  Each benchmark method is self contained and measures the method it is named after
+    ///     against a generated workload. Results are printed to LogCat using the Log.d method.
+    /// </summary>
+    ///
+
+    // Benchmark reading and writing stored files encrypted against plaintext. Each case
+    //  is run several times each way, alternating, and the best times are compared.
+    //  Results are reported as measured. Raw streams are bound by the cipher's throughput,
+    //  so they can't come close to copying a page-cached plaintext file.
+    public static void BenchmarkEncryption(Context context, int templateCount){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File benchmarkDirectory = dbm.GetAppRootDirectory();
+        String benchmarkFileName = "benchmarkStorageCipherFile";
+        File benchmarkFile = new File(benchmarkDirectory, benchmarkFileName + ".stream");
+        StorageCipher benchmarkCipher = new StorageCipher(StorageCipher.GenerateKey());
+        StorageCipher previousCipher = DatabaseManager.GetStorageCipher();
+        DrinkTemplateManager benchmarkManager = DrinkTemplateManager.GenerateBenchmarkManager(templateCount);
+        byte[] streamBytes = new byte[32 * 1024 * 1024];
+        byte[] buffer = new byte[64 * 1024];
+        int runs = 10;
+        long[][] bestTimes = new long[5][2];
+        long startTime;
+
+        new Random(20).nextBytes(streamBytes);
+        for (long[] caseTimes : bestTimes) Arrays.fill(caseTimes, Long.MAX_VALUE);
+
+        try{
+            for (int run = 0; run < runs; run++){
+                for (int encrypted = 0; encrypted < 2; encrypted++){
+                    DatabaseManager.SetStorageCipher(encrypted == 1 ? benchmarkCipher : null);
+
+                    // Template list written and read whole, and indexed
+                    startTime = System.nanoTime();
+                    benchmarkManager.WriteTemplateListBinary(benchmarkDirectory, benchmarkFileName);
+                    bestTimes[0][encrypted] = Math.min(bestTimes[0][encrypted], System.nanoTime() - startTime);
+
+                    startTime = System.nanoTime();
+                    new DrinkTemplateManager().ReadTemplateListBinary(benchmarkDirectory, benchmarkFileName, false);
+                    bestTimes[1][encrypted] = Math.min(bestTimes[1][encrypted], System.nanoTime() - startTime);
+
+                    startTime = System.nanoTime();
+                    new DrinkTemplateManager().ReadTemplateListIndexed(benchmarkDirectory, benchmarkFileName);
+                    bestTimes[2][encrypted] = Math.min(bestTimes[2][encrypted], System.nanoTime() - startTime);
+
+                    // Raw stream, written to disk and read back
+                    startTime = System.nanoTime();
+                    try (FileOutputStream fileStream = new FileOutputStream(benchmarkFile, false)){
+                        OutputStream output = DatabaseManager.OpenWriteStream(fileStream);
+                        for (int offset = 0; offset < streamBytes.length; offset += buffer.length){
+                            output.write(streamBytes, offset, buffer.length);
+                        }
+                        DatabaseManager.FinishWriteStream(output);
+                        fileStream.getFD().sync();
+                    }
+                    bestTimes[3][encrypted] = Math.min(bestTimes[3][encrypted], System.nanoTime() - startTime);
+
+                    startTime = System.nanoTime();
+                    try (InputStream input = DatabaseManager.OpenReadStream(benchmarkFile)){
+                        while (input.read(buffer) != -1);
+                    }
+                    bestTimes[4][encrypted] = Math.min(bestTimes[4][encrypted], System.nanoTime() - startTime);
+                }
+            }
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageCipherErrorMessages.EncryptError);
+        }
+        finally {
+            DatabaseManager.SetStorageCipher(previousCipher);
+        }
+
+        String[] cases = {
+                Universals.BenchmarkMessages.StorageCipherMessages.WriteTemplateListCase,
+                Universals.BenchmarkMessages.StorageCipherMessages.ReadTemplateListCase,
+                Universals.BenchmarkMessages.StorageCipherMessages.ReadTemplateListIndexedCase,
+                Universals.BenchmarkMessages.StorageCipherMessages.WriteStreamCase,
+                Universals.BenchmarkMessages.StorageCipherMessages.ReadStreamCase
+        };
+        for (int c = 0; c < cases.length; c++){
+            Log.d(
+                    Universals.BenchmarkMessages.BenchmarkMessageTag,
+                    Universals.BenchmarkMessages.StorageCipherMessages.OverheadMessage(cases[c], bestTimes[c][0], bestTimes[c][1])
+            );
+        }
+        new File(benchmarkDirectory, benchmarkFileName + Universals.FileNames.BinaryExtension).delete();
+        benchmarkFile.delete();
+    }
+
+    // Encrypts bytes whole and returns the encrypted file's bytes
+    private static byte[] EncryptBytes(StorageCipher cipher, byte[] bytes) throws IOException {
+        ByteArrayOutputStream sealed = new ByteArrayOutputStream();
+        try (EncryptingStream output = cipher.EncryptStream(sealed)){
+            output.write(bytes);
+        }
+        return sealed.toByteArray();
+    }
+
+    // Decrypts an encrypted file's bytes whole
+    private static byte[] DecryptBytes(StorageCipher cipher, byte[] sealed) throws IOException {
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        byte[] buffer = new byte[100];
+        int read;
+        try (InputStream input = cipher.DecryptStream(new ByteArrayInputStream(sealed))){
+            while ((read = input.read(buffer)) != -1) plaintext.write(buffer, 0, read);
+        }
+        return plaintext.toByteArray();
+    }
+
+    // Reads and writes a file's bytes whole
+    private static byte[] ReadBytes(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream input = new FileInputStream(file)){
+            StorageCipher.ReadFully(input, bytes, 0, bytes.length);
+        }
+        return bytes;
+    }
+    private static void WriteBytes(File file, byte[] bytes) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file, false)){
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/// <summary>
+///  File: StorageFileReader.java
+///     Description: Contains the class and methods of reading ranges of a stored file,
+///         whether it's stored as plaintext or encrypted.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+///
+/// Storage File Reader Class
+///     Reads any range of a stored file's contents. A plaintext file is read directly. An
+///     encrypted file is read through a StorageCipher.ChunkReader with the storage cipher,
+///     so only the chunks a range covers are decrypted.
+///     The file is held open until the reader is closed, so a write that replaces the file
+///     by renaming over it doesn't change what the reader reads.
+///     Not safe to share between threads.
+///
+class StorageFileReader implements Closeable {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the plaintext file, or null if the file is encrypted
+    private final RandomAccessFile plaintextFile;
+
+    // Represents the reader of the encrypted file, or null if the file is plaintext
+    private final StorageCipher.ChunkReader chunkReader;
+
+    ///
+    /// Constructors
+    ///
+    private StorageFileReader(RandomAccessFile plaintextFile, StorageCipher.ChunkReader chunkReader){
+        this.plaintextFile = plaintextFile;
+        this.chunkReader = chunkReader;
+    }
+
+    /// <summary>
+    ///  Given a stored file, opens it for reading.
+    ///     Throws IOException if it can't be opened, or it's encrypted and storage
+    ///     encryption isn't enabled.
+    /// </summary>
+    static StorageFileReader Open(File file) throws IOException {
+        RandomAccessFile source = new RandomAccessFile(file, "r");
+        try{
+            byte[] magic = new byte[4];
+            int magicLength = source.read(magic);
+            source.seek(0);
+            if (!StorageCipher.IsEncryptedHeader(magic, magicLength)){
+                return new StorageFileReader(source, null);
+            }
+            StorageCipher storageCipher = DatabaseManager.GetStorageCipher();
+            if (storageCipher == null){
+                throw new IOException(Universals.ErrorMessages.DatabaseManagerErrorMessages.EncryptionKeyMissingError);
+            }
+            return new StorageFileReader(null, storageCipher.OpenChunkReader(source));
+        }
+        catch (IOException e){
+            source.close();
+            throw e;
+        }
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    /// <summary>
+    ///     Returns the length of the file's contents in bytes.
+    /// </summary>
+    long GetLength() throws IOException {
+        if (this.chunkReader != null) return this.chunkReader.GetLength();
+        return this.plaintextFile.length();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a position in the file's contents, and an array, offset, and length to
+    ///     read into, reads that many bytes from the position.
+    ///     Throws EOFException if the range runs past the end of the file, and IOException
+    ///     if it couldn't be read or an encrypted chunk failed to decrypt.
+    /// </summary>
+    void ReadFully(long position, byte[] bytes, int offset, int length) throws IOException {
+        if (this.chunkReader != null){
+            this.chunkReader.ReadFully(position, bytes, offset, length);
+            return;
+        }
+        if (position < 0 || position + length > this.plaintextFile.length()) throw new EOFException();
+        this.plaintextFile.seek(position);
+        this.plaintextFile.readFully(bytes, offset, length);
+    }
+
+    /// <summary>
+    ///     Given a buffer size, returns a buffered stream reading the file's contents from
+    ///     the start. Reads through this reader, so it shouldn't be used alongside ReadFully.
+    ///     An encrypted file's stream is buffered by the chunk instead.
+    /// </summary>
+    InputStream OpenStream(int bufferSize) throws IOException {
+        if (this.chunkReader != null) return this.chunkReader.OpenStream();
+        this.plaintextFile.seek(0);
+        return new BufferedInputStream(new FileInputStream(this.plaintextFile.getFD()), bufferSize);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.chunkReader != null) this.chunkReader.close();
+        else this.plaintextFile.close();
+    }
+}
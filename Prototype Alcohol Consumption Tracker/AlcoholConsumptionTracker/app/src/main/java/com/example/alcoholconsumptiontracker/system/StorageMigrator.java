@@ -0,0 +1,538 @@
+/// <summary>
+///  File: StorageMigrator.java
+///     Description: Contains the class and methods of the storage manifest, which records
+///         the version of the app's stored files, and of running the migrations that bring
+///         stored files up to the current version.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+///
+/// Storage Migrator Class
+///     Keeps a manifest file in a directory recording the schema version of the files
+///     stored there, and an ordered list of migration steps. Step i moves the files from
+///     schema version i + 1 to i + 2, so the newest version is one more than the number of
+///     steps. A directory without a manifest is taken to be at version 1, the version
+///     written before the manifest existed.
+///     The manifest is replaced atomically after every step, so a step that finished is
+///     never run again. A step that's interrupted is run again from the start, or from the
+///     last checkpoint it saved, so every step must be safe to run again on files it has
+///     already partly or fully migrated.
+///     Migrations can run on the calling thread with Migrate, or on a background thread
+///     with MigrateInBackground. Only one migration should run on a directory at a time,
+///     and nothing else should use the migrated files until it completes.
+///
+public class StorageMigrator {
+
+    ///
+    /// Interfaces
+    ///
+    /// <summary>
+    ///  One migration step. Runs on the migration's thread and moves the stored files up
+    ///     one schema version. Must be safe to run again after being interrupted, resuming
+    ///     from context.GetCheckpoint() if it saved one.
+    ///     Returns true if the files are migrated.
+    ///     Returns false otherwise. The migration stops, and the step is run again from its
+    ///     last checkpoint the next time migrations run.
+    /// </summary>
+    public interface MigrationStep{
+        boolean Migrate(MigrationContext context);
+    }
+
+    /// <summary>
+    ///  Receives the progress of a migration. Called on the migration's thread.
+    ///     OnProgress is given the version being migrated from and to, and the fraction of
+    ///     all steps done, from 0 to 1.
+    ///     OnComplete is given whether every step succeeded, and the schema version the
+    ///     files were left at.
+    /// </summary>
+    public interface ProgressListener{
+        void OnProgress(int fromVersion, int toVersion, float fraction);
+        void OnComplete(boolean success, int schemaVersion);
+    }
+
+    ///
+    /// Local variables
+    ///
+    /// <summary>
+    ///  What a step is given while it runs: the directory being migrated, its checkpoint,
+    ///     and a way to report its progress.
+    /// </summary>
+    public static class MigrationContext {
+        private final StorageMigrator migrator;
+        private final ProgressListener listener;
+        private final int fromVersion;
+        private long checkpoint;
+
+        MigrationContext(StorageMigrator migrator, ProgressListener listener, int fromVersion, long checkpoint){
+            this.migrator = migrator;
+            this.listener = listener;
+            this.fromVersion = fromVersion;
+            this.checkpoint = checkpoint;
+        }
+
+        public File GetDirectory(){
+            return this.migrator.directory;
+        }
+        /// <summary>
+        ///     Returns the last checkpoint this step saved, or 0 if it hasn't saved one and
+        ///     is starting from the beginning.
+        /// </summary>
+        public long GetCheckpoint(){
+            return this.checkpoint;
+        }
+        /// <summary>
+        ///     Given a position the step can resume from, such as the number of records it
+        ///     has migrated, writes it to the manifest. If the step is interrupted, it's run
+        ///     again with this checkpoint. The step's work up to the checkpoint must be on
+        ///     disk before it's saved.
+        ///     Returns true if the checkpoint was saved.
+        ///     Returns false otherwise. The step can keep going, and will resume from an
+        ///     earlier checkpoint if interrupted.
+        /// </summary>
+        public boolean SaveCheckpoint(long checkpoint){
+            if (!this.migrator.WriteManifest(this.fromVersion, checkpoint)) return false;
+            this.checkpoint = checkpoint;
+            return true;
+        }
+        /// <summary>
+        ///     Given the fraction of this step done, from 0 to 1, reports the migration's
+        ///     progress to its listener.
+        /// </summary>
+        public void ReportProgress(float stepFraction){
+            this.migrator.ReportProgress(this.listener, this.fromVersion, stepFraction);
+        }
+    }
+
+    // Represents the directory whose files are migrated, and the manifest file within it
+    private final File directory;
+    private final File manifestFile;
+
+    // Represents the steps in the order they run
+    private final List<MigrationStep> steps;
+
+    // Represents the version the migration started at, so progress counts only the
+    //  steps that run
+    private int startVersion;
+
+    // Used to number migration threads across migrators
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a directory and the migration steps in the order they run, creates a migrator
+    ///     for the files in the directory.
+    /// </summary>
+    public StorageMigrator(File directory, List<MigrationStep> steps){
+        this.directory = directory;
+        this.manifestFile = new File(directory, Universals.FileNames.ManifestFile + Universals.FileNames.BinaryExtension);
+        this.steps = new ArrayList<>(steps);
+        this.startVersion = Universals.BinaryFormats.StorageManifestFormat.BaseSchemaVersion;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    /// <summary>
+    ///     Returns the schema version the manifest records. Returns the base version if
+    ///     there's no manifest, or it can't be read.
+    /// </summary>
+    public int GetSchemaVersion(){
+        long[] manifest = this.ReadManifest();
+        return (int)manifest[0];
+    }
+    /// <summary>
+    ///     Returns the schema version the files are at once every step has run.
+    /// </summary>
+    public int GetTargetVersion(){
+        return Universals.BinaryFormats.StorageManifestFormat.BaseSchemaVersion + this.steps.size();
+    }
+    public boolean IsMigrationNeeded(){
+        return this.GetSchemaVersion() < this.GetTargetVersion();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///     Given a listener (or null), runs every step the files haven't had yet on the
+    ///     calling thread, in order. The manifest is updated after each step, so if the app
+    ///     stops part way, the next migration continues from the step that was running.
+    ///     Returns true if the files are at the target version when finished.
+    ///     Returns false otherwise, including if the manifest records a version newer than
+    ///     this migrator knows, which means the files were written by a newer app.
+    /// </summary>
+    public boolean Migrate(ProgressListener listener){
+
+        // Locals
+        long[] manifest = this.ReadManifest();
+        int version = (int)manifest[0];
+        long checkpoint = manifest[1];
+
+        // Files from a newer app can't be migrated backward
+        if (version > this.GetTargetVersion()){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageMigratorErrorMessages.NewerSchemaError(version, this.GetTargetVersion()));
+            this.Complete(listener, false, version);
+            return false;
+        }
+
+        // Run each step from the manifest's version on, recording each as it completes
+        this.startVersion = version;
+        while (version < this.GetTargetVersion()){
+            MigrationStep step = this.steps.get(version - Universals.BinaryFormats.StorageManifestFormat.BaseSchemaVersion);
+            MigrationContext context = new MigrationContext(this, listener, version, checkpoint);
+            this.ReportProgress(listener, version, 0);
+
+            boolean stepSucceeded;
+            try{
+                stepSucceeded = step.Migrate(context);
+            }
+            catch (RuntimeException e){
+                stepSucceeded = false;
+            }
+            if (!stepSucceeded){
+                Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageMigratorErrorMessages.StepFailedError(version, version + 1));
+                this.Complete(listener, false, version);
+                return false;
+            }
+            if (!this.WriteManifest(version + 1, 0)){
+                this.Complete(listener, false, version);
+                return false;
+            }
+            version++;
+            checkpoint = 0;
+        }
+
+        this.ReportProgress(listener, version, 0);
+        this.Complete(listener, true, version);
+        return true;
+    }
+
+    /// <summary>
+    ///     Given a listener (or null), runs Migrate on a new background thread, which ends
+    ///     when the migration does. The listener is told of progress and completion on
+    ///     that thread, so it must post any UI changes to the main thread.
+    /// </summary>
+    public void MigrateInBackground(final ProgressListener listener){
+        ExecutorService migrationExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "StorageMigrator-" + StorageMigrator.threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        migrationExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                StorageMigrator.this.Migrate(listener);
+            }
+        });
+        migrationExecutor.shutdown();
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Reads the manifest, returning its schema version and checkpoint. Returns the base
+    //  version with no checkpoint if there's no manifest. A manifest that can't be read
+    //  is logged and treated the same way, which runs every step again.
+    private long[] ReadManifest(){
+        long[] noManifest = new long[]{Universals.BinaryFormats.StorageManifestFormat.BaseSchemaVersion, 0};
+        if (!this.manifestFile.exists()) return noManifest;
+
+        byte[] manifestBytes = new byte[Universals.BinaryFormats.StorageManifestFormat.ManifestSize];
+        try (DataInputStream input = new DataInputStream(new FileInputStream(this.manifestFile))){
+            if (this.manifestFile.length() != manifestBytes.length) throw new IOException();
+            input.readFully(manifestBytes);
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageMigratorErrorMessages.InvalidManifestError);
+            return noManifest;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(manifestBytes);
+        int magicNumber = buffer.getInt();
+        short formatVersion = buffer.getShort();
+        int schemaVersion = buffer.getInt();
+        long checkpoint = buffer.getLong();
+        int checksum = buffer.getInt();
+        if (magicNumber != Universals.BinaryFormats.StorageManifestFormat.MagicNumber
+                || formatVersion != Universals.BinaryFormats.StorageManifestFormat.Version
+                || checksum != Crc32c.Compute(manifestBytes, 0, buffer.position() - Universals.BinaryFormats.StorageManifestFormat.ChecksumSize)
+                || schemaVersion < Universals.BinaryFormats.StorageManifestFormat.BaseSchemaVersion){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageMigratorErrorMessages.InvalidManifestError);
+            return noManifest;
+        }
+        return new long[]{schemaVersion, checkpoint};
+    }
+
+    // Writes the manifest to a temporary file, forces it to disk, and renames it over the
+    //  manifest, so the manifest is always either the old one or the new one.
+    //  Returns false, logging why, if it couldn't be written.
+    private boolean WriteManifest(int schemaVersion, long checkpoint){
+        ByteBuffer buffer = ByteBuffer.allocate(Universals.BinaryFormats.StorageManifestFormat.ManifestSize);
+        buffer.putInt(Universals.BinaryFormats.StorageManifestFormat.MagicNumber);
+        buffer.putShort(Universals.BinaryFormats.StorageManifestFormat.Version);
+        buffer.putInt(schemaVersion);
+        buffer.putLong(checkpoint);
+        buffer.putInt(Crc32c.Compute(buffer.array(), 0, buffer.position()));
+
+        File temporaryFile = new File(this.manifestFile.getAbsolutePath() + Universals.FileNames.TemporaryExtension);
+        try (FileOutputStream output = new FileOutputStream(temporaryFile, false)){
+            output.write(buffer.array());
+            output.getFD().sync();
+        }
+        catch (IOException e){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageMigratorErrorMessages.WriteManifestError);
+            temporaryFile.delete();
+            return false;
+        }
+        if (!temporaryFile.renameTo(this.manifestFile)){
+            Log.d(Universals.ErrorMessages.ErrorMessageTag, Universals.ErrorMessages.StorageMigratorErrorMessages.WriteManifestError);
+            temporaryFile.delete();
+            return false;
+        }
+        return true;
+    }
+
+    // Tells a listener the fraction of the migration done, given the version being
+    //  migrated from and the fraction of that step done
+    private void ReportProgress(ProgressListener listener, int fromVersion, float stepFraction){
+        if (listener == null) return;
+        int stepCount = this.GetTargetVersion() - this.startVersion;
+        float fraction = stepCount <= 0 ? 1 : ((fromVersion - this.startVersion) + Math.max(0, Math.min(1, stepFraction))) / stepCount;
+        listener.OnProgress(fromVersion, Math.min(fromVersion + 1, this.GetTargetVersion()), Math.min(1, fraction));
+    }
+
+    // Tells a listener the migration is complete
+    private void Complete(ProgressListener listener, boolean success, int schemaVersion){
+        if (listener != null) listener.OnComplete(success, schemaVersion);
+    }
+
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+    // Test Migrate and MigrateInBackground
+    public static void TestMigrate(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testDirectory = new File(dbm.GetAppRootDirectory(), "testStorageMigratorDir");
+        final ArrayList<Integer> stepsRun = new ArrayList<>();
+        final AtomicBoolean failSecondStep = new AtomicBoolean(false);
+        final long[] resumedFrom = new long[]{-1};
+        final ArrayList<Float> fractions = new ArrayList<>();
+        final int[] completedVersion = new int[]{-1};
+        final CountDownLatch completed = new CountDownLatch(1);
+        List<MigrationStep> testSteps = new ArrayList<>();
+        File manifest = new File(testDirectory, Universals.FileNames.ManifestFile + Universals.FileNames.BinaryExtension);
+        StorageMigrator testMigrator;
+        boolean ok;
+
+        StorageMigrator.DeleteTestDirectory(testDirectory);
+        testDirectory.mkdir();
+
+        // Three steps. Each records that it ran. The second saves a checkpoint part way,
+        //  records the checkpoint it started from, and fails when asked to.
+        testSteps.add(new MigrationStep() {
+            @Override
+            public boolean Migrate(MigrationContext migrationContext) {
+                stepsRun.add(1);
+                return true;
+            }
+        });
+        testSteps.add(new MigrationStep() {
+            @Override
+            public boolean Migrate(MigrationContext migrationContext) {
+                stepsRun.add(2);
+                resumedFrom[0] = migrationContext.GetCheckpoint();
+                if (migrationContext.GetCheckpoint() < 5 && !migrationContext.SaveCheckpoint(5)) return false;
+                migrationContext.ReportProgress(0.5f);
+                return !failSecondStep.get();
+            }
+        });
+        testSteps.add(new MigrationStep() {
+            @Override
+            public boolean Migrate(MigrationContext migrationContext) {
+                stepsRun.add(3);
+                return true;
+            }
+        });
+
+        // Non-exception cases
+        //  -Case 1, A directory without a manifest is at the base version. Migrating runs
+        //      every step in order and records the target version, which a new migrator reads.
+        testMigrator = new StorageMigrator(testDirectory, testSteps);
+        ok = testMigrator.GetSchemaVersion() == 1
+                && testMigrator.GetTargetVersion() == 4
+                && testMigrator.IsMigrationNeeded()
+                && testMigrator.Migrate(null)
+                && stepsRun.equals(Arrays.asList(1, 2, 3))
+                && new StorageMigrator(testDirectory, testSteps).GetSchemaVersion() == 4;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(false, 1));
+
+        //  -Case 2, Migrating files already at the target version runs nothing
+        stepsRun.clear();
+        testMigrator = new StorageMigrator(testDirectory, testSteps);
+        ok = !testMigrator.IsMigrationNeeded()
+                && testMigrator.Migrate(null)
+                && stepsRun.isEmpty();
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(false, 2));
+
+        //  -Case 3, A step that fails leaves the version after the last step that
+        //      succeeded, with its checkpoint. Migrating again skips the steps that
+        //      succeeded and resumes the failed step from its checkpoint.
+        StorageMigrator.DeleteTestDirectory(testDirectory);
+        testDirectory.mkdir();
+        stepsRun.clear();
+        failSecondStep.set(true);
+        testMigrator = new StorageMigrator(testDirectory, testSteps);
+        ok = !testMigrator.Migrate(null)
+                && testMigrator.GetSchemaVersion() == 2
+                && stepsRun.equals(Arrays.asList(1, 2))
+                && resumedFrom[0] == 0;
+        stepsRun.clear();
+        failSecondStep.set(false);
+        testMigrator = new StorageMigrator(testDirectory, testSteps);
+        ok &= testMigrator.Migrate(null)
+                && stepsRun.equals(Arrays.asList(2, 3))
+                && resumedFrom[0] == 5
+                && testMigrator.GetSchemaVersion() == 4;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(false, 3));
+
+        //  -Case 4, Migrating in the background reports progress from 0 to 1 in order and
+        //      completes with the target version
+        StorageMigrator.DeleteTestDirectory(testDirectory);
+        testDirectory.mkdir();
+        stepsRun.clear();
+        testMigrator = new StorageMigrator(testDirectory, testSteps);
+        testMigrator.MigrateInBackground(new ProgressListener() {
+            @Override
+            public void OnProgress(int fromVersion, int toVersion, float fraction) {
+                fractions.add(fraction);
+            }
+            @Override
+            public void OnComplete(boolean success, int schemaVersion) {
+                completedVersion[0] = success ? schemaVersion : -1;
+                completed.countDown();
+            }
+        });
+        try{
+            ok = completed.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e){
+            ok = false;
+        }
+        ok &= completedVersion[0] == 4
+                && stepsRun.equals(Arrays.asList(1, 2, 3))
+                && fractions.size() > 1
+                && fractions.get(0) == 0
+                && fractions.get(fractions.size() - 1) == 1;
+        for (int i = 1; ok && i < fractions.size(); i++){
+            ok = fractions.get(i) >= fractions.get(i - 1);
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(true, 4));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(false, 4));
+
+        // Exception cases
+        //  -Case 5, A corrupt manifest is read as the base version, so every step runs again
+        ok = false;
+        try (RandomAccessFile manifestAccess = new RandomAccessFile(manifest, "rw")){
+            manifestAccess.seek(8);
+            manifestAccess.write(manifestAccess.read() ^ 0x01);
+            ok = true;
+        }
+        catch (IOException ignored){
+        }
+        stepsRun.clear();
+        testMigrator = new StorageMigrator(testDirectory, testSteps);
+        ok &= testMigrator.GetSchemaVersion() == 1
+                && testMigrator.Migrate(null)
+                && stepsRun.equals(Arrays.asList(1, 2, 3));
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(true, 5));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(false, 5));
+
+        //  -Case 6, Files from a newer app aren't migrated, and their manifest is kept
+        stepsRun.clear();
+        testMigrator = new StorageMigrator(testDirectory, testSteps.subList(0, 1));
+        ok = !testMigrator.Migrate(null)
+                && stepsRun.isEmpty()
+                && new StorageMigrator(testDirectory, testSteps).GetSchemaVersion() == 4;
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(true, 6));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StorageMigratorMessages.MigrateMessage(false, 6));
+
+        StorageMigrator.DeleteTestDirectory(testDirectory);
+    }
+
+    // Removes a test directory and the files in it
+    private static void DeleteTestDirectory(File testDirectory){
+        File[] files = testDirectory.listFiles();
+        if (files != null){
+            for (File file : files) file.delete();
+        }
+        testDirectory.delete();
+    }
+}
@@ -0,0 +1,241 @@
+/// <summary>
+///  File: StoredFileOutputStream.java
+///     Description: Contains the class of a stream that replaces a stored file whole, by
+///         writing a temporary file next to it and renaming it over the file once complete.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+///
+/// Stored File Output Stream Class
+///     Writes a new version of a stored file to a temporary file next to it, encrypted if
+///     storage is encrypted. Commit forces the temporary file to disk and renames it over
+///     the stored file, so the stored file is only ever seen before or after the write,
+///     never part way through it. If the app stops before Commit, the stored file keeps
+///     its previous contents.
+///     Closing without committing discards what was written. So a writer that fails part
+///     way only has to close the stream.
+///     EncryptStoredFiles skips temporary files, and a committed file is already encrypted,
+///     so files written this way can't be caught half written by it.
+///     Not safe to share between threads.
+///
+public class StoredFileOutputStream extends OutputStream {
+
+    ///
+    /// Local variables
+    ///
+    private final File storedFile;
+    private final File temporaryFile;
+    private final FileOutputStream fileStream;
+    private final OutputStream storageStream;
+    private boolean closed;
+
+    ///
+    /// Constructors
+    ///
+    /// <summary>
+    ///  Given a stored file, opens a stream writing its new contents.
+    ///     Throws IOException if the temporary file couldn't be created.
+    /// </summary>
+    public StoredFileOutputStream(File storedFile) throws IOException {
+        this.storedFile = storedFile;
+        this.temporaryFile = new File(storedFile.getAbsolutePath() + Universals.FileNames.TemporaryExtension);
+        this.fileStream = new FileOutputStream(this.temporaryFile, false);
+        try{
+            this.storageStream = DatabaseManager.OpenWriteStream(this.fileStream);
+        }
+        catch (IOException e){
+            this.fileStream.close();
+            this.temporaryFile.delete();
+            throw e;
+        }
+        this.closed = false;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    @Override
+    public void write(int b) throws IOException {
+        this.storageStream.write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        this.storageStream.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.storageStream.flush();
+    }
+
+    /// <summary>
+    ///     Finishes the new contents, forces them to disk, and renames them over the stored
+    ///     file. Nothing can be written after.
+    ///     Throws IOException, leaving the stored file as it was, if the contents couldn't
+    ///     be written or the rename failed.
+    /// </summary>
+    public void Commit() throws IOException {
+        if (this.closed) throw new IOException(Universals.ErrorMessages.StoredFileErrorMessages.StreamClosedError);
+        this.closed = true;
+        try{
+            this.storageStream.flush();
+            DatabaseManager.FinishWriteStream(this.storageStream);
+            this.fileStream.getFD().sync();
+            this.fileStream.close();
+        }
+        catch (IOException e){
+            this.Discard();
+            throw e;
+        }
+        if (!this.temporaryFile.renameTo(this.storedFile)){
+            this.temporaryFile.delete();
+            throw new IOException(Universals.ErrorMessages.StoredFileErrorMessages.RenameError);
+        }
+    }
+
+    /// <summary>
+    ///     Discards the new contents if they weren't committed. Does nothing otherwise.
+    /// </summary>
+    @Override
+    public void close() throws IOException {
+        if (this.closed) return;
+        this.closed = true;
+        this.Discard();
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Closes and deletes the temporary file
+    private void Discard(){
+        try{
+            this.fileStream.close();
+        }
+        catch (IOException ignored){
+        }
+        this.temporaryFile.delete();
+    }
+
+    ///
+    /// Test Methods
+    ///
+    /// <summary>
+    ///  Each test method is self contained and runs different scenarios based on the
+    ///     method associated with that method. Results of tests are printed to LogCat using
+    ///     Log.d method
+    ///     Cases are split into two categories: Test non-exception and test exception
+    ///         Test non-exception tests normal use of methods
+    ///         Test exception test methods throwing exceptions when they should be
+    ///     Additionally, tests can be set to only print failure messages or all messages.
+    /// </summary>
+    ///
+    // Test Commit and close, with storage plaintext and encrypted
+    public static void TestCommitAndDiscard(boolean printAllMessages, Context context){
+
+        // Locals
+        DatabaseManager dbm = new DatabaseManager(context);
+        File testFile = new File(dbm.GetAppRootDirectory(), "testStoredFile");
+        File temporaryFile = new File(testFile.getAbsolutePath() + Universals.FileNames.TemporaryExtension);
+        StorageCipher previousCipher = DatabaseManager.GetStorageCipher();
+        StoredFileOutputStream testStream;
+        boolean ok;
+
+        // Non-exception cases
+        //  -Case 1, committing replaces the file whole and leaves no temporary file, with
+        //      storage encrypted, then plaintext
+        ok = true;
+        try{
+            for (int encrypted = 1; encrypted >= 0; encrypted--){
+                DatabaseManager.SetStorageCipher(encrypted == 1 ? new StorageCipher(StorageCipher.GenerateKey()) : null);
+                try (StoredFileOutputStream output = new StoredFileOutputStream(testFile)){
+                    output.write(new byte[]{1, 2, 3});
+                    output.Commit();
+                }
+                ok &= StoredFileOutputStream.ReadTestFile(testFile) == 3 && !temporaryFile.exists();
+            }
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        finally {
+            DatabaseManager.SetStorageCipher(previousCipher);
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StoredFileMessages.CommitAndDiscardMessage(true, 1));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StoredFileMessages.CommitAndDiscardMessage(false, 1));
+
+        //  -Case 2, closing without committing leaves the file as it was
+        ok = true;
+        try{
+            try (StoredFileOutputStream output = new StoredFileOutputStream(testFile)){
+                output.write(new byte[]{1, 2, 3, 4, 5});
+            }
+            ok = StoredFileOutputStream.ReadTestFile(testFile) == 3 && !temporaryFile.exists();
+        }
+        catch (IOException e){
+            ok = false;
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StoredFileMessages.CommitAndDiscardMessage(true, 2));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StoredFileMessages.CommitAndDiscardMessage(false, 2));
+
+        // Exception cases
+        //  -Case 3, committing twice throws, and the first commit stands
+        ok = false;
+        testStream = null;
+        try{
+            testStream = new StoredFileOutputStream(testFile);
+            testStream.write(new byte[]{1, 2});
+            testStream.Commit();
+            testStream.Commit();
+        }
+        catch (IOException e){
+            try{
+                ok = testStream != null && StoredFileOutputStream.ReadTestFile(testFile) == 2;
+            }
+            catch (IOException ignored){
+            }
+        }
+        if (ok){
+            if (printAllMessages)
+                Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StoredFileMessages.CommitAndDiscardMessage(true, 3));
+        }
+        else
+            Log.d(Universals.TestMessages.TestMessageTag, Universals.TestMessages.StoredFileMessages.CommitAndDiscardMessage(false, 3));
+
+        // Clean up
+        testFile.delete();
+        temporaryFile.delete();
+    }
+
+    // Reads a stored test file and returns how many bytes it holds
+    private static int ReadTestFile(File file) throws IOException {
+        try (InputStream input = DatabaseManager.OpenReadStream(file)){
+            byte[] bytes = new byte[16];
+            int length = 0;
+            int read;
+            while ((read = input.read(bytes, length, bytes.length - length)) > 0){
+                length += read;
+            }
+            return length;
+        }
+    }
+}
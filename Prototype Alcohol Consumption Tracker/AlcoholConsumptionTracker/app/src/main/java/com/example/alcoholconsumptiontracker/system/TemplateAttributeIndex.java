@@ -0,0 +1,185 @@
+/// <summary>
+///  File: TemplateAttributeIndex.java
+///     Description: Contains the class and methods of the sorted index of templates by one
+///         numeric attribute, used by DrinkTemplateManager for range queries.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+///
+/// Template Attribute Index Class
+///     Keeps templates sorted by one attribute (price, calories, or APV), both across all
+///     templates and separately for each drink type. Ties are ordered by name.
+///     A range query walks only the templates in the range, one at a time as the caller
+///     iterates, so nothing outside the range is looked at and nothing is copied up front.
+///     Safe to use from several threads at once. Queries don't lock. Their iterators are
+///     weakly consistent: they never fail, and see every template that stays in the range
+///     while they run.
+///
+class TemplateAttributeIndex {
+
+    ///
+    /// Local variables
+    ///
+    // Represents a template's place in the index: the attribute's value when the template
+    //  was indexed, then its name. The drink type it was indexed under is kept so the entry
+    //  can be found again after the template changes. A null name sorts after every name
+    //  with the same value, and is only used as the upper bound of a range.
+    private static class Entry {
+        final float value;
+        final String name;
+        final short type;
+
+        Entry(float value, String name, short type){
+            this.value = value;
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static final Comparator<Entry> EntryOrder = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry first, Entry second) {
+            int result = Float.compare(first.value, second.value);
+            if (result != 0) return result;
+            if (first.name == null) return second.name == null ? 0 : 1;
+            if (second.name == null) return -1;
+            return first.name.compareTo(second.name);
+        }
+    };
+
+    // Represents the attribute the index is sorted by
+    private final DrinkTemplateManager.TemplateAttribute attribute;
+
+    // Represents every indexed template, and the templates of each drink type.
+    //  Key = drink type value.
+    private final ConcurrentSkipListSet<Entry> allEntries;
+    private final ConcurrentHashMap<Short, ConcurrentSkipListSet<Entry>> typeEntries;
+
+    // Represents the entry each template is indexed under, so it can be found to remove.
+    //  Key = template name.
+    private final ConcurrentHashMap<String, Entry> currentEntries;
+
+    // Represents whether every template has been added. The manager publishes the index
+    //  before adding its templates, and queries wait until they're all there.
+    private volatile boolean built;
+
+    ///
+    /// Constructors
+    ///
+    // Given an attribute, initializes with no templates
+    TemplateAttributeIndex(DrinkTemplateManager.TemplateAttribute attribute){
+        this.attribute = attribute;
+        this.allEntries = new ConcurrentSkipListSet<>(TemplateAttributeIndex.EntryOrder);
+        this.typeEntries = new ConcurrentHashMap<>();
+        this.currentEntries = new ConcurrentHashMap<>();
+        this.built = false;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    int Size(){
+        return this.currentEntries.size();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a template name and the map it belongs to, indexes the template the map holds
+    ///     under that name, or removes the name if the map doesn't have it. Calling this after
+    ///     each change to a template keeps the index matching the map even when changes to
+    ///     it race on several threads, since the last call always sees the map's final state.
+    /// </summary>
+    synchronized void Sync(String name, Map<String, DrinkTemplate> source){
+
+        // Remove the entry the template was indexed under
+        Entry oldEntry = this.currentEntries.remove(name);
+        if (oldEntry != null){
+            this.allEntries.remove(oldEntry);
+            ConcurrentSkipListSet<Entry> oldTypeEntries = this.typeEntries.get(oldEntry.type);
+            if (oldTypeEntries != null) oldTypeEntries.remove(oldEntry);
+        }
+
+        // Index the template's current version
+        DrinkTemplate template = source.get(name);
+        if (template == null) return;
+        Entry newEntry = new Entry(TemplateAttributeIndex.ValueOf(template, this.attribute), name, template.GetType().GetValue());
+        this.currentEntries.put(name, newEntry);
+        this.allEntries.add(newEntry);
+        ConcurrentSkipListSet<Entry> newTypeEntries = this.typeEntries.get(newEntry.type);
+        if (newTypeEntries == null){
+            newTypeEntries = new ConcurrentSkipListSet<>(TemplateAttributeIndex.EntryOrder);
+            this.typeEntries.put(newEntry.type, newTypeEntries);
+        }
+        newTypeEntries.add(newEntry);
+    }
+
+    /// <summary>
+    ///  Given the map the index belongs to, adds every template in it and lets queries run.
+    /// </summary>
+    synchronized void Build(Map<String, DrinkTemplate> source){
+        for (String name : source.keySet()){
+            this.Sync(name, source);
+        }
+        this.built = true;
+    }
+
+    /// <summary>
+    ///  Given a drink type value (or a negative value for every type), the lowest and highest
+    ///     attribute values wanted (both included), and whether to go from highest to lowest,
+    ///     returns an iterator over the template names in that range, in order.
+    /// </summary>
+    Iterator<String> FindRange(short drinkType, float minimum, float maximum, boolean descending){
+
+        if (!this.built) this.WaitForBuild();
+        NavigableSet<Entry> entries = drinkType < 0 ? this.allEntries : this.typeEntries.get(drinkType);
+        if (entries == null || !(minimum <= maximum)) return Collections.<String>emptyIterator();
+
+        // "" sorts before every other name, and null after every name
+        NavigableSet<Entry> range = entries.subSet(
+                new Entry(minimum, "", (short)0), true,
+                new Entry(maximum, null, (short)0), true
+        );
+        final Iterator<Entry> rangeIterator = descending ? range.descendingIterator() : range.iterator();
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return rangeIterator.hasNext();
+            }
+            @Override
+            public String next() {
+                return rangeIterator.next().name;
+            }
+        };
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns once Build has finished, since Build holds the index's lock until then
+    private synchronized void WaitForBuild(){
+    }
+
+    // Returns the value of an attribute for a template
+    static float ValueOf(DrinkTemplate template, DrinkTemplateManager.TemplateAttribute attribute){
+        switch (attribute){
+            case PRICE:
+                return template.GetPrice();
+            case CALORIES:
+                return template.GetCalories();
+            default:
+                return template.GetAPV();
+        }
+    }
+}
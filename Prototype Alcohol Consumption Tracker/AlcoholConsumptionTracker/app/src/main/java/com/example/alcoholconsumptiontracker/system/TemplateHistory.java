@@ -0,0 +1,168 @@
+/// <summary>
+///  File: TemplateHistory.java
+///     Description: Contains the class and methods of the record of every version of every
+///         template, used by DrinkTemplateManager to find a template as it was at a time.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+///
+/// Template History Class
+///     Keeps, for each template changed since the history started, its versions in the
+///     order they were made, each stamped with the time it was made. A removed template's
+///     version is null. The first version of each is the template as it was at the start.
+///     Templates that haven't changed since the start have no versions. Their one version
+///     is the manager's own template, so starting the history copies nothing.
+///     Versions are copies, so changing a template in place doesn't change its history.
+///     Copies share the original's strings, so a version costs a few fields, not the
+///     template's text.
+///     Each name's versions are held in arrays that grow by doubling. Adding a version
+///     publishes a new chain over the same arrays with one more version, so readers never
+///     lock, and an older chain a reader holds still reads correctly.
+///     Finding a version as of a time binary searches the name's chain, so it takes time
+///     logarithmic in the number of versions of that template.
+///     Changes are recorded by the manager while it holds its mutation lock.
+///
+class TemplateHistory {
+
+    ///
+    /// Local variables
+    ///
+    // Represents one name's versions. The first count entries of the arrays are in use.
+    //  Entries past count may be filled by a newer chain over the same arrays.
+    private static final class VersionChain {
+        final long[] times;
+        final DrinkTemplate[] templates;
+        final int count;
+
+        VersionChain(long[] times, DrinkTemplate[] templates, int count){
+            this.times = times;
+            this.templates = templates;
+            this.count = count;
+        }
+    }
+
+    // Represents the versions of each changed name. Key = template name.
+    private final ConcurrentHashMap<String, VersionChain> chains;
+
+    // Represents when the history started, in milliseconds since the epoch
+    private final long startTime;
+
+    ///
+    /// Constructors
+    ///
+    // Given the time it starts at, initializes with no changes
+    TemplateHistory(long startTime){
+        this.chains = new ConcurrentHashMap<>();
+        this.startTime = startTime;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    long GetStartTime(){
+        return this.startTime;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a template name about to change and its template now (or null if there isn't
+    ///     one), records that template as its version at the start, if it hasn't changed
+    ///     before. Must be called before the manager's map changes, so a reader who sees
+    ///     the change also sees the starting version.
+    /// </summary>
+    synchronized void Prepare(String name, DrinkTemplate current){
+        if (this.chains.containsKey(name)) return;
+        this.Append(name, current == null ? null : new DrinkTemplate(current), this.startTime);
+    }
+
+    /// <summary>
+    ///  Given a template name, its new template (or null if it was removed), and the time
+    ///     of the change, records the new version. Prepare must have been called first.
+    /// </summary>
+    synchronized void Record(String name, DrinkTemplate template, long time){
+        this.Append(name, template == null ? null : new DrinkTemplate(template), time);
+    }
+
+    /// <summary>
+    ///  Given the manager's templates just before they're all replaced at once, and the
+    ///     time, ends every template's current version. Templates that hadn't changed get
+    ///     their starting version first.
+    /// </summary>
+    synchronized void RecordReset(Map<String, DrinkTemplate> source, long time){
+        for (Map.Entry<String, DrinkTemplate> entry : source.entrySet()){
+            this.Prepare(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, VersionChain> entry : this.chains.entrySet()){
+            VersionChain chain = entry.getValue();
+            if (chain.templates[chain.count - 1] != null) this.Append(entry.getKey(), null, time);
+        }
+    }
+
+    /// <summary>
+    ///  Given a template name, a time in milliseconds since the epoch, and the manager's
+    ///     templates, returns the template's version at that time: the last version made
+    ///     at or before it. The returned template is the history's own, or the manager's if
+    ///     the template hasn't changed, and shouldn't be changed.
+    ///     Returns null if the template didn't exist then, or the time is before the
+    ///     history started.
+    /// </summary>
+    DrinkTemplate GetAsOf(String name, long time, Map<String, DrinkTemplate> source){
+        if (time < this.startTime) return null;
+
+        // Read the current template before the chain. A change creates the chain before
+        //  changing the map, so if there's still no chain the template read is unchanged.
+        DrinkTemplate current = source.get(name);
+        VersionChain chain = this.chains.get(name);
+        if (chain == null) return current;
+
+        // Find the first version made after the time. The one before it is in effect.
+        int low = 0;
+        int high = chain.count;
+        while (low < high){
+            int middle = (low + high) >>> 1;
+            if (chain.times[middle] <= time) low = middle + 1;
+            else high = middle;
+        }
+        return low == 0 ? null : chain.templates[low - 1];
+    }
+
+    /// <summary>
+    ///  Given a template name, returns how many versions of it are recorded, counting its
+    ///     starting version and removals. Returns 0 if it hasn't changed.
+    /// </summary>
+    int GetVersionCount(String name){
+        VersionChain chain = this.chains.get(name);
+        return chain == null ? 0 : chain.count;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Adds a version to a name's chain. Times never go back within a chain, so a clock
+    //  set back stamps versions with the chain's last time instead.
+    private void Append(String name, DrinkTemplate template, long time){
+        VersionChain chain = this.chains.get(name);
+        if (chain == null){
+            chain = new VersionChain(new long[2], new DrinkTemplate[2], 0);
+        }
+        else if (chain.count == chain.times.length){
+            chain = new VersionChain(
+                    Arrays.copyOf(chain.times, chain.count * 2),
+                    Arrays.copyOf(chain.templates, chain.count * 2),
+                    chain.count
+            );
+        }
+        if (chain.count > 0) time = Math.max(time, chain.times[chain.count - 1]);
+        chain.times[chain.count] = time;
+        chain.templates[chain.count] = template;
+        this.chains.put(name, new VersionChain(chain.times, chain.templates, chain.count + 1));
+    }
+}
@@ -0,0 +1,293 @@
+/// <summary>
+///  File: TemplateNameTrie.java
+///     Description: Contains the class and methods of the prefix index over template names
+///         used by DrinkTemplateManager to find templates by the start of their name.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+///
+/// Template Name Trie Class
+///     A radix trie of template names. Each edge holds a run of characters rather than one,
+///     so a chain of nodes with a single child is stored as one node.
+///     Names are matched ignoring case. Names differing only in case share a node.
+///     Finding names by prefix walks only the prefix's characters, then visits nodes in
+///     order until enough names are found, so it doesn't depend on how many names there are.
+///     Results are ordered by lowercased name, then by name.
+///     Safe to use from several threads at once. Every method locks the trie.
+///
+class TemplateNameTrie {
+
+    ///
+    /// Local variables
+    ///
+    private final Node root;
+    private int nameCount;
+
+    // Represents a node of the trie. The node's key is the labels from the root to it.
+    private static class Node {
+
+        // Represents the characters on the edge from the parent. Empty for the root.
+        String label;
+
+        // Represents the children, ordered by the first character of their label.
+        //  No two children's labels start with the same character.
+        Node[] children;
+        int childCount;
+
+        // Represents the names whose lowercased form is this node's key, in order.
+        //  Null if no name ends here.
+        ArrayList<String> names;
+
+        Node(String label){
+            this.label = label;
+            this.children = null;
+            this.childCount = 0;
+            this.names = null;
+        }
+    }
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with no names
+    TemplateNameTrie(){
+        this.root = new Node("");
+        this.nameCount = 0;
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    synchronized int Size(){
+        return this.nameCount;
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a name and the map it belongs to, adds the name if the map has it and removes
+    ///     the name otherwise. Calling this after each change to a name keeps the trie
+    ///     matching the map even when changes to the name race on several threads, since
+    ///     the last call for the name always sees the map's final state.
+    /// </summary>
+    synchronized void Sync(String name, Map<String, ?> source){
+        if (source.containsKey(name)) this.Insert(name);
+        else this.Remove(name);
+    }
+
+    /// <summary>
+    ///  Given a name, adds it to the trie. Returns false if it was already there.
+    /// </summary>
+    synchronized boolean Insert(String name){
+
+        String key = TemplateNameTrie.Fold(name);
+        Node node = this.root;
+        int position = 0;
+
+        while (position < key.length()){
+            int childIndex = TemplateNameTrie.FindChild(node, key.charAt(position));
+
+            // No child continues the key. Add the rest of the key as a leaf.
+            if (childIndex < 0){
+                Node leaf = new Node(key.substring(position));
+                leaf.names = new ArrayList<>(1);
+                leaf.names.add(name);
+                TemplateNameTrie.AddChild(node, leaf, -childIndex - 1);
+                this.nameCount++;
+                return true;
+            }
+
+            // Follow the child, splitting its label if the key leaves it part way
+            Node child = node.children[childIndex];
+            int common = TemplateNameTrie.CommonLength(child.label, key, position);
+            if (common < child.label.length()){
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                TemplateNameTrie.AddChild(middle, child, 0);
+                node.children[childIndex] = middle;
+                child = middle;
+            }
+            node = child;
+            position += common;
+        }
+
+        // The key ends at this node
+        if (node.names == null) node.names = new ArrayList<>(1);
+        int nameIndex = TemplateNameTrie.FindName(node.names, name);
+        if (nameIndex >= 0) return false;
+        node.names.add(-nameIndex - 1, name);
+        this.nameCount++;
+        return true;
+    }
+
+    /// <summary>
+    ///  Given a name, removes it from the trie. Nodes left without names or with a single
+    ///     child are merged away. Returns false if the name wasn't there.
+    /// </summary>
+    synchronized boolean Remove(String name){
+
+        String key = TemplateNameTrie.Fold(name);
+        Node parent = null;
+        Node node = this.root;
+        int position = 0;
+
+        // Find the node the key ends at
+        while (position < key.length()){
+            int childIndex = TemplateNameTrie.FindChild(node, key.charAt(position));
+            if (childIndex < 0) return false;
+            Node child = node.children[childIndex];
+            if (!key.startsWith(child.label, position)) return false;
+            parent = node;
+            node = child;
+            position += child.label.length();
+        }
+        if (node.names == null) return false;
+        int nameIndex = TemplateNameTrie.FindName(node.names, name);
+        if (nameIndex < 0) return false;
+        node.names.remove(nameIndex);
+        this.nameCount--;
+        if (!node.names.isEmpty() || node == this.root) return true;
+        node.names = null;
+
+        // Tidy the node, then its parent, so no node other than the root is left
+        //  without names and with fewer than two children
+        if (node.childCount == 0){
+            TemplateNameTrie.RemoveChild(parent, node);
+            if (parent != this.root && parent.names == null && parent.childCount == 1){
+                TemplateNameTrie.MergeWithChild(parent);
+            }
+        }
+        else if (node.childCount == 1){
+            TemplateNameTrie.MergeWithChild(node);
+        }
+        return true;
+    }
+
+    /// <summary>
+    ///  Given a prefix and the most names wanted, returns up to that many names starting
+    ///     with the prefix, ignoring case, in order.
+    /// </summary>
+    synchronized List<String> FindByPrefix(String prefix, int limit){
+
+        ArrayList<String> results = new ArrayList<>(Math.min(Math.max(limit, 0), 64));
+        String key = TemplateNameTrie.Fold(prefix);
+        Node node = this.root;
+        int position = 0;
+
+        if (limit <= 0) return results;
+
+        // Walk the prefix. It may end part way along an edge.
+        while (position < key.length()){
+            int childIndex = TemplateNameTrie.FindChild(node, key.charAt(position));
+            if (childIndex < 0) return results;
+            Node child = node.children[childIndex];
+            int remaining = key.length() - position;
+            if (remaining <= child.label.length()){
+                if (!child.label.startsWith(key.substring(position))) return results;
+            }
+            else if (!key.startsWith(child.label, position)) return results;
+            node = child;
+            position += child.label.length();
+        }
+
+        // Visit the nodes under the prefix in order until enough names are found
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty() && results.size() < limit){
+            Node current = pending.pop();
+            if (current.names != null){
+                for (int i = 0; i < current.names.size() && results.size() < limit; i++){
+                    results.add(current.names.get(i));
+                }
+            }
+            for (int i = current.childCount - 1; i >= 0; i--){
+                pending.push(current.children[i]);
+            }
+        }
+        return results;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Returns the form of a name compared by the trie
+    private static String Fold(String name){
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Returns the index of the child whose label starts with the given character, or
+    //  -(insertion point) - 1 if there isn't one
+    private static int FindChild(Node node, char first){
+        int low = 0;
+        int high = node.childCount - 1;
+        while (low <= high){
+            int middle = (low + high) >>> 1;
+            char middleFirst = node.children[middle].label.charAt(0);
+            if (middleFirst < first) low = middle + 1;
+            else if (middleFirst > first) high = middle - 1;
+            else return middle;
+        }
+        return -low - 1;
+    }
+
+    // Returns the index of a name in a node's names, or -(insertion point) - 1
+    private static int FindName(ArrayList<String> names, String name){
+        int low = 0;
+        int high = names.size() - 1;
+        while (low <= high){
+            int middle = (low + high) >>> 1;
+            int result = names.get(middle).compareTo(name);
+            if (result < 0) low = middle + 1;
+            else if (result > 0) high = middle - 1;
+            else return middle;
+        }
+        return -low - 1;
+    }
+
+    // Returns how many characters of a label match the key from a position
+    private static int CommonLength(String label, String key, int position){
+        int length = Math.min(label.length(), key.length() - position);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(position + common)) common++;
+        return common;
+    }
+
+    // Inserts a child at an index, growing the children array if needed
+    private static void AddChild(Node node, Node child, int index){
+        if (node.children == null) node.children = new Node[2];
+        else if (node.childCount == node.children.length){
+            node.children = Arrays.copyOf(node.children, node.childCount * 2);
+        }
+        System.arraycopy(node.children, index, node.children, index + 1, node.childCount - index);
+        node.children[index] = child;
+        node.childCount++;
+    }
+
+    // Removes a child from a node
+    private static void RemoveChild(Node node, Node child){
+        int index = TemplateNameTrie.FindChild(node, child.label.charAt(0));
+        System.arraycopy(node.children, index + 1, node.children, index, node.childCount - index - 1);
+        node.childCount--;
+        node.children[node.childCount] = null;
+        if (node.childCount == 0) node.children = null;
+    }
+
+    // Merges a node without names with its only child
+    private static void MergeWithChild(Node node){
+        Node child = node.children[0];
+        node.label = node.label + child.label;
+        node.children = child.children;
+        node.childCount = child.childCount;
+        node.names = child.names;
+    }
+}
@@ -0,0 +1,345 @@
+/// <summary>
+///  File: TemplateTrigramIndex.java
+///     Description: Contains the class and methods of the typo-tolerant search index over
+///         template names and drink types used by DrinkTemplateManager.
+/// </summary>
+package com.example.alcoholconsumptiontracker.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+///
+/// Template Trigram Index Class
+///     An inverted index from trigrams (runs of three characters) to the templates whose
+///     name or drink type contains them. Text is lowercased and split into words, and each
+///     word is padded with two spaces before and one after, so "ale" gives "  a", " al",
+///     "ale", and "le ".
+///     A search counts, for each template, how many of the query's trigrams it shares.
+///     Templates sharing enough of them are ranked by that count, then by edit distance
+///     from the query, so misspelled and reordered letters still find the template.
+///     Trigrams held by a large share of templates aren't counted when the query has rarer
+///     ones, which keeps a search's cost near the number of templates it could return.
+///     Safe to use from several threads at once. Every method locks the index.
+///
+class TemplateTrigramIndex {
+
+    ///
+    /// Local variables
+    ///
+    // Represents the share of a query's trigrams a template must have to be a result.
+    private static final double minimumOverlap = 0.3;
+
+    // Represents how many more candidates than results are ranked by edit distance, and
+    //  the most that are when candidates tied on overlap are kept together.
+    private static final int candidatesPerResult = 4;
+    private static final int maxCandidatesPerResult = 32;
+
+    // Represents when a trigram is too common to count: held by more than this share of
+    //  templates, and by more than the floor. Counting one costs a pass over most templates
+    //  and barely separates them.
+    private static final int commonTrigramDivisor = 3;
+    private static final int commonTrigramFloor = 1024;
+
+    // Represents each template's id. Ids of removed templates are reused.
+    //  Key = template name, value = id.
+    private final HashMap<String, Integer> ids;
+
+    // Represents, by id, the template's name and drink type name. Null for unused ids.
+    //  A template's trigrams are found again from these when it is removed, rather than kept.
+    private String[] names;
+    private String[] typeNames;
+    private int idCount;
+    private final ArrayList<Integer> freeIds;
+
+    // Represents the ids of the templates containing each trigram, in no order.
+    //  Key = trigram packed into a long, value = ids.
+    private final HashMap<Long, Posting> postings;
+
+    // Represents, by id, the number of query trigrams a template shares during a search,
+    //  and the ids a search has counted. Kept between searches. Only the entries a search
+    //  counted are reset.
+    private int[] overlapCounts;
+    private int[] touchedIds;
+
+    // Represents a growable list of ids
+    private static class Posting {
+        int[] ids = new int[4];
+        int size = 0;
+
+        void Add(int id){
+            if (this.size == this.ids.length) this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            this.ids[this.size++] = id;
+        }
+
+        // Removes an id by moving the last id into its place
+        void Remove(int id){
+            for (int i = 0; i < this.size; i++){
+                if (this.ids[i] == id){
+                    this.ids[i] = this.ids[--this.size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Represents a template found by a search
+    private static class Candidate {
+        final int id;
+        final int overlap;
+        int distance;
+
+        Candidate(int id, int overlap){
+            this.id = id;
+            this.overlap = overlap;
+        }
+    }
+
+    ///
+    /// Constructors
+    ///
+    // Default. Initializes with no templates
+    TemplateTrigramIndex(){
+        this.ids = new HashMap<>();
+        this.names = new String[16];
+        this.typeNames = new String[16];
+        this.idCount = 0;
+        this.freeIds = new ArrayList<>();
+        this.postings = new HashMap<>();
+        this.overlapCounts = new int[16];
+        this.touchedIds = new int[16];
+    }
+
+    ///
+    /// Setters and Getters
+    ///
+    synchronized int Size(){
+        return this.ids.size();
+    }
+    synchronized int GetTrigramCount(){
+        return this.postings.size();
+    }
+
+    ///
+    /// Methods
+    ///
+
+    /// <summary>
+    ///  Given a template name and the map it belongs to, indexes the template the map holds
+    ///     under that name, or removes the name if the map doesn't have it. Calling this after
+    ///     each change to a template keeps the index matching the map even when changes to
+    ///     it race on several threads, since the last call always sees the map's final state.
+    /// </summary>
+    synchronized void Sync(String name, Map<String, DrinkTemplate> source){
+        DrinkTemplate template = source.get(name);
+        this.Remove(name);
+        if (template != null) this.Add(name, template.GetType().Get());
+    }
+
+    /// <summary>
+    ///  Given a query and the most names wanted, returns up to that many template names
+    ///     that best match the query, best first.
+    /// </summary>
+    synchronized List<String> Search(String query, int limit){
+
+        ArrayList<String> results = new ArrayList<>();
+        long[] queryTrigrams = TemplateTrigramIndex.Trigrams(query);
+        if (limit <= 0 || queryTrigrams.length == 0) return results;
+
+        // Find the postings of the query's trigrams, and whether any held trigram is rare
+        //  enough that the common ones can be left out
+        Posting[] queryPostings = new Posting[queryTrigrams.length];
+        int commonSize = Math.max(TemplateTrigramIndex.commonTrigramFloor, this.ids.size() / TemplateTrigramIndex.commonTrigramDivisor);
+        boolean skipCommon = false;
+        for (int i = 0; i < queryTrigrams.length; i++){
+            queryPostings[i] = this.postings.get(queryTrigrams[i]);
+            if (queryPostings[i] != null && queryPostings[i].size <= commonSize) skipCommon = true;
+        }
+
+        // Count shared trigrams for every template holding one of the counted trigrams.
+        //  Trigrams no template holds still count toward the share a template must reach.
+        int countedTrigramCount = queryTrigrams.length;
+        int touchedCount = 0;
+        for (Posting posting : queryPostings){
+            if (posting == null) continue;
+            if (skipCommon && posting.size > commonSize){
+                countedTrigramCount--;
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++){
+                int id = posting.ids[i];
+                if (this.overlapCounts[id]++ == 0) this.touchedIds[touchedCount++] = id;
+            }
+        }
+
+        // Find the lowest overlap worth ranking: enough candidates at or above it to rank
+        //  candidatesPerResult for each result, or the minimum share if there aren't that many
+        int minimumCount = Math.max(1, (int)Math.ceil(countedTrigramCount * TemplateTrigramIndex.minimumOverlap));
+        int[] overlapHistogram = new int[countedTrigramCount + 1];
+        for (int i = 0; i < touchedCount; i++){
+            overlapHistogram[this.overlapCounts[this.touchedIds[i]]]++;
+        }
+        int wantedCount = limit * TemplateTrigramIndex.candidatesPerResult;
+        int threshold = countedTrigramCount;
+        int aboveThreshold = 0;
+        while (threshold > minimumCount && aboveThreshold + overlapHistogram[threshold] < wantedCount){
+            aboveThreshold += overlapHistogram[threshold];
+            threshold--;
+        }
+
+        // Keep every candidate above the threshold, and those tied at it up to the most
+        //  ranked. Reset the counts as they're read.
+        int maxRankedCount = limit * TemplateTrigramIndex.maxCandidatesPerResult;
+        int tiedRoom = Math.max(0, maxRankedCount - aboveThreshold);
+        ArrayList<Candidate> ranked = new ArrayList<>();
+        for (int i = 0; i < touchedCount; i++){
+            int id = this.touchedIds[i];
+            int overlap = this.overlapCounts[id];
+            this.overlapCounts[id] = 0;
+            if (overlap > threshold) ranked.add(new Candidate(id, overlap));
+            else if (overlap == threshold && tiedRoom > 0){
+                ranked.add(new Candidate(id, overlap));
+                tiedRoom--;
+            }
+        }
+
+        // Rank by overlap, then by edit distance from the query
+        String normalizedQuery = TemplateTrigramIndex.Normalize(query);
+        for (Candidate candidate : ranked){
+            candidate.distance = TemplateTrigramIndex.EditDistance(
+                    normalizedQuery,
+                    TemplateTrigramIndex.Normalize(this.names[candidate.id])
+            );
+        }
+        Collections.sort(ranked, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate first, Candidate second) {
+                if (first.overlap != second.overlap) return Integer.compare(second.overlap, first.overlap);
+                if (first.distance != second.distance) return Integer.compare(first.distance, second.distance);
+                return TemplateTrigramIndex.this.names[first.id].compareTo(TemplateTrigramIndex.this.names[second.id]);
+            }
+        });
+        for (int i = 0; i < ranked.size() && i < limit; i++){
+            results.add(this.names[ranked.get(i).id]);
+        }
+        return results;
+    }
+
+    ///
+    /// Helpers
+    ///
+
+    // Indexes a template's name and type under a new id
+    private void Add(String name, String typeName){
+        int id;
+        if (!this.freeIds.isEmpty()){
+            id = this.freeIds.remove(this.freeIds.size() - 1);
+        }
+        else {
+            id = this.idCount++;
+            if (id == this.names.length){
+                this.names = Arrays.copyOf(this.names, id * 2);
+                this.typeNames = Arrays.copyOf(this.typeNames, id * 2);
+                this.overlapCounts = new int[id * 2];
+                this.touchedIds = new int[id * 2];
+            }
+        }
+        this.names[id] = name;
+        this.typeNames[id] = typeName;
+        this.ids.put(name, id);
+        for (long trigram : TemplateTrigramIndex.Trigrams(name + " " + typeName)){
+            Posting posting = this.postings.get(trigram);
+            if (posting == null){
+                posting = new Posting();
+                this.postings.put(trigram, posting);
+            }
+            posting.Add(id);
+        }
+    }
+
+    // Removes a template from the index and frees its id
+    private void Remove(String name){
+        Integer id = this.ids.remove(name);
+        if (id == null) return;
+        for (long trigram : TemplateTrigramIndex.Trigrams(name + " " + this.typeNames[id])){
+            Posting posting = this.postings.get(trigram);
+            posting.Remove(id);
+            if (posting.size == 0) this.postings.remove(trigram);
+        }
+        this.names[id] = null;
+        this.typeNames[id] = null;
+        this.freeIds.add(id);
+    }
+
+    // Returns text lowercased, with anything other than letters and digits turned into
+    //  single spaces between words
+    private static String Normalize(String text){
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        String lowered = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lowered.length(); i++){
+            char current = lowered.charAt(i);
+            if (Character.isLetterOrDigit(current)){
+                if (pendingSpace && normalized.length() > 0) normalized.append(' ');
+                normalized.append(current);
+                pendingSpace = false;
+            }
+            else pendingSpace = true;
+        }
+        return normalized.toString();
+    }
+
+    // Returns the distinct trigrams of text's words, each packed into a long, in order.
+    //  Words are read from the normalized text as if each had two spaces before it and
+    //  one after.
+    private static long[] Trigrams(String text){
+        String normalized = TemplateTrigramIndex.Normalize(text);
+        long[] found = new long[normalized.length() * 2 + 2];
+        int foundCount = 0;
+        char first = ' ';
+        char second = ' ';
+        for (int i = 0; i <= normalized.length(); i++){
+            char current = i < normalized.length() ? normalized.charAt(i) : ' ';
+            if (current == ' ' && second == ' ') continue;
+            found[foundCount++] = ((long)first << 32) | ((long)second << 16) | current;
+            if (current == ' '){
+                first = ' ';
+                second = ' ';
+            }
+            else {
+                first = second;
+                second = current;
+            }
+        }
+        Arrays.sort(found, 0, foundCount);
+        int distinctCount = 0;
+        for (int i = 0; i < foundCount; i++){
+            if (distinctCount == 0 || found[distinctCount - 1] != found[i]) found[distinctCount++] = found[i];
+        }
+        return Arrays.copyOf(found, distinctCount);
+    }
+
+    // Returns the number of single character inserts, deletes, and replacements to turn
+    //  one string into the other
+    private static int EditDistance(String first, String second){
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) previous[j] = j;
+        for (int i = 1; i <= first.length(); i++){
+            current[0] = i;
+            for (int j = 1; j <= second.length(); j++){
+                int replaceCost = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(replaceCost, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+}
@@ -33,6 +33,16 @@ public class Test {
         // ---- Backend
         // Database Manager Methods
         DatabaseManager.TestInitializeDatabase(printAllMessages, testContext);
+        DatabaseManager.TestMigrateDatabase(printAllMessages, testContext);
+
+        // StorageMigrator Methods
+        StorageMigrator.TestMigrate(printAllMessages, testContext);
+
+        // StorageCipher Methods
+        StorageCipher.TestEncryptDecrypt(printAllMessages, testContext);
+
+        // StoredFileOutputStream Methods
+        StoredFileOutputStream.TestCommitAndDiscard(printAllMessages, testContext);
 
         // ---- Alcohol Logging
         // DrinkTemplate Methods
@@ -41,11 +51,54 @@ public class Test {
         // Drink Methods
         Drink.TestGettersAndSetters(printAllMessages);
 
+        // ConsumptionTime Methods
+        ConsumptionTime.TestPackAndUnpack(printAllMessages);
+
+        // DrinkLog Methods
+        DrinkLog.TestReplayAndCompact(printAllMessages, testContext);
+
+        // DrinkHistory Methods
+        DrinkHistory.TestPartitionAndQuery(printAllMessages, testContext);
+        DrinkHistory.TestMappedAggregation(printAllMessages, testContext);
+
+        // DrinkColumnList Methods
+        DrinkColumnList.TestColumns(printAllMessages);
+
         // DrinkTemplateManager Methods
         DrinkTemplateManager.TestPutTemplate(printAllMessages);
         DrinkTemplateManager.TestModifyTemplate(printAllMessages);
         DrinkTemplateManager.TestRemoveTemplate(printAllMessages);
         DrinkTemplateManager.TestReadWriteTemplateList(printAllMessages, testContext);
+        DrinkTemplateManager.TestReadTemplateListStreaming(printAllMessages, testContext);
+        DrinkTemplateManager.TestWriteTemplateListStreaming(printAllMessages, testContext);
+        DrinkTemplateManager.TestReadWriteTemplateListBinary(printAllMessages, testContext);
+        DrinkTemplateManager.TestReadTemplateListIndexed(printAllMessages, testContext);
+        DrinkTemplateManager.TestReadTemplateListParallel(printAllMessages, testContext);
+        DrinkTemplateManager.TestChecksumRecovery(printAllMessages, testContext);
+        DrinkTemplateManager.TestImportTemplates(printAllMessages, testContext);
+        DrinkTemplateManager.TestLayeredCatalog(printAllMessages, testContext);
+        DrinkTemplateManager.TestConcurrentAccess(printAllMessages);
+
+        // DrinkTemplateVersions Methods
+        DrinkTemplateVersions.TestSnapshot(printAllMessages);
+        DrinkTemplateVersions.TestTemplateHistory(printAllMessages);
+
+        // DrinkTemplateIndexes Methods
+        DrinkTemplateIndexes.TestFindByPrefix(printAllMessages);
+        DrinkTemplateIndexes.TestSearchTemplates(printAllMessages);
+        DrinkTemplateIndexes.TestFindInRange(printAllMessages);
+
+        // DrinkTemplateChangeRecorder Methods
+        DrinkTemplateChangeRecorder.TestChangeFeed(printAllMessages);
+
+        // DrinkTemplateDiff Methods
+        DrinkTemplateDiff.TestDiffAndMerge(printAllMessages);
+
+        // DrinkTemplateJournal Methods
+        DrinkTemplateJournal.TestReplayAndCompact(printAllMessages, testContext);
+
+        // PersistenceScheduler Methods
+        PersistenceScheduler.TestCoalesceAndFlush(printAllMessages, testContext);
 
         // ----
         // Notify end testing
@@ -20,6 +20,10 @@ public class Universals {
         public static String EmptyString(){
             return "";
         }
+
+        // Whether stored files are encrypted. Once a storage key exists, storage stays
+        //  encrypted whatever this is set to.
+        public static boolean EncryptStorage = false;
     }
 
     ///
@@ -107,6 +111,257 @@ public class Universals {
                 else
                     return DrinkTemplateManagerFailureMessageTitle + "Write Template List Failure. Test Case <" + testCase + ">";
             }
+            public static String TemplateReadStreamingMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Read Template List Streaming Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Read Template List Streaming Failure. Test Case <" + testCase + ">";
+            }
+            public static String TemplateReadWriteBinaryMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Read Write Template List Binary Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Read Write Template List Binary Failure. Test Case <" + testCase + ">";
+            }
+            public static String TemplateReadIndexedMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Read Template List Indexed Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Read Template List Indexed Failure. Test Case <" + testCase + ">";
+            }
+            public static String TemplateReadParallelMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Read Template List Parallel Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Read Template List Parallel Failure. Test Case <" + testCase + ">";
+            }
+            public static String TemplateImportMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Import Templates Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Import Templates Failure. Test Case <" + testCase + ">";
+            }
+            public static String SearchTemplatesMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Search Templates Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Search Templates Failure. Test Case <" + testCase + ">";
+            }
+            public static String ChecksumRecoveryMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Checksum Recovery Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Checksum Recovery Failure. Test Case <" + testCase + ">";
+            }
+            public static String TemplateHistoryMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Template History Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Template History Failure. Test Case <" + testCase + ">";
+            }
+            public static String ChangeFeedMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Change Feed Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Change Feed Failure. Test Case <" + testCase + ">";
+            }
+            public static String FindInRangeMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Find In Range Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Find In Range Failure. Test Case <" + testCase + ">";
+            }
+            public static String FindByPrefixMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Find By Prefix Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Find By Prefix Failure. Test Case <" + testCase + ">";
+            }
+            public static String SnapshotMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Snapshot Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Snapshot Failure. Test Case <" + testCase + ">";
+            }
+            public static String ConcurrentAccessMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Concurrent Access Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Concurrent Access Failure. Test Case <" + testCase + ">";
+            }
+            public static String LayeredCatalogMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Layered Catalog Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Layered Catalog Failure. Test Case <" + testCase + ">";
+            }
+            public static String TemplateWriteStreamingMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateManagerPassMessageTitle + "Write Template List Streaming Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateManagerFailureMessageTitle + "Write Template List Streaming Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        ///
+        ///  The class of test messages for drink template journal
+        ///
+        public static class PersistenceSchedulerMessages{
+            public static String PersistenceSchedulerFailureMessageTitle = FailureMessageTitle + "PersistenceScheduler: ";
+            public static String PersistenceSchedulerPassMessageTitle = PassMessageTitle + "PersistenceScheduler: ";
+
+            public static String CoalesceFlushMessage(boolean pass, int testCase){
+                if (pass){
+                    return PersistenceSchedulerPassMessageTitle + "Coalesce Flush Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return PersistenceSchedulerFailureMessageTitle + "Coalesce Flush Fail. Test Case <" + testCase + ">";
+            }
+        }
+        public static class DrinkTemplateJournalMessages{
+            public static String DrinkTemplateJournalFailureMessageTitle = FailureMessageTitle + "DrinkTemplateJournal: ";
+            public static String DrinkTemplateJournalPassMessageTitle = PassMessageTitle + "DrinkTemplateJournal: ";
+
+            public static String ReplayCompactMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateJournalPassMessageTitle + "Replay Compact Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateJournalFailureMessageTitle + "Replay Compact Failure. Test Case <" + testCase + ">";
+            }
+        }
+        public static class DrinkTemplateDiffMessages{
+            public static String DrinkTemplateDiffFailureMessageTitle = FailureMessageTitle + "DrinkTemplateDiff: ";
+            public static String DrinkTemplateDiffPassMessageTitle = PassMessageTitle + "DrinkTemplateDiff: ";
+
+            public static String DiffMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateDiffPassMessageTitle + "Diff Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateDiffFailureMessageTitle + "Diff Failure. Test Case <" + testCase + ">";
+            }
+            public static String MergeMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkTemplateDiffPassMessageTitle + "Merge Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkTemplateDiffFailureMessageTitle + "Merge Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class StorageMigratorMessages{
+            public static String StorageMigratorFailureMessageTitle = FailureMessageTitle + "StorageMigrator: ";
+            public static String StorageMigratorPassMessageTitle = PassMessageTitle + "StorageMigrator: ";
+
+            public static String MigrateMessage(boolean pass, int testCase){
+                if (pass){
+                    return StorageMigratorPassMessageTitle + "Migrate Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return StorageMigratorFailureMessageTitle + "Migrate Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class DrinkLogMessages{
+            public static String DrinkLogFailureMessageTitle = FailureMessageTitle + "DrinkLog: ";
+            public static String DrinkLogPassMessageTitle = PassMessageTitle + "DrinkLog: ";
+
+            public static String ReplayCompactMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkLogPassMessageTitle + "Replay Compact Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkLogFailureMessageTitle + "Replay Compact Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class ConsumptionTimeMessages{
+            public static String ConsumptionTimeFailureMessageTitle = FailureMessageTitle + "ConsumptionTime: ";
+            public static String ConsumptionTimePassMessageTitle = PassMessageTitle + "ConsumptionTime: ";
+
+            public static String PackUnpackMessage(boolean pass, int testCase){
+                if (pass){
+                    return ConsumptionTimePassMessageTitle + "Pack Unpack Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return ConsumptionTimeFailureMessageTitle + "Pack Unpack Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class DrinkHistoryMessages{
+            public static String DrinkHistoryFailureMessageTitle = FailureMessageTitle + "DrinkHistory: ";
+            public static String DrinkHistoryPassMessageTitle = PassMessageTitle + "DrinkHistory: ";
+
+            public static String PartitionQueryMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkHistoryPassMessageTitle + "Partition Query Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkHistoryFailureMessageTitle + "Partition Query Failure. Test Case <" + testCase + ">";
+            }
+
+            public static String MappedAggregationMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkHistoryPassMessageTitle + "Mapped Aggregation Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkHistoryFailureMessageTitle + "Mapped Aggregation Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class DrinkColumnListMessages{
+            public static String DrinkColumnListFailureMessageTitle = FailureMessageTitle + "DrinkColumnList: ";
+            public static String DrinkColumnListPassMessageTitle = PassMessageTitle + "DrinkColumnList: ";
+
+            public static String ColumnsMessage(boolean pass, int testCase){
+                if (pass){
+                    return DrinkColumnListPassMessageTitle + "Columns Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DrinkColumnListFailureMessageTitle + "Columns Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class StorageCipherMessages{
+            public static String StorageCipherFailureMessageTitle = FailureMessageTitle + "StorageCipher: ";
+            public static String StorageCipherPassMessageTitle = PassMessageTitle + "StorageCipher: ";
+
+            public static String EncryptDecryptMessage(boolean pass, int testCase){
+                if (pass){
+                    return StorageCipherPassMessageTitle + "Encrypt Decrypt Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return StorageCipherFailureMessageTitle + "Encrypt Decrypt Failure. Test Case <" + testCase + ">";
+            }
+        }
+
+        public static class StoredFileMessages{
+            public static String StoredFileFailureMessageTitle = FailureMessageTitle + "StoredFileOutputStream: ";
+            public static String StoredFilePassMessageTitle = PassMessageTitle + "StoredFileOutputStream: ";
+
+            public static String CommitAndDiscardMessage(boolean pass, int testCase){
+                if (pass){
+                    return StoredFilePassMessageTitle + "Commit And Discard Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return StoredFileFailureMessageTitle + "Commit And Discard Failure. Test Case <" + testCase + ">";
+            }
         }
 
         ///
@@ -123,6 +378,201 @@ public class Universals {
                 else
                     return DatabaseManagerFailureMessageTitle + "Database Manager Initialize Failure. Test Case <" + testCase + ">";
             }
+            public static String DatabaseMigrateMessage(boolean pass, int testCase){
+                if (pass){
+                    return DatabaseManagerPassMessageTitle + "Database Manager Migrate Pass. Test Case <" + testCase + ">";
+                }
+                else
+                    return DatabaseManagerFailureMessageTitle + "Database Manager Migrate Failure. Test Case <" + testCase + ">";
+            }
+        }
+    }
+
+    ///
+    ///  The class of static benchmark messages for each class
+    ///
+    public static class BenchmarkMessages{
+
+        /// Generic tag associated with benchmark messages for logging functions.
+        public static String BenchmarkMessageTag = "<Benchmark Message>";
+
+        /// <summary>
+        ///  Given a benchmark title, the case being measured, the number of items the case
+        ///     processed, the time it took in nanoseconds, and the heap it retained in bytes,
+        ///     returns a message describing the result.
+        /// </summary>
+        public static String ResultMessage(String title, String benchmarkCase, long itemCount, long elapsedNanos, long heapBytes){
+            return title + benchmarkCase
+                    + ". Items <" + itemCount + ">"
+                    + ". Time <" + (elapsedNanos / 1000000.0) + " ms>"
+                    + ". Peak Heap <" + (heapBytes / 1024) + " KB>";
+        }
+
+        /// <summary>
+        ///  Given a benchmark title, the number of items stored, and the size in bytes of the
+        ///     same items stored as XML and in a binary format, returns a message comparing the sizes.
+        /// </summary>
+        public static String FileSizeMessage(String title, long itemCount, long xmlBytes, long binaryBytes){
+            return title + "File Size"
+                    + ". Items <" + itemCount + ">"
+                    + ". XML <" + (xmlBytes / 1024) + " KB>"
+                    + ". Binary <" + (binaryBytes / 1024) + " KB>";
+        }
+
+        /// <summary>
+        ///  Given a benchmark title, the case being measured, the number of items the case
+        ///     processed, and the items it processed per second, returns a message describing
+        ///     the throughput.
+        /// </summary>
+        public static String ThroughputMessage(String title, String benchmarkCase, long itemCount, double itemsPerSecond){
+            return title + benchmarkCase
+                    + ". Items <" + itemCount + ">"
+                    + ". Items Per Second <" + Math.round(itemsPerSecond) + ">";
+        }
+
+        /// <summary>
+        ///  Given a benchmark title, the case being measured, the number of operations that
+        ///     produced a result, and the average time per operation, returns a message
+        ///     describing the latency.
+        /// </summary>
+        public static String LatencyMessage(String title, String benchmarkCase, long resultCount, long averageNanos){
+            return title + benchmarkCase
+                    + ". Results <" + resultCount + ">"
+                    + ". Average Time <" + averageNanos / 1000 + " us>";
+        }
+
+        ///
+        ///  The class of benchmark messages for drink template manager
+        ///
+        public static class DrinkTemplateManagerMessages{
+            public static String DrinkTemplateManagerBenchmarkTitle = "DrinkTemplateManager: ";
+            public static String ReadTemplateListDOMCase = "Read Template List (DOM)";
+            public static String ReadTemplateListStreamingCase = "Read Template List (Streaming)";
+            public static String ReadTemplateListBinaryCase = "Read Template List (Binary)";
+            public static String ReadTemplateListIndexedCase = "Read Template List (Indexed)";
+            public static String ImportTemplatesCSVCase = "Import Templates (CSV)";
+            public static String ReadTemplateListParallelCase(int threadCount){
+                return "Read Template List (Parallel, " + threadCount + " Threads)";
+            }
+            public static String BuildSearchIndexCase = "Build Search Index";
+            public static String SearchTemplatesCase = "Search Templates";
+            public static String ConcurrentAccessCase(int threadCount){
+                return "Concurrent Access (" + threadCount + " Threads)";
+            }
+        }
+
+        ///
+        ///  The class of benchmark messages for drink log
+        ///
+        public static class DrinkLogMessages{
+            public static String DrinkLogBenchmarkTitle = "DrinkLog: ";
+            public static String AppendDrinkCase = "Append Drink";
+            public static String ReplayLogCase = "Replay Log";
+
+            /// <summary>
+            ///  Given the longest time in nanoseconds taken to log one drink, returns a
+            ///     message describing it.
+            /// </summary>
+            public static String SlowestAppendMessage(long slowestNanos){
+                return DrinkLogBenchmarkTitle + AppendDrinkCase
+                        + ". Slowest Time <" + slowestNanos / 1000 + " us>";
+            }
+        }
+
+        ///
+        ///  The class of benchmark messages for drink history
+        ///
+        public static class DrinkHistoryMessages{
+            public static String DrinkHistoryBenchmarkTitle = "DrinkHistory: ";
+            public static String SumDecodedSegmentCase = "Sum Segment (Decoded)";
+            public static String SumMappedSegmentCase = "Sum Segment (Mapped)";
+            public static String SumDecodedEncryptedSegmentCase = "Sum Encrypted Segment (Decoded)";
+            public static String SumDecryptedSegmentCase = "Sum Encrypted Segment (Decrypted in Place)";
+        }
+
+        ///
+        ///  The class of benchmark messages for drink column list
+        ///
+        public static class DrinkColumnListMessages{
+            public static String DrinkColumnListBenchmarkTitle = "DrinkColumnList: ";
+            public static String SumObjectListCase = "Sum List (Objects)";
+            public static String SumColumnListCase = "Sum List (Columns)";
+        }
+
+        ///
+        ///  The class of benchmark messages for storage cipher
+        ///
+        public static class StorageCipherMessages{
+            public static String StorageCipherBenchmarkTitle = "StorageCipher: ";
+            public static String WriteTemplateListCase = "Write Template List Binary";
+            public static String ReadTemplateListCase = "Read Template List Binary";
+            public static String ReadTemplateListIndexedCase = "Read Template List Indexed";
+            public static String WriteStreamCase = "Write File Stream";
+            public static String ReadStreamCase = "Read File Stream";
+
+            /// <summary>
+            ///  Given the case being measured and the best times in nanoseconds of the same
+            ///     work on plaintext and encrypted files, returns a message describing the
+            ///     cost of encryption.
+            /// </summary>
+            public static String OverheadMessage(String benchmarkCase, long plaintextNanos, long encryptedNanos){
+                return StorageCipherBenchmarkTitle + benchmarkCase
+                        + ". Plaintext <" + (plaintextNanos / 1000000.0) + " ms>"
+                        + ". Encrypted <" + (encryptedNanos / 1000000.0) + " ms>"
+                        + ". Overhead <" + Math.round((encryptedNanos - plaintextNanos) * 1000.0 / plaintextNanos) / 10.0 + "%>";
+            }
+        }
+    }
+
+    ///
+    ///  The class of static messages reporting the cost of app operations while the app runs
+    ///
+    public static class StatisticMessages{
+
+        /// Generic tag associated with statistic messages for logging functions.
+        public static String StatisticMessageTag = "<Statistic>";
+
+        /// <summary>
+        ///  Given the number of bytes written and the time it took in nanoseconds,
+        ///     returns a message describing the cost of saving templates.
+        /// </summary>
+        public static String SaveTemplatesMessage(long byteCount, long elapsedNanos){
+            return "Saved templates. Bytes <" + byteCount + ">. Time <" + (elapsedNanos / 1000000.0) + " ms>";
+        }
+
+        /// <summary>
+        ///  Given the number of bytes flushed and the time it took in nanoseconds,
+        ///     returns a message describing the cost of saving logged drinks.
+        /// </summary>
+        public static String SaveDrinksMessage(long byteCount, long elapsedNanos){
+            return "Saved logged drinks. Bytes <" + byteCount + ">. Time <" + (elapsedNanos / 1000000.0) + " ms>";
+        }
+
+        /// <summary>
+        ///  Given the counts of a template import and the records it processed per second,
+        ///     returns a message describing the import.
+        /// </summary>
+        public static String ImportTemplatesMessage(long insertedCount, long updatedCount, long skippedCount, long rejectedCount, double recordsPerSecond){
+            return "Imported templates. Inserted <" + insertedCount + ">. Updated <" + updatedCount
+                    + ">. Skipped <" + skippedCount + ">. Rejected <" + rejectedCount
+                    + ">. Records Per Second <" + Math.round(recordsPerSecond) + ">";
+        }
+
+        /// <summary>
+        ///  Given the schema versions a storage migration step is moving between and the
+        ///     fraction of the whole migration done, returns a message describing its progress.
+        /// </summary>
+        public static String MigrationProgressMessage(int fromVersion, int toVersion, float fraction){
+            return "Migrating storage. Version <" + fromVersion + "> to <" + toVersion
+                    + ">. Progress <" + Math.round(fraction * 100) + "%>";
+        }
+
+        /// <summary>
+        ///  Given whether a storage migration succeeded and the schema version it left
+        ///     the files at, returns a message describing its result.
+        /// </summary>
+        public static String MigrationCompleteMessage(boolean success, int schemaVersion){
+            return (success ? "Migrated storage." : "Storage migration stopped.") + " Version <" + schemaVersion + ">";
         }
     }
 
@@ -141,6 +591,10 @@ public class Universals {
 
             public static String MessageTitle = "DatabaseManager: ";
             public static String InitializeDatabaseSecurityError = MessageTitle + "Security error incurred while accessing database. Check app security settings.";
+            public static String UpgradeTemplateListError = MessageTitle + "Template list file couldn't be read to upgrade its format. It was left for recovery at startup.";
+            public static String StorageKeyError = MessageTitle + "Storage encryption key couldn't be created or unlocked. Storage wasn't encrypted.";
+            public static String EncryptStoredFileError = MessageTitle + "IO Error. Failed to encrypt a stored file. It was left as it was and will be encrypted next start.";
+            public static String EncryptionKeyMissingError = MessageTitle + "File is encrypted, but storage encryption isn't enabled.";
         }
 
         public static class DrinkTemplateManagerErrorMessages{
@@ -149,16 +603,107 @@ public class Universals {
             public static String WriteTemplatesErrorFailedToCreateFile = MessageTitle + "IO Error. Failed to create new XML file.";
             public static String WriteTemplatesErrorFailedToCreateDocument = MessageTitle + "XML DOM Error. Failed to create XML document object.";
             public static String WriteTemplatesErrorTransformerError = MessageTitle + "XML transformer error. Failed to convert DOM Document to XML file.";
+            public static String WriteTemplatesErrorStreamError = MessageTitle + "IO Error. Failed while writing templates to file.";
+            public static String WriteTemplatesErrorRenameError = MessageTitle + "IO Error. Failed to replace template file with newly written file. Previous file was kept.";
             public static String ReadTemplatesErrorDirectoryNotFound = MessageTitle + "Failed to find inputted directory.";
             public static String ReadTemplatesErrorFileNotFound = MessageTitle + "Failed to find inputted file within inputted directory.";
             public static String ReadTemplatesErrorFailedToCreateDocument = MessageTitle + "XML DOM Error. Failed to create XML document object.";
             public static String ReadTemplatesErrorFileIOError = MessageTitle + "Failed to open target XML file for parsing.";
             public static String ReadTemplatesErrorInvalidXMLFile = MessageTitle + "Found file contained content not in an XML format and couldn't be parsed.";
+            public static String ReadTemplatesErrorInvalidBinaryFile = MessageTitle + "Found file wasn't a DrinkTemplateManager binary format file or was a version that isn't supported.";
+            public static String ReadTemplatesErrorJournalAttached = MessageTitle + "Template list can't be read as an index while a journal is attached.";
+            public static String ImportTemplatesErrorInputError = MessageTitle + "Import input couldn't be read or parsed. Records before the error were imported.";
+            public static String ImportTemplatesErrorUnsupportedFile = MessageTitle + "Import file must be a .csv or .xml file.";
 
             public static String ReadTemplatesErrorFileParseError = MessageTitle + "XML file found parsed incorrectly. Wasn't found to be a DrinkTemplateManager XML format file.";
 
+            public static String ChangeListenerError = MessageTitle + "A template change listener threw an exception. Other listeners were still told about the change.";
+            public static String ReadTemplatesErrorChecksumMismatch = MessageTitle + "Binary file failed its checksum and is corrupt. RecoverTemplateListBinary can salvage its intact templates.";
+            public static String CopyTemplatesErrorUnreadableTemplate = MessageTitle + "A template couldn't be read from its file. Templates weren't written or compacted, so the file still holds it.";
+
+            /// <summary>
+            ///  Given the start and end byte offsets of a corrupt range of a binary file,
+            ///     returns a message reporting the range skipped while recovering templates.
+            /// </summary>
+            public static String RecoverTemplatesCorruptRange(long startOffset, long endOffset){
+                return MessageTitle + "Skipped corrupt bytes while recovering templates. Range <" + startOffset + ", " + endOffset + ">";
+            }
+
+
 
+        }
 
+        public static class PersistenceSchedulerErrorMessages{
+            public static String MessageTitle = "PersistenceScheduler: ";
+            public static String WriteError = MessageTitle + "Scheduled write failed. Previously saved files were kept.";
+        }
+        public static class DrinkTemplateJournalErrorMessages{
+            public static String MessageTitle = "DrinkTemplateJournal: ";
+            public static String OpenError = MessageTitle + "IO Error. Failed to create new journal segment.";
+            public static String AppendError = MessageTitle + "IO Error. Failed to append record to journal.";
+            public static String ReplayError = MessageTitle + "Journal segment couldn't be read. Records after the error weren't applied.";
+            public static String CompactionError = MessageTitle + "IO Error. Failed to write snapshot while compacting. Journal segments were kept.";
+            public static String ChecksumError = MessageTitle + "Journal record failed its checksum. Records from it on weren't applied.";
+        }
+        public static class DrinkLogErrorMessages{
+            public static String MessageTitle = "DrinkLog: ";
+            public static String OpenError = MessageTitle + "IO Error. Failed to create new log segment.";
+            public static String AppendError = MessageTitle + "IO Error. Failed to append record to drink log.";
+            public static String ReplayError = MessageTitle + "Log segment couldn't be read. Records after the error weren't applied.";
+            public static String ChecksumError = MessageTitle + "Log record failed its checksum. Records from it on weren't applied.";
+            public static String CompactionError = MessageTitle + "IO Error. Failed to write snapshot while compacting. Log segments were kept.";
+            public static String CorruptSegmentsKeptError = MessageTitle + "Log couldn't be read whole. Log segments were kept and not compacted.";
+        }
+        public static class DrinkHistoryErrorMessages{
+            public static String MessageTitle = "DrinkHistory: ";
+            public static String ReadSegmentError = MessageTitle + "Month segment is corrupt or couldn't be read. Its drinks were skipped.";
+            public static String WriteSegmentError = MessageTitle + "IO Error. Failed to write month segment. The segment was left as it was.";
+        }
+        public static class DrinkTemplateDiffErrorMessages{
+            public static String MessageTitle = "DrinkTemplateDiff: ";
+            public static String InvalidDiffError = MessageTitle + "Bytes aren't an encoded template diff, or are from an unknown version.";
+            public static String TruncatedDiffError = MessageTitle + "Encoded template diff ended part way through a change.";
+        }
+        public static class StorageCipherErrorMessages{
+            public static String MessageTitle = "StorageCipher: ";
+            public static String InvalidFileError = MessageTitle + "File isn't an encrypted file or is from an unknown version.";
+            public static String TruncatedFileError = MessageTitle + "Encrypted file ends before its last chunk.";
+            public static String EncryptError = MessageTitle + "Cipher error. Failed to encrypt chunk.";
+            public static String StreamFinishedError = MessageTitle + "Encrypted stream was written to after it was finished.";
+
+            /// <summary>
+            ///  Given the number of an encrypted chunk that failed to decrypt, returns a
+            ///     message reporting it as corrupt.
+            /// </summary>
+            public static String ChunkFailedError(long chunkNumber){
+                return MessageTitle + "Encrypted chunk <" + chunkNumber + "> failed to decrypt. The file is corrupt or was encrypted with another key.";
+            }
+        }
+
+        public static class StoredFileErrorMessages{
+            public static String MessageTitle = "StoredFileOutputStream: ";
+            public static String StreamClosedError = MessageTitle + "Stored file stream was committed after it was closed.";
+            public static String RenameError = MessageTitle + "IO Error. Failed to rename the written file over the stored file. The stored file was left as it was.";
+        }
+        public static class StorageMigratorErrorMessages{
+            public static String MessageTitle = "StorageMigrator: ";
+            public static String InvalidManifestError = MessageTitle + "Storage manifest is corrupt or an unknown format. Stored files are taken to be at the first schema version, and every migration step will run again.";
+            public static String WriteManifestError = MessageTitle + "IO Error. Failed to write storage manifest. The previous manifest was kept.";
+
+            /// <summary>
+            ///  Given the schema versions a failed migration step was moving between,
+            ///     returns a message reporting the failure.
+            /// </summary>
+            public static String StepFailedError(int fromVersion, int toVersion){
+                return MessageTitle + "Migration step from version <" + fromVersion + "> to <" + toVersion + "> failed. It will run again next start.";
+            }
+            /// <summary>
+            ///  Given the schema version the manifest records and the newest version the app
+            ///     knows, returns a message reporting that the files are newer than the app.
+            /// </summary>
+            public static String NewerSchemaError(int schemaVersion, int targetVersion){
+                return MessageTitle + "Stored files are at schema version <" + schemaVersion + ">, newer than this app's <" + targetVersion + ">. They weren't migrated.";
+            }
         }
 
     }
@@ -172,6 +717,140 @@ public class Universals {
         ///         in the drink template manager.
         /// </summary>
         public static String TemplateListFile = "templates";
+        /// <summary>
+        ///     Represents the file name for the log of drinks logged in the app.
+        /// </summary>
+        public static String DrinkLogFile = "drinks";
+        /// <summary>
+        ///     Represents the file name for the history of drinks from past months.
+        /// </summary>
+        public static String DrinkHistoryFile = "drinkHistory";
+
+        /// <summary>
+        ///     Represents the extensions of files stored in XML and in a binary format.
+        /// </summary>
+        public static String XMLExtension = ".xml";
+        public static String CSVExtension = ".csv";
+        public static String BinaryExtension = ".bin";
+        /// <summary>
+        ///     Represents the extension of journal segment files, and of files written
+        ///         before being renamed into place.
+        /// </summary>
+        public static String JournalExtension = ".journal";
+        public static String LogExtension = ".log";
+        public static String MonthExtension = ".month";
+        public static String TemporaryExtension = ".tmp";
+        /// <summary>
+        ///     Represents the file name for the storage manifest, which records the schema
+        ///         version of the files in the app directory.
+        /// </summary>
+        public static String ManifestFile = "manifest";
+        /// <summary>
+        ///     Represents the file name for the storage encryption key, itself encrypted
+        ///         with a key held by the Android keystore.
+        /// </summary>
+        public static String StorageKeyFile = "storageKey";
+    }
+
+    ///
+    /// Class of binary file format constants used in app backend
+    ///
+    public static class BinaryFormats{
+        ///
+        ///  Format for DrinkTemplateManager
+        ///     -Header: magic number (int), version (short), template count (int), checksum (int)
+        ///     -Followed by one record per template, each followed by its checksum (int)
+        ///     Checksums are the CRC-32C of the header or record before them.
+        ///     Version 1 files have no checksums, and are still read.
+        ///
+        public static class DrinkTemplateManagerFormat{
+            public static final int MagicNumber = 0x44544D42; // "DTMB"
+            public static final short Version = 2;
+            public static final short UncheckedVersion = 1;
+            // Sizes in bytes of the header (without its checksum), a string's length prefix,
+            //  the fixed size fields of a record (servings, type, APV, calories, price), and
+            //  a checksum
+            public static final int HeaderSize = 4 + 2 + 4;
+            public static final int StringLengthSize = 4;
+            public static final int FixedFieldsSize = 2 + 2 + 4 + 4 + 4;
+            public static final int ChecksumSize = 4;
+        }
+        ///
+        ///  Format for DrinkTemplateJournal segments
+        ///     -Header: magic number (int), version (short)
+        ///     -Followed by one record per template mutation, each followed by its checksum
+        ///         (int), the CRC-32C of the record
+        ///     Version 1 segments have no checksums, and are still replayed.
+        ///
+        public static class DrinkTemplateJournalFormat{
+            public static final int MagicNumber = 0x44544A4C; // "DTJL"
+            public static final short Version = 2;
+            public static final short UncheckedVersion = 1;
+        }
+        ///
+        ///  Format for DrinkLog segments
+        ///     -Header: magic number (int), version (short), segment kind (byte)
+        ///     -Followed by one record per drink logged or removed, each followed by its
+        ///         checksum (int), the CRC-32C of the record
+        ///     Version 1 segments store the hour and minute of consumption rather than the
+        ///     packed time, and are still replayed.
+        ///
+        public static class DrinkLogFormat{
+            public static final int MagicNumber = 0x44524C47; // "DRLG"
+            public static final short Version = 2;
+            public static final short UntimedVersion = 1;
+        }
+        ///
+        ///  Format for DrinkHistory month segments
+        ///     -Header: magic number (int), version (short), month (int, yyyymm)
+        ///     -Followed by one record per drink, sorted by time of consumption
+        ///     -Footer: drink count (int), earliest and latest time of consumption (longs),
+        ///         checksum of the header and records (int), checksum of the footer (int)
+        ///     Checksums are CRC-32C.
+        ///
+        public static class DrinkHistoryFormat{
+            public static final int MagicNumber = 0x44524853; // "DRHS"
+            public static final short Version = 1;
+        }
+        ///
+        ///  Format for encoded DrinkTemplateDiffs
+        ///     -Header: magic number (int), version (short), change count (int)
+        ///     -Followed by one record per changed template
+        ///
+        public static class DrinkTemplateDiffFormat{
+            public static final int MagicNumber = 0x44544446; // "DTDF"
+            public static final short Version = 1;
+        }
+        ///
+        ///  Format for the storage manifest
+        ///     -Magic number (int), version (short), schema version (int), checkpoint (long),
+        ///         checksum (int), the CRC-32C of the fields before it
+        ///     Schema versions start at BaseSchemaVersion, the version of files written before
+        ///     the manifest existed.
+        ///
+        public static class StorageManifestFormat{
+            public static final int MagicNumber = 0x44424D46; // "DBMF"
+            public static final short Version = 1;
+            public static final int BaseSchemaVersion = 1;
+            public static final int ChecksumSize = 4;
+            public static final int ManifestSize = 4 + 2 + 4 + 8 + ChecksumSize;
+        }
+        ///
+        ///  Format for files encrypted by StorageCipher
+        ///     -Header: magic number (int), version (short), chunk size (int), nonce prefix
+        ///     -Followed by chunks, each encrypted with AES-GCM and followed by its tag
+        ///     Each chunk's nonce is the nonce prefix, the chunk number (int), and whether
+        ///     it's the last chunk (byte).
+        ///
+        public static class StorageCipherFormat{
+            public static final int MagicNumber = 0x44424543; // "DBEC"
+            public static final short Version = 2;
+            public static final int FileSaltSize = 16;
+            public static final int NonceSize = 12;
+            public static final int TagSize = 16;
+            public static final int HeaderSize = 4 + 2 + 4 + FileSaltSize;
+            public static final int MaxChunkSize = 16 * 1024 * 1024;
+        }
     }
 
     ///